@@ -0,0 +1,179 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.NodeSettings;
+
+/**
+ * Tests interning and the cached hash codes of {@link DataColumnDomain}, {@link DataColumnSpec} and
+ * {@link DataTableSpec}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class DataColumnSpecInternTest {
+
+    private static DataColumnDomain createDomain(final String... values) {
+        DataCell[] cells = new DataCell[values.length];
+        for (int i = 0; i < values.length; i++) {
+            cells[i] = new StringCell(values[i]);
+        }
+        return new DataColumnDomainCreator(cells).createDomain();
+    }
+
+    private static DataColumnSpec createSpec(final String name, final DataColumnDomain domain) {
+        DataColumnSpecCreator creator = new DataColumnSpecCreator(name, StringCell.TYPE);
+        creator.setDomain(domain);
+        return creator.createSpec();
+    }
+
+    /** Equal domains are interned to one instance which shares the possible values. */
+    @Test
+    public void testInternDomain() {
+        DataColumnDomain d1 = createDomain("a", "b", "c");
+        DataColumnDomain d2 = createDomain("a", "b", "c");
+        assertNotSame(d1, d2);
+        DataColumnDomain canonical = d1.intern();
+        assertSame(canonical, d2.intern());
+        assertSame(canonical.getValues(), d2.intern().getValues());
+        assertNotSame(canonical, createDomain("a", "b").intern());
+    }
+
+    /** Equal domains with differently ordered possible values keep their order when interned. */
+    @Test
+    public void testInternKeepsValueOrder() {
+        DataColumnDomain d1 = createDomain("a", "b", "c");
+        DataColumnDomain d2 = createDomain("c", "b", "a");
+        assertEquals(d1, d2);
+        DataColumnDomain canonical1 = d1.intern();
+        DataColumnDomain canonical2 = d2.intern();
+        assertNotSame(canonical1, canonical2);
+        assertEquals(Arrays.asList(d2.getValues().toArray()), Arrays.asList(canonical2.getValues().toArray()));
+        assertSame(canonical2, createDomain("c", "b", "a").intern());
+
+        DataColumnSpec s1 = createSpec("foo", d1).intern();
+        DataColumnSpec s2 = createSpec("foo", d2).intern();
+        assertNotSame(s1, s2);
+        assertSame(canonical2, s2.getDomain());
+    }
+
+    /** Equal column specs are interned to one instance, different columns share an equal domain. */
+    @Test
+    public void testInternColumnSpec() {
+        DataColumnSpec s1 = createSpec("foo", createDomain("x", "y"));
+        DataColumnSpec s2 = createSpec("foo", createDomain("x", "y"));
+        DataColumnSpec other = createSpec("bar", createDomain("x", "y"));
+        assertNotSame(s1, s2);
+        DataColumnSpec canonical = s1.intern();
+        assertEquals(s1, canonical);
+        assertSame(canonical, s2.intern());
+        assertNotSame(canonical, other.intern());
+        assertSame(canonical.getDomain(), other.intern().getDomain());
+    }
+
+    /** Loading a spec twice returns the same instance. */
+    @Test
+    public void testLoadInterns() throws Exception {
+        DataColumnSpec spec = createSpec("foo", createDomain("x", "y", "z"));
+        NodeSettings settings = new NodeSettings("spec");
+        spec.save(settings);
+        DataColumnSpec loaded = DataColumnSpec.load(settings);
+        assertEquals(spec, loaded);
+        assertSame(loaded, DataColumnSpec.load(settings));
+    }
+
+    /** A loaded spec retains the order of its possible values even if an equal spec with another order exists. */
+    @Test
+    public void testLoadKeepsValueOrder() throws Exception {
+        DataColumnSpec other = createSpec("foo", createDomain("z", "y", "x")).intern();
+        DataColumnSpec spec = createSpec("foo", createDomain("x", "y", "z"));
+        NodeSettings settings = new NodeSettings("spec");
+        spec.save(settings);
+        DataColumnSpec loaded = DataColumnSpec.load(settings);
+        assertEquals(Arrays.asList(spec.getDomain().getValues().toArray()),
+            Arrays.asList(loaded.getDomain().getValues().toArray()));
+        assertEquals(other, loaded);
+        assertNotSame(other, loaded);
+    }
+
+    /** Cached hash codes must not change results of equals. */
+    @Test
+    public void testCachedHashCodes() {
+        DataColumnSpec s1 = createSpec("foo", createDomain("x", "y"));
+        DataColumnSpec s2 = createSpec("foo", createDomain("x", "y"));
+        DataColumnSpec s3 = createSpec("foo", createDomain("x", "z"));
+        assertEquals(s1.hashCode(), s1.hashCode());
+        assertEquals(s1.hashCode(), s2.hashCode());
+        assertEquals(s1.getDomain().hashCode(), s2.getDomain().hashCode());
+        assertEquals(s1, s2);
+        // same name and type, hence same hash code, but different domain
+        assertEquals(s1.hashCode(), s3.hashCode());
+        assertNotEquals(s1, s3);
+        assertNotEquals(s1.getDomain(), s3.getDomain());
+
+        DataTableSpec t1 = new DataTableSpec(s1, new DataColumnSpecCreator("d", DoubleCell.TYPE).createSpec());
+        DataTableSpec t2 = new DataTableSpec(s2, new DataColumnSpecCreator("d", DoubleCell.TYPE).createSpec());
+        DataTableSpec t3 = new DataTableSpec(s3, new DataColumnSpecCreator("d", DoubleCell.TYPE).createSpec());
+        DataTableSpec t4 = new DataTableSpec(s1, new DataColumnSpecCreator("e", DoubleCell.TYPE).createSpec());
+        assertEquals(t1.hashCode(), t2.hashCode());
+        assertEquals(t1, t2);
+        t3.hashCode();
+        t4.hashCode();
+        assertNotEquals(t1, t3);
+        assertFalse(t1.equals(t4));
+        assertFalse(t4.equals(t1));
+    }
+}
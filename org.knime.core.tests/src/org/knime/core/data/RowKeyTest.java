@@ -0,0 +1,122 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link RowKey}, in particular the consistency of compact and string keys.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class RowKeyTest {
+
+    /** Compact and string keys are equal and have the same hash code. */
+    @Test
+    public void testCompactEqualsString() {
+        Random r = new Random(4711);
+        String[] prefixes = new String[] {"Row", "", "Row_", "Prefix#"};
+        for (int i = 0; i < 10000; i++) {
+            String prefix = prefixes[i % prefixes.length];
+            long index = i < 1000 ? i : (r.nextLong() & Long.MAX_VALUE);
+            RowKey compact = RowKey.createRowKey(prefix, index);
+            RowKey string = new RowKey(prefix + index);
+            assertTrue(compact.isCompact());
+            assertFalse(string.isCompact());
+            assertEquals(string, compact);
+            assertEquals(compact, string);
+            assertEquals(string.hashCode(), compact.hashCode());
+            assertEquals(string.getString(), compact.getString());
+            assertEquals(compact, string.toCompactKey());
+            assertTrue(string.toCompactKey().isCompact());
+            assertNotEquals(compact, new RowKey(prefix + "0" + index));
+            assertNotEquals(new RowKey(prefix + (index + 1)), compact);
+        }
+    }
+
+    /** Keys that can't be represented compactly stay in string form. */
+    @Test
+    public void testNonCompact() {
+        assertFalse(RowKey.createRowKey(-1).isCompact());
+        assertEquals("Row-1", RowKey.createRowKey(-1).getString());
+        assertFalse(RowKey.createRowKey("Row1", 2).isCompact());
+        assertEquals(new RowKey("Row12"), RowKey.createRowKey("Row1", 2));
+        assertFalse(new RowKey("Row01").toCompactKey().isCompact());
+        assertFalse(new RowKey("Row").toCompactKey().isCompact());
+        assertFalse(new RowKey("Row12345678901234567890").toCompactKey().isCompact());
+        RowKey key = new RowKey("foo");
+        assertSame(key, key.toCompactKey());
+    }
+
+    /** Default keys are compact, prefix and index are accessible. */
+    @Test
+    public void testDefaultKeys() {
+        RowKey key = RowKey.createRowKey(42L);
+        assertTrue(key.isCompact());
+        assertEquals("Row", key.getPrefix());
+        assertEquals(42L, key.getIndex());
+        assertEquals("Row42", key.toString());
+        assertEquals(-1L, new RowKey("Row42").getIndex());
+    }
+
+    /** The string of a compact key is created once and then reused. */
+    @Test
+    public void testCompactStringCached() {
+        RowKey key = RowKey.createRowKey(7L);
+        String str = key.getString();
+        assertEquals("Row7", str);
+        assertSame(str, key.getString());
+        assertSame(str, key.toString());
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.aggregation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests {@link BufferedDataTableAggregator} and the {@link AggregateFunctions} by comparing against a naive
+ * aggregation.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class BufferedDataTableAggregatorTest {
+
+    private static final List<ColumnAggregation> AGGREGATIONS = Arrays.asList(
+        new ColumnAggregation("int", AggregateFunctions.COUNT),
+        new ColumnAggregation("int", AggregateFunctions.SUM),
+        new ColumnAggregation("int", AggregateFunctions.MAX),
+        new ColumnAggregation("int", AggregateFunctions.DISTINCT_COUNT),
+        new ColumnAggregation("double", AggregateFunctions.SUM),
+        new ColumnAggregation("double", AggregateFunctions.MIN),
+        new ColumnAggregation("double", AggregateFunctions.MEAN),
+        new ColumnAggregation("string", AggregateFunctions.MIN),
+        new ColumnAggregation("string", AggregateFunctions.DISTINCT_COUNT));
+
+    private ExecutionContext m_exec;
+
+    /**
+     * Creates the execution context.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Before
+    public void setUp() {
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+            SingleNodeContainer.MemoryPolicy.CacheSmallInMemory, new HashMap<Integer, ContainerTable>());
+    }
+
+    /** Aggregation in a single thread. */
+    @Test
+    public void testSequential() throws Exception {
+        runTest(1, BufferedDataTableAggregator.DEF_NUM_PARTITIONS);
+    }
+
+    /** Aggregation in multiple threads, partial results are merged. */
+    @Test
+    public void testParallel() throws Exception {
+        runTest(4, BufferedDataTableAggregator.DEF_NUM_PARTITIONS);
+        runTest(4, 1);
+    }
+
+    /** Splitting the values across accumulators and merging their states gives the same result. */
+    @Test
+    public void testMergeStates() {
+        Random random = new Random(17);
+        for (ColumnAggregation a : AGGREGATIONS) {
+            DataType type = createSpec().getColumnSpec(a.getColumnName()).getType();
+            Accumulator all = a.getFunction().createAccumulator(type);
+            Accumulator part1 = a.getFunction().createAccumulator(type);
+            Accumulator part2 = a.getFunction().createAccumulator(type);
+            for (int i = 0; i < 200; i++) {
+                DataCell cell = createRow(i, random).getCell(createSpec().findColumnIndex(a.getColumnName()));
+                all.add(cell);
+                (i % 3 == 0 ? part1 : part2).add(cell);
+            }
+            Accumulator merged = a.getFunction().createAccumulator(type);
+            merged.addState(part1.getState());
+            merged.addState(part2.getState());
+            Assert.assertEquals("Wrong merged result for " + a, all.getResult(), merged.getResult());
+        }
+    }
+
+    /** Empty groups yield a missing sum and mean but a zero count. */
+    @Test
+    public void testNoValues() {
+        Assert.assertTrue(AggregateFunctions.SUM.createAccumulator(IntCell.TYPE).getResult().isMissing());
+        Assert.assertTrue(AggregateFunctions.MEAN.createAccumulator(DoubleCell.TYPE).getResult().isMissing());
+        Assert.assertEquals(0L,
+            ((LongValue)AggregateFunctions.COUNT.createAccumulator(IntCell.TYPE).getResult()).getLongValue());
+    }
+
+    /** Incompatible columns are rejected. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testIncompatibleColumn() {
+        BufferedDataTableAggregator.createOutputSpec(createSpec(), Arrays.asList("group"),
+            Arrays.asList(new ColumnAggregation("string", AggregateFunctions.SUM)));
+    }
+
+    private void runTest(final int maxThreads, final int numPartitions) throws Exception {
+        Random random = new Random(4711);
+        BufferedDataContainer container = m_exec.createDataContainer(createSpec());
+        for (int i = 0; i < 10000; i++) {
+            container.addRowToTable(createRow(i, random));
+        }
+        container.close();
+        BufferedDataTable table = container.getTable();
+
+        BufferedDataTableAggregator aggregator =
+            new BufferedDataTableAggregator(table, Arrays.asList("group"), AGGREGATIONS);
+        aggregator.setMaxThreads(maxThreads);
+        aggregator.setNumPartitions(numPartitions);
+        BufferedDataTable result = aggregator.aggregate(m_exec);
+
+        Map<DataCell, List<DataCell>> expected = naiveAggregation(table);
+        Assert.assertEquals(AGGREGATIONS.size() + 1, result.getDataTableSpec().getNumColumns());
+        Assert.assertEquals(expected.size(), result.size());
+        for (DataRow row : result) {
+            List<DataCell> expectedCells = expected.get(row.getCell(0));
+            Assert.assertNotNull("Unexpected group " + row.getCell(0), expectedCells);
+            for (int i = 0; i < expectedCells.size(); i++) {
+                DataCell e = expectedCells.get(i);
+                DataCell a = row.getCell(i + 1);
+                if (e instanceof DoubleValue && a instanceof DoubleValue) {
+                    Assert.assertEquals(AGGREGATIONS.get(i).toString(), ((DoubleValue)e).getDoubleValue(),
+                        ((DoubleValue)a).getDoubleValue(), 1e-6);
+                } else {
+                    Assert.assertEquals(AGGREGATIONS.get(i).toString(), e, a);
+                }
+            }
+        }
+    }
+
+    private static Map<DataCell, List<DataCell>> naiveAggregation(final BufferedDataTable table) {
+        Map<DataCell, List<DataRow>> groups = new HashMap<>();
+        for (DataRow row : table) {
+            groups.computeIfAbsent(row.getCell(0), k -> new ArrayList<>()).add(row);
+        }
+        Map<DataCell, List<DataCell>> result = new HashMap<>();
+        for (Map.Entry<DataCell, List<DataRow>> e : groups.entrySet()) {
+            long count = 0;
+            long intSum = 0;
+            Integer intMax = null;
+            Set<DataCell> intDistinct = new HashSet<>();
+            double doubleSum = 0;
+            int doubleCount = 0;
+            Double doubleMin = null;
+            String stringMin = null;
+            Set<DataCell> stringDistinct = new HashSet<>();
+            for (DataRow row : e.getValue()) {
+                if (!row.getCell(1).isMissing()) {
+                    int v = ((IntValue)row.getCell(1)).getIntValue();
+                    count++;
+                    intSum += v;
+                    intMax = intMax == null ? v : Math.max(intMax, v);
+                    intDistinct.add(row.getCell(1));
+                }
+                if (!row.getCell(2).isMissing()) {
+                    double v = ((DoubleValue)row.getCell(2)).getDoubleValue();
+                    doubleSum += v;
+                    doubleCount++;
+                    doubleMin = doubleMin == null ? v : Math.min(doubleMin, v);
+                }
+                if (!row.getCell(3).isMissing()) {
+                    String v = row.getCell(3).toString();
+                    stringMin = stringMin == null || v.compareTo(stringMin) < 0 ? v : stringMin;
+                    stringDistinct.add(row.getCell(3));
+                }
+            }
+            DataCell missing = DataType.getMissingCell();
+            result.put(e.getKey(), Arrays.asList(new LongCell(count),
+                count == 0 ? missing : new LongCell(intSum),
+                intMax == null ? missing : new IntCell(intMax),
+                new LongCell(intDistinct.size()),
+                doubleCount == 0 ? missing : new DoubleCell(doubleSum),
+                doubleMin == null ? missing : new DoubleCell(doubleMin),
+                doubleCount == 0 ? missing : new DoubleCell(doubleSum / doubleCount),
+                stringMin == null ? missing : new StringCell(stringMin),
+                new LongCell(stringDistinct.size())));
+        }
+        return result;
+    }
+
+    private static DataTableSpec createSpec() {
+        return new DataTableSpec("input", new DataColumnSpecCreator("group", StringCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("int", IntCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("double", DoubleCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("string", StringCell.TYPE).createSpec());
+    }
+
+    private static DataRow createRow(final int index, final Random random) {
+        DataCell missing = DataType.getMissingCell();
+        DataCell group = random.nextInt(50) == 0 ? missing : new StringCell("g" + random.nextInt(500));
+        DataCell intCell = random.nextInt(10) == 0 ? missing : new IntCell(random.nextInt(100) - 50);
+        DataCell doubleCell = random.nextInt(10) == 0 ? missing : new DoubleCell(random.nextGaussian());
+        DataCell stringCell = random.nextInt(10) == 0 ? missing : new StringCell("s" + random.nextInt(30));
+        return new DefaultRow(RowKey.createRowKey((long)index), group, intCell, doubleCell, stringCell);
+    }
+}
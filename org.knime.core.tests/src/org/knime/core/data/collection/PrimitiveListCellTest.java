@@ -0,0 +1,134 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.collection;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataTable;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.container.DataContainer;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Tests the primitive-array-backed list cells ({@link DoubleListCell}, {@link IntListCell}, {@link LongListCell}).
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class PrimitiveListCellTest {
+
+    /** Tests that the cells behave like a {@link ListCell} with the same elements. */
+    @Test
+    public void testSameAsListCell() throws Exception {
+        final double[] d = new double[]{1.0, -2.5, Double.NaN, 0.0};
+        final List<DataCell> doubleCells =
+            IntStream.range(0, d.length).mapToObj(i -> new DoubleCell(d[i])).collect(Collectors.toList());
+        final List<DataCell> intCells = IntStream.range(0, 100).mapToObj(IntCell::new).collect(Collectors.toList());
+        final List<DataCell> longCells =
+            IntStream.range(0, 100).mapToObj(i -> new LongCell(i * 1000000000000L)).collect(Collectors.toList());
+
+        final ListCell[][] pairs = new ListCell[][]{
+            {CollectionCellFactory.createDoubleListCell(d), CollectionCellFactory.createListCell(doubleCells)},
+            {CollectionCellFactory.createIntListCell(IntStream.range(0, 100).toArray()),
+                CollectionCellFactory.createListCell(intCells)},
+            {CollectionCellFactory.createLongListCell(longCells.stream()
+                .mapToLong(c -> ((LongCell)c).getLongValue()).toArray()),
+                CollectionCellFactory.createListCell(longCells)}};
+        for (ListCell[] pair : pairs) {
+            final ListCell primitive = pair[0];
+            final ListCell reference = pair[1];
+            Assert.assertEquals(reference.getType(), primitive.getType());
+            Assert.assertEquals(reference.getElementType(), primitive.getElementType());
+            Assert.assertEquals(reference.size(), primitive.size());
+            Assert.assertEquals(reference.get(1), primitive.get(1));
+            Assert.assertEquals(reference, primitive);
+            Assert.assertEquals(primitive, reference);
+            Assert.assertEquals(reference.hashCode(), primitive.hashCode());
+            Assert.assertEquals(reference.toString(), primitive.toString());
+        }
+        Assert.assertNotEquals(CollectionCellFactory.createIntListCell(new int[]{1, 2}),
+            CollectionCellFactory.createIntListCell(new int[]{1, 3}));
+    }
+
+    /** Tests that the cells are written to and read from a table. */
+    @Test
+    public void testSerialization() throws Exception {
+        final double[] d = IntStream.range(0, 10000).mapToDouble(i -> i / 3.0).toArray();
+        final DataCell cell = CollectionCellFactory.createDoubleListCell(d);
+        final DataContainer c = new DataContainer(new DataTableSpec(
+            new DataColumnSpecCreator("foo", ListCell.getCollectionType(DoubleCell.TYPE)).createSpec()));
+        c.addRowToTable(new DefaultRow("row", cell));
+        c.close();
+        final DataTable table = c.getTable();
+        byte[] bytes;
+        try (ByteArrayOutputStream output = new ByteArrayOutputStream()) {
+            DataContainer.writeToStream(table, output, new ExecutionMonitor());
+            output.close();
+            bytes = output.toByteArray();
+        }
+
+        ContainerTable containerTable;
+        try (ByteArrayInputStream input = new ByteArrayInputStream(bytes)) {
+            containerTable = DataContainer.readFromStream(input);
+        }
+        final DataCell cell2 = containerTable.iterator().next().getCell(0);
+        Assert.assertTrue(cell2 instanceof DoubleListCell);
+        Assert.assertEquals(cell, cell2);
+        Assert.assertArrayEquals(d, ((DoubleListCell)cell2).getDoubleArray(), 0.0);
+    }
+}
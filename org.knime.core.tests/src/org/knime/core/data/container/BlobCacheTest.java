@@ -0,0 +1,157 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.container.BlobDataCell.BlobAddress;
+
+/**
+ * Tests the {@link BlobCache}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class BlobCacheTest {
+
+    /** Blob cell used for testing. */
+    private static final class TestBlobCell extends BlobDataCell {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int m_value;
+
+        TestBlobCell(final int value) {
+            m_value = value;
+        }
+
+        @Override
+        public String toString() {
+            return Integer.toString(m_value);
+        }
+
+        @Override
+        protected boolean equalsDataCell(final DataCell dc) {
+            return ((TestBlobCell)dc).m_value == m_value;
+        }
+
+        @Override
+        public int hashCode() {
+            return m_value;
+        }
+    }
+
+    private static BlobAddress address(final int bufferID, final int index) {
+        final BlobAddress address = new BlobAddress(bufferID, 0, false);
+        address.setIndexOfBlobInColumn(index);
+        return address;
+    }
+
+    /** Tests hits, misses and that blobs are distinguished by the unique buffer ID. */
+    @Test
+    public void testGetAndPut() {
+        final BlobCache cache = new BlobCache(1 << 20);
+        final TestBlobCell cell = new TestBlobCell(1);
+        Assert.assertNull(cache.get(1L, address(0, 0)));
+        cache.put(1L, address(0, 0), cell, 100);
+        Assert.assertSame(cell, cache.get(1L, address(0, 0)));
+        Assert.assertNull(cache.get(2L, address(0, 0)));
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(2, cache.getMissCount());
+        Assert.assertEquals(100, cache.getWeight());
+
+        cache.invalidate(1L);
+        Assert.assertNull(cache.get(1L, address(0, 0)));
+        Assert.assertEquals(0, cache.getWeight());
+    }
+
+    /** Tests that the total size stays within the budget and that oversized blobs are not cached. */
+    @Test
+    public void testEviction() {
+        final BlobCache cache = new BlobCache(16 * 1000);
+        final TestBlobCell[] cells = new TestBlobCell[1000];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = new TestBlobCell(i);
+            cache.put(1L, address(0, i), cells[i], 100);
+            Assert.assertTrue(cache.getWeight() <= cache.getMaxWeight());
+        }
+        Assert.assertTrue(cache.getEvictionCount() > 0);
+        Assert.assertSame(cells[999], cache.get(1L, address(0, 999)));
+
+        // blobs larger than a segment's share are cached, blobs larger than the budget are not
+        final TestBlobCell large = new TestBlobCell(1000);
+        cache.put(1L, address(0, 1000), large, 2000);
+        Assert.assertSame(large, cache.get(1L, address(0, 1000)));
+        cache.put(1L, address(0, 1001), new TestBlobCell(1001), 16 * 1000 + 1);
+        Assert.assertNull(cache.get(1L, address(0, 1001)));
+        Assert.assertSame(cells[999], cache.get(1L, address(0, 999)));
+        Assert.assertTrue(cache.getWeight() <= cache.getMaxWeight());
+    }
+
+    /** Tests that the least recently used blobs of all segments are evicted first. */
+    @Test
+    public void testGlobalLeastRecentlyUsed() {
+        final BlobCache cache = new BlobCache(5 * 1000);
+        final TestBlobCell[] cells = new TestBlobCell[10];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = new TestBlobCell(i);
+            cache.put(1L, address(0, i), cells[i], 1000);
+            if (i == 5) {
+                // touch the first remaining blob, which then outlives the blobs added before
+                Assert.assertSame(cells[1], cache.get(1L, address(0, 1)));
+            }
+        }
+        Assert.assertEquals(5 * 1000, cache.getWeight());
+        Assert.assertEquals(5, cache.getEvictionCount());
+        Assert.assertSame(cells[1], cache.get(1L, address(0, 1)));
+        for (int i = 6; i < cells.length; i++) {
+            Assert.assertSame(cells[i], cache.get(1L, address(0, i)));
+        }
+        for (int i : new int[]{0, 2, 3, 4, 5}) {
+            Assert.assertNull(cache.get(1L, address(0, i)));
+        }
+    }
+}
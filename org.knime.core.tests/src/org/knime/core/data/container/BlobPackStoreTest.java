@@ -0,0 +1,212 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.Arrays;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the {@link BlobPackStore}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class BlobPackStoreTest {
+
+    /** Folder used as blob directory. */
+    @Rule
+    public TemporaryFolder m_tempFolder = new TemporaryFolder();
+
+    private static void write(final BlobPackStore store, final int column, final int index, final byte[] bytes)
+        throws IOException {
+        try (OutputStream out = store.openOutputStream(column, index)) {
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] read(final BlobPackStore store, final int column, final int index) throws IOException {
+        try (InputStream in = store.openInputStream(column, index)) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            IOUtils.copy(in, out);
+            return out.toByteArray();
+        }
+    }
+
+    /** Tests that blobs are read back from the pack, also by a new store instance that has to scan the pack. */
+    @Test
+    public void testWriteAndRead() throws Exception {
+        final File blobDir = m_tempFolder.newFolder();
+        Assert.assertFalse(BlobPackStore.containsPacks(blobDir));
+        final BlobPackStore store = new BlobPackStore(blobDir);
+        final byte[] large = new byte[100000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte)i;
+        }
+        write(store, 0, 0, new byte[]{1, 2, 3});
+        write(store, 0, 1, new byte[0]);
+        write(store, 0, 2, large);
+        write(store, 3, 0, new byte[]{4});
+        Assert.assertTrue(BlobPackStore.containsPacks(blobDir));
+        Assert.assertEquals(2, blobDir.list().length);
+
+        for (BlobPackStore s : new BlobPackStore[]{store, new BlobPackStore(blobDir)}) {
+            Assert.assertArrayEquals(new byte[]{1, 2, 3}, read(s, 0, 0));
+            Assert.assertArrayEquals(new byte[0], read(s, 0, 1));
+            Assert.assertArrayEquals(large, read(s, 0, 2));
+            Assert.assertArrayEquals(new byte[]{4}, read(s, 3, 0));
+        }
+    }
+
+    /** Tests that streams of the same pack can be read interleaved, they share the pack's read channel. */
+    @Test
+    public void testInterleavedReads() throws Exception {
+        final BlobPackStore store = new BlobPackStore(m_tempFolder.newFolder());
+        final int numBlobs = 10;
+        for (int i = 0; i < numBlobs; i++) {
+            final byte[] bytes = new byte[20000 + i];
+            Arrays.fill(bytes, (byte)i);
+            write(store, 0, i, bytes);
+        }
+        final InputStream[] streams = new InputStream[numBlobs];
+        for (int i = 0; i < numBlobs; i++) {
+            streams[i] = store.openInputStream(0, i);
+        }
+        final byte[] chunk = new byte[100];
+        for (int round = 0; round < 200; round++) {
+            for (int i = 0; i < numBlobs; i++) {
+                Assert.assertEquals(i, streams[i].read());
+                Assert.assertEquals(99, streams[i].skip(99));
+            }
+        }
+        for (int i = 0; i < numBlobs; i++) {
+            int read;
+            int total = 0;
+            while ((read = streams[i].read(chunk)) > 0) {
+                for (int j = 0; j < read; j++) {
+                    Assert.assertEquals(i, chunk[j]);
+                }
+                total += read;
+            }
+            Assert.assertEquals(i, total);
+            streams[i].close();
+        }
+    }
+
+    /** Tests that blobs can be appended and read after the channels have been closed. */
+    @Test
+    public void testAppendAfterClose() throws Exception {
+        final File blobDir = m_tempFolder.newFolder();
+        final BlobPackStore store = new BlobPackStore(blobDir);
+        write(store, 0, 0, new byte[]{1});
+        store.closeAppendChannels();
+        Assert.assertArrayEquals(new byte[]{1}, read(store, 0, 0));
+        write(store, 0, 1, new byte[]{2, 3});
+        store.close();
+        Assert.assertArrayEquals(new byte[]{1}, read(store, 0, 0));
+        Assert.assertArrayEquals(new byte[]{2, 3}, read(store, 0, 1));
+        store.close();
+        final BlobPackStore reopened = new BlobPackStore(blobDir);
+        write(reopened, 0, 2, new byte[]{4});
+        Assert.assertArrayEquals(new byte[]{2, 3}, read(reopened, 0, 1));
+        Assert.assertArrayEquals(new byte[]{4}, read(reopened, 0, 2));
+        reopened.close();
+    }
+
+    /**
+     * Tests that an interrupted reader, which closes the shared read channel, affects neither later reads nor
+     * streams that were opened by other readers before.
+     */
+    @Test
+    public void testReadAfterInterrupt() throws Exception {
+        final BlobPackStore store = new BlobPackStore(m_tempFolder.newFolder());
+        final byte[] bytes = new byte[100000];
+        Arrays.fill(bytes, (byte)7);
+        write(store, 0, 0, bytes);
+        write(store, 0, 1, new byte[]{1, 2});
+        final InputStream other = store.openInputStream(0, 0);
+        Assert.assertEquals(7, other.read());
+
+        Thread.currentThread().interrupt();
+        try {
+            read(store, 0, 1);
+            Assert.fail("Read of interrupted thread expected to fail");
+        } catch (ClosedByInterruptException e) {
+            // expected
+        } finally {
+            Thread.interrupted();
+        }
+
+        Assert.assertArrayEquals(new byte[]{1, 2}, read(store, 0, 1));
+        final byte[] rest = new byte[bytes.length - 1];
+        int total = 0;
+        int read;
+        while ((read = other.read(rest, total, rest.length - total)) > 0) {
+            total += read;
+        }
+        Assert.assertEquals(rest.length, total);
+        Assert.assertArrayEquals(Arrays.copyOf(bytes, rest.length), rest);
+        other.close();
+        store.close();
+    }
+
+    /** Tests that reading a blob that has not been written fails. */
+    @Test(expected = IOException.class)
+    public void testMissingBlob() throws Exception {
+        final BlobPackStore store = new BlobPackStore(m_tempFolder.newFolder());
+        write(store, 0, 0, new byte[]{1});
+        read(store, 0, 1);
+    }
+}
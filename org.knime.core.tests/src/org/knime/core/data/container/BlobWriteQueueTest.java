@@ -0,0 +1,138 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the {@link BlobWriteQueue}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class BlobWriteQueueTest {
+
+    /** Folder used as blob directory. */
+    @Rule
+    public TemporaryFolder m_tempFolder = new TemporaryFolder();
+
+    private static byte[] content(final int column, final int index) {
+        final byte[] bytes = new byte[1000 + index];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte)(i + index + column);
+        }
+        return bytes;
+    }
+
+    private static BlobWriteQueue.BlobContent writer(final byte[] bytes) {
+        return out -> {
+            try (OutputStream o = out) {
+                o.write(bytes);
+            }
+        };
+    }
+
+    private static byte[] read(final BlobPackStore store, final int column, final int index) throws IOException {
+        try (InputStream in = store.openInputStream(column, index)) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            IOUtils.copy(in, out);
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Tests that blobs submitted in the background and written on the calling thread all end up in the pack store,
+     * which fails on concurrent writes to a column.
+     */
+    @Test
+    public void testSubmitAndFlush() throws Exception {
+        final BlobPackStore store = new BlobPackStore(m_tempFolder.newFolder());
+        final BlobWriteQueue queue =
+            new BlobWriteQueue((index, column, isCompressed) -> store.openOutputStream(column, index));
+        for (int i = 0; i < 200; i++) {
+            queue.submit(i, i % 2, false, writer(content(i % 2, i)));
+            if (i % 50 == 0) {
+                queue.write(1000 + i, 0, false, writer(content(0, 1000 + i)));
+            }
+        }
+        queue.await(199, 1);
+        Assert.assertArrayEquals(content(1, 199), read(store, 1, 199));
+        queue.flush();
+        for (int i = 0; i < 200; i++) {
+            Assert.assertArrayEquals(content(i % 2, i), read(store, i % 2, i));
+        }
+        Assert.assertArrayEquals(content(0, 1050), read(store, 0, 1050));
+    }
+
+    /** Tests that a failing background write is reported by flush and subsequent submits. */
+    @Test
+    public void testFailure() throws Exception {
+        final BlobWriteQueue queue = new BlobWriteQueue((index, column, isCompressed) -> new ByteArrayOutputStream());
+        queue.submit(0, 0, false, out -> {
+            throw new IOException("Test failure");
+        });
+        try {
+            queue.flush();
+            Assert.fail("Expected exception");
+        } catch (IOException ioe) {
+            // expected
+        }
+        try {
+            queue.submit(1, 0, false, writer(new byte[]{1}));
+            Assert.fail("Expected exception");
+        } catch (IOException ioe) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests the partitions and the table key suffix of {@link ConcatenateTable}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ConcatenateTableTest {
+
+    private ExecutionContext m_exec;
+
+    /**
+     * Creates the execution context.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Before
+    public void setUp() {
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+            SingleNodeContainer.MemoryPolicy.CacheSmallInMemory, new HashMap<Integer, ContainerTable>());
+    }
+
+    /** Keys get the table index appended, partitions return the same rows as the table iterator. */
+    @Test
+    public void testTableKeySuffix() {
+        BufferedDataTable t1 = createTable(3, true);
+        BufferedDataTable t2 = createTable(2, true);
+        ConcatenateTable table = ConcatenateTable.createWithTableKeySuffix("#", t1, t2);
+        Assert.assertEquals(5, table.size());
+        Assert.assertEquals(2, table.getNumPartitions());
+        Assert.assertEquals(3, table.getPartitionSize(0));
+
+        List<String> keys = new ArrayList<>();
+        for (DataRow row : table) {
+            keys.add(row.getKey().getString());
+        }
+        List<String> partitionKeys = new ArrayList<>();
+        for (int p = 0; p < table.getNumPartitions(); p++) {
+            try (CloseableRowIterator it = table.partitionIterator(p)) {
+                while (it.hasNext()) {
+                    partitionKeys.add(it.next().getKey().getString());
+                }
+            }
+        }
+        Assert.assertEquals(Arrays.asList("Row0#0", "Row1#0", "Row2#0", "Row0#1", "Row1#1"), keys);
+        Assert.assertEquals(keys, partitionKeys);
+    }
+
+    /** Columns missing in one of the tables are filled with missing values in its partition. */
+    @Test
+    public void testPartitionOfDifferentSpec() {
+        BufferedDataTable t1 = createTable(2, true);
+        BufferedDataTable t2 = createTable(2, false);
+        ConcatenateTable table = ConcatenateTable.createWithTableKeySuffix("_", t1, t2);
+        Assert.assertEquals(2, table.getDataTableSpec().getNumColumns());
+        try (CloseableRowIterator it = table.partitionIterator(1)) {
+            DataRow row = it.next();
+            Assert.assertEquals("Row0_1", row.getKey().getString());
+            Assert.assertTrue(row.getCell(0).isMissing());
+            Assert.assertEquals(new IntCell(0), row.getCell(1));
+        }
+    }
+
+    /** Separators ending with a digit would render keys ambiguous. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSeparator() {
+        ConcatenateTable.createWithTableKeySuffix("_1", createTable(1, true));
+    }
+
+    /** Creates a table with a string column "a" (if requested) and an int column "b", holding the row index. */
+    private BufferedDataTable createTable(final int rowCount, final boolean withStringColumn) {
+        DataColumnSpecCreator intCol = new DataColumnSpecCreator("b", IntCell.TYPE);
+        DataTableSpec spec = withStringColumn
+            ? new DataTableSpec(new DataColumnSpecCreator("a", StringCell.TYPE).createSpec(), intCol.createSpec())
+            : new DataTableSpec(intCol.createSpec());
+        BufferedDataContainer container = m_exec.createDataContainer(spec);
+        for (int i = 0; i < rowCount; i++) {
+            RowKey key = RowKey.createRowKey((long)i);
+            container.addRowToTable(withStringColumn ? new DefaultRow(key, new StringCell("s" + i), new IntCell(i))
+                : new DefaultRow(key, new IntCell(i)));
+        }
+        container.close();
+        return container.getTable();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+import org.knime.core.data.RowKey;
+import org.knime.core.node.KNIMEConstants;
+
+/**
+ * Tests writing and reading row keys in both the plain and the compact encoding of {@link DCObjectOutputVersion2}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class DCObjectRowKeyTest {
+
+    private static final RowKey[] KEYS = new RowKey[]{RowKey.createRowKey(0L), RowKey.createRowKey(1L),
+        new RowKey("Row2"), new RowKey("foo"), RowKey.createRowKey("bar", 17L), RowKey.createRowKey(3L),
+        new RowKey("Row04"), RowKey.createRowKey("bar", 2L)};
+
+    /** Plain encoding as understood by versions prior to 3.8. */
+    @Test
+    public void testPlainRoundTrip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DCObjectOutputVersion2 out = new DCObjectOutputVersion2(bytes, null)) {
+            for (RowKey key : KEYS) {
+                out.writeRowKey(key);
+            }
+        }
+        DCObjectInputVersion2 in = new DCObjectInputVersion2(new ByteArrayInputStream(bytes.toByteArray()), null);
+        for (RowKey key : KEYS) {
+            assertEquals(key, in.readRowKey());
+        }
+    }
+
+    /** Compact encoding (container version 13), compact keys are restored as compact keys. */
+    @Test
+    public void testEncodedRoundTrip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DCObjectOutputVersion2 out = new DCObjectOutputVersion2(bytes, null)) {
+            for (RowKey key : KEYS) {
+                out.writeEncodedRowKey(key);
+            }
+        }
+        DCObjectInputVersion2 in = new DCObjectInputVersion2(new ByteArrayInputStream(bytes.toByteArray()), null);
+        for (RowKey key : KEYS) {
+            RowKey read = in.readEncodedRowKey();
+            assertEquals(key, read);
+            assertEquals(key.toString(), read.toString());
+            assertEquals(key.toCompactKey().isCompact(), read.isCompact());
+        }
+    }
+
+    /** Compact row keys are off by default, tables remain readable by versions prior to 3.8. */
+    @Test
+    public void testDefaultWriteVersion() {
+        if (!Boolean.getBoolean(KNIMEConstants.PROPERTY_COMPACT_ROW_KEYS)) {
+            assertEquals("container_12", Buffer.WRITE_VERSION);
+            assertEquals(12, Buffer.WRITE_IVERSION);
+        }
+        assertTrue(Buffer.WRITE_IVERSION <= Buffer.IVERSION);
+    }
+}
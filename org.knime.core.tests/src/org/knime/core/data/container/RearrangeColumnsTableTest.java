@@ -0,0 +1,170 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.util.HashMap;
+import java.util.Iterator;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests the sequential, row-wise parallel and batched parallel processing of {@link RearrangeColumnsTable}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class RearrangeColumnsTableTest {
+
+    private ExecutionContext m_exec;
+
+    /**
+     * Creates the execution context.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Before
+    public void setUp() {
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+            SingleNodeContainer.MemoryPolicy.CacheSmallInMemory, new HashMap<Integer, ContainerTable>());
+    }
+
+    /** All processing modes give the same rows in the same order, including a last partial batch. */
+    @Test
+    public void testProcessingModes() throws Exception {
+        BufferedDataTable in = createTable(10007);
+        BufferedDataTable sequential = appendSquare(in, 0);
+        BufferedDataTable rowWise = appendSquare(in, 1);
+        BufferedDataTable batched = appendSquare(in, 2);
+        assertEqualTables(sequential, rowWise);
+        assertEqualTables(sequential, batched);
+    }
+
+    /** Exceptions in a batch are rethrown in the caller. */
+    @Test(expected = IllegalStateException.class)
+    public void testExceptionInBatch() throws Exception {
+        BufferedDataTable in = createTable(5000);
+        ColumnRearranger rearranger = new ColumnRearranger(in.getDataTableSpec());
+        SingleCellFactory factory =
+            new SingleCellFactory(new DataColumnSpecCreator("fail", IntCell.TYPE).createSpec()) {
+            @Override
+            public DataCell getCell(final DataRow row) {
+                if (((IntValue)row.getCell(0)).getIntValue() == 4321) {
+                    throw new IllegalStateException("Expected failure");
+                }
+                return row.getCell(0);
+            }
+        };
+        factory.setBatchedParallelProcessing(true, 4, 100);
+        rearranger.append(factory);
+        m_exec.createColumnRearrangeTable(in, rearranger, m_exec);
+    }
+
+    /**
+     * @param mode 0: sequential, 1: parallel row by row, 2: parallel in batches
+     */
+    private BufferedDataTable appendSquare(final BufferedDataTable in, final int mode) throws Exception {
+        ColumnRearranger rearranger = new ColumnRearranger(in.getDataTableSpec());
+        SingleCellFactory factory =
+            new SingleCellFactory(new DataColumnSpecCreator("square", IntCell.TYPE).createSpec()) {
+            @Override
+            public DataCell getCell(final DataRow row) {
+                int v = ((IntValue)row.getCell(0)).getIntValue();
+                return new IntCell(v * v);
+            }
+        };
+        if (mode == 1) {
+            factory.setParallelProcessing(true, 4, 40);
+        } else if (mode == 2) {
+            factory.setBatchedParallelProcessing(true, 4, 100);
+            Assert.assertTrue(factory.isParallelProcessing());
+            Assert.assertEquals(100, factory.getBatchSize());
+        }
+        rearranger.append(factory);
+        return m_exec.createColumnRearrangeTable(in, rearranger, m_exec);
+    }
+
+    private static void assertEqualTables(final BufferedDataTable expected, final BufferedDataTable actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        Iterator<DataRow> itExpected = expected.iterator();
+        Iterator<DataRow> itActual = actual.iterator();
+        while (itExpected.hasNext()) {
+            DataRow e = itExpected.next();
+            DataRow a = itActual.next();
+            Assert.assertEquals(e.getKey(), a.getKey());
+            Assert.assertEquals(e.getCell(1), a.getCell(1));
+        }
+    }
+
+    private BufferedDataTable createTable(final int rowCount) {
+        BufferedDataContainer container = m_exec.createDataContainer(
+            new DataTableSpec(new DataColumnSpecCreator("value", IntCell.TYPE).createSpec()));
+        for (int i = 0; i < rowCount; i++) {
+            container.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), new IntCell(i)));
+        }
+        container.close();
+        return container.getTable();
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.filestore.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.knime.core.data.filestore.FileStoreKey;
+
+/**
+ * Tests the {@link FileStoreContentIndex}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class FileStoreContentIndexTest {
+
+    /** Folder for the file store files. */
+    @Rule
+    public TemporaryFolder m_tempFolder = new TemporaryFolder();
+
+    private File write(final String name, final String content) throws IOException {
+        final File file = m_tempFolder.newFile(name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /** Tests that identical content has identical digests, also for directories. */
+    @Test
+    public void testDigest() throws Exception {
+        final String a = FileStoreContentIndex.digest(write("a", "model"));
+        Assert.assertEquals(a, FileStoreContentIndex.digest(write("b", "model")));
+        Assert.assertNotEquals(a, FileStoreContentIndex.digest(write("c", "other")));
+
+        final File dir1 = m_tempFolder.newFolder("dir1");
+        final File dir2 = m_tempFolder.newFolder("dir2");
+        Files.write(new File(dir1, "x").toPath(), new byte[]{1, 2});
+        Files.write(new File(dir2, "x").toPath(), new byte[]{1, 2});
+        Assert.assertEquals(FileStoreContentIndex.digest(dir1), FileStoreContentIndex.digest(dir2));
+        Files.write(new File(dir2, "y").toPath(), new byte[0]);
+        Assert.assertNotEquals(FileStoreContentIndex.digest(dir1), FileStoreContentIndex.digest(dir2));
+    }
+
+    /** Tests that shared content is only released with its last reference. */
+    @Test
+    public void testReferenceCounting() {
+        final FileStoreContentIndex index = new FileStoreContentIndex();
+        final FileStoreKey key = new FileStoreKey(UUID.randomUUID(), 0, null, -1, "model");
+        Assert.assertNull(index.retain("abc"));
+        index.add("abc", key);
+        index.startIteration();
+        Assert.assertSame(key, index.retain("abc"));
+        Assert.assertEquals(2, index.getReferenceCount(key));
+        Assert.assertFalse(index.release(key));
+        Assert.assertTrue(index.release(key));
+        Assert.assertEquals(0, index.size());
+        Assert.assertNull(index.retain("abc"));
+        Assert.assertTrue("Unknown keys can always be deleted", index.release(key));
+    }
+
+    /**
+     * Tests a loop producing the same content in several iterations: copies within an iteration share a single
+     * reference (the loop cache releases each file store once per iteration), file stores kept by an earlier
+     * iteration are only released once later iterations released them, too.
+     */
+    @Test
+    public void testLoopIterations() {
+        final FileStoreContentIndex index = new FileStoreContentIndex();
+        final FileStoreKey key = new FileStoreKey(UUID.randomUUID(), 0, null, -1, "model");
+
+        // iteration 1: three copies of the same content, temporary in the iteration
+        index.startIteration();
+        index.add("abc", key);
+        Assert.assertSame(key, index.retain("abc"));
+        Assert.assertSame(key, index.retain("abc"));
+        index.retain(key);
+        Assert.assertEquals(1, index.getReferenceCount(key));
+        Assert.assertTrue("Temporary file store must be deletable after the iteration", index.release(key));
+        Assert.assertEquals(0, index.size());
+
+        // iteration 2: the content is copied again and kept by the loop end (not released)
+        index.startIteration();
+        Assert.assertNull(index.retain("abc"));
+        index.add("abc", key);
+        Assert.assertSame(key, index.retain("abc"));
+
+        // iterations 3 and 4: the kept file store is shared and temporary in these iterations
+        for (int i = 0; i < 2; i++) {
+            index.startIteration();
+            Assert.assertSame(key, index.retain("abc"));
+            Assert.assertSame(key, index.retain("abc"));
+            Assert.assertEquals(2, index.getReferenceCount(key));
+            Assert.assertFalse("File store still referenced by iteration 2", index.release(key));
+        }
+        Assert.assertEquals(1, index.getReferenceCount(key));
+    }
+}
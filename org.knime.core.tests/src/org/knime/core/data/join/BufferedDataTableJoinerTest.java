@@ -0,0 +1,260 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.join;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.join.BufferedDataTableJoiner.JoinMethod;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests {@link BufferedDataTableJoiner} by comparing the result of all join types and methods against a nested loop
+ * join.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class BufferedDataTableJoinerTest {
+
+    private ExecutionContext m_exec;
+
+    /**
+     * Creates the execution context.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Before
+    public void setUp() {
+        NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+            SingleNodeContainer.MemoryPolicy.CacheSmallInMemory, new HashMap<Integer, ContainerTable>());
+    }
+
+    /** All join types, hash join with default settings. */
+    @Test
+    public void testHashJoin() throws Exception {
+        for (JoinType type : JoinType.values()) {
+            runTest(type, JoinMethod.HYBRID_HASH, BufferedDataTableJoiner.DEF_NUM_PARTITIONS);
+        }
+    }
+
+    /** All join types, hash join with a single partition. */
+    @Test
+    public void testHashJoinSinglePartition() throws Exception {
+        for (JoinType type : JoinType.values()) {
+            runTest(type, JoinMethod.HYBRID_HASH, 1);
+        }
+    }
+
+    /** All join types, sort-merge join. */
+    @Test
+    public void testSortMergeJoin() throws Exception {
+        for (JoinType type : JoinType.values()) {
+            runTest(type, JoinMethod.SORT_MERGE, 1);
+        }
+    }
+
+    /** All join types, hash join writing partitions to disk and joining them recursively. */
+    @Test
+    public void testHashJoinSpilled() throws Exception {
+        for (JoinType type : JoinType.values()) {
+            runTest(type, JoinMethod.HYBRID_HASH, 8, 300, 20);
+        }
+    }
+
+    /**
+     * All join types, hash join with few distinct keys, so that partitions are written to disk on every recursion
+     * level and finally joined by the sort-merge join.
+     */
+    @Test
+    public void testHashJoinSortMergeFallback() throws Exception {
+        for (JoinType type : JoinType.values()) {
+            runTest(type, JoinMethod.HYBRID_HASH, 8, 4, 20);
+        }
+    }
+
+    /** Cells of different types never match, also not if the sort-merge join considers them equal. */
+    @Test
+    public void testMixedKeyTypes() throws Exception {
+        BufferedDataContainer leftContainer = m_exec.createDataContainer(createSpec("left"));
+        BufferedDataContainer rightContainer = m_exec.createDataContainer(new DataTableSpec("right",
+            new DataColumnSpecCreator("key", DoubleCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("value", StringCell.TYPE).createSpec()));
+        for (int i = 0; i < 10; i++) {
+            leftContainer.addRowToTable(new DefaultRow(RowKey.createRowKey("L", i), new IntCell(i),
+                new StringCell("v" + i)));
+            DataCell rightKey = i % 2 == 0 ? new IntCell(i) : new DoubleCell(i);
+            rightContainer.addRowToTable(new DefaultRow(RowKey.createRowKey("R", i), rightKey,
+                new StringCell("v" + i)));
+        }
+        leftContainer.close();
+        rightContainer.close();
+        for (JoinMethod method : JoinMethod.values()) {
+            for (JoinType type : JoinType.values()) {
+                runTest(leftContainer.getTable(), rightContainer.getTable(), type, method,
+                    BufferedDataTableJoiner.DEF_NUM_PARTITIONS, Long.MAX_VALUE);
+            }
+        }
+    }
+
+    /** Output spec of semi joins only contains the left columns, otherwise right columns are made unique. */
+    @Test
+    public void testOutputSpec() {
+        DataTableSpec left = createSpec("left");
+        DataTableSpec right = createSpec("right");
+        Assert.assertSame(left, BufferedDataTableJoiner.createOutputSpec(left, right, JoinType.LEFT_SEMI));
+        DataTableSpec joined = BufferedDataTableJoiner.createOutputSpec(left, right, JoinType.INNER);
+        Assert.assertEquals(4, joined.getNumColumns());
+        Assert.assertEquals("key (#1)", joined.getColumnSpec(2).getName());
+    }
+
+    private void runTest(final JoinType type, final JoinMethod method, final int numPartitions) throws Exception {
+        runTest(type, method, numPartitions, 300, Long.MAX_VALUE);
+    }
+
+    private void runTest(final JoinType type, final JoinMethod method, final int numPartitions, final int keyRange,
+        final long maxRowsInMemory) throws Exception {
+        Random random = new Random(4711);
+        BufferedDataTable left = createTable("L", 1000, keyRange, random);
+        BufferedDataTable right = createTable("R", 500, keyRange, random);
+        runTest(left, right, type, method, numPartitions, maxRowsInMemory);
+    }
+
+    private void runTest(final BufferedDataTable left, final BufferedDataTable right, final JoinType type,
+        final JoinMethod method, final int numPartitions, final long maxRowsInMemory) throws Exception {
+        BufferedDataTableJoiner joiner =
+            new BufferedDataTableJoiner(left, right, Arrays.asList("key"), Arrays.asList("key"));
+        joiner.setJoinType(type);
+        joiner.setJoinMethod(method);
+        joiner.setNumPartitions(numPartitions);
+        joiner.setMaxRowsInMemory(maxRowsInMemory);
+        joiner.setMaxThreads(4);
+        BufferedDataTable result = joiner.join(m_exec);
+
+        List<String> expected = nestedLoopJoin(left, right, type);
+        List<String> actual = new ArrayList<>();
+        for (DataRow row : result) {
+            actual.add(row.getKey().getString());
+        }
+        expected.sort(null);
+        actual.sort(null);
+        Assert.assertEquals("Wrong result for " + type + " (" + method + ")", expected, actual);
+    }
+
+    private static List<String> nestedLoopJoin(final BufferedDataTable left, final BufferedDataTable right,
+        final JoinType type) {
+        List<String> result = new ArrayList<>();
+        List<RowKey> matchedRight = new ArrayList<>();
+        for (DataRow l : left) {
+            boolean isMatched = false;
+            for (DataRow r : right) {
+                DataCell lCell = l.getCell(0);
+                if (!lCell.isMissing() && lCell.equals(r.getCell(0))) {
+                    isMatched = true;
+                    matchedRight.add(r.getKey());
+                    if (type.isRetainMatches()) {
+                        result.add(l.getKey() + "_" + r.getKey());
+                    }
+                }
+            }
+            if (isMatched && type == JoinType.LEFT_SEMI) {
+                result.add(l.getKey().getString());
+            } else if (!isMatched && type.isRetainLeftUnmatched()) {
+                result.add(type.isLeftColumnsOnly() ? l.getKey().getString() : l.getKey() + "_?");
+            }
+        }
+        if (type.isRetainRightUnmatched()) {
+            for (DataRow r : right) {
+                if (!matchedRight.contains(r.getKey())) {
+                    result.add("?_" + r.getKey());
+                }
+            }
+        }
+        return result;
+    }
+
+    private static DataTableSpec createSpec(final String name) {
+        return new DataTableSpec(name, new DataColumnSpecCreator("key", IntCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("value", StringCell.TYPE).createSpec());
+    }
+
+    private BufferedDataTable createTable(final String prefix, final int rowCount, final int keyRange,
+        final Random random) {
+        BufferedDataContainer container = m_exec.createDataContainer(createSpec(prefix));
+        for (int i = 0; i < rowCount; i++) {
+            DataCell key = random.nextInt(20) == 0 ? DataType.getMissingCell() : new IntCell(random.nextInt(keyRange));
+            container.addRowToTable(new DefaultRow(RowKey.createRowKey(prefix, i), key, new StringCell("v" + i)));
+        }
+        container.close();
+        return container.getTable();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.vector.bitvector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link BitVectorIndex} against comparing the query with every vector.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class BitVectorIndexTest {
+
+    private final Random m_random = new Random(42);
+
+    private BitVectorValue createVector(final int length) {
+        BitVectorCellFactory<?> factory = m_random.nextBoolean() ? new DenseBitVectorCellFactory(length)
+            : new CompressedBitVectorCellFactory(length);
+        int ones = m_random.nextInt(length / 4);
+        for (int i = 0; i < ones; i++) {
+            factory.set(m_random.nextInt(length));
+        }
+        return (BitVectorValue)factory.createDataCell();
+    }
+
+    private static int[] searchAll(final BitVectorValue[] vectors, final BitVectorValue query,
+        final BitVectorSimilarity measure, final double threshold) {
+        int[] result = new int[vectors.length];
+        int count = 0;
+        for (int i = 0; i < vectors.length; i++) {
+            if (vectors[i] != null && BitVectorUtil.similarity(query, vectors[i], measure) >= threshold) {
+                result[count++] = i;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /** Compares search results for random vectors, queries and thresholds. */
+    @Test
+    public void testSearch() {
+        BitVectorValue[] vectors = new BitVectorValue[2000];
+        for (int i = 0; i < vectors.length; i++) {
+            // leave some positions empty, like missing values
+            vectors[i] = (i % 17 == 0) ? null : createVector(1024);
+        }
+        BitVectorIndex index = BitVectorUtil.createIndex(vectors);
+        assertEquals(vectors.length, index.size());
+
+        for (int q = 0; q < 50; q++) {
+            // also query with indexed vectors and vectors of different length
+            BitVectorValue query = (q % 5 == 0) ? vectors[q + 1] : createVector(q % 2 == 0 ? 1024 : 1500);
+            for (BitVectorSimilarity measure : BitVectorSimilarity.values()) {
+                double threshold = m_random.nextDouble();
+                assertArrayEquals(measure + ", " + threshold, searchAll(vectors, query, measure, threshold),
+                    index.search(query, measure, threshold));
+            }
+        }
+    }
+
+    /** Tests that an indexed vector is found with similarity 1. */
+    @Test
+    public void testSearchIdentical() {
+        BitVectorValue[] vectors = new BitVectorValue[100];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = createVector(2048);
+        }
+        BitVectorIndex index = BitVectorUtil.createIndex(vectors);
+        for (int i = 0; i < vectors.length; i++) {
+            if (!vectors[i].isEmpty()) {
+                int[] result = index.search(vectors[i], BitVectorSimilarity.TANIMOTO, 1.0);
+                assertTrue("Vector " + i + " not found", Arrays.binarySearch(result, i) >= 0);
+            }
+        }
+    }
+}
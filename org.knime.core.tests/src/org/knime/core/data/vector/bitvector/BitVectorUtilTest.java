@@ -194,6 +194,55 @@ public void testBitVectorUtilAndThrowsNullpointer2() {
         BitVectorUtil.and(EMPTY_VECTOR, null);
     }
 
+    @Test(expected = NullPointerException.class)
+    public void testSimilarityThrowsNullpointer() {
+        BitVectorUtil.similarity(null, EMPTY_VECTOR, BitVectorSimilarity.TANIMOTO);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testSimilarityThrowsNullpointer2() {
+        BitVectorUtil.similarity(EMPTY_VECTOR, EMPTY_VECTOR, null);
+    }
+
+    @Test
+    public void testSimilarityOfEmptyVectors() {
+        for (BitVectorSimilarity measure : BitVectorSimilarity.values()) {
+            Assert.assertEquals(0.0, BitVectorUtil.similarity(EMPTY_VECTOR, EMPTY_VECTOR, measure), 0.0);
+        }
+    }
+
+    @Test
+    public void testSimilarity() {
+        for (BitVectorSimilarity measure : BitVectorSimilarity.values()) {
+            assertSimilarity(DENSE_VECTOR_FACTORY, measure);
+            assertSimilarity(SPARSE_VECTOR_FACTORY, measure);
+            assertSimilarity(MIXED_VECTOR_FACTORY, measure);
+        }
+    }
+
+    @Test
+    public void testSimilarities() {
+        BitVectorValue query = new DenseBitVectorCellFactory(new BigInteger(700, RANDOM).toString(16)).createDataCell();
+        BitVectorValue[] vectors = new BitVectorValue[100];
+        for (int i = 0; i < vectors.length; i++) {
+            String hex = new BigInteger(RANDOM.nextInt(800), RANDOM).toString(16);
+            vectors[i] = (i % 2 == 0) ? new DenseBitVectorCellFactory(hex).createDataCell()
+                : new SparseBitVectorCellFactory(hex).createDataCell();
+        }
+        double[] result = new double[vectors.length];
+        BitVectorUtil.similarities(query, vectors, BitVectorSimilarity.TANIMOTO, result);
+        for (int i = 0; i < vectors.length; i++) {
+            Assert.assertEquals(BitVectorUtil.similarity(query, vectors[i], BitVectorSimilarity.TANIMOTO),
+                result[i], 0.0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSimilaritiesResultTooShort() {
+        BitVectorUtil.similarities(EMPTY_VECTOR, new BitVectorValue[]{EMPTY_VECTOR, EMPTY_VECTOR},
+            BitVectorSimilarity.DICE, new double[1]);
+    }
+
     private static void assertCardinalityOfAnd(final TestVectorFactory vectorFactory) {
         for (int i = 1; i < 1000; i++) {
             String first = new BigInteger(RANDOM.nextInt(800), RANDOM).toString(16);
@@ -317,6 +366,29 @@ private static void assertCardinalityOfRelativeComplement(final TestVectorFactor
         }
     }
 
+    private static void assertSimilarity(final TestVectorFactory vectorFactory,
+        final BitVectorSimilarity measure) {
+        for (int i = 1; i < 1000; i++) {
+            String first = new BigInteger(RANDOM.nextInt(800), RANDOM).toString(16);
+
+            String second = new BigInteger(RANDOM.nextInt(i % 5 == 0 ? i * 5 : 150), RANDOM).toString(16);
+            Pair<BitVectorValue, BitVectorValue> createVectorPair = vectorFactory.createVectorPair(first, second);
+
+            BitVectorValue a = createVectorPair.getFirst();
+
+            BitVectorValue b = createVectorPair.getSecond();
+
+            double expected = measure.similarity(a.cardinality(), b.cardinality(), BitVectorUtil.and(a, b)
+                .cardinality());
+
+            Assert.assertEquals("Broken " + measure + ": " + a.toHexString() + "|" + b.toHexString(), expected,
+                BitVectorUtil.similarity(a, b, measure), 1e-12);
+
+            Assert.assertEquals("Broken " + measure + ": " + b.toHexString() + "|" + a.toHexString(), expected,
+                BitVectorUtil.similarity(b, a, measure), 1e-12);
+        }
+    }
+
     private interface TestVectorFactory {
         Pair<BitVectorValue, BitVectorValue> createVectorPair(String first, String second);
     }
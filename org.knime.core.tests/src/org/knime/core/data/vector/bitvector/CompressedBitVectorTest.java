@@ -0,0 +1,225 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.vector.bitvector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link CompressedBitVector} against {@link DenseBitVector}, with vectors spanning several chunks and chunks
+ * stored as array as well as bitmap.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class CompressedBitVectorTest {
+
+    private final Random m_random = new Random(42);
+
+    /** Creates a pair of equal vectors with randomly set bits, some of them sparse and some dense. */
+    private Object[] createVectors() {
+        long length = 1 + m_random.nextInt(300000);
+        DenseBitVector dense = new DenseBitVector(length);
+        CompressedBitVector compressed = new CompressedBitVector(length);
+        int ones;
+        switch (m_random.nextInt(4)) {
+            case 0:
+                ones = m_random.nextInt(10);
+                break;
+            case 1:
+                ones = m_random.nextInt(10000);
+                break;
+            default:
+                ones = m_random.nextInt(100000);
+        }
+        for (int i = 0; i < ones; i++) {
+            long idx = (long)(m_random.nextDouble() * length);
+            dense.set(idx);
+            compressed.set(idx);
+        }
+        // clear some of them again
+        for (int i = 0; i < ones / 4; i++) {
+            long idx = (long)(m_random.nextDouble() * length);
+            dense.clear(idx);
+            compressed.clear(idx);
+        }
+        return new Object[]{dense, compressed};
+    }
+
+    private static void assertSameBits(final DenseBitVector expected, final CompressedBitVector actual) {
+        assertEquals(expected.length(), actual.length());
+        assertEquals(expected.cardinality(), actual.cardinality());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        long[] oneIndices = actual.getAllOneIndices();
+        int i = 0;
+        for (long idx = expected.nextSetBit(0); idx >= 0; idx = expected.nextSetBit(idx + 1)) {
+            assertEquals(idx, oneIndices[i++]);
+        }
+        assertEquals(expected.hashCode(), actual.hashCode());
+        assertEquals(expected.toHexString(), actual.toHexString());
+        assertEquals(expected.toBinaryString(), actual.toBinaryString());
+    }
+
+    /** Tests set, clear, get and the iteration methods. */
+    @Test
+    public void testAccess() {
+        for (int t = 0; t < 50; t++) {
+            Object[] vectors = createVectors();
+            DenseBitVector dense = (DenseBitVector)vectors[0];
+            CompressedBitVector compressed = (CompressedBitVector)vectors[1];
+            assertSameBits(dense, compressed);
+            for (int i = 0; i < 1000; i++) {
+                long idx = (long)(m_random.nextDouble() * dense.length());
+                assertEquals(dense.get(idx), compressed.get(idx));
+                assertEquals(dense.nextSetBit(idx), compressed.nextSetBit(idx));
+                assertEquals(dense.nextClearBit(idx), compressed.nextClearBit(idx));
+            }
+            assertEquals(-1, compressed.nextSetBit(dense.length()));
+            assertEquals(-1, compressed.nextClearBit(dense.length()));
+        }
+    }
+
+    /** Tests and, or, xor and the cardinality methods against the dense implementation. */
+    @Test
+    public void testLogicalOperations() {
+        for (int t = 0; t < 50; t++) {
+            Object[] vectors1 = createVectors();
+            Object[] vectors2 = createVectors();
+            DenseBitVector dense1 = (DenseBitVector)vectors1[0];
+            DenseBitVector dense2 = (DenseBitVector)vectors2[0];
+            CompressedBitVector compressed1 = (CompressedBitVector)vectors1[1];
+            CompressedBitVector compressed2 = (CompressedBitVector)vectors2[1];
+
+            assertSameBits(dense1.and(dense2), compressed1.and(compressed2));
+            assertSameBits(dense1.or(dense2), compressed1.or(compressed2));
+            assertSameBits(dense1.xor(dense2), compressed1.xor(compressed2));
+            assertEquals(dense1.and(dense2).cardinality(), compressed1.cardinalityOfIntersection(compressed2));
+            assertEquals(dense1.cardinality() - dense1.and(dense2).cardinality(),
+                compressed1.cardinalityOfRelativeComplement(compressed2));
+            assertTrue(compressed1.xor(compressed1).isEmpty());
+            // the operands must not be changed
+            assertSameBits(dense1, compressed1);
+        }
+    }
+
+    /** Tests the constructors and equals. */
+    @Test
+    public void testConstructors() {
+        for (int t = 0; t < 50; t++) {
+            CompressedBitVector compressed = (CompressedBitVector)createVectors()[1];
+            CompressedBitVector copy = new CompressedBitVector(compressed);
+            assertEquals(compressed, copy);
+            assertEquals(compressed, new CompressedBitVector(compressed.length(), compressed.getAllOneIndices()));
+            if (compressed.length() < 2 || compressed.isEmpty()) {
+                continue;
+            }
+            long idx = compressed.nextSetBit(0);
+            copy.clear(idx);
+            assertFalse(compressed.equals(copy));
+            assertTrue(compressed.get(idx));
+        }
+        CompressedBitVector bv = new CompressedBitVector("10F");
+        assertEquals(12, bv.length());
+        assertArrayEquals(new long[]{0, 1, 2, 3, 8}, bv.getAllOneIndices());
+        assertEquals("10F", bv.toHexString());
+    }
+
+    /** Tests the constructor that takes a long array for initializing the bits. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsortedIndices() {
+        new CompressedBitVector(16, new long[]{5, 6, 4});
+    }
+
+    /** Tests that a chunk is converted to a bitmap and back to an array. */
+    @Test
+    public void testChunkConversion() {
+        CompressedBitVector bv = new CompressedBitVector(1L << 40);
+        long base = 1L << 35;
+        for (int i = 0; i <= CompressedBitVector.MAX_ARRAY_CARDINALITY; i++) {
+            bv.set(base + 2 * i);
+        }
+        assertEquals(CompressedBitVector.MAX_ARRAY_CARDINALITY + 1, bv.cardinality());
+        assertEquals(base + 2, bv.nextSetBit(base + 1));
+        assertEquals(base + 1, bv.nextClearBit(base));
+        bv.clear(base);
+        assertEquals(CompressedBitVector.MAX_ARRAY_CARDINALITY, bv.cardinality());
+        assertEquals(base + 2, bv.nextSetBit(0));
+        for (int i = 1; i <= CompressedBitVector.MAX_ARRAY_CARDINALITY; i++) {
+            bv.clear(base + 2 * i);
+        }
+        assertTrue(bv.isEmpty());
+        assertEquals(new CompressedBitVector(1L << 40), bv);
+    }
+
+    /**
+     * Tests that a written vector is read back unchanged.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void testSerialization() throws IOException {
+        for (int t = 0; t < 20; t++) {
+            CompressedBitVector compressed = (CompressedBitVector)createVectors()[1];
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                compressed.write(out);
+            }
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                assertEquals(compressed, CompressedBitVector.read(in));
+            }
+        }
+    }
+}
@@ -50,6 +50,7 @@
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.nio.DoubleBuffer;
 import java.util.stream.IntStream;
 
 import org.hamcrest.CoreMatchers;
@@ -84,6 +85,29 @@ public void testCreation() throws Exception {
         IntStream.range(0, 10000).forEach(i -> Assert.assertEquals("value, index " + i, i, v.getValue(i), 0.0));
     }
 
+    @Test
+    public void testBulkAccess() throws Exception {
+        double[] d = IntStream.range(0, 100).mapToDouble(i -> i * 0.5).toArray();
+        DoubleVectorValue v = DoubleVectorCellFactory.createCell(d);
+
+        double[] copy = new double[110];
+        v.copyValues(10, copy, 5, 90);
+        IntStream.range(0, 90).forEach(i -> Assert.assertEquals("value, index " + i, d[i + 10], copy[i + 5], 0.0));
+        Assert.assertEquals(0.0, copy[4], 0.0);
+        Assert.assertEquals(0.0, copy[95], 0.0);
+
+        DoubleBuffer buffer = v.getValues();
+        Assert.assertTrue("buffer must be read-only", buffer.isReadOnly());
+        Assert.assertEquals("buffer length", 100, buffer.remaining());
+        IntStream.range(0, 100).forEach(i -> Assert.assertEquals("value, index " + i, d[i], buffer.get(i), 0.0));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testBulkAccessOutOfBounds() throws Exception {
+        DoubleVectorValue v = DoubleVectorCellFactory.createCell(new double[10]);
+        v.copyValues(5, new double[10], 0, 6);
+    }
+
     @Test
     public void testSerialization() throws Exception {
         double[] d = IntStream.range(0, 10000).mapToDouble(i -> i).toArray();
@@ -0,0 +1,147 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.vector.doublevector;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link DoubleVectorUtil} against straightforward implementations.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DoubleVectorUtilTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private final Random m_random = new Random(42);
+
+    private double[] createArray(final int length) {
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = m_random.nextGaussian();
+        }
+        return values;
+    }
+
+    /** A vector that is not a {@link DenseDoubleVectorCell}, to test the generic code paths. */
+    private static DoubleVectorValue createGenericVector(final double[] values) {
+        return new DoubleVectorValue() {
+            @Override
+            public int getLength() {
+                return values.length;
+            }
+
+            @Override
+            public double getValue(final int index) {
+                return values[index];
+            }
+        };
+    }
+
+    /** Compares the kernels for dense and generic vectors of various lengths with the expected values. */
+    @Test
+    public void testKernels() {
+        for (int length = 0; length < 40; length++) {
+            double[] a1 = createArray(length);
+            double[] a2 = createArray(length);
+            double dot = 0;
+            double l1 = 0;
+            double l2 = 0;
+            double norm = 0;
+            for (int i = 0; i < length; i++) {
+                dot += a1[i] * a2[i];
+                l1 += Math.abs(a1[i] - a2[i]);
+                l2 += (a1[i] - a2[i]) * (a1[i] - a2[i]);
+                norm += a1[i] * a1[i];
+            }
+            DoubleVectorValue[][] pairs = new DoubleVectorValue[][]{
+                {DoubleVectorCellFactory.createCell(a1), DoubleVectorCellFactory.createCell(a2)},
+                {createGenericVector(a1), createGenericVector(a2)},
+                {DoubleVectorCellFactory.createCell(a1), createGenericVector(a2)}};
+            for (DoubleVectorValue[] pair : pairs) {
+                assertEquals(dot, DoubleVectorUtil.dot(pair[0], pair[1]), EPSILON);
+                assertEquals(l1, DoubleVectorUtil.manhattanDistance(pair[0], pair[1]), EPSILON);
+                assertEquals(l2, DoubleVectorUtil.squaredEuclideanDistance(pair[0], pair[1]), EPSILON);
+                assertEquals(Math.sqrt(l2), DoubleVectorUtil.euclideanDistance(pair[0], pair[1]), EPSILON);
+                assertEquals(Math.sqrt(norm), DoubleVectorUtil.norm(pair[0]), EPSILON);
+            }
+        }
+    }
+
+    /** Tests the batch variants. */
+    @Test
+    public void testBatch() {
+        DoubleVectorValue query = DoubleVectorCellFactory.createCell(createArray(37));
+        DoubleVectorValue[] vectors = new DoubleVectorValue[50];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = DoubleVectorCellFactory.createCell(createArray(37));
+        }
+        double[] result = new double[vectors.length];
+        DoubleVectorUtil.dots(query, vectors, result);
+        for (int i = 0; i < vectors.length; i++) {
+            assertEquals(DoubleVectorUtil.dot(query, vectors[i]), result[i], 0.0);
+        }
+        DoubleVectorUtil.euclideanDistances(query, vectors, result);
+        for (int i = 0; i < vectors.length; i++) {
+            assertEquals(DoubleVectorUtil.euclideanDistance(query, vectors[i]), result[i], 0.0);
+        }
+        DoubleVectorUtil.manhattanDistances(query, vectors, result);
+        for (int i = 0; i < vectors.length; i++) {
+            assertEquals(DoubleVectorUtil.manhattanDistance(query, vectors[i]), result[i], 0.0);
+        }
+    }
+
+    /** Tests that vectors of different length are rejected. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testDifferentLengths() {
+        DoubleVectorUtil.dot(DoubleVectorCellFactory.createCell(new double[3]),
+            DoubleVectorCellFactory.createCell(new double[4]));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.knime.core.util.Pair;
+
+/**
+ * Tests the {@link DBColumnStatistics}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DBColumnStatisticsTest {
+
+    private static DBColumnStatistics create(final double... values) {
+        final Map<String, double[]> numeric = new HashMap<>();
+        numeric.put("c", values);
+        final Set<Object> distinct = new LinkedHashSet<>();
+        for (double v : values) {
+            distinct.add(v);
+        }
+        final Map<String, Set<Object>> distinctMap = new HashMap<>();
+        distinctMap.put("c", distinct);
+        return new DBColumnStatistics(values.length, numeric, distinctMap, Collections.<String> emptySet());
+    }
+
+    /** Tests quantiles of the sorted sample. */
+    @Test
+    public void testQuantile() {
+        final DBColumnStatistics stats = create(1, 2, 3, 4, 5);
+        Assert.assertEquals(1, stats.getQuantile("c", 0), 0);
+        Assert.assertEquals(3, stats.getQuantile("c", 0.5), 0);
+        Assert.assertEquals(5, stats.getQuantile("c", 1), 0);
+        Assert.assertTrue(Double.isNaN(create().getQuantile("c", 0.5)));
+        Assert.assertEquals(5, stats.getDistinctValues("c").size());
+    }
+
+    /** Tests that the bins cover all values and that duplicate boundaries are merged. */
+    @Test
+    public void testQuantileBins() {
+        final Map<String, List<Pair<Double, Double>>> boundaries = new HashMap<>();
+        final Map<String, List<Pair<Boolean, Boolean>>> open = new HashMap<>();
+        final Map<String, List<String>> naming = new HashMap<>();
+        Assert.assertEquals(4, create(1, 2, 3, 4, 5, 6, 7, 8).addQuantileBins("c", 4, boundaries, open, naming));
+        final List<Pair<Double, Double>> bins = boundaries.get("c");
+        Assert.assertEquals(Double.NEGATIVE_INFINITY, bins.get(0).getFirst(), 0);
+        Assert.assertEquals(Double.POSITIVE_INFINITY, bins.get(3).getSecond(), 0);
+        for (int i = 1; i < bins.size(); i++) {
+            Assert.assertEquals(bins.get(i - 1).getSecond(), bins.get(i).getFirst());
+        }
+        Assert.assertEquals(Arrays.asList("Bin 1", "Bin 2", "Bin 3", "Bin 4"), naming.get("c"));
+
+        Assert.assertEquals(2, create(3, 3, 3).addQuantileBins("c", 4, boundaries, open, naming));
+        Assert.assertEquals(3, boundaries.get("c").get(0).getSecond(), 0);
+        Assert.assertEquals(Boolean.FALSE, open.get("c").get(1).getFirst());
+
+        Assert.assertEquals(1, create().addQuantileBins("c", 4, boundaries, open, naming));
+    }
+
+    /** Tests that columns which have not been sampled are rejected. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownColumn() {
+        create(1).getDistinctValues("d");
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.connection;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.knime.core.node.port.database.connection.DBConnectionPool.Metrics;
+
+/**
+ * Tests the {@link DBConnectionPool} with fake connections.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DBConnectionPoolTest {
+
+    /** Fake connection that counts open connections and remembers its closed and auto commit state. */
+    private static final class FakeConnection {
+        private boolean m_isClosed;
+
+        private boolean m_autoCommit = true;
+
+        private int m_rollbackCount;
+
+        private Connection createProxy(final AtomicInteger openCount) {
+            return (Connection)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            if (!m_isClosed) {
+                                m_isClosed = true;
+                                openCount.decrementAndGet();
+                            }
+                            return null;
+                        case "isClosed":
+                            return m_isClosed;
+                        case "getAutoCommit":
+                            return m_autoCommit;
+                        case "setAutoCommit":
+                            m_autoCommit = (Boolean)args[0];
+                            return null;
+                        case "rollback":
+                            m_rollbackCount++;
+                            return null;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "createStatement":
+                            throw new SQLException("Communication link failure", "08S01");
+                        default:
+                            return null;
+                    }
+                });
+        }
+    }
+
+    private final AtomicInteger m_openCount = new AtomicInteger();
+
+    private final AtomicInteger m_createdCount = new AtomicInteger();
+
+    private FakeConnection m_lastConnection;
+
+    private Connection open() {
+        m_openCount.incrementAndGet();
+        m_createdCount.incrementAndGet();
+        m_lastConnection = new FakeConnection();
+        return m_lastConnection.createProxy(m_openCount);
+    }
+
+    private Connection openWithoutAutoCommit() {
+        final Connection conn = open();
+        m_lastConnection.m_autoCommit = false;
+        return conn;
+    }
+
+    private static DBConnectionPool createPool(final int maxSize, final long borrowTimeout) {
+        return new DBConnectionPool("test", 0, maxSize, 60000, 0, borrowTimeout);
+    }
+
+    /** Returned connections are reused. */
+    @Test
+    public void testReuse() throws Exception {
+        final DBConnectionPool pool = createPool(2, 1000);
+        for (int i = 0; i < 10; i++) {
+            try (Connection conn = pool.borrow(this::open, c -> true)) {
+                Assert.assertFalse(conn.isClosed());
+            }
+        }
+        Assert.assertEquals(1, m_createdCount.get());
+        final Metrics metrics = pool.getMetrics();
+        Assert.assertEquals(10, metrics.getBorrowCount());
+        Assert.assertEquals(1, metrics.getSize());
+        Assert.assertEquals(1, metrics.getIdleCount());
+        Assert.assertEquals(0, metrics.getBorrowedCount());
+        pool.close();
+        Assert.assertEquals(0, m_openCount.get());
+    }
+
+    /** Closed handles must not be usable anymore, closing twice is harmless. */
+    @Test
+    public void testClosedHandle() throws Exception {
+        final DBConnectionPool pool = createPool(1, 1000);
+        final Connection conn = pool.borrow(this::open, c -> true);
+        conn.close();
+        conn.close();
+        Assert.assertTrue(conn.isClosed());
+        try {
+            conn.getAutoCommit();
+            Assert.fail("Returned connection must not be usable");
+        } catch (SQLException e) {
+            // expected
+        }
+        Assert.assertEquals(1, pool.getMetrics().getIdleCount());
+    }
+
+    /** Nested borrows of the same thread share the connection. */
+    @Test
+    public void testReentrant() throws Exception {
+        final DBConnectionPool pool = createPool(1, 100);
+        try (Connection outer = pool.borrow(this::open, c -> true)) {
+            try (Connection inner = pool.borrow(this::open, c -> true)) {
+                Assert.assertEquals(1, pool.getMetrics().getBorrowedCount());
+            }
+            Assert.assertFalse("Outer connection returned by inner close", outer.isClosed());
+            Assert.assertEquals(0, pool.getMetrics().getIdleCount());
+        }
+        Assert.assertEquals(1, pool.getMetrics().getIdleCount());
+        Assert.assertEquals(1, m_createdCount.get());
+    }
+
+    /** Borrowers wait for returned connections and time out if none is returned. */
+    @Test
+    public void testMaxSizeAndTimeout() throws Exception {
+        final DBConnectionPool pool = createPool(2, 200);
+        final CountDownLatch borrowed = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Thread[] threads = new Thread[2];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                try (Connection conn = pool.borrow(this::open, c -> true)) {
+                    borrowed.countDown();
+                    release.await();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            threads[i].start();
+        }
+        Assert.assertTrue(borrowed.await(10, TimeUnit.SECONDS));
+        try {
+            pool.borrow(this::open, c -> true);
+            Assert.fail("Exhausted pool must time out");
+        } catch (SQLException e) {
+            // expected
+        }
+        Assert.assertEquals(1, pool.getMetrics().getTimeoutCount());
+        Assert.assertEquals(2, m_createdCount.get());
+
+        release.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        try (Connection conn = pool.borrow(this::open, c -> true)) {
+            Assert.assertEquals(2, m_createdCount.get());
+        }
+        Assert.assertEquals(2, pool.getMetrics().getSize());
+    }
+
+    /** Invalid idle connections are replaced. */
+    @Test
+    public void testValidationFailure() throws Exception {
+        final DBConnectionPool pool = createPool(1, 1000);
+        pool.borrow(this::open, c -> true).close();
+        try (Connection conn = pool.borrow(this::open, c -> false)) {
+            Assert.assertFalse(conn.isClosed());
+        }
+        Assert.assertEquals(2, m_createdCount.get());
+        Assert.assertEquals(1, m_openCount.get());
+        Assert.assertEquals(1, pool.getMetrics().getValidationFailureCount());
+        Assert.assertEquals(1, pool.getMetrics().getDestroyedCount());
+    }
+
+    /** Open transactions are rolled back and the auto commit state is restored on return. */
+    @Test
+    public void testResetOnReturn() throws Exception {
+        final DBConnectionPool pool = createPool(1, 1000);
+        try (Connection conn = pool.borrow(this::open, c -> true)) {
+            conn.setAutoCommit(false);
+        }
+        try (Connection conn = pool.borrow(this::open, c -> true)) {
+            Assert.assertTrue(conn.getAutoCommit());
+        }
+        Assert.assertEquals(1, m_createdCount.get());
+    }
+
+    /** Connections opened without auto commit are rolled back on every return. */
+    @Test
+    public void testRollbackWithoutAutoCommit() throws Exception {
+        final DBConnectionPool pool = createPool(1, 1000);
+        try (Connection conn = pool.borrow(this::openWithoutAutoCommit, c -> true)) {
+            Assert.assertFalse(conn.getAutoCommit());
+        }
+        Assert.assertEquals(1, m_lastConnection.m_rollbackCount);
+        try (Connection conn = pool.borrow(this::openWithoutAutoCommit, c -> true)) {
+            Assert.assertFalse(conn.getAutoCommit());
+        }
+        Assert.assertEquals(2, m_lastConnection.m_rollbackCount);
+        Assert.assertEquals(1, m_createdCount.get());
+    }
+
+    /** Idle connections are evicted without borrowing, pools without connections can be closed. */
+    @Test
+    public void testEvictIdle() throws Exception {
+        final DBConnectionPool pool = new DBConnectionPool("test", 0, 2, 1, 0, 1000);
+        try (Connection conn = pool.borrow(this::open, c -> true)) {
+            Assert.assertFalse("Pool with borrowed connection must not be closed", pool.closeIfUnused());
+        }
+        Assert.assertFalse("Pool with idle connection must not be closed", pool.closeIfUnused());
+        Thread.sleep(20);
+        pool.evictIdle();
+        Assert.assertEquals(0, m_openCount.get());
+        Assert.assertEquals(0, pool.getMetrics().getSize());
+        Assert.assertTrue(pool.closeIfUnused());
+        Assert.assertTrue(pool.isClosed());
+        try {
+            pool.borrow(this::open, c -> true);
+            Assert.fail("Closed pool must not hand out connections");
+        } catch (SQLException e) {
+            // expected
+        }
+    }
+
+    /** Connections failing with a connection error are discarded on return. */
+    @Test
+    public void testBrokenConnection() throws Exception {
+        final DBConnectionPool pool = createPool(1, 1000);
+        try (Connection conn = pool.borrow(this::open, c -> true)) {
+            conn.createStatement();
+            Assert.fail("Fake connection must fail");
+        } catch (SQLException e) {
+            Assert.assertEquals("08S01", e.getSQLState());
+        }
+        Assert.assertEquals(0, m_openCount.get());
+        Assert.assertEquals(0, pool.getMetrics().getSize());
+    }
+}
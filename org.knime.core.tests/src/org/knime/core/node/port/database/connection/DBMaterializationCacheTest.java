@@ -0,0 +1,162 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.connection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.knime.core.node.port.database.DatabaseConnectionSettings;
+import org.knime.core.node.port.database.DatabaseQueryConnectionSettings;
+import org.knime.core.node.workflow.NodeID;
+
+/**
+ * Tests the {@link DBMaterializationCache}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DBMaterializationCacheTest {
+
+    private static final NodeID PROJECT = NodeID.fromString("0:1");
+
+    private static final NodeID OTHER_PROJECT = NodeID.fromString("0:2");
+
+    private static final NodeID NODE = NodeID.fromString("0:1:1");
+
+    private static final NodeID OTHER_NODE = NodeID.fromString("0:1:2");
+
+    private final List<String> m_statements = new ArrayList<>();
+
+    private final DBMaterializationCache m_cache =
+        new DBMaterializationCache(true, (settings, statement, cp) -> m_statements.add(statement));
+
+    private static DatabaseQueryConnectionSettings query(final String query) {
+        return new DatabaseQueryConnectionSettings(new DatabaseConnectionSettings(), query);
+    }
+
+    /** Returns the table read by the materialized query. */
+    private String materialize(final String query, final NodeID projectID, final NodeID userID) throws Exception {
+        final String materialized = m_cache.materialize(query(query), null, projectID, userID).getQuery();
+        Assert.assertTrue(materialized, materialized.startsWith("SELECT * FROM knime_mat_"));
+        return materialized.substring("SELECT * FROM ".length());
+    }
+
+    /**
+     * Tests that equal queries of a node share one table, which is created once, and that other nodes and workflows
+     * get their own tables.
+     */
+    @Test
+    public void testCacheKey() throws Exception {
+        final String table = materialize("SELECT * FROM t", PROJECT, NODE);
+        Assert.assertEquals(table, materialize("  SELECT *   FROM t;", PROJECT, NODE));
+        Assert.assertEquals(1, m_statements.size());
+        Assert.assertTrue(m_statements.get(0), m_statements.get(0).startsWith("CREATE TABLE " + table + " AS ("));
+
+        Assert.assertNotEquals(table, materialize("SELECT * FROM u", PROJECT, NODE));
+        Assert.assertNotEquals(table, materialize("SELECT * FROM t", PROJECT, OTHER_NODE));
+        Assert.assertNotEquals(table, materialize("SELECT * FROM t", OTHER_PROJECT, NODE));
+        Assert.assertEquals(4, m_cache.size());
+        Assert.assertEquals(4, m_statements.size());
+    }
+
+    /** Tests that multi statement queries and queries of a disabled cache are not materialized. */
+    @Test
+    public void testNotMaterialized() throws Exception {
+        final DatabaseQueryConnectionSettings multi = query("SELECT 1; SELECT 2");
+        Assert.assertSame(multi, m_cache.materialize(multi, null, PROJECT, NODE));
+        final DBMaterializationCache disabled =
+            new DBMaterializationCache(false, (settings, statement, cp) -> m_statements.add(statement));
+        final DatabaseQueryConnectionSettings settings = query("SELECT * FROM t");
+        Assert.assertSame(settings, disabled.materialize(settings, null, PROJECT, NODE));
+        Assert.assertTrue(m_statements.isEmpty());
+    }
+
+    /** Tests that a released query is dropped and materialized into a new table when used again. */
+    @Test
+    public void testRelease() throws Exception {
+        final String table = materialize("SELECT * FROM t", PROJECT, NODE);
+        m_cache.release(query("SELECT * FROM t"), null, PROJECT, NODE);
+        Assert.assertEquals("DROP TABLE " + table, m_statements.get(1));
+        Assert.assertEquals(0, m_cache.size());
+        Assert.assertNotEquals(table, materialize("SELECT * FROM t", PROJECT, NODE));
+        // releasing an unknown query does nothing
+        m_cache.release(query("SELECT * FROM u"), null, PROJECT, NODE);
+        Assert.assertEquals(3, m_statements.size());
+    }
+
+    /**
+     * Tests that a table is dropped once the node using it is reset, so re-executions don't read stale data, also
+     * if a sibling node materializing the same query is still executed.
+     */
+    @Test
+    public void testReleaseOnReset() throws Exception {
+        final String table = materialize("SELECT * FROM t", PROJECT, NODE);
+        final String otherTable = materialize("SELECT * FROM t", PROJECT, OTHER_NODE);
+        m_cache.releaseUser(NODE);
+        Assert.assertEquals(1, m_cache.size());
+        Assert.assertEquals("DROP TABLE " + table, m_statements.get(2));
+        final String newTable = materialize("SELECT * FROM t", PROJECT, NODE);
+        Assert.assertNotEquals(table, newTable);
+        Assert.assertNotEquals(otherTable, newTable);
+        m_cache.releaseUser(OTHER_NODE);
+        Assert.assertEquals(1, m_cache.size());
+        Assert.assertEquals("DROP TABLE " + otherTable, m_statements.get(4));
+    }
+
+    /** Tests that closing a workflow drops its tables only. */
+    @Test
+    public void testReleaseAll() throws Exception {
+        final String table = materialize("SELECT * FROM t", PROJECT, NODE);
+        final String otherTable = materialize("SELECT * FROM t", OTHER_PROJECT, NODE);
+        m_cache.releaseAll(PROJECT);
+        Assert.assertEquals(1, m_cache.size());
+        Assert.assertEquals("DROP TABLE " + table, m_statements.get(2));
+        m_cache.releaseAll(OTHER_PROJECT);
+        Assert.assertEquals(0, m_cache.size());
+        Assert.assertEquals("DROP TABLE " + otherTable, m_statements.get(3));
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.connection;
+
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.knime.core.node.port.database.connection.DBMetadataCache.CacheKey;
+
+/**
+ * Tests the {@link DBMetadataCache}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DBMetadataCacheTest {
+
+    private static final CacheKey KEY = new CacheKey("db", "default", "spec", "SELECT * FROM t");
+
+    private static Callable<String> counting(final AtomicInteger loads) {
+        return () -> "value" + loads.incrementAndGet();
+    }
+
+    /** Tests that values are loaded only once until they are invalidated. */
+    @Test
+    public void testCacheAndInvalidate() throws Exception {
+        final DBMetadataCache cache = new DBMetadataCache(60000);
+        final AtomicInteger loads = new AtomicInteger();
+        Assert.assertEquals("value1", cache.get(KEY, counting(loads)));
+        Assert.assertEquals("value1", cache.get(new CacheKey("db", "default", "spec", "SELECT * FROM t"),
+            counting(loads)));
+        Assert.assertEquals("value2", cache.get(new CacheKey("db", "default", "spec", "SELECT * FROM u"),
+            counting(loads)));
+        cache.invalidate(KEY);
+        Assert.assertEquals("value3", cache.get(KEY, counting(loads)));
+        cache.invalidateAll();
+        Assert.assertEquals(0, cache.size());
+    }
+
+    /** Tests that entries expire after the time to live. */
+    @Test
+    public void testExpiry() throws Exception {
+        final DBMetadataCache cache = new DBMetadataCache(50);
+        final AtomicInteger loads = new AtomicInteger();
+        Assert.assertEquals("value1", cache.get(KEY, counting(loads)));
+        Thread.sleep(100);
+        Assert.assertEquals("value2", cache.get(KEY, counting(loads)));
+    }
+
+    /** Tests that nothing is cached with a time to live of 0. */
+    @Test
+    public void testDisabled() throws Exception {
+        final DBMetadataCache cache = new DBMetadataCache(0);
+        final AtomicInteger loads = new AtomicInteger();
+        Assert.assertFalse(cache.isEnabled());
+        Assert.assertEquals("value1", cache.get(KEY, counting(loads)));
+        Assert.assertEquals("value2", cache.get(KEY, counting(loads)));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    /** Tests that failed loads are reported as SQLException and not cached. */
+    @Test
+    public void testFailureNotCached() throws Exception {
+        final DBMetadataCache cache = new DBMetadataCache(60000);
+        try {
+            cache.get(KEY, () -> {
+                throw new IllegalStateException("broken");
+            });
+            Assert.fail("Expected SQLException");
+        } catch (SQLException e) {
+            Assert.assertEquals("broken", e.getMessage());
+        }
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals("ok", cache.get(KEY, () -> "ok"));
+    }
+
+    /** Tests that concurrent requests for the same entry wait for a single load. */
+    @Test
+    public void testConcurrentLoadOnce() throws Exception {
+        final DBMetadataCache cache = new DBMetadataCache(60000);
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<String> first = executor.submit(() -> cache.get(KEY, () -> {
+                loading.countDown();
+                release.await();
+                return "value" + loads.incrementAndGet();
+            }));
+            Assert.assertTrue(loading.await(5, TimeUnit.SECONDS));
+            final Future<String> second = executor.submit(() -> cache.get(KEY, counting(loads)));
+            Thread.sleep(50);
+            release.countDown();
+            Assert.assertEquals("value1", first.get(5, TimeUnit.SECONDS));
+            Assert.assertEquals("value1", second.get(5, TimeUnit.SECONDS));
+            Assert.assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.reader;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.knime.core.node.port.database.StatementManipulator;
+import org.knime.core.node.port.database.reader.DBReaderImpl.Partition;
+
+/**
+ * Tests the range partitions of {@link DBReaderImpl}: the rows of all partitions must be the rows of the unpartitioned
+ * query. The partition queries are evaluated in memory, as the test has no database at hand.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DBReaderPartitionTest {
+
+    /** Creates a result set with one row holding minimum and maximum of the non-missing values. */
+    private static ResultSet createBounds(final int sqlType, final List<? extends Comparable<?>> values) {
+        final List<Comparable<?>> nonNull = new ArrayList<>();
+        for (Comparable<?> v : values) {
+            if (v != null) {
+                nonNull.add(v);
+            }
+        }
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        final Object[] minMax = nonNull.isEmpty() ? new Object[2]
+            : new Object[]{Collections.min((List)nonNull), Collections.max((List)nonNull)};
+        final ResultSetMetaData meta = (ResultSetMetaData)Proxy.newProxyInstance(
+            DBReaderPartitionTest.class.getClassLoader(), new Class<?>[]{ResultSetMetaData.class},
+            (proxy, method, args) -> "getColumnType".equals(method.getName()) ? sqlType : null);
+        final boolean[] wasNull = new boolean[1];
+        return (ResultSet)Proxy.newProxyInstance(DBReaderPartitionTest.class.getClassLoader(),
+            new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getMetaData":
+                        return meta;
+                    case "wasNull":
+                        return wasNull[0];
+                    default:
+                }
+                final Object value = minMax[(Integer)args[0] - 1];
+                wasNull[0] = value == null;
+                switch (method.getName()) {
+                    case "getLong":
+                        return value == null ? 0L : ((Number)value).longValue();
+                    case "getDouble":
+                        // rounds decimals, like drivers do
+                        return value == null ? 0.0 : ((Number)value).doubleValue();
+                    case "getTimestamp":
+                        return value;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+
+    /** Compares a column value with a bound as the database would, i.e. in the type of the column. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(final Comparable value, final Object bound) {
+        if (value instanceof BigDecimal) {
+            return value.compareTo(new BigDecimal(((Number)bound).doubleValue()));
+        }
+        if (value instanceof Long) {
+            return value.compareTo(((Number)bound).longValue());
+        }
+        return value.compareTo(bound);
+    }
+
+    /** Evaluates the WHERE clause of the partition query. */
+    private static boolean matches(final Partition p, final boolean isFirst, final Comparable<?> value) {
+        if (value == null) {
+            return isFirst;
+        }
+        return (p.getLower() == null || compare(value, p.getLower()) >= 0)
+            && (p.getUpper() == null || compare(value, p.getUpper()) < 0);
+    }
+
+    /** Asserts that every row is returned by exactly one partition and that the queries match the bounds. */
+    private static void assertPartitionsCoverAllRows(final int sqlType, final List<? extends Comparable<?>> values,
+        final int numPartitions) throws Exception {
+        final List<Partition> partitions = Partition.create(createBounds(sqlType, values), numPartitions);
+        Assert.assertFalse(partitions.isEmpty());
+        Assert.assertTrue(partitions.size() <= numPartitions);
+        final StatementManipulator manipulator = new StatementManipulator();
+        for (int i = 0; i < partitions.size(); i++) {
+            final Partition p = partitions.get(i);
+            final boolean isFirst = i == 0;
+            final boolean isLast = i == partitions.size() - 1;
+            Assert.assertEquals("First partition without lower bound", isFirst, p.getLower() == null);
+            Assert.assertEquals("Last partition without upper bound", isLast, p.getUpper() == null);
+            final String query = manipulator.forPartition("SELECT * FROM t", "c", isFirst, isLast);
+            final long numParams = query.chars().filter(c -> c == '?').count();
+            Assert.assertEquals(query, (p.getLower() == null ? 0 : 1) + (p.getUpper() == null ? 0 : 1), numParams);
+        }
+        for (Comparable<?> value : values) {
+            int count = 0;
+            for (int i = 0; i < partitions.size(); i++) {
+                if (matches(partitions.get(i), i == 0, value)) {
+                    count++;
+                }
+            }
+            Assert.assertEquals("Row with value " + value + " read by " + count + " partitions " + partitions, 1,
+                count);
+        }
+    }
+
+    /** Integer columns, including missing values and the extreme values. */
+    @Test
+    public void testIntegerPartitions() throws Exception {
+        final List<Long> values = new ArrayList<>();
+        for (long i = -50; i < 50; i++) {
+            values.add(i * 7);
+        }
+        values.add(null);
+        assertPartitionsCoverAllRows(Types.BIGINT, values, 4);
+        assertPartitionsCoverAllRows(Types.BIGINT, Arrays.asList(Long.MIN_VALUE, 0L, Long.MAX_VALUE, null), 8);
+        assertPartitionsCoverAllRows(Types.INTEGER, Arrays.asList(1L, 2L, 3L), 10);
+    }
+
+    /** Timestamps at MIN and MAX with nanoseconds are not lost. */
+    @Test
+    public void testTimestampPartitions() throws Exception {
+        final List<Timestamp> values = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final Timestamp t = new Timestamp(1500000000000L + i * 3600000L);
+            t.setNanos(999999999 - i);
+            values.add(t);
+        }
+        values.add(null);
+        assertPartitionsCoverAllRows(Types.TIMESTAMP, values, 4);
+    }
+
+    /** Decimals at MIN and MAX that are not exactly representable as double are not lost. */
+    @Test
+    public void testDecimalPartitions() throws Exception {
+        final List<BigDecimal> values = new ArrayList<>();
+        values.add(new BigDecimal("0.10000000000000000000001"));
+        values.add(new BigDecimal("0.5"));
+        values.add(new BigDecimal("0.99999999999999999999999"));
+        values.add(new BigDecimal("1.00000000000000000000001"));
+        values.add(null);
+        assertPartitionsCoverAllRows(Types.DECIMAL, values, 3);
+    }
+
+    /** A single distinct value results in one partition without any bound. */
+    @Test
+    public void testSinglePartition() throws Exception {
+        assertPartitionsCoverAllRows(Types.DECIMAL, Arrays.asList(new BigDecimal("1.1"), null), 4);
+        assertPartitionsCoverAllRows(Types.BIGINT, Arrays.asList(5L, 5L), 4);
+        Assert.assertFalse(new StatementManipulator().forPartition("SELECT * FROM t", "c", true, true).contains("WHERE"));
+    }
+
+    /** Columns without values can't be partitioned. */
+    @Test
+    public void testNoValues() throws Exception {
+        Assert.assertTrue(Partition.create(createBounds(Types.BIGINT, Arrays.asList((Long)null)), 4).isEmpty());
+    }
+}
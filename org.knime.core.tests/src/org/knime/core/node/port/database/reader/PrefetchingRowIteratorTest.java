@@ -0,0 +1,155 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.reader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+
+/**
+ * Tests the {@link PrefetchingRowIterator}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class PrefetchingRowIteratorTest {
+
+    /** Iterator over a number of rows that remembers the number of rows read and may fail at a given row. */
+    private static final class CountingIterator extends RowIterator {
+        private final int m_numRows;
+
+        private final int m_failAt;
+
+        private final AtomicInteger m_readCount = new AtomicInteger();
+
+        CountingIterator(final int numRows, final int failAt) {
+            m_numRows = numRows;
+            m_failAt = failAt;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return m_readCount.get() < m_numRows;
+        }
+
+        @Override
+        public DataRow next() {
+            final int i = m_readCount.getAndIncrement();
+            if (i == m_failAt) {
+                throw new IllegalStateException("Failure at row " + i);
+            }
+            return new DefaultRow(RowKey.createRowKey((long)i), new IntCell(i));
+        }
+    }
+
+    /** All rows are returned in order, independent of the batch size. */
+    @Test
+    public void testAllRowsInOrder() {
+        for (int batchSize : new int[]{1, 7, 100, 1000}) {
+            final List<DataRow> rows = new ArrayList<>();
+            try (PrefetchingRowIterator it = new PrefetchingRowIterator(new CountingIterator(250, -1), batchSize, 2)) {
+                while (it.hasNext()) {
+                    rows.add(it.next());
+                }
+                Assert.assertFalse(it.hasNext());
+            }
+            Assert.assertEquals(250, rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                Assert.assertEquals(i, ((IntCell)rows.get(i).getCell(0)).getIntValue());
+            }
+        }
+    }
+
+    /** An empty source results in an empty iterator. */
+    @Test(expected = NoSuchElementException.class)
+    public void testEmpty() {
+        try (PrefetchingRowIterator it = new PrefetchingRowIterator(new CountingIterator(0, -1), 10, 2)) {
+            Assert.assertFalse(it.hasNext());
+            it.next();
+        }
+    }
+
+    /** Exceptions of the source are rethrown by the consumer after the rows read before. */
+    @Test
+    public void testFailure() {
+        int count = 0;
+        try (PrefetchingRowIterator it = new PrefetchingRowIterator(new CountingIterator(100, 42), 10, 2)) {
+            while (it.hasNext()) {
+                it.next();
+                count++;
+            }
+            Assert.fail("Exception of source not rethrown");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("Failure at row 42", e.getMessage());
+        }
+        Assert.assertEquals(42, count);
+    }
+
+    /** Closing stops the background thread, which only reads a bounded number of rows ahead. */
+    @Test
+    public void testCloseEarly() throws Exception {
+        final CountingIterator source = new CountingIterator(100000, -1);
+        final PrefetchingRowIterator it = new PrefetchingRowIterator(source, 10, 2);
+        Assert.assertTrue(it.hasNext());
+        it.next();
+        Thread.sleep(100);
+        // the current batch, the buffered batches and the one being offered
+        Assert.assertTrue("Read too many rows: " + source.m_readCount.get(), source.m_readCount.get() <= 40);
+        it.close();
+        final int readCount = source.m_readCount.get();
+        Thread.sleep(100);
+        Assert.assertEquals(readCount, source.m_readCount.get());
+        Assert.assertFalse(it.hasNext());
+    }
+}
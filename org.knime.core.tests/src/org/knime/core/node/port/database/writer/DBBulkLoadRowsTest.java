@@ -0,0 +1,127 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.writer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.TimeZone;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DefaultTable;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.streamable.DataTableRowInput;
+
+/**
+ * Tests the CSV formatting of {@link DBBulkLoadRows}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DBBulkLoadRowsTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(new String[]{"i", "d", "b", "s"},
+        new DataType[]{IntCell.TYPE, DoubleCell.TYPE, BooleanCell.TYPE, StringCell.TYPE});
+
+    private static DBBulkLoadRows createRows(final int[] mapping, final boolean insertNull, final DataRow... rows) {
+        return new DBBulkLoadRows(new DataTableRowInput(new DefaultTable(rows, SPEC)), mapping, insertNull,
+            TimeZone.getTimeZone("UTC"), rows.length, new ExecutionMonitor(), (stmt, dbIdx, cspec, cell) -> {
+                throw new UnsupportedOperationException();
+            });
+    }
+
+    /** Tests formatting of values, quoting of strings and missing values. */
+    @Test
+    public void testValues() {
+        final DataRow row = new DefaultRow("r", new IntCell(1), new DoubleCell(0.5), BooleanCell.TRUE,
+            new StringCell("a \"quoted\", b"));
+        final DBBulkLoadRows rows = createRows(new int[]{0, 1, 2, 3}, false, row);
+        Assert.assertEquals("1,0.5,1,\"a \"\"quoted\"\", b\"\n", rows.toCSVLine(row, ""));
+
+        final DataRow missing = new DefaultRow("m", DataType.getMissingCell(), new DoubleCell(Double.NaN),
+            DataType.getMissingCell(), new StringCell(""));
+        Assert.assertEquals("NULL,NULL,NULL,\"\"\n", rows.toCSVLine(missing, "NULL"));
+    }
+
+    /** Tests that columns not in the input are skipped or written as missing values. */
+    @Test
+    public void testMapping() {
+        final DataRow row = new DefaultRow("r", new IntCell(1), new DoubleCell(2), BooleanCell.FALSE,
+            new StringCell("x"));
+        Assert.assertEquals("\"x\",1\n", createRows(new int[]{3, -1, 0}, false, row).toCSVLine(row, ""));
+        final DBBulkLoadRows rows = createRows(new int[]{3, -1, 0}, true, row);
+        Assert.assertEquals("\"x\",,1\n", rows.toCSVLine(row, ""));
+        Assert.assertEquals(3, rows.getNumColumns());
+    }
+
+    /** Tests that the stream contains one line per row and counts the read rows. */
+    @Test
+    public void testStream() throws Exception {
+        final DataCell[] cells = {new IntCell(7), new DoubleCell(1), BooleanCell.FALSE, new StringCell("ä")};
+        final DBBulkLoadRows rows =
+            createRows(new int[]{0, 3}, false, new DefaultRow("r0", cells), new DefaultRow("r1", cells));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = rows.toCSV("")) {
+            final byte[] buf = new byte[3];
+            int read;
+            while ((read = in.read(buf)) >= 0) {
+                out.write(buf, 0, read);
+            }
+        }
+        Assert.assertEquals("7,\"ä\"\n7,\"ä\"\n", new String(out.toByteArray(), StandardCharsets.UTF_8));
+        Assert.assertEquals(2, rows.getReadCount());
+        Assert.assertNull(rows.getReadFailure());
+    }
+}
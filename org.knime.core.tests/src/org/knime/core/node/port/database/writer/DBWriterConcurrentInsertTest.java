@@ -0,0 +1,213 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.writer;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DefaultTable;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.port.database.DatabaseConnectionSettings;
+import org.knime.core.node.streamable.DataTableRowInput;
+
+/**
+ * Tests the concurrent write of {@link DBWriterImpl}, in particular that writers commit or roll back without waiting
+ * for each other.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DBWriterConcurrentInsertTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(new String[]{"i"}, new DataType[]{IntCell.TYPE});
+
+    private ExecutorService m_executor;
+
+    private final AtomicInteger m_executedRows = new AtomicInteger();
+
+    private final AtomicInteger m_commits = new AtomicInteger();
+
+    private final AtomicInteger m_rollbacks = new AtomicInteger();
+
+    private final AtomicInteger m_startedWriters = new AtomicInteger();
+
+    /** Creates the executor, which has fewer threads than writers. */
+    @Before
+    public void setUp() {
+        m_executor = Executors.newFixedThreadPool(1);
+    }
+
+    /** Shuts down the executor. */
+    @After
+    public void tearDown() {
+        m_executor.shutdownNow();
+    }
+
+    /** Creates a connection that counts the started writers, executed rows, commits and rollbacks. */
+    private Connection createConnection(final boolean failExecute) {
+        final AtomicInteger batchRows = new AtomicInteger();
+        final PreparedStatement stmt = (PreparedStatement)Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "addBatch":
+                        batchRows.incrementAndGet();
+                        return null;
+                    case "executeBatch":
+                        if (failExecute) {
+                            throw new SQLException("Failed");
+                        }
+                        m_executedRows.addAndGet(batchRows.getAndSet(0));
+                        return new int[0];
+                    default:
+                        return null;
+                }
+            });
+        return (Connection)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "prepareStatement":
+                        m_startedWriters.incrementAndGet();
+                        return stmt;
+                    case "getAutoCommit":
+                        return Boolean.TRUE;
+                    case "commit":
+                        m_commits.incrementAndGet();
+                        return null;
+                    case "rollback":
+                        m_rollbacks.incrementAndGet();
+                        return null;
+                    default:
+                        return null;
+                }
+            });
+    }
+
+    private static DataTableRowInput createInput(final int numRows) {
+        final DataRow[] rows = new DataRow[numRows];
+        for (int i = 0; i < numRows; i++) {
+            rows[i] = new DefaultRow("Row" + i, new IntCell(i));
+        }
+        return new DataTableRowInput(new DefaultTable(rows, SPEC));
+    }
+
+    private DBWriterImpl.ConcurrentInsert createInsert(final boolean failOnError, final int numWriters) {
+        final DBWriterImpl writer = new DBWriterImpl(new DatabaseConnectionSettings());
+        return writer.new ConcurrentInsert("INSERT INTO t (i) VALUES (?)", new int[]{0}, null, SPEC, false,
+            failOnError, numWriters, 10, new ExecutionMonitor());
+    }
+
+    private List<Future<Void>> startWriters(final DBWriterImpl.ConcurrentInsert insert, final int numWriters,
+        final boolean failExecute) {
+        final List<Future<Void>> writers = new ArrayList<>();
+        for (int i = 0; i < numWriters; i++) {
+            writers.add(
+                m_executor.submit(() -> insert.isDecided() ? null : insert.write(createConnection(failExecute))));
+        }
+        return writers;
+    }
+
+    /**
+     * Tests that all rows are written and committed even though only one writer thread is available, which
+     * deadlocked if writers waited for each other before committing.
+     */
+    @Test(timeout = 10000)
+    public void testMoreWritersThanThreads() throws Exception {
+        final int numWriters = 4;
+        final DBWriterImpl.ConcurrentInsert insert = createInsert(true, numWriters);
+        final List<Future<Void>> writers = startWriters(insert, numWriters, false);
+        Assert.assertEquals(1000, insert.writeRows(createInput(1000), 1000, writers));
+        for (Future<Void> f : writers) {
+            Assert.assertTrue(f.isDone());
+        }
+        Assert.assertEquals(1000, m_executedRows.get());
+        Assert.assertEquals(0, m_rollbacks.get());
+        // every writer that started writing commits, writers scheduled after the decision don't write
+        Assert.assertEquals(m_startedWriters.get(), m_commits.get());
+        Assert.assertTrue(insert.isDecided());
+    }
+
+    /** Tests that an empty input commits nothing and doesn't wait for writers. */
+    @Test(timeout = 10000)
+    public void testEmptyInput() throws Exception {
+        final DBWriterImpl.ConcurrentInsert insert = createInsert(true, 2);
+        final List<Future<Void>> writers = startWriters(insert, 2, false);
+        Assert.assertEquals(0, insert.writeRows(createInput(0), 0, writers));
+        Assert.assertEquals(0, m_executedRows.get());
+        Assert.assertEquals(0, m_rollbacks.get());
+    }
+
+    /** Tests that all writers roll back and the failure is rethrown if a batch fails with fail on error set. */
+    @Test(timeout = 10000)
+    public void testFailOnErrorRollsBack() throws Exception {
+        final int numWriters = 3;
+        final DBWriterImpl.ConcurrentInsert insert = createInsert(true, numWriters);
+        final List<Future<Void>> writers = startWriters(insert, numWriters, true);
+        try {
+            insert.writeRows(createInput(1000), 1000, writers);
+            Assert.fail("Expected failure of the writers");
+        } catch (Exception e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Error while adding rows"));
+        }
+        Assert.assertEquals(0, m_commits.get());
+        Assert.assertTrue(m_rollbacks.get() >= 1);
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.writer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DefaultTable;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.port.database.DatabaseConnectionSettings;
+import org.knime.core.node.streamable.DataTableRowInput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.workflow.CredentialsProvider;
+
+/**
+ * Tests the transactions of {@link DBWriterStreamableOperator}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DBWriterStreamableOperatorTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(new String[]{"i"}, new DataType[]{IntCell.TYPE});
+
+    /** Records the transactions, i.e. the calls of the concurrent write, and returns a warning for each. */
+    private static final class RecordingWriter implements DBWriter {
+
+        private final List<Boolean> m_appendData = new ArrayList<>();
+
+        private final List<List<Integer>> m_rows = new ArrayList<>();
+
+        private final String m_warning;
+
+        private RecordingWriter(final String warning) {
+            m_warning = warning;
+        }
+
+        @Override
+        public String writeData(final String table, final RowInput input, final long rowCount,
+            final boolean appendData, final ExecutionMonitor exec, final Map<String, String> sqlTypes,
+            final CredentialsProvider cp, final int batchSize, final boolean insertNullForMissingCols,
+            final boolean failOnError, final int numConnections) throws Exception {
+            Assert.assertEquals("t", table);
+            Assert.assertEquals(2, numConnections);
+            final List<Integer> rows = new ArrayList<>();
+            DataRow row;
+            while ((row = input.poll()) != null) {
+                rows.add(((IntCell)row.getCell(0)).getIntValue());
+            }
+            m_appendData.add(appendData);
+            m_rows.add(rows);
+            return m_warning == null ? null : m_warning + m_rows.size();
+        }
+
+        @Override
+        public String writeData(final String table, final RowInput input, final long rowCount,
+            final boolean appendData, final ExecutionMonitor exec, final Map<String, String> sqlTypes,
+            final CredentialsProvider cp, final int batchSize, final boolean insertNullForMissingCols,
+            final boolean failOnError) throws Exception {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String updateTable(final String schema, final String table, final BufferedDataTable data,
+            final String[] setColumns, final String[] whereColumns, final int[] updateStatus,
+            final ExecutionMonitor exec, final CredentialsProvider cp, final int batchSize) throws Exception {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String deleteRows(final String schema, final String table, final BufferedDataTable data,
+            final String[] whereColumns, final int[] deleteStatus, final ExecutionMonitor exec,
+            final CredentialsProvider cp, final int batchSize) throws Exception {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static DataTableRowInput createInput(final int numRows) {
+        final DataRow[] rows = new DataRow[numRows];
+        for (int i = 0; i < numRows; i++) {
+            rows[i] = new DefaultRow("Row" + i, new IntCell(i));
+        }
+        return new DataTableRowInput(new DefaultTable(rows, SPEC));
+    }
+
+    private static DBWriterStreamableOperator createOperator(final long commitInterval) {
+        final DBWriterStreamableOperator op = new DBWriterStreamableOperator(new DatabaseConnectionSettings(), 0,
+            "t", false, null, null, 3, false, false);
+        op.setCommitInterval(commitInterval);
+        op.setNumConnections(2);
+        return op;
+    }
+
+    /** Tests that the rows are split into transactions, the first one creates the table and the others append. */
+    @Test(timeout = 10000)
+    public void testCommitInterval() throws Exception {
+        final RecordingWriter writer = new RecordingWriter(null);
+        final DBWriterStreamableOperator op = createOperator(4);
+        op.write(createInput(10), writer, new ExecutionMonitor());
+        Assert.assertEquals(3, writer.m_rows.size());
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3), writer.m_rows.get(0));
+        Assert.assertEquals(Arrays.asList(4, 5, 6, 7), writer.m_rows.get(1));
+        Assert.assertEquals(Arrays.asList(8, 9), writer.m_rows.get(2));
+        Assert.assertEquals(Arrays.asList(false, true, true), writer.m_appendData);
+        Assert.assertNull(op.getWarningMessage());
+    }
+
+    /** Tests that all rows are written in one transaction without commit interval. */
+    @Test(timeout = 10000)
+    public void testSingleTransaction() throws Exception {
+        final RecordingWriter writer = new RecordingWriter(null);
+        createOperator(0).write(createInput(100), writer, new ExecutionMonitor());
+        Assert.assertEquals(1, writer.m_rows.size());
+        Assert.assertEquals(100, writer.m_rows.get(0).size());
+        Assert.assertEquals(Boolean.FALSE, writer.m_appendData.get(0));
+    }
+
+    /** Tests that an empty input still creates the table in a single, empty transaction. */
+    @Test(timeout = 10000)
+    public void testEmptyInput() throws Exception {
+        final RecordingWriter writer = new RecordingWriter(null);
+        final DBWriterStreamableOperator op = createOperator(4);
+        op.write(createInput(0), writer, new ExecutionMonitor());
+        Assert.assertEquals(1, writer.m_rows.size());
+        Assert.assertTrue(writer.m_rows.get(0).isEmpty());
+        Assert.assertEquals(Boolean.FALSE, writer.m_appendData.get(0));
+        Assert.assertNull(op.getWarningMessage());
+    }
+
+    /** Tests that the warnings of all transactions are collected and reset by the next run. */
+    @Test(timeout = 10000)
+    public void testWarnings() throws Exception {
+        final DBWriterStreamableOperator op = createOperator(5);
+        op.write(createInput(10), new RecordingWriter("Errors in transaction "), new ExecutionMonitor());
+        Assert.assertEquals("Errors in transaction 1\nErrors in transaction 2", op.getWarningMessage());
+        op.write(createInput(10), new RecordingWriter(null), new ExecutionMonitor());
+        Assert.assertNull(op.getWarningMessage());
+    }
+}
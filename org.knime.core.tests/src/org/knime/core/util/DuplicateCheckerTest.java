@@ -54,6 +54,7 @@
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.knime.core.data.RowKey;
 import org.knime.core.node.NodeLogger;
 
 import junit.framework.Assert;
@@ -134,6 +135,44 @@ public void testEarlyDuplicate() throws Exception {
         checker.addKey("A");
     }
 
+    /**
+     * Compact row keys in ascending order, followed by a string key equal to one of them.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testCompactKeyDuplicateAsString() throws Exception {
+        DuplicateChecker checker = new DuplicateChecker(1000, 50);
+        for (long i = 0; i < 5000; i++) {
+            checker.addKey(RowKey.createRowKey(i));
+        }
+        checker.addKey(new RowKey("Row05"));
+        expectedException.expect(DuplicateKeyException.class);
+        checker.addKey(new RowKey("Row4711"));
+    }
+
+    /**
+     * Compact row keys with a gap, the duplicate is only detected when merging the chunks.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testCompactKeyDuplicateAfterGap() throws Exception {
+        DuplicateChecker checker = new DuplicateChecker(1000, 50);
+        for (long i = 0; i < 100; i++) {
+            checker.addKey(RowKey.createRowKey(i));
+        }
+        for (long i = 200; i < 5000; i++) {
+            checker.addKey(RowKey.createRowKey(i));
+        }
+        checker.addKey("Row100");
+        checker.addKey(RowKey.createRowKey("Other", 100));
+        checker.addKey("Row150");
+        checker.addKey(RowKey.createRowKey(150));
+        expectedException.expect(DuplicateKeyException.class);
+        checker.checkForDuplicates();
+    }
+
     private void internalTestArbitraryStrings(final boolean isAddDuplicates, final long seed) throws IOException {
         LinkedHashSet<String> hash = new LinkedHashSet<String>();
         Random r = new Random(seed);
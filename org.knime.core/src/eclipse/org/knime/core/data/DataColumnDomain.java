@@ -49,6 +49,8 @@
 package org.knime.core.data;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
@@ -100,6 +102,13 @@ public final class DataColumnDomain {
     /** Set of possible values or <code>null</code>. */
     private final Set<DataCell> m_values;
 
+    /** Pool of canonical domains, see {@link #intern()}. */
+    private static final WeakInterner<DataColumnDomain> INTERNER =
+        new WeakInterner<DataColumnDomain>(DataColumnDomain::hasSameValueOrder);
+
+    /** Lazily computed hash code, 0 if not yet computed (domains are immutable). */
+    private int m_hashCode;
+
     /**
      * Create new column domain with lower and upper bounds, and set of possible
      * values. All arguments can be <code>null</code> in case none of these
@@ -240,6 +249,10 @@ public boolean equals(final Object obj) {
 
         // check if properties are available in both domains
         DataColumnDomain domain = (DataColumnDomain)obj;
+        // cheap rejection if both hash codes have already been computed
+        if (m_hashCode != 0 && domain.m_hashCode != 0 && m_hashCode != domain.m_hashCode) {
+            return false;
+        }
         // check if one or the other has possible values defined
         if (hasValues() ^ domain.hasValues()) {
             return false;
@@ -279,12 +292,16 @@ public boolean equals(final Object obj) {
 
     /**
      * Returns the hash code of this domain, based on the hash codes of the
-     * lower, upper bound, and each possible value - if available.
+     * lower, upper bound, and each possible value - if available. The hash code is
+     * computed once and then cached.
      *
      * {@inheritDoc}
      */
     @Override
     public int hashCode() {
+        if (m_hashCode != 0) {
+            return m_hashCode;
+        }
         int tempHash = 0;
         if (hasLowerBound()) {
             tempHash ^= m_lowerBound.hashCode();
@@ -297,6 +314,7 @@ public int hashCode() {
                 tempHash ^= cell.hashCode();
             }
         }
+        m_hashCode = tempHash;
         return tempHash;
     }
 
@@ -341,7 +359,7 @@ public void save(final ConfigWO config) {
      * available - from {@link ConfigRO}.
      *
      * @param config to read entries from
-     * @return a new domain object with the read properties
+     * @return a domain object with the read properties, possibly a shared instance (see {@link #intern()})
      */
     public static DataColumnDomain load(final ConfigRO config) {
         DataCell lower = null;
@@ -357,11 +375,41 @@ public static DataColumnDomain load(final ConfigRO config) {
             DataCell[] valArray =
                     config.getDataCellArray(CFG_POSS_VALUES, (DataCell[])null);
             if (valArray != null) {
-                values = new LinkedHashSet<DataCell>();
-                values.addAll(Arrays.asList(valArray));
+                values = Collections.unmodifiableSet(new LinkedHashSet<DataCell>(Arrays.asList(valArray)));
+            }
+        }
+        return new DataColumnDomain(lower, upper, values).intern();
+    }
+
+    /**
+     * Returns a canonical instance of this domain. Equal domains, for instance those of nominal columns sharing the
+     * same possible values, are represented by the same object and hence share a single set of possible values. Equal
+     * canonical domains are identical, which makes comparing them cheap. Domains are only shared if their possible
+     * values are also in the same order, i.e. the order of this domain's values is retained. Canonical instances are
+     * garbage collected once they are no longer referenced.
+     *
+     * @return the canonical domain equal to this one, possibly <code>this</code>
+     * @since 3.8
+     */
+    public DataColumnDomain intern() {
+        return INTERNER.intern(this);
+    }
+
+    /**
+     * @param other an equal domain
+     * @return whether the possible values of both domains are in the same order
+     */
+    boolean hasSameValueOrder(final DataColumnDomain other) {
+        if (m_values == other.m_values || m_values == null || other.m_values == null) {
+            return m_values == other.m_values;
+        }
+        final Iterator<DataCell> it = other.m_values.iterator();
+        for (DataCell value : m_values) {
+            if (!it.hasNext() || !value.equals(it.next())) {
+                return false;
             }
         }
-        return new DataColumnDomain(lower, upper, values);
+        return !it.hasNext();
     }
 
 } // DataColumnDomain
@@ -104,6 +104,13 @@ public final class DataColumnSpec {
     /** Holds the FilterHandler if one was set or null. */
     private final FilterHandler m_filterHandler;
 
+    /** Pool of canonical column specs, see {@link #intern()}. */
+    private static final WeakInterner<DataColumnSpec> INTERNER =
+        new WeakInterner<DataColumnSpec>((canonical, spec) -> canonical.m_domain.hasSameValueOrder(spec.m_domain));
+
+    /** Lazily computed hash code, 0 if not yet computed (column specs are immutable). */
+    private int m_hashCode;
+
     /** Config key for the column name. */
     private static final String CFG_COLUMN_NAME = "column_name";
 
@@ -307,18 +314,21 @@ public boolean equals(final Object o) {
             return false;
         }
         DataColumnSpec cspec = (DataColumnSpec) o;
+        if (m_hashCode != 0 && cspec.m_hashCode != 0 && m_hashCode != cspec.m_hashCode) {
+            return false;
+        }
+        // the domain is compared last as it may hold many possible values
         boolean areEqual =
             getName().equals(cspec.getName())
             && getType().equals(cspec.getType())
-            && getDomain().equals(cspec.getDomain())
-            && getProperties().equals(cspec.getProperties())
-            && getElementNames().equals(cspec.getElementNames());
+            && getElementNames().equals(cspec.getElementNames())
+            && getProperties().equals(cspec.getProperties());
         return areEqual
                 && Objects.equals(m_colorHandler, cspec.m_colorHandler)
                 && Objects.equals(m_sizeHandler, cspec.m_sizeHandler)
                 && Objects.equals(m_shapeHandler, cspec.m_shapeHandler)
-                && Objects.equals(m_filterHandler, cspec.m_filterHandler);
-
+                && Objects.equals(m_filterHandler, cspec.m_filterHandler)
+                && getDomain().equals(cspec.getDomain());
     }
 
     /**
@@ -327,7 +337,31 @@ && getProperties().equals(cspec.getProperties())
      */
     @Override
     public int hashCode() {
-        return getName().hashCode() ^ getType().hashCode();
+        int hash = m_hashCode;
+        if (hash == 0) {
+            hash = getName().hashCode() ^ getType().hashCode();
+            m_hashCode = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * Returns a canonical instance of this column spec. Equal column specs are represented by the same object, which
+     * makes comparing them - and table specs containing them - cheap. The domain of the returned spec is interned as
+     * well (see {@link DataColumnDomain#intern()}), in particular the order of its possible values is retained.
+     * Canonical instances are garbage collected once they are no longer referenced.
+     *
+     * @return the canonical column spec equal to this one, possibly <code>this</code>
+     * @since 3.8
+     */
+    public DataColumnSpec intern() {
+        final DataColumnDomain domain = m_domain.intern();
+        DataColumnSpec spec = this;
+        if (domain != m_domain) {
+            spec = new DataColumnSpec(m_name, m_elementNames.toArray(new String[0]), m_type, domain, m_properties,
+                m_sizeHandler, m_colorHandler, m_shapeHandler, m_filterHandler);
+        }
+        return INTERNER.intern(spec);
     }
 
     /**
@@ -376,7 +410,7 @@ public void save(final ConfigWO config) {
      * with the information read.
      *
      * @param config to read properties from
-     * @return a new column spec object
+     * @return a column spec object with the read properties, possibly a shared instance (see {@link #intern()})
      * @throws InvalidSettingsException if one of the non-optional properties is
      *             not available or can't be initialized
      * @throws NullPointerException if the config object is <code>null</code>
@@ -408,7 +442,7 @@ public static DataColumnSpec load(final ConfigRO config)
         if (config.containsKey(CFG_FILTER)) {
             filter = FilterHandler.load(config.getConfig(CFG_FILTER));
         }
-        return new DataColumnSpec(name, elNames, type, domain, properties, size, color, shape, filter);
+        return new DataColumnSpec(name, elNames, type, domain, properties, size, color, shape, filter).intern();
     }
 
 } // DataColumnSpec
@@ -383,6 +383,9 @@ public void verifyIndices(final int... indices) {
     /** The index of the column holding the SizeHandler or -1 if not set. */
     private final int m_sizeHandlerColIndex;
 
+    /** Lazily computed hash code, 0 if not yet computed (table specs are immutable). */
+    private int m_hashCode;
+
     /** The indices of all columns holding the FilterHandler. */
     private final int[] m_filterHandlerColIndices;
 
@@ -689,6 +692,9 @@ public boolean equals(final Object obj) {
             return false;
         }
         DataTableSpec spec = (DataTableSpec) obj;
+        if (m_hashCode != 0 && spec.m_hashCode != 0 && m_hashCode != spec.m_hashCode) {
+            return false;
+        }
         if (!m_name.equals(spec.m_name)) {
             return false;
         }
@@ -906,6 +912,9 @@ public boolean isInFilter(final DataRow row) {
      */
     @Override
     public int hashCode() {
+        if (m_hashCode != 0) {
+            return m_hashCode;
+        }
         /*
          * this hash code ignores the order of the columns. Thus, two specs
          * having the same columns (but in different order) end up with the same
@@ -917,6 +926,7 @@ public int hashCode() {
             tempHash ^= colHash;
         }
         tempHash ^= m_properties.hashCode();
+        m_hashCode = tempHash;
         return tempHash;
     }
 
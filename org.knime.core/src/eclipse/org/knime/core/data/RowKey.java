@@ -51,18 +51,51 @@
  */
 package org.knime.core.data;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 
 /**
  * Key for a specific row which holds an identifier of type {@link String}.
  *
+ * <p>Keys that follow the pattern <i>prefix + non-negative index</i> (such as the default keys
+ * <code>Row0, Row1, ...</code> created by {@link #createRowKey(long)}) are held in a compact form, which stores the
+ * (shared) prefix and the index as primitive. Such keys are transparently converted into their string form when
+ * {@link #getString()} is called; {@link #equals(Object)} and {@link #hashCode()} are consistent between both forms,
+ * i.e. <code>RowKey.createRowKey(5)</code> equals <code>new RowKey("Row5")</code>.
+ *
  * @see DataRow
  * @author Michael Berthold, University of Konstanz
  */
 public final class RowKey {
 
-    /** Private member holding non-null row id. */
+    /** Prefix of the keys created by {@link #createRowKey(long)}. */
+    private static final String DEFAULT_PREFIX = "Row";
+
+    /** String of the largest index of a compact key, used to detect overflows when parsing keys. */
+    private static final String MAX_INDEX_STRING = Long.toString(Long.MAX_VALUE);
+
+    /** Upper bound for the number of distinct prefixes kept in {@link #PREFIX_CACHE}. */
+    private static final int MAX_CACHED_PREFIXES = 1024;
+
+    /** Interned prefixes of compact keys so that all keys of a table share one prefix instance. */
+    private static final Map<String, String> PREFIX_CACHE = new ConcurrentHashMap<>();
+
+    /** Private member holding row id, non-null unless this is a compact key. */
     private final String m_id;
 
+    /** Prefix of a compact key, <code>null</code> if this key is not compact. */
+    private final String m_prefix;
+
+    /** Index of a compact key, -1 if this key is not compact. */
+    private final long m_index;
+
+    /** Cached hash code of compact keys (0 if not computed yet), same semantics as in {@link String}. */
+    private int m_hash;
+
+    /** Lazily created string of compact keys, <code>null</code> until {@link #getString()} is first called. */
+    private String m_string;
+
     /**
      * Creates a row key based on a {@link String}.
      *
@@ -74,11 +107,87 @@ public RowKey(final String id) {
             throw new NullPointerException("Argument must not be null.");
         }
         m_id = id;
+        m_prefix = null;
+        m_index = -1L;
+    }
+
+    /** Creates compact key, arguments are validated by caller. */
+    private RowKey(final String prefix, final long index) {
+        m_id = null;
+        m_prefix = prefix;
+        m_index = index;
     }
 
     /** @return Underlying string of this row key. */
     public String getString() {
-        return m_id;
+        if (m_id != null) {
+            return m_id;
+        }
+        // created on first access only, keys that are never printed stay compact
+        String str = m_string;
+        if (str == null) {
+            str = m_prefix.concat(Long.toString(m_index));
+            m_string = str;
+        }
+        return str;
+    }
+
+    /**
+     * Whether this key is held in the compact <i>prefix + index</i> form. If so, {@link #getPrefix()} and
+     * {@link #getIndex()} return the two parts that make up the string representation.
+     *
+     * @return that property
+     * @since 3.8
+     */
+    public boolean isCompact() {
+        return m_prefix != null;
+    }
+
+    /**
+     * @return the prefix of a compact key or <code>null</code> if this key is not compact (see {@link #isCompact()})
+     * @since 3.8
+     */
+    public String getPrefix() {
+        return m_prefix;
+    }
+
+    /**
+     * @return the (non-negative) index of a compact key or -1 if this key is not compact (see {@link #isCompact()})
+     * @since 3.8
+     */
+    public long getIndex() {
+        return m_index;
+    }
+
+    /**
+     * Returns an equal key that is in the compact form, if the string of this key follows the pattern
+     * <i>prefix + non-negative index</i> (no leading zeros, the prefix not ending with a digit). Otherwise this key is
+     * returned.
+     *
+     * @return a compact key equal to this key or this key if it can't be represented compactly
+     * @since 3.8
+     */
+    public RowKey toCompactKey() {
+        if (m_prefix != null) {
+            return this;
+        }
+        final int length = m_id.length();
+        int digitStart = length;
+        while (digitStart > 0 && isDigit(m_id.charAt(digitStart - 1))) {
+            digitStart--;
+        }
+        final int digitCount = length - digitStart;
+        // no digits, leading zero ("Row01") or overflow (index larger than Long.MAX_VALUE)
+        if (digitCount == 0 || digitCount > MAX_INDEX_STRING.length()
+            || (digitCount > 1 && m_id.charAt(digitStart) == '0')
+            || (digitCount == MAX_INDEX_STRING.length() && m_id.substring(digitStart).compareTo(MAX_INDEX_STRING) > 0)) {
+            return this;
+        }
+        long index = 0L;
+        for (int i = digitStart; i < length; i++) {
+            index = index * 10 + (m_id.charAt(i) - '0');
+        }
+        return new RowKey(internPrefix(m_id.substring(0, digitStart)), index);
     }
 
     /** {@inheritDoc} */
@@ -94,7 +203,19 @@ public boolean equals(final Object obj) {
             return true;
         }
         if (obj instanceof RowKey) {
-            return ((RowKey)obj).m_id.equals(m_id);
+            final RowKey other = (RowKey)obj;
+            if (m_prefix != null) {
+                if (other.m_prefix != null) {
+                    // prefixes never end with a digit, so the string forms are equal iff prefix and index are
+                    return m_index == other.m_index
+                        && (m_prefix == other.m_prefix || m_prefix.equals(other.m_prefix));
+                }
+                return compactEqualsString(m_prefix, m_index, other.m_id);
+            }
+            if (other.m_prefix != null) {
+                return compactEqualsString(other.m_prefix, other.m_index, m_id);
+            }
+            return other.m_id.equals(m_id);
         }
         return false;
     }
@@ -104,7 +225,63 @@ public boolean equals(final Object obj) {
      */
     @Override
     public int hashCode() {
-        return m_id.hashCode();
+        if (m_id != null) {
+            return m_id.hashCode();
+        }
+        int h = m_hash;
+        if (h == 0) {
+            // same as getString().hashCode() but without creating the string; digits from least significant
+            int digitsHash = 0;
+            int multiplier = 1;
+            long remainder = m_index;
+            do {
+                digitsHash += ('0' + (int)(remainder % 10)) * multiplier;
+                multiplier *= 31;
+                remainder /= 10;
+            } while (remainder != 0L);
+            h = m_prefix.hashCode() * multiplier + digitsHash;
+            m_hash = h;
+        }
+        return h;
+    }
+
+    /** Compares a compact key to a string without materializing the string of the compact key. */
+    private static boolean compactEqualsString(final String prefix, final long index, final String str) {
+        final int prefixLength = prefix.length();
+        if (str.length() <= prefixLength || !str.startsWith(prefix)) {
+            return false;
+        }
+        long remainder = index;
+        int pos = str.length() - 1;
+        do {
+            if (pos < prefixLength || str.charAt(pos) != (char)('0' + (remainder % 10))) {
+                return false;
+            }
+            remainder /= 10;
+            pos--;
+        } while (remainder != 0L);
+        return pos == prefixLength - 1;
+    }
+
+    /** Whether the argument is one of the (ASCII) characters used by {@link Long#toString(long)}. */
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /** Returns a shared instance of the argument prefix. */
+    private static String internPrefix(final String prefix) {
+        if (DEFAULT_PREFIX.equals(prefix)) {
+            return DEFAULT_PREFIX;
+        }
+        final String cached = PREFIX_CACHE.get(prefix);
+        if (cached != null) {
+            return cached;
+        }
+        if (PREFIX_CACHE.size() >= MAX_CACHED_PREFIXES) {
+            return prefix;
+        }
+        final String previous = PREFIX_CACHE.putIfAbsent(prefix, prefix);
+        return previous != null ? previous : prefix;
     }
 
     /**
@@ -156,7 +333,7 @@ public static RowKey[] toRowKeys(final String... strs) {
      */
     @Deprecated
     public static RowKey createRowKey(final int rowIndex) {
-        return new RowKey("Row" + rowIndex);
+        return createRowKey((long)rowIndex);
     }
 
     /**
@@ -173,6 +350,27 @@ public static RowKey createRowKey(final int rowIndex) {
      * @since 3.0
      */
     public static RowKey createRowKey(final long rowIndex) {
-        return new RowKey("Row" + rowIndex);
+        return createRowKey(DEFAULT_PREFIX, rowIndex);
+    }
+
+    /**
+     * Factory method to create row IDs of the form <code>prefix + rowIndex</code>. The returned key is held in a
+     * compact form (see {@link #isCompact()}) if the index is non-negative and the prefix does not end with a digit.
+     *
+     * @param prefix The prefix of the key, not <code>null</code>.
+     * @param rowIndex The index of the row.
+     * @return A new key of the form <code>prefix + rowIndex</code>
+     * @throws NullPointerException if the prefix is <code>null</code>
+     * @since 3.8
+     */
+    public static RowKey createRowKey(final String prefix, final long rowIndex) {
+        if (prefix == null) {
+            throw new NullPointerException("Prefix must not be null.");
+        }
+        final int prefixLength = prefix.length();
+        if (rowIndex < 0 || (prefixLength > 0 && isDigit(prefix.charAt(prefixLength - 1)))) {
+            return new RowKey(prefix + rowIndex);
+        }
+        return new RowKey(internPrefix(prefix), rowIndex);
     }
 }
@@ -0,0 +1,126 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.BiPredicate;
+
+/**
+ * Pool of canonical instances of immutable objects. Equal objects passed to {@link #intern(Object)} are replaced by
+ * a single shared instance, which saves memory and lets later <code>equals</code> calls succeed on identity. Objects
+ * that are equal but not interchangeable (e.g. domains whose possible values are ordered differently) can be kept
+ * apart by a predicate, each of them then has its own canonical instance. The pool only holds weak references, i.e.
+ * canonical instances that are no longer used elsewhere are garbage collected.
+ *
+ * @param <T> the type of the pooled objects, must be immutable and implement <code>equals</code> and
+ *            <code>hashCode</code>
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class WeakInterner<T> {
+
+    /** Canonical instances by equality, the first one in a list is the key. */
+    private final Map<T, List<WeakReference<T>>> m_pool = new WeakHashMap<T, List<WeakReference<T>>>();
+
+    private final BiPredicate<T, T> m_isInterchangeable;
+
+    /** Creates a pool in which equal objects are interchangeable. */
+    WeakInterner() {
+        this((canonical, obj) -> true);
+    }
+
+    /**
+     * @param isInterchangeable tests whether a canonical instance can replace an equal object
+     */
+    WeakInterner(final BiPredicate<T, T> isInterchangeable) {
+        m_isInterchangeable = isInterchangeable;
+    }
+
+    /**
+     * Returns the canonical instance equal to and interchangeable with the argument. If there is none, the argument
+     * becomes a canonical instance.
+     *
+     * @param obj the object to intern, not <code>null</code>
+     * @return the canonical instance, never <code>null</code>
+     */
+    synchronized T intern(final T obj) {
+        if (obj == null) {
+            throw new NullPointerException("Argument must not be null.");
+        }
+        List<WeakReference<T>> refs = m_pool.get(obj);
+        if (refs == null) {
+            refs = new ArrayList<WeakReference<T>>(1);
+            m_pool.put(obj, refs);
+        }
+        for (final Iterator<WeakReference<T>> it = refs.iterator(); it.hasNext();) {
+            final T canonical = it.next().get();
+            if (canonical == null) {
+                it.remove();
+            } else if (m_isInterchangeable.test(canonical, obj)) {
+                return canonical;
+            }
+        }
+        refs.add(new WeakReference<T>(obj));
+        return obj;
+    }
+
+    /** @return the number of canonical instances currently in the pool */
+    synchronized int size() {
+        int size = 0;
+        for (List<WeakReference<T>> refs : m_pool.values()) {
+            for (WeakReference<T> ref : refs) {
+                if (ref.get() != null) {
+                    size++;
+                }
+            }
+        }
+        return size;
+    }
+}
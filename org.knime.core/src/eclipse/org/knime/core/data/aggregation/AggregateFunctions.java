@@ -0,0 +1,503 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.aggregation;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DataValueComparator;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.collection.CollectionCellFactory;
+import org.knime.core.data.collection.CollectionDataValue;
+import org.knime.core.data.collection.SetCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.LongCell;
+
+/**
+ * The aggregate functions available for the {@link BufferedDataTableAggregator}. Missing values are ignored by all
+ * functions; functions whose result is undefined for groups without (non-missing) values return a missing cell.
+ *
+ * <p>
+ * Accumulators are specialized for the input type: integer columns (compatible to {@link LongValue}) are aggregated
+ * using <code>long</code> arithmetic, other numeric columns using <code>double</code> arithmetic, and only other
+ * columns fall back to the {@link DataValueComparator} of their type.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.8
+ */
+public final class AggregateFunctions {
+
+    /** Number of non-missing values, result is a {@link LongCell}. */
+    public static final AggregateFunction COUNT = new CountFunction();
+
+    /**
+     * Sum of the values of a numeric column, result is a {@link LongCell} for integer and a {@link DoubleCell} for
+     * other numeric columns.
+     */
+    public static final AggregateFunction SUM = new SumFunction();
+
+    /** Smallest value of a column with comparable values, result has the type of the column. */
+    public static final AggregateFunction MIN = new MinMaxFunction(true);
+
+    /** Largest value of a column with comparable values, result has the type of the column. */
+    public static final AggregateFunction MAX = new MinMaxFunction(false);
+
+    /** Arithmetic mean of a numeric column, result is a {@link DoubleCell}. */
+    public static final AggregateFunction MEAN = new MeanFunction();
+
+    /** Number of distinct non-missing values, result is a {@link LongCell}. */
+    public static final AggregateFunction DISTINCT_COUNT = new DistinctCountFunction();
+
+    private AggregateFunctions() {
+    }
+
+    private static boolean isInteger(final DataType type) {
+        return type.isCompatible(LongValue.class);
+    }
+
+    private static final class CountFunction implements AggregateFunction {
+
+        @Override
+        public String getName() {
+            return "Count";
+        }
+
+        @Override
+        public boolean isCompatible(final DataType inputType) {
+            return true;
+        }
+
+        @Override
+        public DataType getResultType(final DataType inputType) {
+            return LongCell.TYPE;
+        }
+
+        @Override
+        public DataType[] getStateTypes(final DataType inputType) {
+            return new DataType[]{LongCell.TYPE};
+        }
+
+        @Override
+        public Accumulator createAccumulator(final DataType inputType) {
+            return new Accumulator() {
+                private long m_count;
+
+                @Override
+                public void add(final DataCell cell) {
+                    if (!cell.isMissing()) {
+                        m_count++;
+                    }
+                }
+
+                @Override
+                public DataCell[] getState() {
+                    return new DataCell[]{new LongCell(m_count)};
+                }
+
+                @Override
+                public void addState(final DataCell[] state) {
+                    m_count += ((LongValue)state[0]).getLongValue();
+                }
+
+                @Override
+                public DataCell getResult() {
+                    return new LongCell(m_count);
+                }
+            };
+        }
+    }
+
+    private static final class SumFunction implements AggregateFunction {
+
+        @Override
+        public String getName() {
+            return "Sum";
+        }
+
+        @Override
+        public boolean isCompatible(final DataType inputType) {
+            return inputType.isCompatible(DoubleValue.class);
+        }
+
+        @Override
+        public DataType getResultType(final DataType inputType) {
+            return isInteger(inputType) ? LongCell.TYPE : DoubleCell.TYPE;
+        }
+
+        @Override
+        public DataType[] getStateTypes(final DataType inputType) {
+            return new DataType[]{getResultType(inputType), LongCell.TYPE};
+        }
+
+        @Override
+        public Accumulator createAccumulator(final DataType inputType) {
+            return isInteger(inputType) ? new LongSumAccumulator() : new DoubleSumAccumulator();
+        }
+    }
+
+    private static final class LongSumAccumulator implements Accumulator {
+        private long m_sum;
+
+        private long m_count;
+
+        @Override
+        public void add(final DataCell cell) {
+            if (!cell.isMissing()) {
+                m_sum += ((LongValue)cell).getLongValue();
+                m_count++;
+            }
+        }
+
+        @Override
+        public DataCell[] getState() {
+            return new DataCell[]{new LongCell(m_sum), new LongCell(m_count)};
+        }
+
+        @Override
+        public void addState(final DataCell[] state) {
+            m_sum += ((LongValue)state[0]).getLongValue();
+            m_count += ((LongValue)state[1]).getLongValue();
+        }
+
+        @Override
+        public DataCell getResult() {
+            return m_count == 0 ? DataType.getMissingCell() : new LongCell(m_sum);
+        }
+    }
+
+    private static final class DoubleSumAccumulator implements Accumulator {
+        private double m_sum;
+
+        private long m_count;
+
+        @Override
+        public void add(final DataCell cell) {
+            if (!cell.isMissing()) {
+                m_sum += ((DoubleValue)cell).getDoubleValue();
+                m_count++;
+            }
+        }
+
+        @Override
+        public DataCell[] getState() {
+            return new DataCell[]{new DoubleCell(m_sum), new LongCell(m_count)};
+        }
+
+        @Override
+        public void addState(final DataCell[] state) {
+            m_sum += ((DoubleValue)state[0]).getDoubleValue();
+            m_count += ((LongValue)state[1]).getLongValue();
+        }
+
+        @Override
+        public DataCell getResult() {
+            return m_count == 0 ? DataType.getMissingCell() : new DoubleCell(m_sum);
+        }
+    }
+
+    private static final class MeanFunction implements AggregateFunction {
+
+        @Override
+        public String getName() {
+            return "Mean";
+        }
+
+        @Override
+        public boolean isCompatible(final DataType inputType) {
+            return inputType.isCompatible(DoubleValue.class);
+        }
+
+        @Override
+        public DataType getResultType(final DataType inputType) {
+            return DoubleCell.TYPE;
+        }
+
+        @Override
+        public DataType[] getStateTypes(final DataType inputType) {
+            return new DataType[]{DoubleCell.TYPE, LongCell.TYPE};
+        }
+
+        @Override
+        public Accumulator createAccumulator(final DataType inputType) {
+            return new MeanAccumulator();
+        }
+    }
+
+    private static final class MeanAccumulator implements Accumulator {
+        private double m_sum;
+
+        private long m_count;
+
+        @Override
+        public void add(final DataCell cell) {
+            if (!cell.isMissing()) {
+                m_sum += ((DoubleValue)cell).getDoubleValue();
+                m_count++;
+            }
+        }
+
+        @Override
+        public DataCell[] getState() {
+            return new DataCell[]{new DoubleCell(m_sum), new LongCell(m_count)};
+        }
+
+        @Override
+        public void addState(final DataCell[] state) {
+            m_sum += ((DoubleValue)state[0]).getDoubleValue();
+            m_count += ((LongValue)state[1]).getLongValue();
+        }
+
+        @Override
+        public DataCell getResult() {
+            return m_count == 0 ? DataType.getMissingCell() : new DoubleCell(m_sum / m_count);
+        }
+    }
+
+    private static final class MinMaxFunction implements AggregateFunction {
+
+        private final boolean m_isMin;
+
+        private MinMaxFunction(final boolean isMin) {
+            m_isMin = isMin;
+        }
+
+        @Override
+        public String getName() {
+            return m_isMin ? "Min" : "Max";
+        }
+
+        @Override
+        public boolean isCompatible(final DataType inputType) {
+            return true;
+        }
+
+        @Override
+        public DataType getResultType(final DataType inputType) {
+            return inputType;
+        }
+
+        @Override
+        public DataType[] getStateTypes(final DataType inputType) {
+            return new DataType[]{inputType};
+        }
+
+        @Override
+        public Accumulator createAccumulator(final DataType inputType) {
+            if (isInteger(inputType)) {
+                return new LongMinMaxAccumulator(m_isMin);
+            } else if (inputType.isCompatible(DoubleValue.class)) {
+                return new DoubleMinMaxAccumulator(m_isMin);
+            }
+            return new ComparatorMinMaxAccumulator(m_isMin, inputType.getComparator());
+        }
+    }
+
+    /** Min/max base class, keeps the original cell to retain the input type. */
+    private abstract static class AbstractMinMaxAccumulator implements Accumulator {
+        private final boolean m_isMin;
+
+        private DataCell m_best = DataType.getMissingCell();
+
+        AbstractMinMaxAccumulator(final boolean isMin) {
+            m_isMin = isMin;
+        }
+
+        /** @return whether the first argument is smaller than the second (both non-missing) */
+        abstract boolean isSmaller(DataCell c1, DataCell c2);
+
+        @Override
+        public final void add(final DataCell cell) {
+            if (cell.isMissing()) {
+                return;
+            }
+            if (m_best.isMissing() || (m_isMin ? isSmaller(cell, m_best) : isSmaller(m_best, cell))) {
+                m_best = cell;
+            }
+        }
+
+        @Override
+        public final DataCell[] getState() {
+            return new DataCell[]{m_best};
+        }
+
+        @Override
+        public final void addState(final DataCell[] state) {
+            add(state[0]);
+        }
+
+        @Override
+        public final DataCell getResult() {
+            return m_best;
+        }
+    }
+
+    private static final class LongMinMaxAccumulator extends AbstractMinMaxAccumulator {
+        LongMinMaxAccumulator(final boolean isMin) {
+            super(isMin);
+        }
+
+        @Override
+        boolean isSmaller(final DataCell c1, final DataCell c2) {
+            return ((LongValue)c1).getLongValue() < ((LongValue)c2).getLongValue();
+        }
+    }
+
+    private static final class DoubleMinMaxAccumulator extends AbstractMinMaxAccumulator {
+        DoubleMinMaxAccumulator(final boolean isMin) {
+            super(isMin);
+        }
+
+        @Override
+        boolean isSmaller(final DataCell c1, final DataCell c2) {
+            return Double.compare(((DoubleValue)c1).getDoubleValue(), ((DoubleValue)c2).getDoubleValue()) < 0;
+        }
+    }
+
+    private static final class ComparatorMinMaxAccumulator extends AbstractMinMaxAccumulator {
+        private final DataValueComparator m_comparator;
+
+        ComparatorMinMaxAccumulator(final boolean isMin, final DataValueComparator comparator) {
+            super(isMin);
+            m_comparator = comparator;
+        }
+
+        @Override
+        boolean isSmaller(final DataCell c1, final DataCell c2) {
+            return m_comparator.compare(c1, c2) < 0;
+        }
+    }
+
+    private static final class DistinctCountFunction implements AggregateFunction {
+
+        @Override
+        public String getName() {
+            return "Unique count";
+        }
+
+        @Override
+        public boolean isCompatible(final DataType inputType) {
+            return true;
+        }
+
+        @Override
+        public DataType getResultType(final DataType inputType) {
+            return LongCell.TYPE;
+        }
+
+        @Override
+        public DataType[] getStateTypes(final DataType inputType) {
+            return new DataType[]{SetCell.getCollectionType(isInteger(inputType) ? LongCell.TYPE : inputType)};
+        }
+
+        @Override
+        public Accumulator createAccumulator(final DataType inputType) {
+            return isInteger(inputType) ? new LongDistinctCountAccumulator() : new DistinctCountAccumulator();
+        }
+    }
+
+    private static final class LongDistinctCountAccumulator implements Accumulator {
+        private final LongHashSet m_values = new LongHashSet();
+
+        @Override
+        public void add(final DataCell cell) {
+            if (!cell.isMissing()) {
+                m_values.add(((LongValue)cell).getLongValue());
+            }
+        }
+
+        @Override
+        public DataCell[] getState() {
+            final List<DataCell> cells = new ArrayList<>(m_values.size());
+            m_values.forEach(v -> cells.add(new LongCell(v)));
+            return new DataCell[]{CollectionCellFactory.createSetCell(cells)};
+        }
+
+        @Override
+        public void addState(final DataCell[] state) {
+            for (DataCell cell : (CollectionDataValue)state[0]) {
+                add(cell);
+            }
+        }
+
+        @Override
+        public DataCell getResult() {
+            return new LongCell(m_values.size());
+        }
+    }
+
+    private static final class DistinctCountAccumulator implements Accumulator {
+        private final Set<DataCell> m_values = new HashSet<>();
+
+        @Override
+        public void add(final DataCell cell) {
+            if (!cell.isMissing()) {
+                m_values.add(cell);
+            }
+        }
+
+        @Override
+        public DataCell[] getState() {
+            return new DataCell[]{CollectionCellFactory.createSetCell(m_values)};
+        }
+
+        @Override
+        public void addState(final DataCell[] state) {
+            for (DataCell cell : (CollectionDataValue)state[0]) {
+                add(cell);
+            }
+        }
+
+        @Override
+        public DataCell getResult() {
+            return new LongCell(m_values.size());
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.aggregation;
+
+import java.util.List;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.util.UniqueNameGenerator;
+
+/**
+ * Describes how the rows of an aggregated table map to accumulators and how the intermediate (partial) states of the
+ * accumulators are stored in rows, which are used when spilling to disk. A state row consists of the group columns
+ * followed by the state columns of all aggregations.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class AggregationLayout {
+
+    private final int[] m_groupColumns;
+
+    private final int[] m_stateGroupColumns;
+
+    private final int[] m_aggregationColumns;
+
+    private final AggregateFunction[] m_functions;
+
+    private final DataType[] m_inputTypes;
+
+    /** Offset of the state cells of each aggregation in a state row, last element is the total number of cells. */
+    private final int[] m_stateOffsets;
+
+    private final DataTableSpec m_stateSpec;
+
+    /**
+     * @param inSpec the spec of the aggregated table
+     * @param groupColumns the indices of the group columns
+     * @param aggregations the aggregations, all columns must exist and be compatible to their function
+     */
+    AggregationLayout(final DataTableSpec inSpec, final int[] groupColumns,
+        final List<ColumnAggregation> aggregations) {
+        m_groupColumns = groupColumns;
+        m_stateGroupColumns = new int[groupColumns.length];
+        final DataColumnSpec[] groupSpecs = new DataColumnSpec[groupColumns.length];
+        for (int i = 0; i < groupColumns.length; i++) {
+            m_stateGroupColumns[i] = i;
+            groupSpecs[i] = inSpec.getColumnSpec(groupColumns[i]);
+        }
+        final int numAggregations = aggregations.size();
+        m_aggregationColumns = new int[numAggregations];
+        m_functions = new AggregateFunction[numAggregations];
+        m_inputTypes = new DataType[numAggregations];
+        m_stateOffsets = new int[numAggregations + 1];
+        final DataTableSpec groupSpec = new DataTableSpec(groupSpecs);
+        final UniqueNameGenerator nameGen = new UniqueNameGenerator(groupSpec);
+        final DataColumnSpec[] stateSpecs;
+        int offset = groupColumns.length;
+        final DataType[][] stateTypes = new DataType[numAggregations][];
+        for (int i = 0; i < numAggregations; i++) {
+            final ColumnAggregation a = aggregations.get(i);
+            m_aggregationColumns[i] = inSpec.findColumnIndex(a.getColumnName());
+            m_functions[i] = a.getFunction();
+            m_inputTypes[i] = inSpec.getColumnSpec(m_aggregationColumns[i]).getType();
+            stateTypes[i] = m_functions[i].getStateTypes(m_inputTypes[i]);
+            m_stateOffsets[i] = offset;
+            offset += stateTypes[i].length;
+        }
+        m_stateOffsets[numAggregations] = offset;
+        stateSpecs = new DataColumnSpec[offset];
+        System.arraycopy(groupSpecs, 0, stateSpecs, 0, groupSpecs.length);
+        for (int i = 0; i < numAggregations; i++) {
+            for (int j = 0; j < stateTypes[i].length; j++) {
+                stateSpecs[m_stateOffsets[i] + j] =
+                    nameGen.newColumn("State " + j + " of " + aggregations.get(i).getOutputColumnName(),
+                        stateTypes[i][j]);
+            }
+        }
+        m_stateSpec = new DataTableSpec(stateSpecs);
+    }
+
+    /** @return the spec of the rows written when spilling partial states to disk */
+    DataTableSpec getStateSpec() {
+        return m_stateSpec;
+    }
+
+    /** @return a new accumulator for each aggregation */
+    Accumulator[] createAccumulators() {
+        final Accumulator[] accumulators = new Accumulator[m_functions.length];
+        for (int i = 0; i < accumulators.length; i++) {
+            accumulators[i] = m_functions[i].createAccumulator(m_inputTypes[i]);
+        }
+        return accumulators;
+    }
+
+    /**
+     * @param row a row of the aggregated table
+     * @return its group
+     */
+    GroupKey createKey(final DataRow row) {
+        return GroupKey.create(row, m_groupColumns);
+    }
+
+    /**
+     * @param stateRow a row as created by {@link #createStateRow(RowKey, GroupKey, Accumulator[])}
+     * @return its group
+     */
+    GroupKey createStateKey(final DataRow stateRow) {
+        return GroupKey.create(stateRow, m_stateGroupColumns);
+    }
+
+    /**
+     * Adds the values of a row of the aggregated table to the accumulators of its group.
+     *
+     * @param accumulators the accumulators of the group
+     * @param row the row
+     */
+    void addRow(final Accumulator[] accumulators, final DataRow row) {
+        for (int i = 0; i < accumulators.length; i++) {
+            accumulators[i].add(row.getCell(m_aggregationColumns[i]));
+        }
+    }
+
+    /**
+     * Merges a state row into the accumulators of its group.
+     *
+     * @param accumulators the accumulators of the group
+     * @param stateRow the state row
+     */
+    void addStateRow(final Accumulator[] accumulators, final DataRow stateRow) {
+        for (int i = 0; i < accumulators.length; i++) {
+            final DataCell[] state = new DataCell[m_stateOffsets[i + 1] - m_stateOffsets[i]];
+            for (int j = 0; j < state.length; j++) {
+                state[j] = stateRow.getCell(m_stateOffsets[i] + j);
+            }
+            accumulators[i].addState(state);
+        }
+    }
+
+    /**
+     * Merges the partial results of a group computed elsewhere into the accumulators of the group.
+     *
+     * @param accumulators the accumulators to merge into
+     * @param partial the partial results
+     */
+    static void addState(final Accumulator[] accumulators, final Accumulator[] partial) {
+        for (int i = 0; i < accumulators.length; i++) {
+            accumulators[i].addState(partial[i].getState());
+        }
+    }
+
+    /**
+     * @param key the row key
+     * @param group the group
+     * @param accumulators the accumulators of the group
+     * @return a row of the {@link #getStateSpec() state spec} holding the partial results
+     */
+    DataRow createStateRow(final RowKey key, final GroupKey group, final Accumulator[] accumulators) {
+        final DataCell[] cells = new DataCell[m_stateOffsets[accumulators.length]];
+        System.arraycopy(group.getCells(), 0, cells, 0, m_groupColumns.length);
+        for (int i = 0; i < accumulators.length; i++) {
+            final DataCell[] state = accumulators[i].getState();
+            System.arraycopy(state, 0, cells, m_stateOffsets[i], state.length);
+        }
+        return new DefaultRow(key, cells);
+    }
+
+    /**
+     * @param key the row key
+     * @param group the group
+     * @param accumulators the accumulators of the group
+     * @return the output row of the group
+     */
+    DataRow createResultRow(final RowKey key, final GroupKey group, final Accumulator[] accumulators) {
+        final DataCell[] cells = new DataCell[m_groupColumns.length + accumulators.length];
+        System.arraycopy(group.getCells(), 0, cells, 0, m_groupColumns.length);
+        for (int i = 0; i < accumulators.length; i++) {
+            cells[m_groupColumns.length + i] = accumulators[i].getResult();
+        }
+        return new DefaultRow(key, cells);
+    }
+}
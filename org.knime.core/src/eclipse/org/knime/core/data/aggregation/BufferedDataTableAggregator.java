@@ -0,0 +1,353 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.aggregation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataTableSpecCreator;
+import org.knime.core.data.DataType;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.util.ThreadPool;
+import org.knime.core.util.UniqueNameGenerator;
+
+/**
+ * Groups a {@link BufferedDataTable} by an arbitrary set of group columns and aggregates other columns per group using
+ * {@link AggregateFunction aggregate functions} (see {@link AggregateFunctions} for the predefined ones).
+ *
+ * <p>
+ * Usage: Client implementations will initialize this object with the table, the group columns and the aggregations,
+ * set properties using the various set-methods (defaults are generally fine) and finally call the
+ * {@link #aggregate(ExecutionContext)} method.
+ *
+ * <p>
+ * The input table is read once; batches of rows are handed to worker threads, each of which aggregates into its own
+ * partitioned hash table. If memory gets low (as signaled by the
+ * {@link org.knime.core.data.util.memory.MemoryAlertSystem}) the partial results of the largest partition of a worker
+ * are written to disk. At the end, the partial results of all workers are merged partition by partition (in
+ * parallel); partitions that were written to disk are aggregated recursively using the same approach.
+ *
+ * <p>
+ * Group columns are compared using {@link org.knime.core.data.DataCell#equals(Object) equality}, missing values form
+ * a group of their own. The output contains the group columns followed by one column per aggregation, see
+ * {@link #createOutputSpec(DataTableSpec, List, List)}. The order of the output rows is not defined.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.8
+ */
+public final class BufferedDataTableAggregator {
+
+    /** The default number of partitions, see {@link #setNumPartitions(int)}. */
+    public static final int DEF_NUM_PARTITIONS = 64;
+
+    /** Number of rows handed to a worker at once. */
+    private static final int BATCH_SIZE = 1024;
+
+    /** Number of batches queued per worker before the reading thread blocks. */
+    private static final int QUEUE_CAPACITY = 4;
+
+    /** Marks the end of the input in the queue of a worker. */
+    private static final List<DataRow> END_OF_INPUT = Collections.emptyList();
+
+    private final BufferedDataTable m_table;
+
+    private final List<String> m_groupColumns;
+
+    private final List<ColumnAggregation> m_aggregations;
+
+    private final AggregationLayout m_layout;
+
+    private int m_numPartitions = DEF_NUM_PARTITIONS;
+
+    private int m_maxThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Inits the aggregator.
+     *
+     * @param table the table to aggregate
+     * @param groupColumns names of the group columns, may be empty (aggregates the entire table)
+     * @param aggregations the aggregations
+     * @throws NullPointerException If any argument is null.
+     * @throws IllegalArgumentException If arguments are inconsistent, e.g. a column doesn't exist or is not compatible
+     *             to its aggregate function.
+     */
+    public BufferedDataTableAggregator(final BufferedDataTable table, final List<String> groupColumns,
+        final List<ColumnAggregation> aggregations) {
+        if (table == null || groupColumns == null || aggregations == null) {
+            throw new NullPointerException("Argument must not be null.");
+        }
+        m_table = table;
+        m_groupColumns = new ArrayList<>(groupColumns);
+        m_aggregations = new ArrayList<>(aggregations);
+        final DataTableSpec spec = table.getDataTableSpec();
+        // validates the arguments
+        createOutputSpec(spec, m_groupColumns, m_aggregations);
+        final int[] groupIndices = new int[m_groupColumns.size()];
+        for (int i = 0; i < groupIndices.length; i++) {
+            groupIndices[i] = spec.findColumnIndex(m_groupColumns.get(i));
+        }
+        m_layout = new AggregationLayout(spec, groupIndices, m_aggregations);
+    }
+
+    /**
+     * Sets the number of partitions of the hash tables. Partitions are the unit of spilling and of merging in
+     * parallel.
+     *
+     * @param numPartitions the number of partitions, default is {@link #DEF_NUM_PARTITIONS}
+     * @throws IllegalArgumentException If the argument is smaller than 1.
+     */
+    public void setNumPartitions(final int numPartitions) {
+        if (numPartitions < 1) {
+            throw new IllegalArgumentException("Number of partitions must be at least 1: " + numPartitions);
+        }
+        m_numPartitions = numPartitions;
+    }
+
+    /**
+     * @param maxThreads the maximum number of threads aggregating rows and merging partitions, default is the number
+     *            of available processors
+     * @throws IllegalArgumentException If the argument is smaller than 1.
+     */
+    public void setMaxThreads(final int maxThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1: " + maxThreads);
+        }
+        m_maxThreads = maxThreads;
+    }
+
+    /**
+     * Creates the spec of the output table, e.g. for use in a node's configure method.
+     *
+     * @param spec spec of the aggregated table
+     * @param groupColumns names of the group columns
+     * @param aggregations the aggregations
+     * @return the group columns followed by one column per aggregation, named as per
+     *         {@link ColumnAggregation#getOutputColumnName()} (made unique by appending a suffix)
+     * @throws IllegalArgumentException If a column doesn't exist or is not compatible to its aggregate function.
+     */
+    public static DataTableSpec createOutputSpec(final DataTableSpec spec, final List<String> groupColumns,
+        final List<ColumnAggregation> aggregations) {
+        final DataTableSpecCreator creator = new DataTableSpecCreator();
+        for (String col : groupColumns) {
+            final DataColumnSpec colSpec = spec.getColumnSpec(col);
+            if (colSpec == null) {
+                throw new IllegalArgumentException("No column \"" + col + "\" in table " + spec.getName());
+            }
+            creator.addColumns(colSpec);
+        }
+        final UniqueNameGenerator nameGenerator = new UniqueNameGenerator(creator.createSpec());
+        for (ColumnAggregation a : aggregations) {
+            final DataColumnSpec colSpec = spec.getColumnSpec(a.getColumnName());
+            if (colSpec == null) {
+                throw new IllegalArgumentException(
+                    "No column \"" + a.getColumnName() + "\" in table " + spec.getName());
+            }
+            final DataType type = colSpec.getType();
+            if (!a.getFunction().isCompatible(type)) {
+                throw new IllegalArgumentException("Aggregate function \"" + a.getFunction().getName()
+                    + "\" is not applicable to column \"" + a.getColumnName() + "\" of type " + type);
+            }
+            creator.addColumns(nameGenerator.newColumn(a.getOutputColumnName(), a.getFunction().getResultType(type)));
+        }
+        creator.setName("Aggregated table");
+        return creator.createSpec();
+    }
+
+    /**
+     * Aggregates the table passed in the constructor according to the settings and returns the output table.
+     *
+     * @param exec To report progress &amp; create temporary and final output tables.
+     * @return The aggregated table, one row per group.
+     * @throws CanceledExecutionException If canceled.
+     */
+    public BufferedDataTable aggregate(final ExecutionContext exec) throws CanceledExecutionException {
+        if (exec == null) {
+            throw new NullPointerException("Argument must not be null.");
+        }
+        final BufferedDataContainer container =
+            exec.createDataContainer(createOutputSpec(m_table.getDataTableSpec(), m_groupColumns, m_aggregations));
+        final AggregationOutput output = new AggregationOutput(container, m_layout);
+        final int numThreads = (int)Math.max(1, Math.min(m_maxThreads, m_table.size() / BATCH_SIZE));
+        try {
+            if (numThreads == 1) {
+                aggregateSequentially(exec, output);
+            } else {
+                aggregateInParallel(exec, output, numThreads);
+            }
+        } finally {
+            container.close();
+        }
+        exec.setProgress(1.0);
+        return container.getTable();
+    }
+
+    private void aggregateSequentially(final ExecutionContext exec, final AggregationOutput output)
+        throws CanceledExecutionException {
+        final ExecutionContext readExec = exec.createSubExecutionContext(0.8);
+        final HashAggregation aggregation = new HashAggregation(m_layout, m_numPartitions, 0, exec);
+        final long rowCount = m_table.size();
+        long rowIndex = 0;
+        readExec.setMessage("Aggregating rows");
+        try (CloseableRowIterator it = m_table.iterator()) {
+            while (it.hasNext()) {
+                readExec.checkCanceled();
+                readExec.setProgress(++rowIndex / (double)rowCount);
+                aggregation.addRow(it.next());
+            }
+        }
+        exec.setMessage("Writing groups");
+        aggregation.finish(output);
+    }
+
+    private void aggregateInParallel(final ExecutionContext exec, final AggregationOutput output,
+        final int numThreads) throws CanceledExecutionException {
+        final ThreadPool pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(numThreads);
+        final ExecutionContext readExec = exec.createSubExecutionContext(0.7);
+        final HashAggregation[] partials = new HashAggregation[numThreads];
+        final List<BlockingQueue<List<DataRow>>> queues = new ArrayList<>(numThreads);
+        final List<Future<Void>> workers = new ArrayList<>(numThreads);
+        for (int w = 0; w < numThreads; w++) {
+            final HashAggregation partial = new HashAggregation(m_layout, m_numPartitions, 0, exec);
+            final BlockingQueue<List<DataRow>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            partials[w] = partial;
+            queues.add(queue);
+            workers.add(pool.enqueue(() -> {
+                List<DataRow> batch;
+                while ((batch = queue.take()) != END_OF_INPUT) {
+                    for (DataRow row : batch) {
+                        partial.addRow(row);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        final long rowCount = m_table.size();
+        long rowIndex = 0;
+        int nextWorker = 0;
+        readExec.setMessage("Aggregating rows");
+        try (CloseableRowIterator it = m_table.iterator()) {
+            List<DataRow> batch = new ArrayList<>(BATCH_SIZE);
+            while (it.hasNext()) {
+                readExec.checkCanceled();
+                readExec.setProgress(++rowIndex / (double)rowCount);
+                batch.add(it.next());
+                if (batch.size() == BATCH_SIZE) {
+                    put(readExec, queues.get(nextWorker), batch, workers);
+                    nextWorker = (nextWorker + 1) % numThreads;
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!batch.isEmpty()) {
+                put(readExec, queues.get(nextWorker), batch, workers);
+            }
+            for (BlockingQueue<List<DataRow>> queue : queues) {
+                put(readExec, queue, END_OF_INPUT, workers);
+            }
+        } catch (CanceledExecutionException | RuntimeException | Error e) {
+            workers.stream().forEach(f -> f.cancel(true));
+            throw e;
+        }
+        ThreadPool.waitForAll(workers);
+
+        // merge the partial results of all workers, partition by partition
+        exec.setMessage("Merging partial aggregates");
+        final List<Future<Void>> mergers = new ArrayList<>(m_numPartitions);
+        for (int p = 0; p < m_numPartitions; p++) {
+            final int partition = p;
+            final ExecutionContext mergeExec = exec.createSubExecutionContext(0.3 / m_numPartitions);
+            mergers.add(pool.enqueue(() -> {
+                final HashAggregation merged = new HashAggregation(m_layout, m_numPartitions, 1, mergeExec);
+                for (HashAggregation partial : partials) {
+                    partial.mergePartitionInto(partition, merged);
+                }
+                merged.finish(output);
+                mergeExec.setProgress(1.0);
+                return null;
+            }));
+        }
+        ThreadPool.waitForAll(mergers);
+    }
+
+    /**
+     * Hands a batch to a worker, failing if any of the workers terminated (with an exception). If the queue of the
+     * worker is full the caller thread waits without blocking a thread of the global pool.
+     */
+    private static void put(final ExecutionMonitor exec, final BlockingQueue<List<DataRow>> queue,
+        final List<DataRow> batch, final List<Future<Void>> workers) throws CanceledExecutionException {
+        if (queue.offer(batch)) {
+            return;
+        }
+        final boolean isDelivered = ThreadPool.runInvisibleIfPooled(() -> {
+            while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                exec.checkCanceled();
+                if (workers.stream().anyMatch(Future::isDone)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+        if (!isDelivered) {
+            // throws the exception of the worker
+            ThreadPool.waitForAll(workers);
+            throw new IllegalStateException("Aggregation worker terminated prematurely");
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.aggregation;
+
+import java.util.Arrays;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+
+/**
+ * The values of the group columns of a row, used as key in the hash tables of the {@link HashAggregation}. Cells are
+ * compared using {@link DataCell#equals(Object)}, i.e. missing values form a group of their own.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class GroupKey {
+
+    private final DataCell[] m_cells;
+
+    private final int m_hash;
+
+    private GroupKey(final DataCell[] cells) {
+        m_cells = cells;
+        m_hash = Arrays.hashCode(cells);
+    }
+
+    /**
+     * @param row the row
+     * @param columns the indices of the group columns
+     * @return the key of the row
+     */
+    static GroupKey create(final DataRow row, final int[] columns) {
+        final DataCell[] cells = new DataCell[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            cells[i] = row.getCell(columns[i]);
+        }
+        return new GroupKey(cells);
+    }
+
+    /** @return the cells of the group columns, not to be modified */
+    DataCell[] getCells() {
+        return m_cells;
+    }
+
+    /**
+     * The partition of this key. Each recursion level uses a different mixing of the hash code so that keys that
+     * shared a partition on one level are spread on the next.
+     *
+     * @param numPartitions the number of partitions
+     * @param level the recursion level
+     * @return the partition index in [0, numPartitions)
+     */
+    int getPartition(final int numPartitions, final int level) {
+        int h = (m_hash + level) * 0x9E3779B9;
+        h ^= h >>> 16;
+        return (h & Integer.MAX_VALUE) % numPartitions;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+        return m_hash;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof GroupKey)) {
+            return false;
+        }
+        final GroupKey other = (GroupKey)obj;
+        return m_hash == other.m_hash && Arrays.equals(m_cells, other.m_cells);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return Arrays.toString(m_cells);
+    }
+}
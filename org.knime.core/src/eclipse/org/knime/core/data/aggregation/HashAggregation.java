@@ -0,0 +1,246 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.aggregation;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.data.util.memory.MemoryAlertSystem.MemoryActionIndicator;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Partitioned hash table of groups and their accumulators as used by the {@link BufferedDataTableAggregator}. An
+ * instance is not thread-safe, each thread aggregates into its own instance and the partial results are merged
+ * partition by partition at the end.
+ *
+ * <p>
+ * When memory gets low, the partial states of the largest partition are written to disk and the partition starts
+ * over with an empty hash table. When finishing, such a partition is aggregated recursively from its spilled states
+ * (using a different partitioning); no more spilling is done on the last recursion level.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class HashAggregation {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(HashAggregation.class);
+
+    /** Number of recursion levels, partitions are not spilled on the last level. */
+    static final int MAX_RECURSION_DEPTH = 4;
+
+    private final AggregationLayout m_layout;
+
+    private final int m_numPartitions;
+
+    private final int m_level;
+
+    private final ExecutionContext m_exec;
+
+    private final MemoryActionIndicator m_memIndicator;
+
+    private final Partition[] m_partitions;
+
+    private long m_spillRowIndex;
+
+    /**
+     * @param layout the layout of the aggregation
+     * @param numPartitions the number of partitions
+     * @param level the recursion level, determines the partitioning and whether spilling is allowed
+     * @param exec for cancelation and creation of temporary tables
+     */
+    HashAggregation(final AggregationLayout layout, final int numPartitions, final int level,
+        final ExecutionContext exec) {
+        m_layout = layout;
+        m_numPartitions = numPartitions;
+        m_level = level;
+        m_exec = exec;
+        m_memIndicator = MemoryAlertSystem.getInstance().newIndicator();
+        m_partitions = new Partition[numPartitions];
+        for (int i = 0; i < numPartitions; i++) {
+            m_partitions[i] = new Partition();
+        }
+    }
+
+    /**
+     * Aggregates a row of the input table.
+     *
+     * @param row the row
+     */
+    void addRow(final DataRow row) {
+        final GroupKey key = m_layout.createKey(row);
+        m_layout.addRow(getAccumulators(key), row);
+        checkMemory();
+    }
+
+    /**
+     * Merges a row with partial states as written when spilling.
+     *
+     * @param stateRow the row
+     */
+    void addStateRow(final DataRow stateRow) {
+        final GroupKey key = m_layout.createStateKey(stateRow);
+        m_layout.addStateRow(getAccumulators(key), stateRow);
+        checkMemory();
+    }
+
+    /**
+     * Merges the partial result of a group.
+     *
+     * @param key the group
+     * @param partial the accumulators of the group, as computed by another instance
+     */
+    void addState(final GroupKey key, final Accumulator[] partial) {
+        AggregationLayout.addState(getAccumulators(key), partial);
+        checkMemory();
+    }
+
+    /**
+     * Moves the content of one partition into the argument aggregation, including the states spilled to disk. The
+     * partition is empty afterwards.
+     *
+     * @param partition the index of the partition
+     * @param target the aggregation to merge into
+     * @throws CanceledExecutionException If canceled.
+     */
+    void mergePartitionInto(final int partition, final HashAggregation target) throws CanceledExecutionException {
+        final Partition p = m_partitions[partition];
+        for (Map.Entry<GroupKey, Accumulator[]> e : p.m_groups.entrySet()) {
+            target.addState(e.getKey(), e.getValue());
+        }
+        p.m_groups = new HashMap<>();
+        if (p.m_spillContainer != null) {
+            p.m_spillContainer.close();
+            final BufferedDataTable spilled = p.m_spillContainer.getTable();
+            p.m_spillContainer = null;
+            try (CloseableRowIterator it = spilled.iterator()) {
+                while (it.hasNext()) {
+                    m_exec.checkCanceled();
+                    target.addStateRow(it.next());
+                }
+            }
+            m_exec.clearTable(spilled);
+        }
+    }
+
+    /**
+     * Emits the results of all groups. Partitions that were spilled to disk are aggregated recursively.
+     *
+     * @param output receives the results
+     * @throws CanceledExecutionException If canceled.
+     */
+    void finish(final AggregationOutput output) throws CanceledExecutionException {
+        for (int i = 0; i < m_numPartitions; i++) {
+            m_exec.checkCanceled();
+            final Partition p = m_partitions[i];
+            if (p.m_spillContainer == null) {
+                for (Map.Entry<GroupKey, Accumulator[]> e : p.m_groups.entrySet()) {
+                    output.addGroup(e.getKey(), e.getValue());
+                }
+                p.m_groups = new HashMap<>();
+            } else {
+                LOGGER.debugWithFormat("Aggregating partition spilled to disk (recursion level %d)", m_level);
+                final HashAggregation sub = new HashAggregation(m_layout, m_numPartitions, m_level + 1, m_exec);
+                mergePartitionInto(i, sub);
+                sub.finish(output);
+            }
+        }
+    }
+
+    private Accumulator[] getAccumulators(final GroupKey key) {
+        final Partition p = m_partitions[key.getPartition(m_numPartitions, m_level)];
+        Accumulator[] accumulators = p.m_groups.get(key);
+        if (accumulators == null) {
+            accumulators = m_layout.createAccumulators();
+            p.m_groups.put(key, accumulators);
+        }
+        return accumulators;
+    }
+
+    private void checkMemory() {
+        if (m_level + 1 < MAX_RECURSION_DEPTH && m_memIndicator.lowMemoryActionRequired()) {
+            spillLargestPartition();
+        }
+    }
+
+    /** Writes the partial states of the partition with the most groups in memory to disk. */
+    private void spillLargestPartition() {
+        Partition largest = null;
+        for (Partition p : m_partitions) {
+            if (largest == null || p.m_groups.size() > largest.m_groups.size()) {
+                largest = p;
+            }
+        }
+        if (largest == null || largest.m_groups.isEmpty()) {
+            return;
+        }
+        LOGGER.debugWithFormat("Memory low, writing aggregation partition with %d groups to disk",
+            largest.m_groups.size());
+        if (largest.m_spillContainer == null) {
+            largest.m_spillContainer = m_exec.createDataContainer(m_layout.getStateSpec(), false, 0);
+        }
+        for (Map.Entry<GroupKey, Accumulator[]> e : largest.m_groups.entrySet()) {
+            largest.m_spillContainer.addRowToTable(
+                m_layout.createStateRow(RowKey.createRowKey(m_spillRowIndex++), e.getKey(), e.getValue()));
+        }
+        largest.m_groups = new HashMap<>();
+    }
+
+    /** The groups of one partition, along with the partial states that were spilled to disk. */
+    private static final class Partition {
+
+        private Map<GroupKey, Accumulator[]> m_groups = new HashMap<>();
+
+        /** Partial states written to disk, <code>null</code> if never spilled. */
+        private BufferedDataContainer m_spillContainer;
+    }
+}
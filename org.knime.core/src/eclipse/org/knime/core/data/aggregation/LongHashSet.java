@@ -0,0 +1,142 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.aggregation;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Minimal open addressing hash set of <code>long</code> values, avoiding the boxing of a
+ * <code>HashSet&lt;Long&gt;</code>. Used for distinct counts of integer columns.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class LongHashSet {
+
+    /** Marks free slots, the value itself is tracked separately. */
+    private static final long FREE = Long.MIN_VALUE;
+
+    private long[] m_slots = newSlots(16);
+
+    private int m_size;
+
+    private boolean m_containsFreeMarker;
+
+    private static long[] newSlots(final int capacity) {
+        final long[] slots = new long[capacity];
+        Arrays.fill(slots, FREE);
+        return slots;
+    }
+
+    /**
+     * @param value the value to add
+     * @return whether the value was not yet contained
+     */
+    boolean add(final long value) {
+        if (value == FREE) {
+            if (m_containsFreeMarker) {
+                return false;
+            }
+            m_containsFreeMarker = true;
+            m_size++;
+            return true;
+        }
+        final int mask = m_slots.length - 1;
+        int i = mix(value) & mask;
+        while (m_slots[i] != FREE) {
+            if (m_slots[i] == value) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        m_slots[i] = value;
+        m_size++;
+        // keep load factor below 0.5
+        if (2 * m_size > m_slots.length) {
+            rehash();
+        }
+        return true;
+    }
+
+    /** @return the number of values in the set */
+    int size() {
+        return m_size;
+    }
+
+    /**
+     * @param consumer receives all values of the set
+     */
+    void forEach(final LongConsumer consumer) {
+        if (m_containsFreeMarker) {
+            consumer.accept(FREE);
+        }
+        for (long v : m_slots) {
+            if (v != FREE) {
+                consumer.accept(v);
+            }
+        }
+    }
+
+    private void rehash() {
+        final long[] old = m_slots;
+        m_slots = newSlots(old.length * 2);
+        final int mask = m_slots.length - 1;
+        for (long v : old) {
+            if (v != FREE) {
+                int i = mix(v) & mask;
+                while (m_slots[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                m_slots[i] = v;
+            }
+        }
+    }
+
+    private static int mix(final long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32));
+    }
+}
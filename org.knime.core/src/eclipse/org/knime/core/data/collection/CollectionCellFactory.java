@@ -53,7 +53,11 @@
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
 import org.knime.core.data.container.BlobSupportDataRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
 import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.KNIMEConstants;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -68,6 +72,10 @@
  */
 public final class CollectionCellFactory {
 
+    /** See {@link KNIMEConstants#PROPERTY_PRIMITIVE_LIST_CELLS}. */
+    private static final boolean PRIMITIVE_LIST_CELLS =
+        Boolean.getBoolean(KNIMEConstants.PROPERTY_PRIMITIVE_LIST_CELLS);
+
     private CollectionCellFactory() {
         // don't instantiate me
     }
@@ -86,6 +94,12 @@ private CollectionCellFactory() {
      */
     public static ListCell createListCell(
             final Collection<? extends DataCell> coll) {
+        if (PRIMITIVE_LIST_CELLS) {
+            final ListCell primitiveList = createPrimitiveListCell(coll);
+            if (primitiveList != null) {
+                return primitiveList;
+            }
+        }
         final BlobSupportDataCellList l = BlobSupportDataCellList.create(coll);
         return new ListCell(l);
     }
@@ -102,11 +116,98 @@ public static ListCell createListCell(
      * @throws IndexOutOfBoundsException If the indices are invalid.
      */
     public static ListCell createListCell(final DataRow row, final int[] cols) {
+        if (PRIMITIVE_LIST_CELLS) {
+            final ArrayList<DataCell> coll = new ArrayList<DataCell>(cols.length);
+            for (int i = 0; i < cols.length; i++) {
+                if (row instanceof BlobSupportDataRow) {
+                    coll.add(((BlobSupportDataRow)row).getRawCell(cols[i]));
+                } else {
+                    coll.add(row.getCell(cols[i]));
+                }
+            }
+            final ListCell primitiveList = createPrimitiveListCell(coll);
+            return primitiveList != null ? primitiveList : new ListCell(BlobSupportDataCellList.create(coll));
+        }
         final BlobSupportDataCellList l =
             BlobSupportDataCellList.create(row, cols);
         return new ListCell(l);
     }
 
+    /**
+     * Creates a list of {@link DoubleCell}s backed by a copy of the given array.
+     *
+     * @param values The values of the list.
+     * @return A newly created {@link DoubleListCell}.
+     * @throws NullPointerException If the argument is null.
+     * @since 3.8
+     */
+    public static DoubleListCell createDoubleListCell(final double[] values) {
+        return new DoubleListCell(values.clone());
+    }
+
+    /**
+     * Creates a list of {@link IntCell}s backed by a copy of the given array.
+     *
+     * @param values The values of the list.
+     * @return A newly created {@link IntListCell}.
+     * @throws NullPointerException If the argument is null.
+     * @since 3.8
+     */
+    public static IntListCell createIntListCell(final int[] values) {
+        return new IntListCell(values.clone());
+    }
+
+    /**
+     * Creates a list of {@link LongCell}s backed by a copy of the given array.
+     *
+     * @param values The values of the list.
+     * @return A newly created {@link LongListCell}.
+     * @throws NullPointerException If the argument is null.
+     * @since 3.8
+     */
+    public static LongListCell createLongListCell(final long[] values) {
+        return new LongListCell(values.clone());
+    }
+
+    /**
+     * Creates a primitive-array-backed list if all elements are of the same primitive cell class ({@link DoubleCell},
+     * {@link IntCell} or {@link LongCell}, neither missing nor subclasses).
+     *
+     * @return such a list or null if the elements are not homogeneous or the collection is empty
+     */
+    private static ListCell createPrimitiveListCell(final Collection<? extends DataCell> coll) {
+        if (coll.isEmpty()) {
+            return null;
+        }
+        final Class<? extends DataCell> cellClass = coll.iterator().next().getClass();
+        for (DataCell c : coll) {
+            if (c.getClass() != cellClass) {
+                return null;
+            }
+        }
+        int i = 0;
+        if (cellClass == DoubleCell.class) {
+            final double[] values = new double[coll.size()];
+            for (DataCell c : coll) {
+                values[i++] = ((DoubleCell)c).getDoubleValue();
+            }
+            return new DoubleListCell(values);
+        } else if (cellClass == IntCell.class) {
+            final int[] values = new int[coll.size()];
+            for (DataCell c : coll) {
+                values[i++] = ((IntCell)c).getIntValue();
+            }
+            return new IntListCell(values);
+        } else if (cellClass == LongCell.class) {
+            final long[] values = new long[coll.size()];
+            for (DataCell c : coll) {
+                values[i++] = ((LongCell)c).getLongValue();
+            }
+            return new LongListCell(values);
+        }
+        return null;
+    }
+
     /**
      * Creates a new {@link ListCell} based on selected cells from a
      * {@link DataRow}. This method will check if the row is returned by
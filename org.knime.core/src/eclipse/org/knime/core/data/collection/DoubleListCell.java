@@ -0,0 +1,224 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.collection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
+import org.knime.core.data.DataCellSerializer;
+import org.knime.core.data.DataType;
+import org.knime.core.data.def.DoubleCell;
+
+/**
+ * A {@link ListCell} of {@link DoubleCell} elements backed by a <code>double</code> array. It is created by the
+ * {@link CollectionCellFactory} for lists whose elements are all {@link DoubleCell}s (if enabled via
+ * {@link org.knime.core.node.KNIMEConstants#PROPERTY_PRIMITIVE_LIST_CELLS}) and has the same {@link DataType} as any
+ * other list of {@link DoubleCell}s. The element cells are only created when accessed via the {@link ListDataValue}
+ * methods; use {@link #getDoubleArray()} or {@link #getDouble(int)} to access the values directly. The values are
+ * serialized in one block.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.8
+ */
+public final class DoubleListCell extends ListCell {
+
+    private final double[] m_values;
+
+    /**
+     * @param values the values, not copied
+     */
+    DoubleListCell(final double[] values) {
+        super(null);
+        m_values = values;
+    }
+
+    /**
+     * @param index the index of the element
+     * @return the value at the given index
+     * @throws IndexOutOfBoundsException if the index is invalid
+     */
+    public double getDouble(final int index) {
+        return m_values[index];
+    }
+
+    /**
+     * @return a copy of the values
+     */
+    public double[] getDoubleArray() {
+        return m_values.clone();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DataType getElementType() {
+        return DoubleCell.TYPE;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Iterator<DataCell> iterator() {
+        return new Iterator<DataCell>() {
+            private int m_index;
+
+            @Override
+            public boolean hasNext() {
+                return m_index < m_values.length;
+            }
+
+            @Override
+            public DataCell next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return new DoubleCell(m_values[m_index++]);
+            }
+        };
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DataCell get(final int index) {
+        return new DoubleCell(m_values[index]);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int size() {
+        return m_values.length;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean containsBlobWrapperCells() {
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected boolean equalsDataCell(final DataCell dc) {
+        final double[] o = ((DoubleListCell)dc).m_values;
+        if (o.length != m_values.length) {
+            return false;
+        }
+        for (int i = 0; i < o.length; i++) {
+            // same semantics as DoubleCell: NaN equals NaN
+            if (m_values[i] != o[i] && !(Double.isNaN(m_values[i]) && Double.isNaN(o[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Same as the hash code of a {@link ListCell} with the same elements. */
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (double v : m_values) {
+            final long bits = Double.doubleToLongBits(v);
+            hash = 31 * hash + (int)(bits ^ (bits >>> 32));
+        }
+        return hash;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        final StringBuilder b = new StringBuilder("[");
+        for (int i = 0; i < m_values.length; i++) {
+            if (i > 0) {
+                b.append(", ");
+            }
+            b.append(Double.toString(m_values[i]));
+        }
+        return b.append(']').toString();
+    }
+
+    /** Creates the list of element cells on demand. */
+    @Override
+    protected BlobSupportDataCellList getList() {
+        final List<DataCell> cells = new ArrayList<>(m_values.length);
+        for (double v : m_values) {
+            cells.add(new DoubleCell(v));
+        }
+        return BlobSupportDataCellList.create(cells);
+    }
+
+    /**
+     * Serializer for {@link DoubleListCell}s, writes the number of elements followed by all values in one block.
+     *
+     * @noreference This class is not intended to be referenced by clients.
+     */
+    public static final class DoubleListCellSerializer implements DataCellSerializer<DoubleListCell> {
+
+        /** {@inheritDoc} */
+        @Override
+        public void serialize(final DoubleListCell cell, final DataCellDataOutput output) throws IOException {
+            final double[] values = cell.m_values;
+            output.writeInt(values.length);
+            final ByteBuffer bytes = ByteBuffer.allocate(values.length * Double.BYTES);
+            bytes.asDoubleBuffer().put(values);
+            output.write(bytes.array());
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public DoubleListCell deserialize(final DataCellDataInput input) throws IOException {
+            final int length = input.readInt();
+            final byte[] bytes = new byte[length * Double.BYTES];
+            input.readFully(bytes);
+            final double[] values = new double[length];
+            ByteBuffer.wrap(bytes).asDoubleBuffer().get(values);
+            return new DoubleListCell(values);
+        }
+    }
+}
@@ -58,6 +58,7 @@
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataTypeRegistry;
+import org.knime.core.data.DataValue;
 
 /**
  * Default implementation of a {@link CollectionDataValue}, whereby the
@@ -134,6 +135,26 @@ public boolean containsBlobWrapperCells() {
         return m_list.containsBlobWrapperCells();
     }
 
+    /**
+     * Compares the elements of both lists, called for lists of different cell classes (e.g. a {@link ListCell} and
+     * a {@link DoubleListCell}).
+     *
+     * @since 3.8
+     */
+    @Override
+    protected boolean equalContent(final DataValue otherValue) {
+        final ListDataValue other = (ListDataValue)otherValue;
+        if (other.size() != size() || !other.getElementType().equals(getElementType())) {
+            return false;
+        }
+        for (int i = 0; i < size(); i++) {
+            if (!get(i).equals(other.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected boolean equalsDataCell(final DataCell dc) {
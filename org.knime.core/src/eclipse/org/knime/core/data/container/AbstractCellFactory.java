@@ -64,15 +64,26 @@
  * i.e. takes significantly longer than pure I/O and (ii) there are no
  * interdependency between the row calculations.
  *
+ * <p>As of v3.8 the input can also be processed concurrently in blocks of
+ * contiguous rows, see {@link #setBatchedParallelProcessing(boolean)}, which
+ * keeps the per-row overhead low and is therefore also suitable for cheap
+ * row calculations.
+ *
  * @see SingleCellFactory
  * @author Bernd Wiswedel, University of Konstanz
  */
 public abstract class AbstractCellFactory implements CellFactory {
 
+    /** The default number of rows per block used by
+     * {@link #setBatchedParallelProcessing(boolean)}.
+     * @since 3.8 */
+    public static final int DEF_BATCH_SIZE = 1024;
+
     private final DataColumnSpec[] m_colSpecs;
 
     private int m_maxParallelWorkers = -1;
     private int m_maxQueueSize = -1;
+    private int m_batchSize = -1;
 
     /** True if the deprecatd {@link #setProgress(int, int, RowKey, ExecutionMonitor)} method is overridden. If so,
      * it will be called by the default implementation of the (new) setProgress method. */
@@ -202,6 +213,54 @@ public final void setParallelProcessing(final boolean value,
             m_maxParallelWorkers = -1;
             m_maxQueueSize = -1;
         }
+        m_batchSize = -1;
+    }
+
+    /** Enables or disables parallel processing of the rows in blocks of
+     * contiguous rows. The number of parallel workers is the number of
+     * available cores, the block size is {@link #DEF_BATCH_SIZE}.
+     * @param value If to enable batched parallel processing (assumes
+     * independence of individual row calculations).
+     * @see #setBatchedParallelProcessing(boolean, int, int)
+     * @since 3.8
+     */
+    public final void setBatchedParallelProcessing(final boolean value) {
+        setBatchedParallelProcessing(value,
+            Runtime.getRuntime().availableProcessors(), DEF_BATCH_SIZE);
+    }
+
+    /** Enables or disables parallel processing of the rows in blocks of
+     * contiguous rows. Each block is computed by one task, results are
+     * written into the positions of their input rows, so that no reordering
+     * of individual rows is necessary. In contrast to
+     * {@link #setParallelProcessing(boolean, int, int)} the overhead per row
+     * is small, which makes parallel processing also worthwhile for cheap
+     * row calculations.
+     * @param value If to enable batched parallel processing (assumes
+     * independence of individual row calculations).
+     * @param maxParallelWorkers The number of parallel execution threads to
+     * process the blocks. This value may be overruled by the global thread pool
+     * limit. At most twice as many blocks are held in memory.
+     * @param batchSize The number of rows per block.
+     * @since 3.8
+     */
+    public final void setBatchedParallelProcessing(final boolean value,
+            final int maxParallelWorkers, final int batchSize) {
+        if (value && batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be "
+                    + "larger than 0: " + batchSize);
+        }
+        setParallelProcessing(value, maxParallelWorkers,
+            value ? 2 * maxParallelWorkers : -1);
+        m_batchSize = value ? batchSize : -1;
+    }
+
+    /** The number of rows per block if the input is processed in blocks
+     * (see {@link #setBatchedParallelProcessing(boolean, int, int)}) or -1.
+     * @return The batch size or -1.
+     * @since 3.8 */
+    public final int getBatchSize() {
+        return m_batchSize;
     }
 
     /** The number of parallel workers or -1 if the input is processed
@@ -0,0 +1,362 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.knime.core.data.container.BlobDataCell.BlobAddress;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Cache for blob cells read from disk, shared by all buffers. It avoids reading a blob over and over again, e.g.
+ * when a blob is added multiple times to a table or when a view repeatedly accesses the same (large) images.
+ *
+ * <p>The cache is bounded by the total size of the cached blobs (their serialized, uncompressed size), not by the
+ * number of entries, so that a few huge blobs cannot pin the heap. The cache is split into independently locked,
+ * access-ordered segments, which reduces contention between concurrent readers, but the budget is global: when it is
+ * exceeded, the least recently used blobs of all segments are evicted. A blob that is larger than the whole budget is
+ * not cached at all rather than evicting all other blobs. The cells are still held via soft references, i.e. the
+ * garbage collector may reclaim them in low memory situations. Hits, misses and evictions are logged in regular
+ * intervals on debug level.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class BlobCache {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(BlobCache.class);
+
+    private static final int SEGMENT_COUNT = 16;
+
+    /** Interval in seconds in which the statistics are logged. */
+    private static final int STATISTICS_OUTPUT_INTERVAL = 300;
+
+    /** The cache shared by all buffers, see {@link KNIMEConstants#PROPERTY_BLOB_CACHE_SIZE}. */
+    static final BlobCache INSTANCE = new BlobCache(getDefaultMaxWeight());
+
+    private final Segment[] m_segments;
+
+    private final long m_maxWeight;
+
+    /** Total size of the cached blobs, may exceed the budget while blobs are evicted concurrently. */
+    private final AtomicLong m_weight = new AtomicLong();
+
+    /** Orders the accesses of all segments, used to evict the least recently used blobs across segments. */
+    private final AtomicLong m_clock = new AtomicLong();
+
+    private final LongAdder m_hitCount = new LongAdder();
+
+    private final LongAdder m_missCount = new LongAdder();
+
+    private final LongAdder m_evictionCount = new LongAdder();
+
+    private final AtomicLong m_timeOfLastLog = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * @param maxWeight the maximum total size of all cached blobs in bytes
+     */
+    BlobCache(final long maxWeight) {
+        m_maxWeight = maxWeight;
+        m_segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            m_segments[i] = new Segment();
+        }
+    }
+
+    private static long getDefaultMaxWeight() {
+        final long defaultSize = Math.min(256L << 20, Runtime.getRuntime().maxMemory() / 16);
+        final String sizeProp = System.getProperty(KNIMEConstants.PROPERTY_BLOB_CACHE_SIZE);
+        if (sizeProp != null) {
+            try {
+                final long size = Long.parseLong(sizeProp.trim());
+                if (size >= 0) {
+                    return size << 20;
+                }
+            } catch (NumberFormatException nfe) {
+                // handled below
+            }
+            LOGGER.warn("Invalid value for property " + KNIMEConstants.PROPERTY_BLOB_CACHE_SIZE + " (\"" + sizeProp
+                + "\"), using default of " + (defaultSize >> 20) + "MB");
+        }
+        return defaultSize;
+    }
+
+    private Segment segmentFor(final CacheKey key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return m_segments[(h & Integer.MAX_VALUE) % SEGMENT_COUNT];
+    }
+
+    /**
+     * @param bufferUID the unique ID of the buffer owning the blob (buffer IDs in blob addresses are not unique)
+     * @param address the address of the blob
+     * @return the cached cell or null if not cached (or reclaimed by the garbage collector)
+     */
+    BlobDataCell get(final long bufferUID, final BlobAddress address) {
+        final CacheKey key = new CacheKey(bufferUID, address);
+        final BlobDataCell cell = segmentFor(key).get(key);
+        if (cell != null) {
+            m_hitCount.increment();
+        } else {
+            m_missCount.increment();
+        }
+        logStatistics();
+        return cell;
+    }
+
+    /**
+     * Adds a blob to the cache, evicting the least recently used blobs if the budget is exceeded. Blobs larger than
+     * the budget are not cached.
+     *
+     * @param bufferUID the unique ID of the buffer owning the blob
+     * @param address the address of the blob
+     * @param cell the blob cell
+     * @param weight the size of the blob in bytes
+     */
+    void put(final long bufferUID, final BlobAddress address, final BlobDataCell cell, final long weight) {
+        final CacheKey key = new CacheKey(bufferUID, address);
+        final Segment segment = segmentFor(key);
+        final long w = Math.max(1L, weight);
+        if (w > m_maxWeight) {
+            segment.remove(key);
+            return;
+        }
+        segment.put(key, cell, w);
+        evict();
+    }
+
+    /**
+     * Evicts the least recently used blobs until the total size is within the budget. Only one segment is locked at a
+     * time, so the eldest blob is determined approximately if blobs are accessed concurrently.
+     */
+    private void evict() {
+        while (m_weight.get() > m_maxWeight) {
+            Segment eldestSegment = null;
+            long eldestAccess = Long.MAX_VALUE;
+            for (Segment segment : m_segments) {
+                final long access = segment.getEldestAccess();
+                if (access < eldestAccess) {
+                    eldestAccess = access;
+                    eldestSegment = segment;
+                }
+            }
+            if (eldestSegment == null) {
+                return;
+            }
+            if (eldestSegment.evictEldest()) {
+                m_evictionCount.increment();
+            }
+        }
+    }
+
+    /**
+     * Removes all blobs of a buffer, called when the buffer is cleared.
+     *
+     * @param bufferUID the unique ID of the buffer
+     */
+    void invalidate(final long bufferUID) {
+        for (Segment segment : m_segments) {
+            segment.invalidate(bufferUID);
+        }
+    }
+
+    /** @return number of successful lookups */
+    long getHitCount() {
+        return m_hitCount.sum();
+    }
+
+    /** @return number of lookups that didn't find a (still referenced) blob */
+    long getMissCount() {
+        return m_missCount.sum();
+    }
+
+    /** @return number of blobs removed to stay within the budget */
+    long getEvictionCount() {
+        return m_evictionCount.sum();
+    }
+
+    /** @return the total size of the cached blobs in bytes */
+    long getWeight() {
+        return m_weight.get();
+    }
+
+    /** @return the maximum total size of the cached blobs in bytes */
+    long getMaxWeight() {
+        return m_maxWeight;
+    }
+
+    private void logStatistics() {
+        final long lastLog = m_timeOfLastLog.get();
+        final long time = System.currentTimeMillis();
+        if ((time - lastLog) / 1000 >= STATISTICS_OUTPUT_INTERVAL && m_timeOfLastLog.compareAndSet(lastLog, time)) {
+            LOGGER.debug("KNIME blob cache statistics: " + this);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "BlobCache [hits=" + getHitCount() + ", misses=" + getMissCount() + ", evictions="
+            + getEvictionCount() + ", size=" + getWeight() + "/" + m_maxWeight + " bytes]";
+    }
+
+    /** The address of a blob together with the unique ID of its buffer. */
+    private static final class CacheKey {
+
+        private final long m_bufferUID;
+
+        private final BlobAddress m_address;
+
+        CacheKey(final long bufferUID, final BlobAddress address) {
+            m_bufferUID = bufferUID;
+            m_address = address;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+            final CacheKey other = (CacheKey)obj;
+            return other.m_bufferUID == m_bufferUID && other.m_address.equals(m_address);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(m_bufferUID) * 31 + m_address.hashCode();
+        }
+    }
+
+    /** A cached blob together with its weight and the time of its last access. */
+    private static final class CacheEntry {
+
+        private final SoftReference<BlobDataCell> m_cellRef;
+
+        private final long m_weight;
+
+        /** Value of the cache's clock at the last access, guarded by the segment. */
+        private long m_lastAccess;
+
+        CacheEntry(final BlobDataCell cell, final long weight, final long lastAccess) {
+            m_cellRef = new SoftReference<>(cell);
+            m_weight = weight;
+            m_lastAccess = lastAccess;
+        }
+    }
+
+    /** A part of the cache with its own lock, ordered by access. */
+    private final class Segment {
+
+        private final LinkedHashMap<CacheKey, CacheEntry> m_map = new LinkedHashMap<>(16, 0.75f, true);
+
+        synchronized BlobDataCell get(final CacheKey key) {
+            final CacheEntry entry = m_map.get(key);
+            if (entry == null) {
+                return null;
+            }
+            final BlobDataCell cell = entry.m_cellRef.get();
+            if (cell == null) {
+                // reclaimed by the garbage collector
+                remove(key);
+            } else {
+                entry.m_lastAccess = m_clock.incrementAndGet();
+            }
+            return cell;
+        }
+
+        synchronized void put(final CacheKey key, final BlobDataCell cell, final long weight) {
+            remove(key);
+            m_map.put(key, new CacheEntry(cell, weight, m_clock.incrementAndGet()));
+            m_weight.addAndGet(weight);
+        }
+
+        /** @return the last access of the least recently used blob, {@link Long#MAX_VALUE} if empty */
+        synchronized long getEldestAccess() {
+            final Iterator<CacheEntry> it = m_map.values().iterator();
+            return it.hasNext() ? it.next().m_lastAccess : Long.MAX_VALUE;
+        }
+
+        /** Removes the least recently used blob, returns false if the segment is empty. */
+        synchronized boolean evictEldest() {
+            final Iterator<CacheEntry> it = m_map.values().iterator();
+            if (!it.hasNext()) {
+                return false;
+            }
+            final CacheEntry eldest = it.next();
+            it.remove();
+            m_weight.addAndGet(-eldest.m_weight);
+            return true;
+        }
+
+        synchronized void invalidate(final long bufferUID) {
+            final Iterator<Map.Entry<CacheKey, CacheEntry>> it = m_map.entrySet().iterator();
+            while (it.hasNext()) {
+                final Map.Entry<CacheKey, CacheEntry> e = it.next();
+                if (e.getKey().m_bufferUID == bufferUID) {
+                    it.remove();
+                    m_weight.addAndGet(-e.getValue().m_weight);
+                }
+            }
+        }
+
+        synchronized void remove(final CacheKey key) {
+            final CacheEntry entry = m_map.remove(key);
+            if (entry != null) {
+                m_weight.addAndGet(-entry.m_weight);
+            }
+        }
+    }
+}
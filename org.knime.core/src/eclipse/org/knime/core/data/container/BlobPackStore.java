@@ -0,0 +1,549 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores the blobs of a {@link Buffer} in one append-only pack file per column instead of one file per blob, which
+ * avoids millions of small files (and inodes) for tables with many small blobs and makes saving, copying and deleting
+ * the blob directory fast. Each record in a pack file consists of the blob's index in the column (int), the length of
+ * the blob (long) and the blob's bytes, which are identical to the content of the blob file in the unpacked layout.
+ * The offsets of the blobs are kept in memory; for packs that were written by another buffer instance (e.g. after a
+ * workflow has been loaded) they are determined by scanning the record headers once.
+ *
+ * <p>Each pack keeps one channel for appending records, which is open until {@link #closeAppendChannels()} (i.e.
+ * until the buffer has been written), and one channel that is shared by all readers using positional reads, which
+ * is open until the store is {@link #close() closed}. As a channel is closed when a thread blocked in an I/O
+ * operation on it is interrupted (which is how nodes are canceled), the read channel is reopened on demand and reads
+ * of other threads that fail because of such an asynchronous close are retried.
+ *
+ * <p>Blobs are only appended, they are never deleted individually but only as part of their buffer (by deleting the
+ * blob directory), so no compaction is required.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class BlobPackStore {
+
+    /** Suffix of pack files in the blob directory. */
+    static final String PACK_SUFFIX = ".pack";
+
+    /** Size of a record header: index (int) and length (long). */
+    private static final int HEADER_SIZE = 4 + 8;
+
+    /** Size of the write buffer of a record and of the read buffer of a blob stream. */
+    private static final int BUFFER_SIZE = 8192;
+
+    private final File m_blobDir;
+
+    private final Map<Integer, ColumnPack> m_columnPacks = new HashMap<>();
+
+    /**
+     * @param blobDir the blob directory of the buffer
+     */
+    BlobPackStore(final File blobDir) {
+        m_blobDir = blobDir;
+    }
+
+    /**
+     * @param blobDir a blob directory, may be null
+     * @return whether the directory contains pack files (and therefore no individual blob files)
+     */
+    static boolean containsPacks(final File blobDir) {
+        if (blobDir == null) {
+            return false;
+        }
+        final String[] names = blobDir.list();
+        return names != null && Arrays.stream(names).anyMatch(n -> n.endsWith(PACK_SUFFIX));
+    }
+
+    /**
+     * Opens a stream to append a blob. The blob is registered once the returned stream is closed. Only one blob per
+     * column can be written at a time.
+     *
+     * @param column the column of the blob
+     * @param indexInColumn the index of the blob in the column
+     * @return a stream to write the blob's bytes to
+     * @throws IOException if the pack file cannot be opened
+     */
+    OutputStream openOutputStream(final int column, final int indexInColumn) throws IOException {
+        return getColumnPack(column, true).append(indexInColumn);
+    }
+
+    /**
+     * Opens a stream to read a blob.
+     *
+     * @param column the column of the blob
+     * @param indexInColumn the index of the blob in the column
+     * @return a stream returning the blob's bytes
+     * @throws IOException if the blob does not exist or the pack file cannot be read
+     */
+    InputStream openInputStream(final int column, final int indexInColumn) throws IOException {
+        return getColumnPack(column, false).read(indexInColumn);
+    }
+
+    /**
+     * Closes the channels used to append blobs, called once all blobs have been written. Appending blobs afterwards
+     * reopens them.
+     *
+     * @throws IOException if a channel cannot be closed
+     */
+    synchronized void closeAppendChannels() throws IOException {
+        for (ColumnPack pack : m_columnPacks.values()) {
+            pack.closeAppendChannel();
+        }
+    }
+
+    /**
+     * Closes all channels, called before the blob directory is deleted. Reading blobs afterwards reopens them.
+     *
+     * @throws IOException if a channel cannot be closed
+     */
+    synchronized void close() throws IOException {
+        IOException failure = null;
+        for (ColumnPack pack : m_columnPacks.values()) {
+            try {
+                pack.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /** Writes the remaining bytes of the buffer to the channel at its current position. */
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /** Writes the remaining bytes of the buffer to the channel at the given position. */
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer, final long position)
+        throws IOException {
+        long pos = position;
+        while (buffer.hasRemaining()) {
+            pos += channel.write(buffer, pos);
+        }
+    }
+
+    /** Reads the buffer's remaining bytes from the given position, fails if the end of the file is reached. */
+    private static void readFully(final FileChannel channel, final ByteBuffer buffer, final long position)
+        throws IOException {
+        long pos = position;
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, pos);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of blob pack");
+            }
+            pos += read;
+        }
+    }
+
+    private static void closeQuietly(final FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // ignore, the channel is not used anymore
+        }
+    }
+
+    private synchronized ColumnPack getColumnPack(final int column, final boolean create) throws IOException {
+        ColumnPack pack = m_columnPacks.get(column);
+        if (pack == null) {
+            final File file = new File(m_blobDir, "col_" + column + PACK_SUFFIX);
+            if (file.exists()) {
+                pack = new ColumnPack(file, false);
+            } else if (create) {
+                pack = new ColumnPack(file, true);
+                Buffer.onFileCreated(m_blobDir);
+            } else {
+                throw new IOException("Blob pack file \"" + file.getAbsolutePath() + "\" does not exist");
+            }
+            m_columnPacks.put(column, pack);
+        }
+        return pack;
+    }
+
+    /** The pack file of a single column together with the offsets and lengths of its blobs. */
+    private static final class ColumnPack {
+
+        private final File m_file;
+
+        private long[] m_offsets = new long[0];
+
+        private long[] m_lengths = new long[0];
+
+        /** Whether the offsets are known, false for existing packs until they have been scanned. */
+        private boolean m_isIndexed;
+
+        private boolean m_isWriting;
+
+        /** Channel positioned at the end of the pack, null if not open. */
+        private FileChannel m_appendChannel;
+
+        /** Channel for positional reads, shared by all readers, null if not open. */
+        private FileChannel m_readChannel;
+
+        ColumnPack(final File file, final boolean isNew) {
+            m_file = file;
+            m_isIndexed = isNew;
+        }
+
+        synchronized OutputStream append(final int indexInColumn) throws IOException {
+            if (m_isWriting) {
+                throw new IOException("Concurrent write to blob pack \"" + m_file.getAbsolutePath() + "\"");
+            }
+            ensureIndexed();
+            if (m_appendChannel == null) {
+                m_appendChannel =
+                    FileChannel.open(m_file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                m_appendChannel.position(m_appendChannel.size());
+            }
+            m_isWriting = true;
+            return new RecordOutputStream(m_appendChannel, m_appendChannel.position(), indexInColumn);
+        }
+
+        synchronized void register(final int indexInColumn, final long offset, final long length) {
+            m_isWriting = false;
+            if (indexInColumn >= m_offsets.length) {
+                final int newLength = Math.max(indexInColumn + 1, 2 * m_offsets.length);
+                final int oldLength = m_offsets.length;
+                m_offsets = Arrays.copyOf(m_offsets, newLength);
+                m_lengths = Arrays.copyOf(m_lengths, newLength);
+                Arrays.fill(m_offsets, oldLength, newLength, -1L);
+            }
+            m_offsets[indexInColumn] = offset;
+            m_lengths[indexInColumn] = length;
+        }
+
+        /** Removes the incomplete record starting at the given position so that later records can be scanned. */
+        synchronized void abort(final long start) {
+            m_isWriting = false;
+            if (m_appendChannel != null) {
+                try {
+                    m_appendChannel.truncate(start);
+                    m_appendChannel.position(start);
+                } catch (IOException e) {
+                    // the record is skipped (and all later records lost) when the pack is scanned
+                    closeQuietly(m_appendChannel);
+                    m_appendChannel = null;
+                }
+            }
+        }
+
+        synchronized InputStream read(final int indexInColumn) throws IOException {
+            ensureIndexed();
+            if (indexInColumn < 0 || indexInColumn >= m_offsets.length || m_offsets[indexInColumn] < 0) {
+                throw new IOException("No blob at index " + indexInColumn + " in blob pack \""
+                    + m_file.getAbsolutePath() + "\"");
+            }
+            return new RecordInputStream(this, m_offsets[indexInColumn], m_lengths[indexInColumn]);
+        }
+
+        /** Returns the read channel, (re-)opening it if it was closed, e.g. due to an interrupted reader. */
+        synchronized FileChannel getReadChannel() throws IOException {
+            if (m_readChannel == null || !m_readChannel.isOpen()) {
+                m_readChannel = FileChannel.open(m_file.toPath(), StandardOpenOption.READ);
+            }
+            return m_readChannel;
+        }
+
+        synchronized void closeAppendChannel() throws IOException {
+            if (m_appendChannel != null && !m_isWriting) {
+                final FileChannel channel = m_appendChannel;
+                m_appendChannel = null;
+                channel.close();
+            }
+        }
+
+        synchronized void close() throws IOException {
+            final FileChannel readChannel = m_readChannel;
+            m_readChannel = null;
+            try {
+                if (readChannel != null) {
+                    readChannel.close();
+                }
+            } finally {
+                if (m_appendChannel != null) {
+                    final FileChannel appendChannel = m_appendChannel;
+                    m_appendChannel = null;
+                    appendChannel.close();
+                }
+            }
+        }
+
+        /** Reads the record headers of a pack written by another buffer instance. */
+        private void ensureIndexed() throws IOException {
+            assert Thread.holdsLock(this);
+            if (m_isIndexed) {
+                return;
+            }
+            final FileChannel channel = getReadChannel();
+            final long fileLength = channel.size();
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            long position = 0;
+            while (position + HEADER_SIZE <= fileLength) {
+                header.clear();
+                readFully(channel, header, position);
+                final int index = header.getInt(0);
+                final long length = header.getLong(4);
+                if (length < 0 || position + HEADER_SIZE + length > fileLength) {
+                    break; // incomplete record, e.g. due to a crash while writing
+                }
+                register(index, position + HEADER_SIZE, length);
+                position += HEADER_SIZE + length;
+            }
+            m_isIndexed = true;
+        }
+
+        /**
+         * Writes the header and the bytes of a blob to the pack and fills in its length when closed. The header is
+         * buffered together with the first bytes, so small blobs are written with a single call.
+         */
+        private final class RecordOutputStream extends OutputStream {
+
+            private final FileChannel m_channel;
+
+            private final long m_start;
+
+            private final int m_indexInColumn;
+
+            private final ByteBuffer m_buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+            /** Whether the header has been written, i.e. the length must be filled in at its position. */
+            private boolean m_isHeaderWritten;
+
+            private long m_length;
+
+            private boolean m_isClosed;
+
+            RecordOutputStream(final FileChannel channel, final long start, final int indexInColumn) {
+                m_channel = channel;
+                m_start = start;
+                m_indexInColumn = indexInColumn;
+                m_buffer.putInt(indexInColumn);
+                m_buffer.putLong(-1L);
+            }
+
+            @Override
+            public void write(final int b) throws IOException {
+                if (!m_buffer.hasRemaining()) {
+                    flushBuffer();
+                }
+                m_buffer.put((byte)b);
+                m_length++;
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) throws IOException {
+                if (len > m_buffer.remaining()) {
+                    flushBuffer();
+                }
+                if (len >= m_buffer.capacity()) {
+                    writeFully(m_channel, ByteBuffer.wrap(b, off, len));
+                } else {
+                    m_buffer.put(b, off, len);
+                }
+                m_length += len;
+            }
+
+            private void flushBuffer() throws IOException {
+                m_buffer.flip();
+                writeFully(m_channel, m_buffer);
+                m_buffer.clear();
+                m_isHeaderWritten = true;
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (m_isClosed) {
+                    return;
+                }
+                m_isClosed = true;
+                try {
+                    if (m_isHeaderWritten) {
+                        flushBuffer();
+                        final ByteBuffer length = ByteBuffer.allocate(8);
+                        length.putLong(0, m_length);
+                        writeFully(m_channel, length, m_start + 4);
+                    } else {
+                        m_buffer.putLong(4, m_length);
+                        flushBuffer();
+                    }
+                    register(m_indexInColumn, m_start + HEADER_SIZE, m_length);
+                } catch (IOException e) {
+                    abort(m_start);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /** Reads the bytes of a single record using positional reads, which don't interfere with other readers. */
+    private static final class RecordInputStream extends InputStream {
+
+        private final ColumnPack m_pack;
+
+        private final ByteBuffer m_buffer;
+
+        private long m_position;
+
+        /** Number of bytes of the record not yet read into the buffer. */
+        private long m_remaining;
+
+        RecordInputStream(final ColumnPack pack, final long offset, final long length) {
+            m_pack = pack;
+            m_position = offset;
+            m_remaining = length;
+            m_buffer = ByteBuffer.allocate((int)Math.min(BUFFER_SIZE, Math.max(1, length)));
+            m_buffer.limit(0);
+        }
+
+        /**
+         * Reads the buffer's remaining bytes from the given position. If the shared channel was closed because
+         * another reader was interrupted the read is repeated on a reopened channel; an interrupt of the current
+         * thread is propagated.
+         */
+        private void readFully(final ByteBuffer buffer, final long position) throws IOException {
+            final int start = buffer.position();
+            try {
+                BlobPackStore.readFully(m_pack.getReadChannel(), buffer, position);
+            } catch (ClosedByInterruptException e) {
+                throw e;
+            } catch (ClosedChannelException e) {
+                buffer.position(start);
+                BlobPackStore.readFully(m_pack.getReadChannel(), buffer, position);
+            }
+        }
+
+        /** Fills the buffer, returns false if the record has been read completely. */
+        private boolean fill() throws IOException {
+            if (m_remaining <= 0) {
+                return false;
+            }
+            m_buffer.clear();
+            m_buffer.limit((int)Math.min(m_buffer.capacity(), m_remaining));
+            readFully(m_buffer, m_position);
+            m_buffer.flip();
+            m_position += m_buffer.remaining();
+            m_remaining -= m_buffer.remaining();
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!m_buffer.hasRemaining() && !fill()) {
+                return -1;
+            }
+            return m_buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (m_buffer.hasRemaining()) {
+                final int n = Math.min(len, m_buffer.remaining());
+                m_buffer.get(b, off, n);
+                return n;
+            }
+            if (m_remaining <= 0) {
+                return -1;
+            }
+            if (len >= m_buffer.capacity()) {
+                // read large chunks directly into the caller's array
+                final int n = (int)Math.min(len, m_remaining);
+                readFully(ByteBuffer.wrap(b, off, n), m_position);
+                m_position += n;
+                m_remaining -= n;
+                return n;
+            }
+            fill();
+            final int n = Math.min(len, m_buffer.remaining());
+            m_buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            if (n <= 0) {
+                return 0;
+            }
+            final int fromBuffer = (int)Math.min(n, m_buffer.remaining());
+            m_buffer.position(m_buffer.position() + fromBuffer);
+            final long fromFile = Math.min(n - fromBuffer, m_remaining);
+            m_position += fromFile;
+            m_remaining -= fromFile;
+            return fromBuffer + fromFile;
+        }
+
+        @Override
+        public int available() {
+            return (int)Math.min(Integer.MAX_VALUE, m_buffer.remaining() + m_remaining);
+        }
+
+        @Override
+        public void close() {
+            // the channel is shared by all readers of the pack and closed with the store
+        }
+    }
+}
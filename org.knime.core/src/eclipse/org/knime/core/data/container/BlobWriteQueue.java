@@ -0,0 +1,281 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes the blobs of a {@link Buffer} in the background. Blobs are serialized (and compressed) in parallel into
+ * memory; the serialized blobs are then written by whichever task gets hold of the write lock first, which drains
+ * all blobs serialized so far in one batch. Only one blob is written at a time, which is a requirement of the
+ * {@link BlobPackStore} and keeps the disk access sequential.
+ *
+ * <p>The number of blobs held in memory is bounded; {@link #submit(int, int, boolean, BlobContent)} blocks if too many
+ * blobs are pending. Reading a blob must be preceded by {@link #await(int, int)}, closing the buffer by
+ * {@link #flush()}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class BlobWriteQueue {
+
+    /** Opens the stream the bytes of a blob with the given coordinates are written to. */
+    @FunctionalInterface
+    interface BlobSink {
+        /**
+         * @param indexBlobInCol the index of the blob in its column
+         * @param column the column of the blob
+         * @param isCompressed whether the blob is compressed
+         * @return the stream to write to, closed by the caller
+         * @throws IOException if the stream cannot be opened
+         */
+        OutputStream openBlobOutputStream(int indexBlobInCol, int column, boolean isCompressed) throws IOException;
+    }
+
+    /** Writes the (possibly compressed) bytes of a blob. */
+    @FunctionalInterface
+    interface BlobContent {
+        /**
+         * @param out the stream to write to, must be closed by the implementation
+         * @throws IOException if writing fails
+         */
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private static final int THREAD_COUNT = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    /** Maximum number of blobs per queue that are submitted but not yet written. */
+    private static final int MAX_PENDING_BLOBS = 4 * THREAD_COUNT;
+
+    private static final ThreadPoolExecutor EXECUTOR;
+
+    static {
+        final AtomicInteger threadCount = new AtomicInteger();
+        EXECUTOR = new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), r -> {
+                final Thread t = new Thread(r, "KNIME-BlobWriter-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    private final BlobSink m_sink;
+
+    private final Semaphore m_permits = new Semaphore(MAX_PENDING_BLOBS);
+
+    private final Map<Long, Future<Void>> m_pending = new ConcurrentHashMap<>();
+
+    private final Queue<SerializedBlob> m_serialized = new ConcurrentLinkedQueue<>();
+
+    private final Object m_writeLock = new Object();
+
+    private final AtomicReference<IOException> m_failure = new AtomicReference<>();
+
+    /**
+     * @param sink opens the streams the blobs are written to, called on the background threads
+     */
+    BlobWriteQueue(final BlobSink sink) {
+        m_sink = sink;
+    }
+
+    /**
+     * Schedules the blob for writing and returns immediately, unless too many blobs are pending.
+     *
+     * @param indexBlobInCol the index of the blob in its column
+     * @param column the column of the blob
+     * @param isCompressed whether the blob is compressed
+     * @param content serializes the blob, called on a background thread
+     * @throws IOException if a previous write failed or the thread is interrupted while waiting
+     */
+    void submit(final int indexBlobInCol, final int column, final boolean isCompressed, final BlobContent content)
+            throws IOException {
+        checkFailure();
+        try {
+            m_permits.acquire();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for blobs to be written");
+        }
+        final Long key = key(indexBlobInCol, column);
+        final FutureTask<Void> task = new FutureTask<>(() -> {
+            try {
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                content.writeTo(bytes);
+                m_serialized.add(new SerializedBlob(indexBlobInCol, column, isCompressed, bytes));
+                drain();
+                return null;
+            } catch (IOException | RuntimeException e) {
+                m_failure.compareAndSet(null, e instanceof IOException ? (IOException)e
+                    : new IOException("Unable to write blob: " + e.getMessage(), e));
+                throw e;
+            } finally {
+                m_pending.remove(key);
+                m_permits.release();
+            }
+        });
+        m_pending.put(key, task);
+        EXECUTOR.execute(task);
+    }
+
+    /**
+     * Writes a blob on the calling thread, exclusively with the background writes.
+     *
+     * @param indexBlobInCol the index of the blob in its column
+     * @param column the column of the blob
+     * @param isCompressed whether the blob is compressed
+     * @param content writes the blob
+     * @throws IOException if writing fails
+     */
+    void write(final int indexBlobInCol, final int column, final boolean isCompressed, final BlobContent content)
+            throws IOException {
+        synchronized (m_writeLock) {
+            content.writeTo(m_sink.openBlobOutputStream(indexBlobInCol, column, isCompressed));
+        }
+    }
+
+    /**
+     * Waits until the blob with the given coordinates is written, returns immediately if it is not pending.
+     *
+     * @param indexBlobInCol the index of the blob in its column
+     * @param column the column of the blob
+     * @throws IOException if a write failed or the thread is interrupted
+     */
+    void await(final int indexBlobInCol, final int column) throws IOException {
+        final Future<Void> future = m_pending.get(key(indexBlobInCol, column));
+        if (future != null) {
+            waitFor(future);
+        }
+        checkFailure();
+    }
+
+    /**
+     * Waits until all submitted blobs are written.
+     *
+     * @throws IOException if a write failed or the thread is interrupted
+     */
+    void flush() throws IOException {
+        for (Future<Void> future : new ArrayList<>(m_pending.values())) {
+            waitFor(future);
+        }
+        checkFailure();
+    }
+
+    /** Writes all serialized blobs, called by the background tasks. */
+    private void drain() throws IOException {
+        synchronized (m_writeLock) {
+            SerializedBlob blob;
+            while ((blob = m_serialized.poll()) != null) {
+                try (OutputStream out =
+                        m_sink.openBlobOutputStream(blob.m_indexBlobInCol, blob.m_column, blob.m_isCompressed)) {
+                    blob.m_bytes.writeTo(out);
+                }
+            }
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        final IOException failure = m_failure.get();
+        if (failure != null) {
+            throw new IOException("Writing blobs failed: " + failure.getMessage(), failure);
+        }
+    }
+
+    private static void waitFor(final Future<Void> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for blobs to be written");
+        } catch (ExecutionException ee) {
+            final Throwable cause = ee.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            throw new IOException("Unable to write blob: " + cause.getMessage(), cause);
+        }
+    }
+
+    private static Long key(final int indexBlobInCol, final int column) {
+        return Long.valueOf(((long)column << 32) | (indexBlobInCol & 0xFFFFFFFFL));
+    }
+
+    /** A blob serialized into memory, waiting to be written. */
+    private static final class SerializedBlob {
+
+        private final int m_indexBlobInCol;
+
+        private final int m_column;
+
+        private final boolean m_isCompressed;
+
+        private final ByteArrayOutputStream m_bytes;
+
+        SerializedBlob(final int indexBlobInCol, final int column, final boolean isCompressed,
+            final ByteArrayOutputStream bytes) {
+            m_indexBlobInCol = indexBlobInCol;
+            m_column = column;
+            m_isCompressed = isCompressed;
+            m_bytes = bytes;
+        }
+    }
+}
@@ -56,7 +56,6 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.text.NumberFormat;
@@ -66,10 +65,8 @@
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
@@ -266,10 +263,25 @@ public class Buffer implements KNIMEStreamConstants {
     private static final String CFG_SIZE_L = "table.size.long";
 
     /** Current version string. */
-    public static final String VERSION = "container_12";
+    public static final String VERSION = "container_13";
 
     /** The version number corresponding to {@link #VERSION}. */
-    public static final int IVERSION = 12;
+    public static final int IVERSION = 13;
+
+    /** Version string written if row keys are not written in compact form, readable by versions prior to 3.8. */
+    static final String VERSION_PLAIN_ROW_KEYS = "container_12";
+
+    /** The version number corresponding to {@link #VERSION_PLAIN_ROW_KEYS}. */
+    static final int IVERSION_PLAIN_ROW_KEYS = 12;
+
+    /** Whether row keys are written in compact form, see {@link KNIMEConstants#PROPERTY_COMPACT_ROW_KEYS}. */
+    static final boolean COMPACT_ROW_KEYS = Boolean.getBoolean(KNIMEConstants.PROPERTY_COMPACT_ROW_KEYS);
+
+    /** The version string written by new buffers, either {@link #VERSION} or {@link #VERSION_PLAIN_ROW_KEYS}. */
+    static final String WRITE_VERSION = COMPACT_ROW_KEYS ? VERSION : VERSION_PLAIN_ROW_KEYS;
+
+    /** The version number corresponding to {@link #WRITE_VERSION}. */
+    static final int WRITE_IVERSION = COMPACT_ROW_KEYS ? IVERSION : IVERSION_PLAIN_ROW_KEYS;
 
     private static final HashMap<String, Integer> COMPATIBILITY_MAP;
 
@@ -286,7 +298,8 @@ public class Buffer implements KNIMEStreamConstants {
         COMPATIBILITY_MAP.put("container_9", 9); // never released - some workflow tests contain it (BW used a nightly)
         COMPATIBILITY_MAP.put("container_10", 10); // version 3.6 (multiple table formats)
         COMPATIBILITY_MAP.put("container_11", 11); // version 3.7 - add FileStoreCell support for multiple FileStores
-        COMPATIBILITY_MAP.put(VERSION, IVERSION); // version 3.8 - changed default compression to Snappy
+        COMPATIBILITY_MAP.put(VERSION_PLAIN_ROW_KEYS, IVERSION_PLAIN_ROW_KEYS); // version 3.8 - Snappy compression
+        COMPATIBILITY_MAP.put(VERSION, IVERSION); // version 3.8 - compact encoding of row keys (if enabled)
         // NOTE consider to also
         // - increment the workflow.knime version number when updating this list
         // - update list in NoKeyBuffer
@@ -304,6 +317,12 @@ public class Buffer implements KNIMEStreamConstants {
     /** Number of dirs/files per directory when blobs are saved. */
     private static final int BLOB_ENTRIES_PER_DIRECTORY = 1000;
 
+    /** Whether new buffers store their blobs in pack files, see {@link KNIMEConstants#PROPERTY_PACKED_BLOBS}. */
+    private static final boolean PACK_BLOBS = Boolean.getBoolean(KNIMEConstants.PROPERTY_PACKED_BLOBS);
+
+    /** Whether blobs are written in the background, see {@link KNIMEConstants#PROPERTY_ASYNC_BLOB_WRITE}. */
+    private static final boolean ASYNC_BLOB_WRITE = Boolean.getBoolean(KNIMEConstants.PROPERTY_ASYNC_BLOB_WRITE);
+
     /**
      * Is executing the shutdown hook? If so, no logging is done, bug fix #862.
      */
@@ -383,13 +402,6 @@ public Thread newThread(final Runnable r) {
         }
     });
 
-    /**
-     * Hash used to reduce the overhead of reading a blob cell over and over again. Useful in cases where a blob is
-     * added multiple times to a table... the iterator will read the blob address, treat it as unseen and then ask the
-     * owning Buffer to restore the blob.
-     */
-    private final BlobLRUCache m_blobLRUCache = new BlobLRUCache();
-
     static boolean isUseCompressionForBlobs(final CellClassInfo cellClassInfo) {
         @SuppressWarnings("unchecked")
         Class<? extends BlobDataCell> cl = (Class<? extends BlobDataCell>)cellClassInfo.getCellClass();
@@ -428,6 +440,15 @@ static boolean isUseCompressionForBlobs(final CellClassInfo cellClassInfo) {
     /** The directory where blob cells are stored or null if none available. */
     private File m_blobDir;
 
+    /** Whether blobs are stored in pack files (see {@link BlobPackStore}) rather than one file per blob. */
+    private final boolean m_packBlobs;
+
+    /** The pack files of the blobs, lazily initialized if {@link #m_packBlobs} is set. */
+    private BlobPackStore m_blobPackStore;
+
+    /** Writes blobs in the background, lazily initialized if {@link #ASYNC_BLOB_WRITE} is set. */
+    private volatile BlobWriteQueue m_blobWriteQueue;
+
     /** true if any row contained in this buffer contains blob cells. */
     private boolean m_containsBlobs;
 
@@ -520,7 +541,7 @@ static boolean isUseCompressionForBlobs(final CellClassInfo cellClassInfo) {
      * The version of the file we are reading (if initiated with Buffer(File, boolean). Used to remember when we need to
      * read a file which has been written with another version of the Buffer, i.e. to provide backward compatibility.
      */
-    private int m_version = IVERSION;
+    private int m_version = WRITE_IVERSION;
 
     /**
      * Map of blob addresses that were copied into this buffer. It maps the original id to the new id (having m_bufferID
@@ -597,6 +618,7 @@ static boolean isUseCompressionForBlobs(final CellClassInfo cellClassInfo) {
         m_dataRepository = dataRepository;
         m_spec = spec;
         m_outputFormat = m_bufferSettings.getOutputFormat(m_spec);
+        m_packBlobs = PACK_BLOBS;
         BufferTracker.getInstance().bufferCreated(this);
     }
 
@@ -644,6 +666,7 @@ static boolean isUseCompressionForBlobs(final CellClassInfo cellClassInfo) {
         m_spec = spec;
         m_binFile = binFile;
         m_blobDir = blobDir;
+        m_packBlobs = BlobPackStore.containsPacks(blobDir);
         m_bufferID = bufferID;
         if (dataRepository == null) {
             LOGGER
@@ -677,7 +700,7 @@ static boolean isUseCompressionForBlobs(final CellClassInfo cellClassInfo) {
      * @return The version string.
      */
     public String getVersion() {
-        return VERSION;
+        return WRITE_VERSION;
     }
 
     /**
@@ -977,9 +1000,8 @@ private DataCell handleIncomingBlob(final DataCell cell, final int col, final in
             if (b != null && !isToCloneForVersionHop) {
                 int indexBlobInCol = m_indicesOfBlobInColumns[col]++;
                 rewrite.setIndexOfBlobInColumn(indexBlobInCol);
-                File source = b.getBlobFile(ad.getIndexOfBlobInColumn(), ad.getColumn(), false, ad.isUseCompression());
-                File dest = getBlobFile(indexBlobInCol, col, true, ad.isUseCompression());
-                FileUtil.copy(source, dest);
+                copyBlob(b, ad.getIndexOfBlobInColumn(), ad.getColumn(), indexBlobInCol, col,
+                    ad.isUseCompression());
                 wc = new BlobWrapperDataCell(this, rewrite, cl);
             } else {
                 BlobDataCell bc;
@@ -1031,7 +1053,6 @@ private void writeBlobDataCell(final BlobDataCell cell, final BlobAddress a) thr
         int indexInColumn = m_indicesOfBlobInColumns[column]++;
         a.setIndexOfBlobInColumn(indexInColumn);
         boolean isToCompress = Buffer.isUseCompressionForBlobs(CellClassInfo.get(cell));
-        File outFile = getBlobFile(indexInColumn, column, true, isToCompress);
         BlobAddress originalBA = cell.getBlobAddress();
         if (!Objects.equals(originalBA, a)) {
             int originalBufferIndex = originalBA.getBufferID();
@@ -1049,18 +1070,28 @@ private void writeBlobDataCell(final BlobDataCell cell, final BlobAddress a) thr
                 int index = originalBA.getIndexOfBlobInColumn();
                 int col = originalBA.getColumn();
                 boolean compress = originalBA.isUseCompression();
-                File source = originalBuffer.getBlobFile(index, col, false, compress);
-                FileUtil.copy(source, outFile);
+                originalBuffer.copyBlob(index, col, compress, this, indexInColumn, column);
                 return;
             }
         }
 
-        try (final OutputStream out = new BufferedOutputStream(new FileOutputStream(outFile));
+        final BlobWriteQueue.BlobContent content = out -> writeBlobDataCell(cell, ser, isToCompress, out);
+        if (ASYNC_BLOB_WRITE) {
+            // the cell is kept in memory by the wrapper cell until the blob is written (and readable)
+            getBlobWriteQueue().submit(indexInColumn, column, isToCompress, content);
+        } else {
+            writeBlob(indexInColumn, column, isToCompress, content);
+        }
+    }
+
+    /** Serializes (and possibly compresses) a blob cell into the given stream, which is closed afterwards. */
+    private static void writeBlobDataCell(final BlobDataCell cell, final DataCellSerializer<DataCell> ser,
+        final boolean isToCompress, final OutputStream blobOut) throws IOException {
+        try (final OutputStream out = new BufferedOutputStream(blobOut);
                 final BlockableDCObjectOutputVersion2 outStream = new BlockableDCObjectOutputVersion2(
                     isToCompress ? new BufferedOutputStream(new GZIPOutputStream(out)) : out)) {
             // buffering the gzip stream brings another performance boost
             // (in one case from 5mins down to 2 mins)
-            Buffer.onFileCreated(outFile);
             if (ser != null) { // DataCell is datacell-serializable
                 outStream.writeDataCellPerKNIMESerializer(ser, cell);
             } else {
@@ -1069,6 +1100,44 @@ private void writeBlobDataCell(final BlobDataCell cell, final BlobAddress a) thr
         }
     }
 
+    /**
+     * Writes a blob on the calling thread. If blobs are also written in the background, the write is done exclusively
+     * with those, which is a requirement of the pack files.
+     */
+    private void writeBlob(final int indexBlobInCol, final int column, final boolean isCompressed,
+        final BlobWriteQueue.BlobContent content) throws IOException {
+        final BlobWriteQueue queue = m_blobWriteQueue;
+        if (queue != null) {
+            queue.write(indexBlobInCol, column, isCompressed, content);
+        } else {
+            content.writeTo(openBlobOutputStream(indexBlobInCol, column, isCompressed));
+        }
+    }
+
+    /**
+     * Creates the queue for background blob writes. The blob directory and pack store are created here (on the thread
+     * that adds the rows) so that the background threads never need to lock this buffer, which is locked while
+     * waiting for them in {@link #closeInternal()}.
+     */
+    private BlobWriteQueue getBlobWriteQueue() throws IOException {
+        if (m_blobWriteQueue == null) {
+            ensureBlobDirExists();
+            final BlobPackStore packStore = m_packBlobs ? getBlobPackStore() : null;
+            m_blobWriteQueue = new BlobWriteQueue((indexBlobInCol, column, isCompressed) -> packStore != null
+                ? packStore.openOutputStream(column, indexBlobInCol)
+                : openBlobFileOutputStream(indexBlobInCol, column, isCompressed));
+        }
+        return m_blobWriteQueue;
+    }
+
+    /** Waits for all blobs written in the background, if any. */
+    private void flushBlobWriteQueue() throws IOException {
+        final BlobWriteQueue queue = m_blobWriteQueue;
+        if (queue != null) {
+            queue.flush();
+        }
+    }
+
     private boolean mustBeFlushedPriorSave(final DataCell cell, final boolean isWrapperCell,
         final boolean isCollectionCell) {
         if (cell instanceof FileStoreCell) {
@@ -1136,6 +1205,15 @@ void closeInternal() {
             flushBuffer();
             closeWriterAndWriteMeta();
         }
+        try {
+            flushBlobWriteQueue();
+            if (m_blobPackStore != null) {
+                // all blobs are written, the packs are only read from now on
+                m_blobPackStore.closeAppendChannels();
+            }
+        } catch (IOException ioe) {
+            throw new RuntimeException("Cannot write blobs of buffer " + m_bufferID, ioe);
+        }
         m_localRepository = null;
     }
 
@@ -1165,7 +1243,7 @@ private void closeWriterAndWriteMeta() {
                 double sizeInMB = m_binFile.length() / (double)(1 << 20);
                 String size = NumberFormat.getInstance().format(sizeInMB);
                 LOGGER.debug("Buffer file (" + m_binFile.getAbsolutePath() + ") is " + size + "MB in size");
-                initOutputReader(formatSettings, IVERSION);
+                initOutputReader(formatSettings, WRITE_IVERSION);
             }
         } catch (IOException ioe) {
             throw new RuntimeException("Cannot close stream of file \"" + m_binFile.getName() + "\"", ioe);
@@ -1396,17 +1474,22 @@ BlobDataCell readBlobDataCell(final BlobAddress blobAddress, final CellClassInfo
             Buffer blobBuffer = cnTbl.getBuffer();
             return blobBuffer.readBlobDataCell(blobAddress, cl);
         }
-        SoftReference<BlobDataCell> softRef = m_blobLRUCache.get(blobAddress);
-        BlobDataCell result = softRef != null ? softRef.get() : null;
+        // reduces the overhead of reading a blob cell over and over again. Useful in cases where a blob is
+        // added multiple times to a table... the iterator will read the blob address, treat it as unseen and then ask
+        // the owning Buffer to restore the blob.
+        BlobDataCell result = BlobCache.INSTANCE.get(m_uniqueID, blobAddress);
         if (result != null) {
             return result;
         }
+        final long[] size = new long[1];
         if (getReadVersion() <= 5) { // 2.0 TechPreview and earlier
             result = BufferFromFileIteratorVersion1x.readBlobDataCell(this, blobAddress, cl);
+            size[0] = getBlobFile(blobAddress.getIndexOfBlobInColumn(), blobAddress.getColumn(), false,
+                blobAddress.isUseCompression()).length();
         } else {
-            result = BufferFromFileIteratorVersion20.readBlobDataCell(blobAddress, cl, this);
+            result = BufferFromFileIteratorVersion20.readBlobDataCell(blobAddress, cl, this, s -> size[0] = s);
         }
-        m_blobLRUCache.put(blobAddress, new SoftReference<BlobDataCell>(result));
+        BlobCache.INSTANCE.put(m_uniqueID, blobAddress, result, size[0]);
         return result;
     }
 
@@ -1451,6 +1534,91 @@ long getBufferFileSize() {
         return -1L;
     }
 
+    /**
+     * Opens a stream to write the (possibly compressed) bytes of a blob with the given coordinates, either to its own
+     * file or to the column's pack file.
+     *
+     * @param indexBlobInCol The index in the column (generally the row number).
+     * @param column The column index.
+     * @param isCompressed If the blob is compressed
+     * @return The stream to write to, to be closed by the caller.
+     * @throws IOException If that fails.
+     */
+    OutputStream openBlobOutputStream(final int indexBlobInCol, final int column, final boolean isCompressed)
+            throws IOException {
+        if (m_packBlobs) {
+            return getBlobPackStore().openOutputStream(column, indexBlobInCol);
+        }
+        return openBlobFileOutputStream(indexBlobInCol, column, isCompressed);
+    }
+
+    /** Opens a stream to write a blob to its own file (blobs not packed). */
+    private OutputStream openBlobFileOutputStream(final int indexBlobInCol, final int column,
+        final boolean isCompressed) throws IOException {
+        File outFile = getBlobFile(indexBlobInCol, column, true, isCompressed);
+        OutputStream out = new FileOutputStream(outFile);
+        try {
+            Buffer.onFileCreated(outFile);
+        } catch (IOException ioe) {
+            out.close();
+            throw ioe;
+        }
+        return out;
+    }
+
+    /**
+     * Opens a stream to read the (possibly compressed) bytes of a blob with the given coordinates.
+     *
+     * @param indexBlobInCol The index in the column (generally the row number).
+     * @param column The column index.
+     * @param isCompressed If the blob is compressed
+     * @return The stream to read from, to be closed by the caller.
+     * @throws IOException If that fails (e.g. the blob does not exist).
+     */
+    InputStream openBlobInputStream(final int indexBlobInCol, final int column, final boolean isCompressed)
+            throws IOException {
+        final BlobWriteQueue queue = m_blobWriteQueue;
+        if (queue != null) {
+            queue.await(indexBlobInCol, column);
+        }
+        if (m_packBlobs) {
+            return getBlobPackStore().openInputStream(column, indexBlobInCol);
+        }
+        return new FileInputStream(getBlobFile(indexBlobInCol, column, false, isCompressed));
+    }
+
+    /**
+     * Copies the bytes of one of this buffer's blobs to another buffer. Works independently of whether the buffers
+     * use pack files.
+     */
+    private void copyBlob(final int indexBlobInCol, final int column, final boolean isCompressed, final Buffer dest,
+        final int destIndexBlobInCol, final int destColumn) throws IOException {
+        // wait outside the destination's write lock, the source blob might be pending in the same queue
+        final BlobWriteQueue queue = m_blobWriteQueue;
+        if (queue != null) {
+            queue.await(indexBlobInCol, column);
+        }
+        dest.writeBlob(destIndexBlobInCol, destColumn, isCompressed, blobOut -> {
+            try (InputStream in = openBlobInputStream(indexBlobInCol, column, isCompressed);
+                    OutputStream out = blobOut) {
+                IOUtils.copyLarge(in, out);
+            }
+        });
+    }
+
+    private void copyBlob(final Buffer source, final int indexBlobInCol, final int column,
+        final int destIndexBlobInCol, final int destColumn, final boolean isCompressed) throws IOException {
+        source.copyBlob(indexBlobInCol, column, isCompressed, this, destIndexBlobInCol, destColumn);
+    }
+
+    private synchronized BlobPackStore getBlobPackStore() throws IOException {
+        if (m_blobPackStore == null) {
+            ensureBlobDirExists();
+            m_blobPackStore = new BlobPackStore(m_blobDir);
+        }
+        return m_blobPackStore;
+    }
+
     /**
      * Determines the file location for a blob to be read/written with some given coordinates (column and index in
      * column).
@@ -1630,6 +1798,7 @@ synchronized void addToZipFile(final ZipOutputStream zipOut, final ExecutionMoni
         if (m_spec == null) {
             throw new IOException("Can't save an open Buffer.");
         }
+        flushBlobWriteQueue();
         // binary data is already deflated
         if (ZLIB_SUPPORTS_LEVEL_SWITCH_AP8083) {
             zipOut.setLevel(Deflater.NO_COMPRESSION);
@@ -1637,8 +1806,8 @@ synchronized void addToZipFile(final ZipOutputStream zipOut, final ExecutionMoni
         zipOut.putNextEntry(new ZipEntry(ZIP_ENTRY_DATA));
         // these are the conditions:
         //    !usesOutFile() --> data all kept in memory, small tables
-        //    m_version< ... --> container version bump
-        if (!isFlushedToDisk() || m_version < IVERSION) {
+        //    m_version != ... --> container version bump (or compact row keys switched on/off)
+        if (!isFlushedToDisk() || m_version != WRITE_IVERSION) {
             // need to use new buffer since we otherwise write properties
             // of this buffer, which prevents it from further reading (version
             // conflict) - see bug #1364
@@ -1660,7 +1829,7 @@ synchronized void addToZipFile(final ZipOutputStream zipOut, final ExecutionMoni
                     () -> "Writing row " + countCurrent + " (\"" + row.getKey() + "\")");
                 exec.checkCanceled();
                 // make a deep copy of blobs if we have a version hop
-                copy.addRow(row, m_version < IVERSION, false);
+                copy.addRow(row, m_version != WRITE_IVERSION, false);
                 count++;
             }
             synchronized (copy) {
@@ -1683,7 +1852,7 @@ synchronized void addToZipFile(final ZipOutputStream zipOut, final ExecutionMoni
             File blobDir = m_blobDir;
             // use the copy's blob dir if we have a version hop
             // (otherwise its blob dir will be empty
-            if (m_version < IVERSION) {
+            if (m_version != WRITE_IVERSION) {
                 blobDir = copy.m_blobDir;
             } else {
                 assert copy.m_blobDir == null;
@@ -1780,6 +1949,21 @@ synchronized void clear() {
 
     void performClear() {
         BufferTracker.getInstance().bufferCleared(this);
+        try {
+            flushBlobWriteQueue();
+        } catch (IOException ioe) {
+            // blobs are deleted anyway
+            LOGGER.debug("Failed to write blobs of buffer " + m_bufferID + " prior clearing", ioe);
+        }
+        m_blobWriteQueue = null;
+        if (m_blobPackStore != null) {
+            try {
+                m_blobPackStore.close();
+            } catch (IOException ioe) {
+                // blobs are deleted anyway
+                LOGGER.debug("Failed to close blob packs of buffer " + m_bufferID + " prior clearing", ioe);
+            }
+        }
         m_listWhileAddRow = null;
         CACHE.invalidate(this);
         if (m_binFile != null) {
@@ -1804,11 +1988,10 @@ void performClear() {
         if (m_fileStoreHandler instanceof NotInWorkflowWriteFileStoreHandler) {
             m_fileStoreHandler.clearAndDispose();
         }
-        if (m_blobLRUCache != null) {
-            m_blobLRUCache.clear();
-        }
+        BlobCache.INSTANCE.invalidate(m_uniqueID);
         m_binFile = null;
         m_blobDir = null;
+        m_blobPackStore = null;
     }
 
     private static final int MAX_FILES_TO_CREATE_BEFORE_GC = 10000;
@@ -1878,37 +2061,6 @@ private void writeList(final List<BlobSupportDataRow> list) {
         }
     }
 
-    /** Last recently used cache for blobs. */
-    private static final class BlobLRUCache extends LinkedHashMap<BlobAddress, SoftReference<BlobDataCell>> {
-
-        private static final long serialVersionUID = 1L;
-
-        /** Default constructor, instructs for access order. */
-        BlobLRUCache() {
-            super(16, 0.75f, true); // args copied from HashMap implementation
-        }
-
-        /** {@inheritDoc} */
-        @Override
-        protected synchronized boolean removeEldestEntry(final Entry<BlobAddress, SoftReference<BlobDataCell>> eldest) {
-            return size() >= 100;
-        }
-
-        /** {@inheritDoc} */
-        @Override
-        public synchronized SoftReference<BlobDataCell> get(final Object key) {
-            return super.get(key);
-        }
-
-        /** {@inheritDoc} */
-        @Override
-        public synchronized SoftReference<BlobDataCell> put(final BlobAddress key,
-                                                            final SoftReference<BlobDataCell> value) {
-            return super.put(key, value);
-        }
-
-    }
-
     /**
      * The BackIntoMemoryIterator holds lists of datarows read from a file. It is strongly referenced only by the
      * FromListIterators and is only weak-referenced in the outer Buffer class. This way, we make sure that the
@@ -48,14 +48,15 @@
 package org.knime.core.data.container;
 
 import java.io.BufferedInputStream;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.NoSuchElementException;
+import java.util.function.LongConsumer;
 import java.util.zip.GZIPInputStream;
 
+import org.apache.commons.io.input.CountingInputStream;
+
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataCellSerializer;
 import org.knime.core.data.DataType;
@@ -205,7 +206,7 @@ private RowKey readRowKeyAndEndBlock(
             return DUMMY_ROW_KEY;
         }
         try {
-            return inStream.readRowKey();
+            return m_tableFormatReader.getReadVersion() >= 13 ? inStream.readEncodedRowKey() : inStream.readRowKey();
         } finally {
             inStream.endBlock();
         }
@@ -262,23 +263,28 @@ protected void finalize() throws Throwable {
      * Reads the blob from the given blob address.
      * @param blobAddress The address to read from.
      * @param cl The expected class.
+     * @param buffer The buffer owning the blob.
+     * @param sizeConsumer Receives the number of (uncompressed) bytes read, may be null.
      * @return The blob cell being read.
      * @throws IOException If that fails.
      */
-    static BlobDataCell readBlobDataCell(final BlobAddress blobAddress, final CellClassInfo cl, final Buffer buffer)
-        throws IOException {
+    static BlobDataCell readBlobDataCell(final BlobAddress blobAddress, final CellClassInfo cl, final Buffer buffer,
+        final LongConsumer sizeConsumer) throws IOException {
         assert buffer.getBufferID() == blobAddress.getBufferID() : "Buffer IDs don't match: " + buffer.getBufferID()
             + " vs. " + blobAddress.getBufferID();
         int column = blobAddress.getColumn();
         int indexInColumn = blobAddress.getIndexOfBlobInColumn();
         boolean isCompress = blobAddress.isUseCompression();
-        File inFile = buffer.getBlobFile(indexInColumn, column, false, isCompress);
-        InputStream in = new BufferedInputStream(new FileInputStream(inFile));
+        InputStream in = new BufferedInputStream(buffer.openBlobInputStream(indexInColumn, column, isCompress));
         if (isCompress) {
             in = new GZIPInputStream(in);
             // that buffering is important
             in = new BufferedInputStream(in);
         }
+        final CountingInputStream countingIn = sizeConsumer != null ? new CountingInputStream(in) : null;
+        if (countingIn != null) {
+            in = countingIn;
+        }
         Class<? extends DataCell> cellClass = cl.getCellClass();
         DataCellSerializer<? extends DataCell> ser = cl.getSerializer();
         BlockableDCObjectInputVersion2 inStream = new BlockableDCObjectInputVersion2(in);
@@ -293,6 +299,9 @@ static BlobDataCell readBlobDataCell(final BlobAddress blobAddress, final CellCl
                 result = (BlobDataCell)inStream.readDataCellPerJavaSerialization();
             }
             result.setBlobAddress(blobAddress);
+            if (countingIn != null) {
+                sizeConsumer.accept(countingIn.getByteCount());
+            }
             return result;
         } finally {
             inStream.close();
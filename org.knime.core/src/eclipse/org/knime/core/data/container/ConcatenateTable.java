@@ -49,8 +49,10 @@
 import java.util.Map;
 import java.util.Optional;
 
+import org.knime.core.data.DataCell;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
 import org.knime.core.data.RowKey;
 import org.knime.core.data.append.AppendedRowsTable;
 import org.knime.core.data.append.AppendedRowsTable.DuplicatePolicy;
@@ -66,6 +68,15 @@
 import org.knime.core.util.DuplicateKeyException;
 
 /**
+ * Row-wise concatenation of {@link BufferedDataTable} objects. The table only references its input tables, no data is
+ * copied.
+ *
+ * <p>
+ * The referenced tables can be scanned independently (and concurrently) as partitions of the table, see
+ * {@link #getNumPartitions()} and {@link #partitionIterator(int)}. This is not possible if duplicate row keys are made
+ * unique by appending a suffix to the duplicates, as this requires a sequential scan. A table created using
+ * {@link #createWithTableKeySuffix(String, BufferedDataTable...)} instead appends the index of the input table to all
+ * row keys, which is unique by construction and computed lazily during iteration.
  *
  * @author Bernd Wiswedel, University of Konstanz
  *
@@ -76,17 +87,26 @@ public final class ConcatenateTable implements KnowsRowCountTable {
     private static final String CFG_ROW_COUNT = "table_rowcount";
     private static final String CFG_ROW_COUNT_L = "table_rowcount_long";
     private static final String CFG_DUPLICATE_ROW_KEY_SUFFIX = "duplicate_row_key_suffix";
+    private static final String CFG_TABLE_KEY_SEPARATOR = "table_row_key_separator";
 
     private AppendedRowsTable m_tablesWrapper;
     private long m_rowCount;
     private BufferedDataTable[] m_tables;
     private DataTableSpec m_spec;
     private String m_rowKeyDuplicateSuffix;
+    /** Separator of row key and table index appended to all row keys, or null. */
+    private String m_tableKeySeparator;
 
     private ConcatenateTable(final BufferedDataTable[] tables,
         final String rowKeyDuplicateSuffix, final long rowCount) {
+        this(tables, rowKeyDuplicateSuffix, null, rowCount);
+    }
+
+    private ConcatenateTable(final BufferedDataTable[] tables, final String rowKeyDuplicateSuffix,
+        final String tableKeySeparator, final long rowCount) {
         m_rowCount = rowCount;
         m_rowKeyDuplicateSuffix = rowKeyDuplicateSuffix;
+        m_tableKeySeparator = tableKeySeparator;
 
         // check whether all specs are the same
         DataTableSpec firstSpec = tables[0].getDataTableSpec();
@@ -172,12 +192,59 @@ public DataTableSpec getDataTableSpec() {
     /** {@inheritDoc} */
     @Override
     public CloseableRowIterator iterator() {
-        // return MyIterator if all specs are the same indicated by m_tablesWrapper == null
-        if(m_tablesWrapper == null) {
-            return new MyIterator();
-        } else {
+        // appending a suffix to duplicates requires a sequential scan over all tables
+        if (m_rowKeyDuplicateSuffix != null) {
             return m_tablesWrapper.iterator(null, -1);
+        } else {
+            return new MyIterator();
+        }
+    }
+
+    /**
+     * The number of partitions of this table, which can be scanned independently of each other (also concurrently)
+     * using {@link #partitionIterator(int)}. Usually this is the number of concatenated tables; if duplicate row keys
+     * are made unique by appending a suffix the table consists of a single partition.
+     *
+     * @return the number of partitions
+     * @since 3.8
+     */
+    public int getNumPartitions() {
+        return m_rowKeyDuplicateSuffix != null ? 1 : m_tables.length;
+    }
+
+    /**
+     * @param partition the index of the partition
+     * @return the number of rows of the partition
+     * @throws IndexOutOfBoundsException If the partition index is invalid.
+     * @since 3.8
+     */
+    public long getPartitionSize(final int partition) {
+        if (partition < 0 || partition >= getNumPartitions()) {
+            throw new IndexOutOfBoundsException("Invalid partition index: " + partition);
         }
+        return m_rowKeyDuplicateSuffix != null ? m_rowCount : m_tables[partition].size();
+    }
+
+    /**
+     * Creates an iterator over the rows of one partition. Rows are returned as they are returned by
+     * {@link #iterator()}, i.e. with the columns arranged according to the spec of this table and with row keys
+     * modified according to the key policy of this table. Iterators of different partitions are independent and
+     * can be used by different threads.
+     *
+     * @param partition the index of the partition
+     * @return a new iterator over the rows of the partition
+     * @throws IndexOutOfBoundsException If the partition index is invalid.
+     * @see #getNumPartitions()
+     * @since 3.8
+     */
+    public CloseableRowIterator partitionIterator(final int partition) {
+        if (partition < 0 || partition >= getNumPartitions()) {
+            throw new IndexOutOfBoundsException("Invalid partition index: " + partition);
+        }
+        if (m_rowKeyDuplicateSuffix != null) {
+            return iterator();
+        }
+        return new PartitionIterator(partition);
     }
 
     /** {@inheritDoc} */
@@ -213,6 +280,9 @@ public void saveToFile(final File f, final NodeSettingsWO s,
 
         //duplicate handling settings
         subSettings.addString(CFG_DUPLICATE_ROW_KEY_SUFFIX, m_rowKeyDuplicateSuffix);
+        if (m_tableKeySeparator != null) {
+            subSettings.addString(CFG_TABLE_KEY_SEPARATOR, m_tableKeySeparator);
+        }
     }
 
     /** Restore table form node settings object.
@@ -237,7 +307,8 @@ public static ConcatenateTable load(final NodeSettingsRO s,
             tables[i] = BufferedDataTable.getDataTable(tblRep, referenceIDs[i], dataRepository);
         }
         String dupSuffix = subSettings.getString(CFG_DUPLICATE_ROW_KEY_SUFFIX, null);
-        return new ConcatenateTable(tables, dupSuffix, rowCount);
+        String tableKeySeparator = subSettings.getString(CFG_TABLE_KEY_SEPARATOR, null);
+        return new ConcatenateTable(tables, dupSuffix, tableKeySeparator, rowCount);
     }
 
     /**
@@ -285,6 +356,37 @@ public static ConcatenateTable create(final ExecutionMonitor mon, final Buffered
         return new ConcatenateTable(tables, null, rowCount);
     }
 
+    /**
+     * Creates a new table from argument tables, appending the separator and the index of the input table to the row
+     * keys of all rows (e.g. "Row0#3" for row "Row0" of the fourth table, using "#" as separator). Keys are unique
+     * over all tables if they are unique within each table, no check for duplicates is therefore needed and the table
+     * is created without scanning the input. The new keys are computed when iterating the table.
+     *
+     * @param tableKeySeparator the separator of row key and table index, must not end with a digit
+     * @param tables Tables to put together.
+     * @return The new table.
+     * @throws NullPointerException If any argument is null.
+     * @throws IllegalArgumentException If the separator is empty or ends with a digit.
+     * @since 3.8
+     */
+    public static ConcatenateTable createWithTableKeySuffix(final String tableKeySeparator,
+        final BufferedDataTable... tables) {
+        if (tableKeySeparator == null || tables == null) {
+            throw new NullPointerException("Argument must not be null.");
+        }
+        // keys are unique only if the table index can be parsed unambiguously from the end of the key
+        if (tableKeySeparator.isEmpty()
+            || Character.isDigit(tableKeySeparator.charAt(tableKeySeparator.length() - 1))) {
+            throw new IllegalArgumentException(
+                "Separator must not be empty and not end with a digit: \"" + tableKeySeparator + "\"");
+        }
+        long rowCount = 0;
+        for (int i = 0; i < tables.length; i++) {
+            rowCount += tables[i].size();
+        }
+        return new ConcatenateTable(tables, null, tableKeySeparator, rowCount);
+    }
+
     private static void checkForDuplicates(final ExecutionMonitor mon, final BufferedDataTable[] tables,
         final long rowCount) throws CanceledExecutionException {
         DuplicateChecker check = new DuplicateChecker();
@@ -319,6 +421,7 @@ public static DataTableSpec createSpec(final DataTableSpec... specs) {
         return DataTableSpec.mergeDataTableSpecs(specs);
     }
 
+    /** Iterates all tables one after another, using a {@link PartitionIterator} per table. */
     private class MyIterator extends CloseableRowIterator {
         private int m_tableIndex;
         private CloseableRowIterator m_curIterator;
@@ -327,7 +430,7 @@ private class MyIterator extends CloseableRowIterator {
         /** Creates new iterator. */
         public MyIterator() {
             m_tableIndex = 0;
-            m_curIterator = m_tables[m_tableIndex].iterator();
+            m_curIterator = new PartitionIterator(m_tableIndex);
             m_next = internalNext();
         }
 
@@ -350,15 +453,15 @@ public DataRow next() {
         }
 
         private DataRow internalNext() {
-            if (m_curIterator.hasNext()) {
-                return m_curIterator.next();
-            }
-            if (m_tableIndex < m_tables.length - 1) {
+            while (!m_curIterator.hasNext()) {
+                if (m_tableIndex >= m_tables.length - 1) {
+                    return null;
+                }
+                m_curIterator.close();
                 m_tableIndex++;
-                m_curIterator = m_tables[m_tableIndex].iterator();
-                return internalNext();
+                m_curIterator = new PartitionIterator(m_tableIndex);
             }
-            return null;
+            return m_curIterator.next();
         }
 
         /** {@inheritDoc} */
@@ -370,4 +473,70 @@ public void close() {
 
     }
 
+    /**
+     * Iterates the rows of one of the tables, arranging the columns according to the spec of this table (inserting
+     * missing values for columns the table doesn't have) and appending the table key suffix if set.
+     */
+    private class PartitionIterator extends CloseableRowIterator {
+        private final CloseableRowIterator m_iterator;
+        /** Index of each output column in the rows of the table, -1 for missing columns; null if identical. */
+        private final int[] m_mapping;
+        /** Suffix appended to all keys, or null. */
+        private final String m_keySuffix;
+
+        PartitionIterator(final int tableIndex) {
+            BufferedDataTable table = m_tables[tableIndex];
+            m_iterator = table.iterator();
+            m_mapping = createMapping(table.getDataTableSpec());
+            m_keySuffix = m_tableKeySeparator == null ? null : m_tableKeySeparator + tableIndex;
+        }
+
+        private int[] createMapping(final DataTableSpec tableSpec) {
+            int[] mapping = new int[m_spec.getNumColumns()];
+            boolean isIdentity = tableSpec.getNumColumns() == mapping.length;
+            for (int c = 0; c < mapping.length; c++) {
+                mapping[c] = tableSpec.findColumnIndex(m_spec.getColumnSpec(c).getName());
+                isIdentity &= mapping[c] == c;
+            }
+            return isIdentity ? null : mapping;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean hasNext() {
+            return m_iterator.hasNext();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public DataRow next() {
+            DataRow row = m_iterator.next();
+            if (m_mapping == null && m_keySuffix == null) {
+                return row;
+            }
+            RowKey key = m_keySuffix == null ? row.getKey() : new RowKey(row.getKey().getString() + m_keySuffix);
+            if (m_mapping == null) {
+                // shares the (raw) cells of the row
+                return new BlobSupportDataRow(key, row);
+            }
+            final boolean blobRow = row instanceof BlobSupportDataRow;
+            DataCell[] cells = new DataCell[m_mapping.length];
+            for (int c = 0; c < cells.length; c++) {
+                int i = m_mapping[c];
+                if (i < 0) {
+                    cells[c] = DataType.getMissingCell();
+                } else {
+                    cells[c] = blobRow ? ((BlobSupportDataRow)row).getRawCell(i) : row.getCell(i);
+                }
+            }
+            return new BlobSupportDataRow(key, cells);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() {
+            m_iterator.close();
+        }
+    }
+
 }
@@ -51,6 +51,8 @@
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataCellDataInput;
@@ -83,6 +85,12 @@ public class DCObjectInputVersion2 implements KNIMEStreamConstants {
      * de-serialization takes place. May be null. */
     private ClassLoader m_priorityClassLoader;
 
+    /** Prefixes of compact row keys as read so far, list index is the prefix id. Lazily initialized. */
+    private List<String> m_rowKeyPrefixes;
+
+    /** The index of the last compact row key, used for delta decoding. */
+    private long m_lastRowKeyIndex;
+
     /**
      * Creates new input stream that reads from <code>in</code>.
      * @param in The stream to read from.
@@ -158,6 +166,51 @@ RowKey readRowKey() throws IOException {
         return new RowKey(m_dataIn.readUTF());
     }
 
+    /** Reads a row key as written by {@link DCObjectOutputVersion2#writeEncodedRowKey(RowKey)} (container version
+     * 13+).
+     * Compact keys are restored as compact {@link RowKey}, sharing the prefix instance.
+     * @return A new row key instance.
+     * @throws IOException If IO problems occur or the stream is corrupt.
+     */
+    RowKey readEncodedRowKey() throws IOException {
+        final byte encoding = m_dataIn.readByte();
+        switch (encoding) {
+            case BYTE_ROWKEY_STRING:
+                return new RowKey(m_dataIn.readUTF());
+            case BYTE_ROWKEY_COMPACT_NEW_PREFIX:
+                if (m_rowKeyPrefixes == null) {
+                    m_rowKeyPrefixes = new ArrayList<>();
+                }
+                final String newPrefix = m_dataIn.readUTF();
+                m_rowKeyPrefixes.add(newPrefix);
+                m_lastRowKeyIndex = readVarLong();
+                return RowKey.createRowKey(newPrefix, m_lastRowKeyIndex);
+            case BYTE_ROWKEY_COMPACT:
+                final long prefixID = readVarLong();
+                if (m_rowKeyPrefixes == null || prefixID >= m_rowKeyPrefixes.size()) {
+                    throw new IOException("Invalid row key prefix id: " + prefixID);
+                }
+                final long delta = readVarLong();
+                m_lastRowKeyIndex += (delta >>> 1) ^ -(delta & 1);
+                return RowKey.createRowKey(m_rowKeyPrefixes.get((int)prefixID), m_lastRowKeyIndex);
+            default:
+                throw new IOException("Unknown row key encoding: " + encoding);
+        }
+    }
+
+    /** Reads a long as written by DCObjectOutputVersion2#writeVarLong. */
+    private long readVarLong() throws IOException {
+        long result = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = m_dataIn.readByte();
+            result |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed var-length long in stream");
+    }
+
     /** Reads a single byte from the stream.
      * @return That byte.
      * @throws IOException If IO problems occur. */
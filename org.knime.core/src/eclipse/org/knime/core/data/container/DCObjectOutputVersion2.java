@@ -51,6 +51,8 @@
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataCellDataOutput;
@@ -74,9 +76,18 @@
  */
 public class DCObjectOutputVersion2 implements KNIMEStreamConstants, AutoCloseable {
 
+    /** Maximum number of distinct prefixes of compact row keys per stream, further prefixes are written as string. */
+    static final int MAX_ROWKEY_PREFIXES = 1024;
+
     /** This stream writes to m_out and is passed to the DataCellSerializer. */
     private DCLongUTFDataOutputStream m_dataOut;
 
+    /** Prefixes of compact row keys written so far, mapped to their id. Lazily initialized. */
+    private Map<String, Integer> m_rowKeyPrefixMap;
+
+    /** The index of the last compact row key, used for delta encoding. */
+    private long m_lastRowKeyIndex;
+
     /** Setups a new output stream.
      * @param out The stream to write to (the file)
      * @param tableStoreWriter the corresponding writer (callback for embedded cell writing)
@@ -137,6 +148,56 @@ void writeRowKey(final RowKey key) throws IOException {
         m_dataOut.writeUTF(key.getString());
     }
 
+    /** Writes a row key to the stream (container version 13+). Keys that can be represented compactly (see
+     * {@link RowKey#toCompactKey()}) are written as prefix id and delta to the previous index, whereby each prefix is
+     * written once per stream; all other keys are written as string. See {@link #BYTE_ROWKEY_STRING} and following
+     * constants for the format.
+     * @param key Key to write
+     * @throws IOException In case of stream corruption.
+     */
+    void writeEncodedRowKey(final RowKey key) throws IOException {
+        final RowKey compactKey = key.toCompactKey();
+        if (compactKey.isCompact()) {
+            if (m_rowKeyPrefixMap == null) {
+                m_rowKeyPrefixMap = new HashMap<>();
+            }
+            final String prefix = compactKey.getPrefix();
+            final long index = compactKey.getIndex();
+            final Integer prefixID = m_rowKeyPrefixMap.get(prefix);
+            if (prefixID != null) {
+                m_dataOut.write(BYTE_ROWKEY_COMPACT);
+                writeVarLong(prefixID.longValue());
+                writeVarLong(zigZag(index - m_lastRowKeyIndex));
+                m_lastRowKeyIndex = index;
+                return;
+            } else if (m_rowKeyPrefixMap.size() < MAX_ROWKEY_PREFIXES) {
+                m_rowKeyPrefixMap.put(prefix, m_rowKeyPrefixMap.size());
+                m_dataOut.write(BYTE_ROWKEY_COMPACT_NEW_PREFIX);
+                m_dataOut.writeUTF(prefix);
+                writeVarLong(index);
+                m_lastRowKeyIndex = index;
+                return;
+            }
+        }
+        m_dataOut.write(BYTE_ROWKEY_STRING);
+        m_dataOut.writeUTF(key.getString());
+    }
+
+    /** Writes a non-negative long using 7 bits per byte, the highest bit marking that more bytes follow. */
+    private void writeVarLong(final long value) throws IOException {
+        long v = value;
+        while ((v & ~0x7FL) != 0L) {
+            m_dataOut.write((int)((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        m_dataOut.write((int)v);
+    }
+
+    /** Maps signed to unsigned values so that small negative deltas also use few bytes. */
+    private static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
     /** Writes the argument byte.
      * @param controlByte The byte to write.
      * @throws IOException In case of stream corruption.
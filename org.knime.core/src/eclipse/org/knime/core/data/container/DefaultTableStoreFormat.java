@@ -322,7 +322,7 @@ public AbstractTableStoreReader createReader(final File binFile, final DataTable
      */
     @Override
     public String getVersion() {
-        return Buffer.VERSION; // we write it but don't read it
+        return Buffer.WRITE_VERSION; // we write it but don't read it
     }
 
     /**
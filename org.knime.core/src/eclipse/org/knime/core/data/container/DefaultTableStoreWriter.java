@@ -119,7 +119,11 @@ public void writeRow(final DataRow row) throws IOException {
      */
     void writeRowKey(final RowKey key, final BlockableDCObjectOutputVersion2 outStream) throws IOException {
         if (isWriteRowKey()) {
-            outStream.writeRowKey(key);
+            if (Buffer.COMPACT_ROW_KEYS) {
+                outStream.writeEncodedRowKey(key);
+            } else {
+                outStream.writeRowKey(key);
+            }
             outStream.endBlock();
         }
     }
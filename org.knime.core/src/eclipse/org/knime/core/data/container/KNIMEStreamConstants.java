@@ -81,5 +81,15 @@ public interface KNIMEStreamConstants {
     /** Separator for different rows. */
     static final byte BYTE_ROW_SEPARATOR = BYTE_TYPE_MISSING + 3;
 
+    /** Row key encoding (since container version 13): row key written as plain (UTF) string. */
+    static final byte BYTE_ROWKEY_STRING = 0;
+
+    /** Row key encoding (since container version 13): compact row key with a new prefix, followed by the prefix
+     * (UTF) and the index (var-length long). The prefix is assigned the next free prefix id. */
+    static final byte BYTE_ROWKEY_COMPACT_NEW_PREFIX = 1;
+
+    /** Row key encoding (since container version 13): compact row key with a previously defined prefix, followed by
+     * the prefix id (var-length int) and the difference to the previous compact index (var-length, zig-zag). */
+    static final byte BYTE_ROWKEY_COMPACT = 2;
 
 }
@@ -50,7 +50,9 @@
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
@@ -58,8 +60,10 @@
 import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.stream.IntStream;
 
 import org.knime.core.data.DataCell;
@@ -82,12 +86,14 @@
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.workflow.WorkflowDataRepository;
 import org.knime.core.util.MultiThreadWorker;
 import org.knime.core.util.Pair;
+import org.knime.core.util.ThreadPool;
 
 /**
  * Table implementation that is created based on a ColumnRearranger. This class is not intended for subclassing or to be
@@ -445,12 +451,15 @@ private static void calcNewColsASynchronously(final BufferedDataTable table, fin
         CellFactory facForProgress = null;
         int workers = Integer.MAX_VALUE;
         int queueSize = Integer.MAX_VALUE;
+        // batched only if all factories allow it (-1 otherwise)
+        int batchSize = Integer.MAX_VALUE;
         Collection<SpecAndFactoryObject> newColsFactories = newColsProducerMapping.getAllNewColumnsList();
         for (SpecAndFactoryObject specAndFac : newColsFactories) {
             if (specAndFac.getFactory() instanceof AbstractCellFactory) {
                 AbstractCellFactory acf = (AbstractCellFactory)specAndFac.getFactory();
                 workers = Math.min(workers, acf.getMaxParallelWorkers());
                 queueSize = Math.min(queueSize, acf.getMaxQueueSize());
+                batchSize = Math.min(batchSize, acf.getBatchSize());
             } else {
                 throw new IllegalStateException("Coding problem: This method"
                     + " should not have been called as the cell factories do not allow parallel processing");
@@ -462,6 +471,11 @@ private static void calcNewColsASynchronously(final BufferedDataTable table, fin
         assert facForProgress != null;
         assert workers > 0 : "Nr workers <= 0: " + workers;
         assert queueSize > 0 : "queue size <= 0: " + queueSize;
+        if (batchSize > 0) {
+            calcNewColsInBatches(table, subProgress, newColsProducerMapping, container, workers, queueSize, batchSize,
+                facForProgress);
+            return;
+        }
         ConcurrentNewColCalculator calculator =
             new ConcurrentNewColCalculator(queueSize, workers, container, subProgress, finalRowCount,
                 newColsProducerMapping, facForProgress);
@@ -483,6 +497,92 @@ private static void calcNewColsASynchronously(final BufferedDataTable table, fin
         }
     }
 
+    /**
+     * Processes input concurrently in blocks of contiguous rows. The input is read in the caller thread, each block is
+     * computed by a task of a sub pool of the global thread pool, replacing its input rows by the output rows. Blocks
+     * are written to the container in input order, at most <code>maxPendingBatches</code> blocks are in memory.
+     */
+    private static void calcNewColsInBatches(final BufferedDataTable table, final ExecutionMonitor subProgress,
+        final NewColumnsProducerMapping newColsProducerMapping, final DataContainer container, final int workers,
+        final int maxPendingBatches, final int batchSize, final CellFactory facForProgress)
+        throws CanceledExecutionException {
+        final long finalRowCount = table.size();
+        final ThreadPool pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(workers);
+        final ArrayDeque<Future<DataRow[]>> pendingBatches = new ArrayDeque<>();
+        final Callable<Void> readAndWrite = () -> {
+            long writtenRowCount = 0;
+            try (CloseableRowIterator it = table.iterator()) {
+                while (it.hasNext()) {
+                    final DataRow[] batch = new DataRow[batchSize];
+                    int size = 0;
+                    while (size < batchSize && it.hasNext()) {
+                        batch[size++] = it.next();
+                    }
+                    final DataRow[] rows = size == batchSize ? batch : Arrays.copyOf(batch, size);
+                    pendingBatches.add(pool.enqueue(() -> {
+                        for (int i = 0; i < rows.length; i++) {
+                            rows[i] = calcNewCellsForRow(rows[i], newColsProducerMapping);
+                        }
+                        return rows;
+                    }));
+                    while (pendingBatches.size() >= maxPendingBatches) {
+                        writtenRowCount = writeBatch(pendingBatches.poll().get(), container, writtenRowCount,
+                            finalRowCount, facForProgress, subProgress);
+                    }
+                    subProgress.checkCanceled();
+                }
+            }
+            while (!pendingBatches.isEmpty()) {
+                writtenRowCount = writeBatch(pendingBatches.poll().get(), container, writtenRowCount, finalRowCount,
+                    facForProgress, subProgress);
+            }
+            return null;
+        };
+        try {
+            final ThreadPool currentPool = ThreadPool.currentPool();
+            if (currentPool != null) {
+                // the caller thread mostly waits for the workers
+                currentPool.runInvisible(readAndWrite);
+            } else {
+                readAndWrite.call();
+            }
+        } catch (Exception e) {
+            pendingBatches.stream().forEach(f -> f.cancel(true));
+            Throwable cause = e;
+            // runInvisible wraps the exception of the callable, which in turn may wrap the exception of a batch
+            while (cause instanceof ExecutionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof CanceledExecutionException) {
+                throw (CanceledExecutionException)cause;
+            } else if (cause instanceof InterruptedException) {
+                CanceledExecutionException cee = new CanceledExecutionException(cause.getMessage());
+                cee.initCause(cause);
+                throw cee;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /** Adds the rows of a computed block to the container and updates the progress, returns the new row count. */
+    private static long writeBatch(final DataRow[] batch, final DataContainer container, final long writtenRowCount,
+        final long finalRowCount, final CellFactory facForProgress, final ExecutionMonitor subProgress)
+        throws CanceledExecutionException {
+        for (DataRow row : batch) {
+            container.addRowToTable(row);
+        }
+        final long rowCount = writtenRowCount + batch.length;
+        if (batch.length > 0) {
+            facForProgress.setProgress(rowCount, finalRowCount, batch[batch.length - 1].getKey(), subProgress);
+        }
+        subProgress.checkCanceled();
+        return rowCount;
+    }
+
     private static Set<Class<? extends CellFactory>> codingProblemsCellFactoryClasses;
 
     /**
@@ -0,0 +1,221 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.filestore.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.knime.core.data.filestore.FileStoreKey;
+import org.knime.core.util.MutableInteger;
+
+/**
+ * Index of the content of file stores in a {@link WriteFileStoreHandler}, used when file stores are stored content
+ * addressed. Each distinct content (identified by its SHA-256 digest) is stored in one file store only, which is
+ * shared by all file stores with the same content and reference counted, so that it is only deleted once it is no
+ * longer referenced.
+ *
+ * <p>References are counted per loop iteration rather than per copy: file stores that are temporary in a loop
+ * iteration are released by the {@link FileStoresInLoopCache}, which releases each distinct file store at most once
+ * per iteration. A file store is therefore referenced at most once per iteration (see {@link #startIteration()}), no
+ * matter how many copies in the iteration share its content.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class FileStoreContentIndex {
+
+    private final Map<String, FileStoreKey> m_keyByDigest = new HashMap<>();
+
+    private final Map<FileStoreKey, String> m_digestByKey = new HashMap<>();
+
+    private final Map<FileStoreKey, MutableInteger> m_referenceCounts = new HashMap<>();
+
+    /** The file stores referenced in the current iteration. */
+    private final Set<FileStoreKey> m_referencedInIteration = new HashSet<>();
+
+    /**
+     * Starts a new loop iteration (or execution), in which each file store can be referenced once more.
+     */
+    synchronized void startIteration() {
+        m_referencedInIteration.clear();
+    }
+
+    /**
+     * Returns the file store with the given content and increments its reference count unless it was already
+     * referenced in the current iteration.
+     *
+     * @param digest the digest of the content, see {@link #digest(File)}
+     * @return the key of the file store or null if no file store with this content is known
+     */
+    synchronized FileStoreKey retain(final String digest) {
+        final FileStoreKey key = m_keyByDigest.get(digest);
+        if (key != null) {
+            retain(key);
+        }
+        return key;
+    }
+
+    /**
+     * Increments the reference count of the given file store unless it was already referenced in the current
+     * iteration; does nothing if the file store is not in the index.
+     *
+     * @param key the key of the file store
+     */
+    synchronized void retain(final FileStoreKey key) {
+        final MutableInteger count = m_referenceCounts.get(key);
+        if (count != null && m_referencedInIteration.add(key)) {
+            count.inc();
+        }
+    }
+
+    /**
+     * Registers a new file store with the given content and a reference count of 1 (for the current iteration).
+     *
+     * @param digest the digest of the content
+     * @param key the key of the file store holding the content
+     */
+    synchronized void add(final String digest, final FileStoreKey key) {
+        m_keyByDigest.put(digest, key);
+        m_digestByKey.put(key, digest);
+        m_referenceCounts.put(key, new MutableInteger(1));
+        m_referencedInIteration.add(key);
+    }
+
+    /**
+     * Decrements the reference count of the given file store.
+     *
+     * @param key the key of the file store
+     * @return true if the file store is no longer referenced (or not in the index) and can be deleted
+     */
+    synchronized boolean release(final FileStoreKey key) {
+        final MutableInteger count = m_referenceCounts.get(key);
+        if (count == null) {
+            return true;
+        }
+        if (count.dec() > 0) {
+            return false;
+        }
+        m_referenceCounts.remove(key);
+        m_referencedInIteration.remove(key);
+        m_keyByDigest.remove(m_digestByKey.remove(key));
+        return true;
+    }
+
+    /**
+     * @param key the key of the file store
+     * @return the number of references to the file store, 0 if not in the index
+     */
+    synchronized int getReferenceCount(final FileStoreKey key) {
+        final MutableInteger count = m_referenceCounts.get(key);
+        return count == null ? 0 : count.intValue();
+    }
+
+    /** @return the number of distinct contents in the index */
+    synchronized int size() {
+        return m_keyByDigest.size();
+    }
+
+    /**
+     * Computes the SHA-256 digest of the content of a file store. For directories the relative names and contents of
+     * all contained files are digested in name order.
+     *
+     * @param file the file store's file
+     * @return the hex encoded digest
+     * @throws IOException if the file cannot be read
+     */
+    static String digest(final File file) throws IOException {
+        final MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        update(md, file, "", new byte[8192]);
+        final StringBuilder b = new StringBuilder(64);
+        for (byte d : md.digest()) {
+            b.append(Character.forDigit((d >> 4) & 0xF, 16)).append(Character.forDigit(d & 0xF, 16));
+        }
+        return b.toString();
+    }
+
+    private static void update(final MessageDigest md, final File file, final String relativePath,
+        final byte[] buffer) throws IOException {
+        if (file.isDirectory()) {
+            md.update((byte)'d');
+            md.update(relativePath.getBytes(StandardCharsets.UTF_8));
+            md.update((byte)0);
+            final File[] children = file.listFiles();
+            if (children == null) {
+                throw new IOException("Unable to list directory \"" + file.getAbsolutePath() + "\"");
+            }
+            Arrays.sort(children);
+            for (File child : children) {
+                update(md, child, relativePath + "/" + child.getName(), buffer);
+            }
+        } else if (file.exists()) {
+            md.update((byte)'f');
+            md.update(relativePath.getBytes(StandardCharsets.UTF_8));
+            md.update((byte)0);
+            try (InputStream in = new FileInputStream(file)) {
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    md.update(buffer, 0, read);
+                }
+            }
+        } else {
+            md.update((byte)'n');
+        }
+    }
+}
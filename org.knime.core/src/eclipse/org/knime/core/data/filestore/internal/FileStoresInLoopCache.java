@@ -224,6 +224,10 @@ void dispose() {
     private void delete(final FileStoreKey key, final ILoopStartWriteFileStoreHandler handler,
             final MutableInteger nrFilesDeleted, final MutableInteger nrFilesFailedDelete) {
         FileStore fileStore = handler.getFileStore(key);
+        IFileStoreHandler owner = FileStoreUtil.getFileStoreHandler(fileStore);
+        if (owner instanceof WriteFileStoreHandler && !((WriteFileStoreHandler)owner).release(key)) {
+            return; // content still referenced by other file stores
+        }
         File file = fileStore.getFile();
         if (file.exists() && !FileUtil.deleteRecursively(file)) {
             nrFilesFailedDelete.inc();
@@ -57,6 +57,7 @@
 import org.knime.core.data.filestore.FileStoreUtil;
 import org.knime.core.data.filestore.internal.FileStoreProxy.FlushCallback;
 import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.util.CheckUtils;
 import org.knime.core.node.workflow.WorkflowDataRepository;
@@ -82,6 +83,10 @@ public class WriteFileStoreHandler implements IWriteFileStoreHandler {
 
     private static final int MAX_NR_FILES = (int)Math.pow(FILES_PER_FOLDER, FOLDER_LEVEL + 1);
 
+    /** See {@link KNIMEConstants#PROPERTY_FILESTORE_CONTENT_ADDRESSED}. */
+    private static final boolean CONTENT_ADDRESSED =
+        Boolean.getBoolean(KNIMEConstants.PROPERTY_FILESTORE_CONTENT_ADDRESSED);
+
     private final String m_name;
     private final UUID m_storeUUID;
     private File m_baseDirInWorkflowFolder;
@@ -89,6 +94,7 @@ public class WriteFileStoreHandler implements IWriteFileStoreHandler {
     private InternalDuplicateChecker m_duplicateChecker;
     private IDataRepository m_dataRepository;
     private LRUCache<FileStoreKey, FileStoreKey> m_createdFileStoreKeys;
+    private FileStoreContentIndex m_contentIndex;
     private int m_nextIndex = 0;
 
 
@@ -183,13 +189,28 @@ private synchronized FileStoreKey copyFileStore(final FileStore fs, final FlushC
         }
         FileStoreKey local = m_createdFileStoreKeys.get(key);
         if (local != null) {
+            if (m_contentIndex != null) {
+                m_contentIndex.retain(local);
+            }
             return local;
         }
         FileStore newStore;
+        String digest = null;
         try {
             // fixes problem with file store cell that keep things in memory until serialized:
             // notify them that a copy is taken place and that they need to flush their in memory content
             FileStoreUtil.invokeFlush(flushCallback);
+            if (CONTENT_ADDRESSED) {
+                if (m_contentIndex == null) {
+                    m_contentIndex = new FileStoreContentIndex();
+                }
+                digest = FileStoreContentIndex.digest(fs.getFile());
+                local = m_contentIndex.retain(digest);
+                if (local != null) {
+                    m_createdFileStoreKeys.put(key, local);
+                    return local;
+                }
+            }
             newStore = createFileStoreInternal(getNextIndex() + "_" + key.getName(), null, -1);
             FileUtil.copyDir(fs.getFile(), newStore.getFile());
         } catch (IOException e) {
@@ -197,9 +218,21 @@ private synchronized FileStoreKey copyFileStore(final FileStore fs, final FlushC
         }
         final FileStoreKey newKey = FileStoreUtil.getFileStoreKey(newStore);
         m_createdFileStoreKeys.put(key, newKey);
+        if (digest != null) {
+            m_contentIndex.add(digest, newKey);
+        }
         return newKey;
     }
 
+    /** Called before a file store of this handler is deleted, e.g. because it was only used temporarily in a loop
+     * iteration. File stores whose content is shared with other file stores (if file stores are stored content
+     * addressed) must only be deleted once the last reference has been released.
+     * @param key The key of the file store, not null.
+     * @return true if the file store's file can be deleted. */
+    synchronized boolean release(final FileStoreKey key) {
+        return m_contentIndex == null || m_contentIndex.release(key);
+    }
+
     /** {@inheritDoc} */
     @Override
     public FileStore getFileStore(final FileStoreKey key) {
@@ -347,6 +380,10 @@ public void open(final ExecutionContext exec) {
     /** Assigns duplicate checker which marks this FSH as open. */
     void open() {
         m_duplicateChecker = new InternalDuplicateChecker();
+        if (m_contentIndex != null) {
+            // loop start handlers are opened once per iteration
+            m_contentIndex.startIteration();
+        }
     }
 
     @Override
@@ -0,0 +1,334 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.join;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataTableSpecCreator;
+import org.knime.core.data.sort.BufferedDataTableSorter;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.util.ThreadPool;
+import org.knime.core.util.UniqueNameGenerator;
+
+/**
+ * Joins two {@link BufferedDataTable} objects on an arbitrary set of join columns (equi-join). Supported are inner,
+ * outer, semi and anti joins, see {@link JoinType}.
+ *
+ * <p>
+ * Usage: Client implementations will initialize this object with the tables and join columns, set properties using
+ * the various set-methods (defaults are generally fine) and finally call the {@link #join(ExecutionContext)} method.
+ *
+ * <p>
+ * Two join methods are available:
+ * <dl>
+ * <dt>{@link JoinMethod#HYBRID_HASH}</dt>
+ * <dd>(default) The right table is hashed into partitions kept in memory. If memory gets low (as signaled by the
+ * {@link org.knime.core.data.util.memory.MemoryAlertSystem}) the largest partitions are written to disk, and the left
+ * rows belonging to them are written to disk as well. Partitions in memory are joined while reading the left table,
+ * partitions on disk are joined afterwards, recursively using the same approach. Hashing, probing and the joining of
+ * partitions on disk are done in parallel. The right table should therefore be the smaller one. The order of the
+ * output rows is not defined.</dd>
+ * <dt>{@link JoinMethod#SORT_MERGE}</dt>
+ * <dd>Both tables are sorted on the join columns using the {@link BufferedDataTableSorter} (in parallel) and then
+ * merged. The output is sorted by the join columns.</dd>
+ * </dl>
+ *
+ * <p>
+ * Join columns are compared pairwise (first left join column with first right join column, ...); cells are matched
+ * by {@link org.knime.core.data.DataCell#equals(Object) equality} with both join methods, so join column pairs should
+ * have the same type (e.g. an integer cell never matches a double cell of the same value).
+ * Rows with a missing value in any of the join columns never match. The output contains all columns of the left table
+ * followed by all columns of the right table (made unique by appending a suffix), semi and anti joins only contain the
+ * columns of the left table, see {@link #createOutputSpec(DataTableSpec, DataTableSpec, JoinType)}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.8
+ */
+public final class BufferedDataTableJoiner {
+
+    /** The algorithm used to compute the join. */
+    public enum JoinMethod {
+        /** Hybrid hash join, spilling partitions to disk when memory gets low. */
+        HYBRID_HASH,
+        /** Sort-merge join. */
+        SORT_MERGE;
+    }
+
+    /** The default number of partitions of the hash join, see {@link #setNumPartitions(int)}. */
+    public static final int DEF_NUM_PARTITIONS = 64;
+
+    /** The default separator of the left and right row key in the row key of joined rows. */
+    public static final String DEF_ROW_KEY_SEPARATOR = "_";
+
+    /** Used in the row key of joined rows in place of the key of the missing left or right row (outer joins). */
+    public static final String MISSING_ROW_KEY_PART = "?";
+
+    private final BufferedDataTable m_leftTable;
+
+    private final BufferedDataTable m_rightTable;
+
+    private final int[] m_leftJoinColumns;
+
+    private final int[] m_rightJoinColumns;
+
+    private JoinType m_joinType = JoinType.INNER;
+
+    private JoinMethod m_joinMethod = JoinMethod.HYBRID_HASH;
+
+    private int m_numPartitions = DEF_NUM_PARTITIONS;
+
+    private int m_maxThreads = Runtime.getRuntime().availableProcessors();
+
+    private long m_maxRowsInMemory = Long.MAX_VALUE;
+
+    private String m_rowKeySeparator = DEF_ROW_KEY_SEPARATOR;
+
+    /**
+     * Inits the joiner.
+     *
+     * @param leftTable the left table
+     * @param rightTable the right table (build side of the hash join, ideally the smaller table)
+     * @param leftJoinColumns names of the join columns of the left table
+     * @param rightJoinColumns names of the join columns of the right table, same size as leftJoinColumns
+     * @throws NullPointerException If any argument is null.
+     * @throws IllegalArgumentException If arguments are inconsistent, e.g. a column doesn't exist.
+     */
+    public BufferedDataTableJoiner(final BufferedDataTable leftTable, final BufferedDataTable rightTable,
+        final List<String> leftJoinColumns, final List<String> rightJoinColumns) {
+        if (leftTable == null || rightTable == null || leftJoinColumns == null || rightJoinColumns == null) {
+            throw new NullPointerException("Argument must not be null.");
+        }
+        if (leftJoinColumns.isEmpty() || leftJoinColumns.size() != rightJoinColumns.size()) {
+            throw new IllegalArgumentException("Join columns must be non-empty and of same size (left: "
+                + leftJoinColumns.size() + ", right: " + rightJoinColumns.size() + ")");
+        }
+        m_leftTable = leftTable;
+        m_rightTable = rightTable;
+        m_leftJoinColumns = findColumns(leftTable.getDataTableSpec(), leftJoinColumns, "left");
+        m_rightJoinColumns = findColumns(rightTable.getDataTableSpec(), rightJoinColumns, "right");
+    }
+
+    private static int[] findColumns(final DataTableSpec spec, final List<String> columns, final String side) {
+        final int[] result = new int[columns.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = spec.findColumnIndex(columns.get(i));
+            if (result[i] < 0) {
+                throw new IllegalArgumentException(
+                    "No column \"" + columns.get(i) + "\" in " + side + " table " + spec.getName());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param joinType the join type to set, default is {@link JoinType#INNER}
+     * @throws NullPointerException If the argument is null.
+     */
+    public void setJoinType(final JoinType joinType) {
+        if (joinType == null) {
+            throw new NullPointerException("Argument must not be null.");
+        }
+        m_joinType = joinType;
+    }
+
+    /**
+     * @param joinMethod the join method to set, default is {@link JoinMethod#HYBRID_HASH}
+     * @throws NullPointerException If the argument is null.
+     */
+    public void setJoinMethod(final JoinMethod joinMethod) {
+        if (joinMethod == null) {
+            throw new NullPointerException("Argument must not be null.");
+        }
+        m_joinMethod = joinMethod;
+    }
+
+    /**
+     * Sets the number of partitions of the hash join. Partitions are the unit of spilling and of parallel processing.
+     *
+     * @param numPartitions the number of partitions, default is {@link #DEF_NUM_PARTITIONS}
+     * @throws IllegalArgumentException If the argument is smaller than 1.
+     */
+    public void setNumPartitions(final int numPartitions) {
+        if (numPartitions < 1) {
+            throw new IllegalArgumentException("Number of partitions must be at least 1: " + numPartitions);
+        }
+        m_numPartitions = numPartitions;
+    }
+
+    /**
+     * @param maxThreads the maximum number of threads used to hash, probe and join partitions (hash join) or to sort
+     *            the input (sort-merge join), default is the number of available processors
+     * @throws IllegalArgumentException If the argument is smaller than 1.
+     */
+    public void setMaxThreads(final int maxThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1: " + maxThreads);
+        }
+        m_maxThreads = maxThreads;
+    }
+
+    /**
+     * Sets the number of rows of the right table the hash join keeps in memory (per recursion level) before writing
+     * partitions to disk, in addition to writing partitions to disk when memory gets low. Used in tests to enforce
+     * spilling.
+     *
+     * @param maxRowsInMemory the maximum number of rows in memory, default is {@link Long#MAX_VALUE}
+     */
+    void setMaxRowsInMemory(final long maxRowsInMemory) {
+        m_maxRowsInMemory = maxRowsInMemory;
+    }
+
+    /**
+     * @param rowKeySeparator the separator of left and right key in the row keys of joined rows, default is
+     *            {@link #DEF_ROW_KEY_SEPARATOR}
+     * @throws NullPointerException If the argument is null.
+     */
+    public void setRowKeySeparator(final String rowKeySeparator) {
+        if (rowKeySeparator == null) {
+            throw new NullPointerException("Argument must not be null.");
+        }
+        m_rowKeySeparator = rowKeySeparator;
+    }
+
+    /**
+     * Creates the spec of the output table, e.g. for use in a node's configure method.
+     *
+     * @param leftSpec spec of the left table
+     * @param rightSpec spec of the right table
+     * @param joinType the join type
+     * @return the columns of the left table followed by the (uniquely renamed) columns of the right table, or only the
+     *         columns of the left table for semi and anti joins
+     */
+    public static DataTableSpec createOutputSpec(final DataTableSpec leftSpec, final DataTableSpec rightSpec,
+        final JoinType joinType) {
+        if (joinType.isLeftColumnsOnly()) {
+            return leftSpec;
+        }
+        final DataTableSpecCreator creator = new DataTableSpecCreator(leftSpec);
+        final UniqueNameGenerator nameGenerator = new UniqueNameGenerator(leftSpec);
+        for (DataColumnSpec colSpec : rightSpec) {
+            creator.addColumns(nameGenerator.newCreator(colSpec).createSpec());
+        }
+        creator.setName("Joined table");
+        return creator.createSpec();
+    }
+
+    /**
+     * Joins the tables passed in the constructor according to the settings and returns the output table.
+     *
+     * @param exec To report progress &amp; create temporary and final output tables.
+     * @return The join result.
+     * @throws CanceledExecutionException If canceled.
+     */
+    public BufferedDataTable join(final ExecutionContext exec) throws CanceledExecutionException {
+        if (exec == null) {
+            throw new NullPointerException("Argument must not be null.");
+        }
+        final DataTableSpec leftSpec = m_leftTable.getDataTableSpec();
+        final DataTableSpec rightSpec = m_rightTable.getDataTableSpec();
+        final BufferedDataContainer container = exec.createDataContainer(createOutputSpec(leftSpec, rightSpec,
+            m_joinType));
+        final JoinOutput output = new JoinOutput(container, m_joinType, leftSpec.getNumColumns(),
+            rightSpec.getNumColumns(), m_rowKeySeparator);
+        try {
+            switch (m_joinMethod) {
+                case HYBRID_HASH:
+                    new HashJoin(m_leftJoinColumns, m_rightJoinColumns, output, m_numPartitions, m_maxThreads,
+                        m_maxRowsInMemory)
+                        .join(m_leftTable, m_rightTable, exec.createSubExecutionContext(0.95));
+                    break;
+                case SORT_MERGE:
+                    new SortMergeJoin(m_leftJoinColumns, m_rightJoinColumns, output, m_maxThreads)
+                        .join(m_leftTable, m_rightTable, exec.createSubExecutionContext(0.95));
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown join method: " + m_joinMethod);
+            }
+        } finally {
+            container.close();
+        }
+        exec.setProgress(1.0);
+        return container.getTable();
+    }
+
+    /**
+     * Runs the argument tasks using at most the given number of threads and waits for their completion. The tasks are
+     * run in the calling thread if only one thread is allowed or there is only one task.
+     *
+     * @param tasks the tasks to run
+     * @param maxThreads maximum number of threads
+     * @throws CanceledExecutionException If any of the tasks was canceled.
+     */
+    static void runAll(final List<Callable<Void>> tasks, final int maxThreads) throws CanceledExecutionException {
+        if (maxThreads <= 1 || tasks.size() <= 1) {
+            for (Callable<Void> task : tasks) {
+                try {
+                    task.call();
+                } catch (CanceledExecutionException | RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new RuntimeException(e.getMessage(), e);
+                }
+            }
+            return;
+        }
+        final ThreadPool pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(maxThreads);
+        final List<Future<Void>> futures = new ArrayList<>(tasks.size());
+        for (Callable<Void> task : tasks) {
+            futures.add(pool.enqueue(task));
+        }
+        ThreadPool.waitForAll(futures);
+    }
+}
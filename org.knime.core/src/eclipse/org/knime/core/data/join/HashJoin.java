@@ -0,0 +1,401 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.join;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.data.util.memory.MemoryAlertSystem.MemoryActionIndicator;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.util.ThreadPool;
+
+/**
+ * Hybrid hash join as used by the {@link BufferedDataTableJoiner}. The right table is the build side, the left table
+ * is the probe side. Both tables are read in batches of rows that are hashed and probed by multiple threads; each
+ * partition is locked individually while rows are added. Partitions that had to be written to disk are joined
+ * recursively (with a different partitioning) and, once the maximum recursion depth is reached, using the
+ * {@link SortMergeJoin}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class HashJoin {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(HashJoin.class);
+
+    /** Number of recursion levels using a hash join, spilled partitions of the last level are sort-merge joined. */
+    static final int MAX_RECURSION_DEPTH = 3;
+
+    /** Number of rows hashed or probed by a task. */
+    private static final int BATCH_SIZE = 1024;
+
+    private final int[] m_leftColumns;
+
+    private final int[] m_rightColumns;
+
+    private final JoinOutput m_output;
+
+    private final int m_numPartitions;
+
+    private final int m_maxThreads;
+
+    private final long m_maxRowsInMemory;
+
+    /**
+     * @param leftColumns join column indices in the left (probe) table
+     * @param rightColumns join column indices in the right (build) table
+     * @param output receives the result
+     * @param numPartitions number of partitions per level
+     * @param maxThreads number of threads used to hash and probe rows and to join spilled partitions
+     * @param maxRowsInMemory number of build rows kept in memory per level before partitions are written to disk
+     *            (independent of the memory state)
+     */
+    HashJoin(final int[] leftColumns, final int[] rightColumns, final JoinOutput output, final int numPartitions,
+        final int maxThreads, final long maxRowsInMemory) {
+        m_leftColumns = leftColumns;
+        m_rightColumns = rightColumns;
+        m_output = output;
+        m_numPartitions = numPartitions;
+        m_maxThreads = maxThreads;
+        m_maxRowsInMemory = maxRowsInMemory;
+    }
+
+    /**
+     * Joins the argument tables.
+     *
+     * @param left the probe table
+     * @param right the build table
+     * @param exec for progress, cancelation and creation of temporary tables
+     * @throws CanceledExecutionException If canceled.
+     */
+    void join(final BufferedDataTable left, final BufferedDataTable right, final ExecutionContext exec)
+        throws CanceledExecutionException {
+        join(left, right, exec, 0);
+    }
+
+    private void join(final BufferedDataTable left, final BufferedDataTable right, final ExecutionContext exec,
+        final int level) throws CanceledExecutionException {
+        // only the top level runs in parallel, recursive levels run in the thread of their top level partition
+        final int maxThreads = level == 0 ? m_maxThreads : 1;
+        final Partition[] partitions = new Partition[m_numPartitions];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Partition();
+        }
+        build(right, partitions, exec.createSubExecutionContext(0.4), level, maxThreads);
+        probe(left, partitions, exec.createSubExecutionContext(0.4), level, maxThreads);
+
+        final List<Partition> spilledPartitions = new ArrayList<>();
+        for (Partition p : partitions) {
+            if (p.isSpilled()) {
+                spilledPartitions.add(p);
+            } else {
+                if (m_output.getJoinType().isRetainRightUnmatched()) {
+                    p.addUnmatchedBuildRows(m_output);
+                }
+                p.m_table = null;
+            }
+        }
+        if (spilledPartitions.isEmpty()) {
+            exec.setProgress(1.0);
+            return;
+        }
+        LOGGER.debugWithFormat("Joining %d partitions spilled to disk (recursion level %d)", spilledPartitions.size(),
+            level);
+        final List<Callable<Void>> tasks = new ArrayList<>(spilledPartitions.size());
+        for (Partition p : spilledPartitions) {
+            final BufferedDataTable buildTable = p.closeBuildContainer();
+            final BufferedDataTable probeTable = p.closeProbeContainer(exec, left.getDataTableSpec());
+            final ExecutionContext subExec = exec.createSubExecutionContext(0.2 / spilledPartitions.size());
+            tasks.add(() -> {
+                if (level + 1 < MAX_RECURSION_DEPTH) {
+                    join(probeTable, buildTable, subExec, level + 1);
+                } else {
+                    new SortMergeJoin(m_leftColumns, m_rightColumns, m_output, 1).join(probeTable, buildTable, subExec);
+                }
+                subExec.clearTable(probeTable);
+                subExec.clearTable(buildTable);
+                return null;
+            });
+        }
+        BufferedDataTableJoiner.runAll(tasks, maxThreads);
+    }
+
+    private void build(final BufferedDataTable right, final Partition[] partitions, final ExecutionContext exec,
+        final int level, final int maxThreads) throws CanceledExecutionException {
+        final MemoryActionIndicator memIndicator = MemoryAlertSystem.getInstance().newIndicator();
+        final AtomicLong rowsInMemory = new AtomicLong();
+        exec.setMessage("Hashing right table");
+        processInBatches(right, exec, maxThreads, batch -> {
+            for (DataRow row : batch) {
+                final JoinKey key = JoinKey.create(row, m_rightColumns);
+                if (key == null) {
+                    m_output.addRightUnmatched(row);
+                } else if (partitions[key.getPartition(m_numPartitions, level)].addBuildRow(key, row)) {
+                    rowsInMemory.incrementAndGet();
+                }
+            }
+            if (memIndicator.lowMemoryActionRequired() || rowsInMemory.get() > m_maxRowsInMemory) {
+                spillLargestPartitions(partitions, rowsInMemory, right.getDataTableSpec(), exec);
+            }
+        });
+    }
+
+    private void probe(final BufferedDataTable left, final Partition[] partitions, final ExecutionContext exec,
+        final int level, final int maxThreads) throws CanceledExecutionException {
+        final DataTableSpec probeSpec = left.getDataTableSpec();
+        exec.setMessage("Probing left table");
+        // the hash tables are complete, only the probe containers of spilled partitions are written concurrently
+        processInBatches(left, exec, maxThreads, batch -> {
+            for (DataRow row : batch) {
+                final JoinKey key = JoinKey.create(row, m_leftColumns);
+                if (key == null) {
+                    m_output.addLeftUnmatched(row);
+                    continue;
+                }
+                final Partition p = partitions[key.getPartition(m_numPartitions, level)];
+                if (p.isSpilled()) {
+                    p.addProbeRow(row, probeSpec, exec);
+                } else {
+                    p.probe(key, row, m_output);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reads the table in the calling thread and passes batches of rows to the consumer, which is called concurrently
+     * by at most the given number of threads. Returns once all batches have been processed.
+     */
+    private static void processInBatches(final BufferedDataTable table, final ExecutionContext exec,
+        final int maxThreads, final BatchConsumer consumer) throws CanceledExecutionException {
+        final ThreadPool pool = maxThreads > 1 ? KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(maxThreads) : null;
+        final Deque<Future<Void>> pendingBatches = new ArrayDeque<>();
+        final long rowCount = table.size();
+        long rowIndex = 0;
+        try (CloseableRowIterator it = table.iterator()) {
+            List<DataRow> batch = new ArrayList<>(BATCH_SIZE);
+            while (it.hasNext()) {
+                exec.checkCanceled();
+                exec.setProgress(++rowIndex / (double)rowCount);
+                batch.add(it.next());
+                if (batch.size() < BATCH_SIZE && it.hasNext()) {
+                    continue;
+                }
+                if (pool == null) {
+                    consumer.accept(batch);
+                } else {
+                    final List<DataRow> rows = batch;
+                    pendingBatches.add(pool.enqueue(() -> {
+                        consumer.accept(rows);
+                        return null;
+                    }));
+                    // limits the number of rows read ahead
+                    if (pendingBatches.size() > 2 * maxThreads) {
+                        ThreadPool.waitForAll(Collections.singletonList(pendingBatches.poll()));
+                    }
+                }
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+            ThreadPool.waitForAll(pendingBatches);
+        } catch (CanceledExecutionException | RuntimeException | Error e) {
+            pendingBatches.stream().forEach(f -> f.cancel(true));
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the partition with the most rows in memory to disk, and further ones as long as more than the maximum
+     * number of rows are kept in memory.
+     */
+    private void spillLargestPartitions(final Partition[] partitions, final AtomicLong rowsInMemory,
+        final DataTableSpec buildSpec, final ExecutionContext exec) {
+        synchronized (partitions) {
+            do {
+                Partition largest = null;
+                long largestRowCount = 0;
+                for (Partition p : partitions) {
+                    final long rowCount = p.getRowsInMemory();
+                    if (rowCount > largestRowCount) {
+                        largest = p;
+                        largestRowCount = rowCount;
+                    }
+                }
+                if (largest == null) {
+                    return;
+                }
+                final long spilledRowCount = largest.spill(buildSpec, exec);
+                LOGGER.debugWithFormat("Wrote hash join partition with %d rows to disk", spilledRowCount);
+                rowsInMemory.addAndGet(-spilledRowCount);
+            } while (rowsInMemory.get() > m_maxRowsInMemory);
+        }
+    }
+
+    /** Processes a batch of rows of the build or probe table. */
+    @FunctionalInterface
+    private interface BatchConsumer {
+        void accept(List<DataRow> batch) throws CanceledExecutionException;
+    }
+
+    /** A row of the build side along with its match state (for right outer joins). */
+    private static final class BuildRow {
+        private final DataRow m_row;
+
+        private boolean m_isMatched;
+
+        private BuildRow(final DataRow row) {
+            m_row = row;
+        }
+    }
+
+    /**
+     * A partition of the build and probe rows, either kept in memory or spilled to disk. Build and probe rows are
+     * added concurrently, the hash table is only read once all build rows have been added.
+     */
+    private static final class Partition {
+
+        /** The hash table, <code>null</code> once spilled. */
+        private Map<JoinKey, List<BuildRow>> m_table = new HashMap<>();
+
+        private long m_buildRowCount;
+
+        private BufferedDataContainer m_buildContainer;
+
+        private BufferedDataContainer m_probeContainer;
+
+        synchronized boolean isSpilled() {
+            return m_buildContainer != null;
+        }
+
+        /** @return the number of build rows in the hash table */
+        synchronized long getRowsInMemory() {
+            return isSpilled() ? 0 : m_buildRowCount;
+        }
+
+        /** @return whether the row was added to the hash table (<code>false</code> if it was written to disk) */
+        synchronized boolean addBuildRow(final JoinKey key, final DataRow row) {
+            m_buildRowCount++;
+            if (isSpilled()) {
+                m_buildContainer.addRowToTable(row);
+                return false;
+            }
+            m_table.computeIfAbsent(key, k -> new ArrayList<>(1)).add(new BuildRow(row));
+            return true;
+        }
+
+        /** @return the number of rows written to disk */
+        synchronized long spill(final DataTableSpec buildSpec, final ExecutionContext exec) {
+            m_buildContainer = exec.createDataContainer(buildSpec, false, 0);
+            for (List<BuildRow> rows : m_table.values()) {
+                for (BuildRow r : rows) {
+                    m_buildContainer.addRowToTable(r.m_row);
+                }
+            }
+            m_table = null;
+            return m_buildRowCount;
+        }
+
+        synchronized void addProbeRow(final DataRow row, final DataTableSpec probeSpec, final ExecutionContext exec) {
+            if (m_probeContainer == null) {
+                m_probeContainer = exec.createDataContainer(probeSpec, false, 0);
+            }
+            m_probeContainer.addRowToTable(row);
+        }
+
+        void probe(final JoinKey key, final DataRow row, final JoinOutput output) {
+            final List<BuildRow> matches = m_table.get(key);
+            if (matches == null) {
+                output.addLeftUnmatched(row);
+                return;
+            }
+            final List<DataRow> matchingRows = new ArrayList<>(matches.size());
+            for (BuildRow m : matches) {
+                // concurrent probes only ever set the flag, which is read once all probes have completed
+                m.m_isMatched = true;
+                matchingRows.add(m.m_row);
+            }
+            output.addMatches(row, matchingRows);
+        }
+
+        void addUnmatchedBuildRows(final JoinOutput output) {
+            for (List<BuildRow> rows : m_table.values()) {
+                for (BuildRow r : rows) {
+                    if (!r.m_isMatched) {
+                        output.addRightUnmatched(r.m_row);
+                    }
+                }
+            }
+        }
+
+        BufferedDataTable closeBuildContainer() {
+            m_buildContainer.close();
+            return m_buildContainer.getTable();
+        }
+
+        BufferedDataTable closeProbeContainer(final ExecutionContext exec, final DataTableSpec probeSpec) {
+            if (m_probeContainer == null) {
+                m_probeContainer = exec.createDataContainer(probeSpec, false, 0);
+            }
+            m_probeContainer.close();
+            return m_probeContainer.getTable();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.join;
+
+import java.util.Arrays;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.node.BufferedDataContainer;
+
+/**
+ * Composes the output rows of a join and adds them to the result container. Rows may be added concurrently by
+ * different partitions, access to the container is therefore synchronized.
+ *
+ * <p>Row keys of joined rows are composed of the left and right key, separated by the row key separator; the part of
+ * a missing left or right row is {@link BufferedDataTableJoiner#MISSING_ROW_KEY_PART}. Semi and anti joins keep the
+ * left row key.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class JoinOutput {
+
+    private final BufferedDataContainer m_container;
+
+    private final JoinType m_joinType;
+
+    private final int m_leftColumnCount;
+
+    private final int m_rightColumnCount;
+
+    private final String m_rowKeySeparator;
+
+    /**
+     * @param container the container to add the rows to, its spec must match the join type
+     * @param joinType the join type
+     * @param leftColumnCount number of columns in the left table
+     * @param rightColumnCount number of columns in the right table
+     * @param rowKeySeparator separator of left and right row key
+     */
+    JoinOutput(final BufferedDataContainer container, final JoinType joinType, final int leftColumnCount,
+        final int rightColumnCount, final String rowKeySeparator) {
+        m_container = container;
+        m_joinType = joinType;
+        m_leftColumnCount = leftColumnCount;
+        m_rightColumnCount = rightColumnCount;
+        m_rowKeySeparator = rowKeySeparator;
+    }
+
+    /** @return the join type */
+    JoinType getJoinType() {
+        return m_joinType;
+    }
+
+    /**
+     * Handles a left row that has matches. Adds a joined row for each match (inner and outer joins) or the left row
+     * (semi join).
+     *
+     * @param left the left row
+     * @param matches the matching right rows, not empty
+     */
+    void addMatches(final DataRow left, final Iterable<DataRow> matches) {
+        if (m_joinType == JoinType.LEFT_SEMI) {
+            add(left);
+        } else if (m_joinType.isRetainMatches()) {
+            for (DataRow right : matches) {
+                add(createRow(left, right));
+            }
+        }
+    }
+
+    /**
+     * Handles a left row without match, which is only added if the join type retains such rows.
+     *
+     * @param left the left row
+     */
+    void addLeftUnmatched(final DataRow left) {
+        if (!m_joinType.isRetainLeftUnmatched()) {
+            return;
+        }
+        add(m_joinType.isLeftColumnsOnly() ? left : createRow(left, null));
+    }
+
+    /**
+     * Handles a right row without match, which is only added if the join type retains such rows.
+     *
+     * @param right the right row
+     */
+    void addRightUnmatched(final DataRow right) {
+        if (m_joinType.isRetainRightUnmatched()) {
+            add(createRow(null, right));
+        }
+    }
+
+    private DataRow createRow(final DataRow left, final DataRow right) {
+        final DataCell[] cells = new DataCell[m_leftColumnCount + m_rightColumnCount];
+        if (left != null) {
+            for (int i = 0; i < m_leftColumnCount; i++) {
+                cells[i] = left.getCell(i);
+            }
+        } else {
+            Arrays.fill(cells, 0, m_leftColumnCount, DataType.getMissingCell());
+        }
+        if (right != null) {
+            for (int i = 0; i < m_rightColumnCount; i++) {
+                cells[m_leftColumnCount + i] = right.getCell(i);
+            }
+        } else {
+            Arrays.fill(cells, m_leftColumnCount, cells.length, DataType.getMissingCell());
+        }
+        final String leftKey = left != null ? left.getKey().getString() : BufferedDataTableJoiner.MISSING_ROW_KEY_PART;
+        final String rightKey =
+            right != null ? right.getKey().getString() : BufferedDataTableJoiner.MISSING_ROW_KEY_PART;
+        return new DefaultRow(new RowKey(leftKey + m_rowKeySeparator + rightKey), cells);
+    }
+
+    private void add(final DataRow row) {
+        synchronized (m_container) {
+            m_container.addRowToTable(row);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.join;
+
+/**
+ * The type of a join as performed by the {@link BufferedDataTableJoiner}. The names follow the SQL terminology.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.8
+ */
+public enum JoinType {
+
+    /** Only pairs of matching rows. */
+    INNER(true, false, false),
+    /** Pairs of matching rows plus left rows without match (right columns filled with missing values). */
+    LEFT_OUTER(true, true, false),
+    /** Pairs of matching rows plus right rows without match (left columns filled with missing values). */
+    RIGHT_OUTER(true, false, true),
+    /** Pairs of matching rows plus left and right rows without match. */
+    FULL_OUTER(true, true, true),
+    /** Left rows that have at least one match, each left row is reported once; output contains left columns only. */
+    LEFT_SEMI(false, false, false),
+    /** Left rows that have no match; output contains left columns only. */
+    LEFT_ANTI(false, true, false);
+
+    private final boolean m_isRetainMatches;
+
+    private final boolean m_isRetainLeftUnmatched;
+
+    private final boolean m_isRetainRightUnmatched;
+
+    private JoinType(final boolean isRetainMatches, final boolean isRetainLeftUnmatched,
+        final boolean isRetainRightUnmatched) {
+        m_isRetainMatches = isRetainMatches;
+        m_isRetainLeftUnmatched = isRetainLeftUnmatched;
+        m_isRetainRightUnmatched = isRetainRightUnmatched;
+    }
+
+    /** @return whether pairs of matching rows are part of the output (true for inner and outer joins) */
+    public boolean isRetainMatches() {
+        return m_isRetainMatches;
+    }
+
+    /** @return whether left rows without matching right row are part of the output */
+    public boolean isRetainLeftUnmatched() {
+        return m_isRetainLeftUnmatched;
+    }
+
+    /** @return whether right rows without matching left row are part of the output */
+    public boolean isRetainRightUnmatched() {
+        return m_isRetainRightUnmatched;
+    }
+
+    /** @return whether the output only contains the columns of the left table (semi and anti join) */
+    public boolean isLeftColumnsOnly() {
+        return this == LEFT_SEMI || this == LEFT_ANTI;
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.join;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DataValueComparator;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.sort.BufferedDataTableSorter;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+
+/**
+ * Sort-merge join as used by the {@link BufferedDataTableJoiner}. Both tables are sorted on their join columns using
+ * the {@link BufferedDataTableSorter}, whereby the cells are compared using the comparator of the common super type of
+ * each pair of join columns. The rows of the right table sharing the same join values are kept in memory while the
+ * corresponding left rows are merged. As the comparator may consider cells of different types equal (e.g. an integer
+ * and a double cell of the same value), rows are only matched if their join cells are
+ * {@link org.knime.core.data.DataCell#equals(Object) equal}, consistent with the {@link HashJoin}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class SortMergeJoin {
+
+    private final int[] m_leftColumns;
+
+    private final int[] m_rightColumns;
+
+    private final JoinOutput m_output;
+
+    private final int m_maxThreads;
+
+    /**
+     * @param leftColumns join column indices in the left table
+     * @param rightColumns join column indices in the right table
+     * @param output receives the result
+     * @param maxThreads number of threads used to sort the two tables
+     */
+    SortMergeJoin(final int[] leftColumns, final int[] rightColumns, final JoinOutput output, final int maxThreads) {
+        m_leftColumns = leftColumns;
+        m_rightColumns = rightColumns;
+        m_output = output;
+        m_maxThreads = maxThreads;
+    }
+
+    /**
+     * Joins the argument tables.
+     *
+     * @param left the left table
+     * @param right the right table
+     * @param exec for progress, cancelation and creation of temporary tables
+     * @throws CanceledExecutionException If canceled.
+     */
+    void join(final BufferedDataTable left, final BufferedDataTable right, final ExecutionContext exec)
+        throws CanceledExecutionException {
+        final DataValueComparator[] comparators = createComparators(left.getDataTableSpec(), right.getDataTableSpec());
+        final BufferedDataTable[] sorted = new BufferedDataTable[2];
+        final ExecutionContext leftSortExec = exec.createSubExecutionContext(0.35);
+        final ExecutionContext rightSortExec = exec.createSubExecutionContext(0.35);
+        final List<Callable<Void>> sortTasks = Arrays.asList(() -> {
+            sorted[0] = new BufferedDataTableSorter(left, createRowComparator(m_leftColumns, comparators))
+                .sort(leftSortExec);
+            return null;
+        }, () -> {
+            sorted[1] = new BufferedDataTableSorter(right, createRowComparator(m_rightColumns, comparators))
+                .sort(rightSortExec);
+            return null;
+        });
+        BufferedDataTableJoiner.runAll(sortTasks, m_maxThreads);
+        final ExecutionContext mergeExec = exec.createSubExecutionContext(0.3);
+        mergeExec.setMessage("Merging sorted tables");
+        try {
+            merge(sorted[0], sorted[1], comparators, mergeExec);
+        } finally {
+            // the sorter returns the input table if it has less than two rows, which must not be cleared
+            if (sorted[0] != left) {
+                exec.clearTable(sorted[0]);
+            }
+            if (sorted[1] != right) {
+                exec.clearTable(sorted[1]);
+            }
+        }
+    }
+
+    private void merge(final BufferedDataTable left, final BufferedDataTable right,
+        final DataValueComparator[] comparators, final ExecutionContext exec) throws CanceledExecutionException {
+        final long rowCount = left.size() + right.size();
+        long rowIndex = 0;
+        try (CloseableRowIterator leftIt = left.iterator(); CloseableRowIterator rightIt = right.iterator()) {
+            DataRow l = leftIt.hasNext() ? leftIt.next() : null;
+            DataRow r = rightIt.hasNext() ? rightIt.next() : null;
+            final List<DataRow> rightGroup = new ArrayList<>();
+            while (l != null && r != null) {
+                exec.checkCanceled();
+                exec.setProgress(rowIndex / (double)rowCount);
+                if (hasMissing(l, m_leftColumns)) {
+                    m_output.addLeftUnmatched(l);
+                    l = leftIt.hasNext() ? leftIt.next() : null;
+                    rowIndex++;
+                    continue;
+                }
+                if (hasMissing(r, m_rightColumns)) {
+                    m_output.addRightUnmatched(r);
+                    r = rightIt.hasNext() ? rightIt.next() : null;
+                    rowIndex++;
+                    continue;
+                }
+                final int c = compare(l, r, comparators);
+                if (c < 0) {
+                    m_output.addLeftUnmatched(l);
+                    l = leftIt.hasNext() ? leftIt.next() : null;
+                    rowIndex++;
+                } else if (c > 0) {
+                    m_output.addRightUnmatched(r);
+                    r = rightIt.hasNext() ? rightIt.next() : null;
+                    rowIndex++;
+                } else {
+                    // collect all right rows with the current join values, then pair them with all such left rows
+                    rightGroup.clear();
+                    final DataRow groupLeft = l;
+                    do {
+                        rightGroup.add(r);
+                        r = rightIt.hasNext() ? rightIt.next() : null;
+                        rowIndex++;
+                    } while (r != null && !hasMissing(r, m_rightColumns) && compare(groupLeft, r, comparators) == 0);
+                    final boolean[] isMatched = new boolean[rightGroup.size()];
+                    do {
+                        exec.checkCanceled();
+                        final List<DataRow> matches = findEqual(l, rightGroup, isMatched);
+                        if (matches.isEmpty()) {
+                            m_output.addLeftUnmatched(l);
+                        } else {
+                            m_output.addMatches(l, matches);
+                        }
+                        l = leftIt.hasNext() ? leftIt.next() : null;
+                        rowIndex++;
+                    } while (l != null && !hasMissing(l, m_leftColumns) && compare(l, rightGroup.get(0),
+                        comparators) == 0);
+                    for (int i = 0; i < isMatched.length; i++) {
+                        if (!isMatched[i]) {
+                            m_output.addRightUnmatched(rightGroup.get(i));
+                        }
+                    }
+                }
+            }
+            while (l != null) {
+                exec.checkCanceled();
+                m_output.addLeftUnmatched(l);
+                l = leftIt.hasNext() ? leftIt.next() : null;
+            }
+            while (r != null) {
+                exec.checkCanceled();
+                m_output.addRightUnmatched(r);
+                r = rightIt.hasNext() ? rightIt.next() : null;
+            }
+        }
+        exec.setProgress(1.0);
+    }
+
+    private int compare(final DataRow left, final DataRow right, final DataValueComparator[] comparators) {
+        for (int i = 0; i < comparators.length; i++) {
+            final int c = comparators[i].compare(left.getCell(m_leftColumns[i]), right.getCell(m_rightColumns[i]));
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the rows of the group whose join cells equal those of the left row (usually all of them) and marks them
+     * as matched.
+     */
+    private List<DataRow> findEqual(final DataRow left, final List<DataRow> rightGroup, final boolean[] isMatched) {
+        List<DataRow> matches = rightGroup;
+        for (int i = 0; i < rightGroup.size(); i++) {
+            final DataRow right = rightGroup.get(i);
+            if (isEqual(left, right)) {
+                isMatched[i] = true;
+                if (matches != rightGroup) {
+                    matches.add(right);
+                }
+            } else if (matches == rightGroup) {
+                matches = new ArrayList<>(rightGroup.subList(0, i));
+            }
+        }
+        return matches;
+    }
+
+    private boolean isEqual(final DataRow left, final DataRow right) {
+        for (int i = 0; i < m_leftColumns.length; i++) {
+            if (!left.getCell(m_leftColumns[i]).equals(right.getCell(m_rightColumns[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private DataValueComparator[] createComparators(final DataTableSpec leftSpec, final DataTableSpec rightSpec) {
+        final DataValueComparator[] comparators = new DataValueComparator[m_leftColumns.length];
+        for (int i = 0; i < comparators.length; i++) {
+            final DataType leftType = leftSpec.getColumnSpec(m_leftColumns[i]).getType();
+            final DataType rightType = rightSpec.getColumnSpec(m_rightColumns[i]).getType();
+            comparators[i] = DataType.getCommonSuperType(leftType, rightType).getComparator();
+        }
+        return comparators;
+    }
+
+    private static Comparator<DataRow> createRowComparator(final int[] columns,
+        final DataValueComparator[] comparators) {
+        return (r1, r2) -> {
+            for (int i = 0; i < columns.length; i++) {
+                final int c = comparators[i].compare(r1.getCell(columns[i]), r2.getCell(columns[i]));
+                if (c != 0) {
+                    return c;
+                }
+            }
+            return 0;
+        };
+    }
+
+    private static boolean hasMissing(final DataRow row, final int[] columns) {
+        for (int col : columns) {
+            if (row.getCell(col).isMissing()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.vector.bitvector;
+
+import java.util.Arrays;
+
+/**
+ * An in-memory search index over a collection of bit vectors, e.g. a fingerprint column, that answers similarity
+ * threshold queries ("all vectors with a Tanimoto similarity of at least 0.8 to the query") without comparing the
+ * query with every vector.
+ *
+ * <p>
+ * The index stores the cardinality of every vector and keeps the vectors sorted by it. As the similarity of two
+ * vectors is bounded by their cardinalities (for Tanimoto, <code>min(a, b) / max(a, b)</code>), only a narrow
+ * cardinality range around the query's cardinality has to be looked at. Within that range, a short signature of each
+ * vector (the number of set bits in each of {@value #SEGMENTS} consecutive segments) gives a tighter upper bound of
+ * the intersection, so that most remaining candidates are discarded before the vectors themselves are compared.
+ *
+ * <p>
+ * Instances are created by {@link BitVectorUtil#createIndex(BitVectorValue[])} or
+ * {@link BitVectorUtil#createIndex(org.knime.core.node.BufferedDataTable, int,
+ * org.knime.core.node.ExecutionMonitor)}. The index keeps references to the indexed vectors and is immutable, i.e.
+ * it can be queried concurrently.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.8
+ */
+public final class BitVectorIndex {
+
+    /** Number of segments of the signature stored for every vector. */
+    static final int SEGMENTS = 16;
+
+    private final BitVectorValue[] m_vectors;
+
+    // positions of the (non-null) vectors, sorted by cardinality
+    private final int[] m_order;
+
+    // the cardinality of the vectors in m_order
+    private final long[] m_cardinalities;
+
+    // SEGMENTS counts for each vector in m_order
+    private final int[] m_signatures;
+
+    private final long m_segmentLength;
+
+    /**
+     * Creates a new index. The array is not copied and must not be changed afterwards.
+     *
+     * @param vectors the vectors to index, <code>null</code> elements (e.g. missing values) are never found
+     */
+    BitVectorIndex(final BitVectorValue[] vectors) {
+        m_vectors = vectors;
+        long maxLength = 0;
+        int count = 0;
+        for (BitVectorValue v : vectors) {
+            if (v != null) {
+                maxLength = Math.max(maxLength, v.length());
+                count++;
+            }
+        }
+        m_segmentLength = Math.max(1, (maxLength + SEGMENTS - 1) / SEGMENTS);
+
+        // sort positions by cardinality, both packed into one long
+        long[] sortKeys = new long[count];
+        int k = 0;
+        for (int i = 0; i < vectors.length; i++) {
+            if (vectors[i] != null) {
+                long cardinality = vectors[i].cardinality();
+                if (cardinality >= (1L << 32)) {
+                    throw new IllegalArgumentException(
+                        "Can't index vectors with more than 2^32 set bits (vector " + i + ")");
+                }
+                sortKeys[k++] = (cardinality << 31) | i;
+            }
+        }
+        Arrays.sort(sortKeys);
+
+        m_order = new int[count];
+        m_cardinalities = new long[count];
+        m_signatures = new int[count * SEGMENTS];
+        for (int j = 0; j < count; j++) {
+            m_order[j] = (int)(sortKeys[j] & Integer.MAX_VALUE);
+            m_cardinalities[j] = sortKeys[j] >>> 31;
+            computeSignature(vectors[m_order[j]], m_signatures, j * SEGMENTS);
+        }
+    }
+
+    private void computeSignature(final BitVectorValue vector, final int[] signature, final int offset) {
+        for (long i = vector.nextSetBit(0); i >= 0; i = vector.nextSetBit(i + 1)) {
+            long segment = i / m_segmentLength;
+            if (segment >= SEGMENTS) {
+                // only possible for queries longer than all indexed vectors; these bits never intersect
+                break;
+            }
+            signature[offset + (int)segment]++;
+        }
+    }
+
+    /**
+     * Returns the number of positions in the index, including the ones without a vector.
+     *
+     * @return the number of positions
+     */
+    public int size() {
+        return m_vectors.length;
+    }
+
+    /**
+     * Returns the vector at the given position.
+     *
+     * @param position the position, e.g. the row index
+     * @return the vector, or <code>null</code> if there is none (e.g. a missing value)
+     */
+    public BitVectorValue getVector(final int position) {
+        return m_vectors[position];
+    }
+
+    /**
+     * Finds all indexed vectors whose similarity to the query is at least the given threshold.
+     *
+     * @param query the query vector
+     * @param measure the similarity measure
+     * @param threshold the minimum similarity
+     * @return the positions of all matching vectors in ascending order
+     * @throws NullPointerException if the query or the measure is <code>null</code>
+     */
+    public int[] search(final BitVectorValue query, final BitVectorSimilarity measure, final double threshold) {
+        if (query == null || measure == null) {
+            throw new NullPointerException("Argument must not be null.");
+        }
+        long a = query.cardinality();
+        int[] querySignature = new int[SEGMENTS];
+        computeSignature(query, querySignature, 0);
+
+        int[] result = new int[16];
+        int count = 0;
+        int start = firstIndexWithCardinality(a);
+        // the similarity bound decreases with growing distance of the cardinalities, in both directions
+        for (int j = start; j < m_order.length; j++) {
+            long b = m_cardinalities[j];
+            if (measure.similarity(a, b, a) < threshold) {
+                break;
+            }
+            if (matches(query, a, querySignature, j, measure, threshold)) {
+                result = add(result, count++, m_order[j]);
+            }
+        }
+        for (int j = start - 1; j >= 0; j--) {
+            long b = m_cardinalities[j];
+            if (measure.similarity(a, b, b) < threshold) {
+                break;
+            }
+            if (matches(query, a, querySignature, j, measure, threshold)) {
+                result = add(result, count++, m_order[j]);
+            }
+        }
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private boolean matches(final BitVectorValue query, final long a, final int[] querySignature, final int j,
+        final BitVectorSimilarity measure, final double threshold) {
+        long b = m_cardinalities[j];
+        long intersectionBound = 0;
+        for (int s = 0, offset = j * SEGMENTS; s < SEGMENTS; s++) {
+            intersectionBound += Math.min(querySignature[s], m_signatures[offset + s]);
+        }
+        if (measure.similarity(a, b, intersectionBound) < threshold) {
+            return false;
+        }
+        long intersection = BitVectorUtil.cardinalityOfIntersection(query, m_vectors[m_order[j]]);
+        return measure.similarity(a, b, intersection) >= threshold;
+    }
+
+    private int firstIndexWithCardinality(final long cardinality) {
+        int i = Arrays.binarySearch(m_cardinalities, cardinality);
+        if (i < 0) {
+            return -(i + 1);
+        }
+        // there may be several vectors with this cardinality
+        while (i > 0 && m_cardinalities[i - 1] == cardinality) {
+            i--;
+        }
+        return i;
+    }
+
+    private static int[] add(final int[] array, final int index, final int value) {
+        int[] result = index < array.length ? array : Arrays.copyOf(array, array.length << 1);
+        result[index] = value;
+        return result;
+    }
+}
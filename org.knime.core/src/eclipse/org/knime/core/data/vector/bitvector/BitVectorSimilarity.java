@@ -0,0 +1,97 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.vector.bitvector;
+
+/**
+ * Similarity measures for bit vectors that are based on the cardinalities of two vectors and of their intersection.
+ * Use {@link BitVectorUtil#similarity(BitVectorValue, BitVectorValue, BitVectorSimilarity)} or
+ * {@link BitVectorUtil#similarities(BitVectorValue, BitVectorValue[], BitVectorSimilarity, double[])} to compute them
+ * without creating intermediate vectors. The similarity of two empty vectors is 0.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.8
+ */
+public enum BitVectorSimilarity {
+
+    /** The Tanimoto (or Jaccard) coefficient, |A &cap; B| / (|A| + |B| - |A &cap; B|). */
+    TANIMOTO {
+        @Override
+        public double similarity(final long cardinality1, final long cardinality2, final long intersection) {
+            final long union = cardinality1 + cardinality2 - intersection;
+            return union == 0 ? 0.0 : intersection / (double)union;
+        }
+    },
+
+    /** The Dice coefficient, 2 |A &cap; B| / (|A| + |B|). */
+    DICE {
+        @Override
+        public double similarity(final long cardinality1, final long cardinality2, final long intersection) {
+            final long sum = cardinality1 + cardinality2;
+            return sum == 0 ? 0.0 : 2.0 * intersection / sum;
+        }
+    },
+
+    /** The cosine similarity, |A &cap; B| / sqrt(|A| |B|). */
+    COSINE {
+        @Override
+        public double similarity(final long cardinality1, final long cardinality2, final long intersection) {
+            if (cardinality1 == 0 || cardinality2 == 0) {
+                return 0.0;
+            }
+            return intersection / Math.sqrt((double)cardinality1 * cardinality2);
+        }
+    };
+
+    /**
+     * Computes the similarity from the number of ones in both vectors and in their intersection.
+     *
+     * @param cardinality1 number of ones in the first vector
+     * @param cardinality2 number of ones in the second vector
+     * @param intersection number of ones set in both vectors
+     * @return the similarity, a value between 0 and 1
+     */
+    public abstract double similarity(long cardinality1, long cardinality2, long intersection);
+}
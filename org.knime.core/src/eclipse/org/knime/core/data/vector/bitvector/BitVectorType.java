@@ -64,7 +64,14 @@ public enum BitVectorType implements ButtonGroupEnumInterface {
         DenseBitVectorCell.TYPE),
     /**Sparse bit vector type.*/
     SPARSE("Sparse", "Option recommended for sparse vectors e.g. less than 10% set bits", false,
-        SparseBitVectorCell.TYPE);
+        SparseBitVectorCell.TYPE),
+    /**Compressed bit vector type.
+     * @since 3.8*/
+    COMPRESSED("Compressed", "Option recommended for long and sparse vectors e.g. large fingerprints", false,
+        CompressedBitVectorCell.TYPE);
+
+    /** Vectors up to this length are always stored dense, see {@link #getRecommendedType(long, long)}. */
+    private static final long MIN_COMPRESSED_LENGTH = 4096;
 
     private final String m_label;
     private final String m_tooltip;
@@ -131,6 +138,23 @@ public static BitVectorType getDefault() {
         throw new IllegalStateException("No default vector type defined");
     }
 
+    /**
+     * Returns the type best suited for vectors with the given length and number of set bits. Vectors with at least
+     * every sixteenth bit set (i.e. as many bytes as a sorted array of 16 bit indices would need) and short vectors
+     * are stored {@link #DENSE}, all others {@link #COMPRESSED}.
+     *
+     * @param length the length of the vectors
+     * @param cardinality the (expected) number of set bits
+     * @return the recommended type, never {@link #SPARSE}
+     * @since 3.8
+     */
+    public static BitVectorType getRecommendedType(final long length, final long cardinality) {
+        if (length <= MIN_COMPRESSED_LENGTH || cardinality >= (length >> 4)) {
+            return DENSE;
+        }
+        return COMPRESSED;
+    }
+
     /**
      * @return the {@link DataType} of the resulting data cell
      */
@@ -156,6 +180,8 @@ public BitVectorCellFactory<? extends DataCell> getCellFactory(final String hexS
                 return new DenseBitVectorCellFactory(hexString);
             case SPARSE:
                 return new SparseBitVectorCellFactory(hexString);
+            case COMPRESSED:
+                return new CompressedBitVectorCellFactory(hexString);
         }
         //use the dense bit vector as default
         return new DenseBitVectorCellFactory(hexString);
@@ -173,6 +199,8 @@ public BitVectorCellFactory<? extends DataCell> getCellFactory(final long length
                 return new DenseBitVectorCellFactory(length);
             case SPARSE:
                 return new SparseBitVectorCellFactory(length);
+            case COMPRESSED:
+                return new CompressedBitVectorCellFactory(length);
         }
         //use the dense bit vector as default
         return new DenseBitVectorCellFactory(length);
@@ -47,6 +47,13 @@
  */
 package org.knime.core.data.vector.bitvector;
 
+import java.util.Arrays;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.util.CheckUtils;
 
 /**
@@ -71,6 +78,8 @@ private BitVectorUtil() { /*empty*/
      * {@link DenseBitVectorCell}s. All other implementations need to access the bits through get/set methods which
      * probably performs very poorly.<br>
      *
+     * If both values are {@link CompressedBitVectorCell}s, a compressed bit vector cell is returned.<br>
+     *
      * To perform the AND operation the sparse implementation
      * {@link SparseBitVectorCellFactory#and(BitVectorValue, BitVectorValue)}, or the dense implementation
      * {@link DenseBitVectorCellFactory#and(BitVectorValue, BitVectorValue)} is called.
@@ -84,6 +93,9 @@ public static BitVectorValue and(final BitVectorValue bv1, final BitVectorValue
             throw new NullPointerException(NPE_MESSAGE);
         }
 
+        if (bv1 instanceof CompressedBitVectorCell && bv2 instanceof CompressedBitVectorCell) {
+            return CompressedBitVectorCellFactory.and(bv1, bv2);
+        }
         int noSparseBVC = sparseBitVectorCellCount(bv1, bv2);
         if (noSparseBVC >= 1) {
             return SparseBitVectorCellFactory.and(bv1, bv2);
@@ -99,6 +111,8 @@ public static BitVectorValue and(final BitVectorValue bv1, final BitVectorValue
      * {@link DenseBitVectorCell}s. All other implementations need to access the bits through get/set methods which
      * probably performs very poorly.<br>
      *
+     * If both values are {@link CompressedBitVectorCell}s, a compressed bit vector cell is returned.<br>
+     *
      * To perform the OR operation the sparse implementation
      * {@link SparseBitVectorCellFactory#or(BitVectorValue, BitVectorValue)}, or the dense implementation
      * {@link DenseBitVectorCellFactory#or(BitVectorValue, BitVectorValue)} is called.
@@ -112,6 +126,9 @@ public static BitVectorValue or(final BitVectorValue bv1, final BitVectorValue b
             throw new NullPointerException(NPE_MESSAGE);
         }
 
+        if (bv1 instanceof CompressedBitVectorCell && bv2 instanceof CompressedBitVectorCell) {
+            return CompressedBitVectorCellFactory.or(bv1, bv2);
+        }
         int noSparseBVC = sparseBitVectorCellCount(bv1, bv2);
         if (noSparseBVC == 2) {
             return SparseBitVectorCellFactory.or(bv1, bv2);
@@ -127,6 +144,8 @@ public static BitVectorValue or(final BitVectorValue bv1, final BitVectorValue b
      * {@link DenseBitVectorCell}s. All other implementations need to access the bits through get/set methods which
      * probably performs very poorly.<br>
      *
+     * If both values are {@link CompressedBitVectorCell}s, a compressed bit vector cell is returned.<br>
+     *
      * To perform the XOR operation the sparse implementation
      * {@link SparseBitVectorCellFactory#xor(BitVectorValue, BitVectorValue)}, or the dense implementation
      * {@link DenseBitVectorCellFactory#xor(BitVectorValue, BitVectorValue)} is called.
@@ -140,6 +159,9 @@ public static BitVectorValue xor(final BitVectorValue bv1, final BitVectorValue
             throw new NullPointerException(NPE_MESSAGE);
         }
 
+        if (bv1 instanceof CompressedBitVectorCell && bv2 instanceof CompressedBitVectorCell) {
+            return CompressedBitVectorCellFactory.xor(bv1, bv2);
+        }
         int noSparseBVC = sparseBitVectorCellCount(bv1, bv2);
         if (noSparseBVC == 2) {
             return SparseBitVectorCellFactory.xor(bv1, bv2);
@@ -169,6 +191,8 @@ public static long cardinalityOfIntersection(final BitVectorValue bv1, final Bit
             return ((DenseBitVectorCell)bv1).cardinalityOfIntersection((DenseBitVectorCell)bv2);
         } else if (bv1 instanceof SparseBitVectorCell && bv2 instanceof SparseBitVectorCell) {
             return ((SparseBitVectorCell)bv1).cardinalityOfIntersection((SparseBitVectorCell)bv2);
+        } else if (bv1 instanceof CompressedBitVectorCell && bv2 instanceof CompressedBitVectorCell) {
+            return ((CompressedBitVectorCell)bv1).cardinalityOfIntersection((CompressedBitVectorCell)bv2);
         }
 
         // we have to go into the loop
@@ -203,6 +227,8 @@ public static long cardinalityOfRelativeComplement(final BitVectorValue bv1, fin
             return ((DenseBitVectorCell)bv1).cardinalityOfRelativeComplement((DenseBitVectorCell)bv2);
         } else if (bv1 instanceof SparseBitVectorCell && bv2 instanceof SparseBitVectorCell) {
             return ((SparseBitVectorCell)bv1).cardinalityOfRelativeComplement((SparseBitVectorCell)bv2);
+        } else if (bv1 instanceof CompressedBitVectorCell && bv2 instanceof CompressedBitVectorCell) {
+            return ((CompressedBitVectorCell)bv1).cardinalityOfRelativeComplement((CompressedBitVectorCell)bv2);
         }
 
         long bv1Idx = bv1.nextSetBit(0);
@@ -218,6 +244,111 @@ public static long cardinalityOfRelativeComplement(final BitVectorValue bv1, fin
         return toReturn;
     }
 
+    /**
+     * Computes a similarity measure of the given vectors. If both vectors are {@link DenseBitVectorCell}s, both are
+     * {@link SparseBitVectorCell}s or both are {@link CompressedBitVectorCell}s, the counts the measure is based on
+     * are determined in a single pass over both vectors without creating intermediate vectors.
+     *
+     * @param bv1 first vector
+     * @param bv2 second vector
+     * @param measure the similarity measure
+     * @return the similarity of the vectors
+     * @throws NullPointerException if any argument is <code>null</code>
+     * @since 3.8
+     */
+    public static double similarity(final BitVectorValue bv1, final BitVectorValue bv2,
+        final BitVectorSimilarity measure) {
+        CheckUtils.checkNotNull(bv1, NPE_MESSAGE);
+        CheckUtils.checkNotNull(bv2, NPE_MESSAGE);
+        CheckUtils.checkNotNull(measure, "Similarity measure must not be null!");
+        return similarityInternal(bv1, bv2, measure);
+    }
+
+    /**
+     * Computes a similarity measure of a query vector and each of the given vectors, e.g. for a similarity search. No
+     * objects are created while comparing the vectors, see
+     * {@link #similarity(BitVectorValue, BitVectorValue, BitVectorSimilarity)}.
+     *
+     * @param query the query vector
+     * @param vectors the vectors to compare the query with
+     * @param measure the similarity measure
+     * @param result the array the similarities are written to, at least as long as <code>vectors</code>
+     * @throws NullPointerException if any argument or vector is <code>null</code>
+     * @throws IllegalArgumentException if the result array is too short
+     * @since 3.8
+     */
+    public static void similarities(final BitVectorValue query, final BitVectorValue[] vectors,
+        final BitVectorSimilarity measure, final double[] result) {
+        CheckUtils.checkNotNull(query, NPE_MESSAGE);
+        CheckUtils.checkNotNull(vectors, NPE_MESSAGE);
+        CheckUtils.checkNotNull(measure, "Similarity measure must not be null!");
+        CheckUtils.checkArgument(result.length >= vectors.length, "Result array too short: %d < %d", result.length,
+            vectors.length);
+        for (int i = 0; i < vectors.length; i++) {
+            result[i] = similarityInternal(query, CheckUtils.checkNotNull(vectors[i], NPE_MESSAGE), measure);
+        }
+    }
+
+    /**
+     * Creates a search index over the given vectors, which finds all vectors similar to a query vector much faster
+     * than comparing the query with each of them, see {@link BitVectorIndex#search(BitVectorValue,
+     * BitVectorSimilarity, double)}.
+     *
+     * @param vectors the vectors to index, <code>null</code> elements are allowed and never found
+     * @return a new index, the positions in the index are the array indices
+     * @throws NullPointerException if the argument is <code>null</code>
+     * @since 3.8
+     */
+    public static BitVectorIndex createIndex(final BitVectorValue[] vectors) {
+        CheckUtils.checkNotNull(vectors, NPE_MESSAGE);
+        return new BitVectorIndex(Arrays.copyOf(vectors, vectors.length));
+    }
+
+    /**
+     * Creates a search index over a bit vector column of the given table, see {@link #createIndex(BitVectorValue[])}.
+     * The positions in the index are the row indices, rows with missing values are never found.
+     *
+     * @param table the table to read
+     * @param colIndex the index of the bit vector column
+     * @param exec for progress and cancelation
+     * @return a new index
+     * @throws CanceledExecutionException if canceled
+     * @throws IllegalArgumentException if the column is not a bit vector column or the table has more than
+     *             {@link Integer#MAX_VALUE} rows
+     * @since 3.8
+     */
+    public static BitVectorIndex createIndex(final BufferedDataTable table, final int colIndex,
+        final ExecutionMonitor exec) throws CanceledExecutionException {
+        CheckUtils.checkArgument(
+            table.getDataTableSpec().getColumnSpec(colIndex).getType().isCompatible(BitVectorValue.class),
+            "Column %d is not a bit vector column", colIndex);
+        long size = table.size();
+        CheckUtils.checkArgument(size <= Integer.MAX_VALUE, "Too many rows to index: %d", size);
+        BitVectorValue[] vectors = new BitVectorValue[(int)size];
+        int i = 0;
+        try (CloseableRowIterator it = table.iterator()) {
+            while (it.hasNext()) {
+                exec.checkCanceled();
+                DataCell cell = it.next().getCell(colIndex);
+                if (!cell.isMissing()) {
+                    vectors[i] = (BitVectorValue)cell;
+                }
+                i++;
+                exec.setProgress(i / (double)size);
+            }
+        }
+        return new BitVectorIndex(vectors);
+    }
+
+    private static double similarityInternal(final BitVectorValue bv1, final BitVectorValue bv2,
+        final BitVectorSimilarity measure) {
+        if (bv1 instanceof DenseBitVectorCell && bv2 instanceof DenseBitVectorCell) {
+            return ((DenseBitVectorCell)bv1).similarity((DenseBitVectorCell)bv2, measure);
+        }
+        // the cardinality of sparse and compressed vectors is known, the intersection is counted in a single pass
+        return measure.similarity(bv1.cardinality(), bv2.cardinality(), cardinalityOfIntersection(bv1, bv2));
+    }
+
     private static int sparseBitVectorCellCount(final BitVectorValue bv1, final BitVectorValue bv2) {
         int count = 0;
         if (bv1 instanceof SparseBitVectorCell) {
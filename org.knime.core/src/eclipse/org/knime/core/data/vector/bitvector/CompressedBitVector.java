@@ -0,0 +1,1155 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.vector.bitvector;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Stores Zeros and Ones in a vector, i.e. with fixed positions. The vector has a fixed length. <br>
+ * The implementation splits the index range into chunks of 65536 bits (similar to Roaring bitmaps). Only chunks
+ * containing at least one '1' are stored: a chunk with up to 4096 ones stores the lower 16 bits of their indices in a
+ * sorted array, a chunk with more ones stores all of its bits in a bitmap of 1024 longs. Thus the vector never uses
+ * (significantly) more memory than a {@link DenseBitVector} and only two bytes per '1' for sparsely populated
+ * vectors, while logical operations work on entire chunks instead of single indices as in {@link SparseBitVector}.
+ * <br>
+ * The length of the vector is restricted to {@link Long#MAX_VALUE}, the number of ones to
+ * {@link Integer#MAX_VALUE}.<br>
+ * The implementation is not thread-safe.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.8
+ */
+public class CompressedBitVector implements BitVector {
+
+    // number of bits addressing an index inside a chunk
+    private static final int CHUNK_ADDRBITS = 16;
+
+    private static final int CHUNK_SIZE = 1 << CHUNK_ADDRBITS;
+
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // number of longs in a bitmap chunk
+    private static final int BITMAP_WORDS = CHUNK_SIZE >>> 6;
+
+    /** Chunks with more ones than this are stored as bitmap, all others as sorted array. */
+    static final int MAX_ARRAY_CARDINALITY = 4096;
+
+    private final long m_length;
+
+    // the (sorted) chunk numbers, i.e. index >>> 16, of all non-empty chunks
+    private long[] m_keys;
+
+    // the chunk for each key - either a char[] (sorted, capacity may exceed cardinality) or a long[] bitmap
+    private Object[] m_chunks;
+
+    // the number of ones in each chunk
+    private int[] m_chunkCardinalities;
+
+    private int m_chunkCount;
+
+    private long m_cardinality;
+
+    /**
+     * Creates a new vector of the specified length with all bits cleared.
+     *
+     * @param length the length of the vector to create
+     */
+    public CompressedBitVector(final long length) {
+        this(length, 4);
+    }
+
+    private CompressedBitVector(final long length, final int chunkCapacity) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Length of a BitVector can't be negative.");
+        }
+        m_length = length;
+        int capacity = Math.max(1, chunkCapacity);
+        m_keys = new long[capacity];
+        m_chunks = new Object[capacity];
+        m_chunkCardinalities = new int[capacity];
+    }
+
+    /**
+     * Creates a new instance by taking over the initialization from the passed array. The numbers in the array are
+     * considered indices of the bits set to one in the vector. The array must be sorted! The lowest bit index must be
+     * stored at array index zero. The array must be build like the one returned by the {@link #getAllOneIndices()}
+     * method.
+     *
+     * @param length the length of the vector. Indices must be smaller than this number.
+     * @param oneIndices the array containing the indices of the ones. MUST be sorted (lowest index first).
+     * @throws IllegalArgumentException if length is negative or if the array contains negative numbers or numbers
+     *             larger than length - or if the array is not sorted!
+     */
+    public CompressedBitVector(final long length, final long[] oneIndices) {
+        this(length);
+        long lastVal = -1;
+        int groupStart = 0;
+        for (int idx = 0; idx < oneIndices.length; idx++) {
+            long val = oneIndices[idx];
+            if (val >= length) {
+                throw new IllegalArgumentException("Initialization array contains index out range at array index "
+                    + idx + " (vector length=" + length + ", index=" + val + ")");
+            }
+            if (val < 0) {
+                throw new IllegalArgumentException("Initialization array contains a negative index at array index "
+                    + idx + "(index=" + val + ")");
+            }
+            if (val <= lastVal) {
+                throw new IllegalArgumentException("Initialization array is not sorted at array index " + idx
+                    + " (previousVal=" + lastVal + ", indexVal=" + val + ")");
+            }
+            if (idx > groupStart && (val >>> CHUNK_ADDRBITS) != (lastVal >>> CHUNK_ADDRBITS)) {
+                appendChunk(lastVal >>> CHUNK_ADDRBITS, createChunk(oneIndices, groupStart, idx));
+                groupStart = idx;
+            }
+            lastVal = val;
+        }
+        if (groupStart < oneIndices.length) {
+            appendChunk(lastVal >>> CHUNK_ADDRBITS, createChunk(oneIndices, groupStart, oneIndices.length));
+        }
+        assert checkConsistency() == null;
+    }
+
+    /**
+     * Creates a new instance as copy of the passed argument.
+     *
+     * @param clone the vector to copy into the new instance
+     */
+    public CompressedBitVector(final CompressedBitVector clone) {
+        if (clone == null) {
+            throw new NullPointerException("Can't initialize from a null vector");
+        }
+        m_length = clone.m_length;
+        m_chunkCount = clone.m_chunkCount;
+        m_cardinality = clone.m_cardinality;
+        int capacity = Math.max(1, m_chunkCount);
+        m_keys = Arrays.copyOf(clone.m_keys, capacity);
+        m_chunkCardinalities = Arrays.copyOf(clone.m_chunkCardinalities, capacity);
+        m_chunks = new Object[capacity];
+        for (int i = 0; i < m_chunkCount; i++) {
+            m_chunks[i] = copyChunk(clone.m_chunks[i], clone.m_chunkCardinalities[i]);
+        }
+    }
+
+    /**
+     * Initializes the created bit vector from the hex representation in the passed string. Only characters
+     * <code>'0' - '9'</code>, <code>'A' - 'F'</code> and <code>'a' - 'f'</code> are allowed. The character at string
+     * position <code>(length - 1)</code> represents the bits with index 0 to 3 in the vector. The character at position
+     * 0 represents the bits with the highest indices. The length of the vector created is the length of the string
+     * times 4 (as each character represents four bits).
+     *
+     * @param hexString containing the hex value to initialize the vector with
+     * @throws IllegalArgumentException if <code>hexString</code> contains characters other then the hex characters
+     *             (i.e. <code>0 - 9, A - F, and a - f</code>)
+     */
+    public CompressedBitVector(final String hexString) {
+        this(hexString.length() * 4L);
+        int len = hexString.length();
+        for (int c = 0; c < len; c++) {
+            int cVal = hexString.charAt(len - c - 1);
+            if (cVal >= '0' && cVal <= '9') {
+                cVal -= '0';
+            } else if (cVal >= 'A' && cVal <= 'F') {
+                cVal -= 'A' - 10;
+            } else if (cVal >= 'a' && cVal <= 'f') {
+                cVal -= 'a' - 10;
+            } else {
+                throw new IllegalArgumentException(
+                    "Invalid character in hex number ('" + hexString.charAt(len - c - 1) + "')");
+            }
+            for (int b = 0; b < 4; b++) {
+                if ((cVal & (1 << b)) != 0) {
+                    // bits are set in ascending order, i.e. always appended to the last chunk
+                    set(c * 4L + b);
+                }
+            }
+        }
+        assert checkConsistency() == null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long length() {
+        return m_length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void set(final long bitIdx, final boolean value) {
+        if (value) {
+            set(bitIdx);
+        } else {
+            clear(bitIdx);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void set(final long bitIdx) {
+        checkIndex(bitIdx);
+        long key = bitIdx >>> CHUNK_ADDRBITS;
+        int low = (int)(bitIdx & CHUNK_MASK);
+        int pos = chunkIndex(key);
+        if (pos < 0) {
+            insertChunk(-(pos + 1), key, new char[]{(char)low}, 1);
+            return;
+        }
+        int card = m_chunkCardinalities[pos];
+        Object chunk = m_chunks[pos];
+        if (chunk instanceof long[]) {
+            long[] words = (long[])chunk;
+            long mask = 1L << low;
+            if ((words[low >>> 6] & mask) == 0) {
+                words[low >>> 6] |= mask;
+                m_chunkCardinalities[pos]++;
+                m_cardinality++;
+            }
+            return;
+        }
+        char[] values = (char[])chunk;
+        int i;
+        if (values[card - 1] < low) {
+            // might be faster when they set the bits in order
+            i = -(card + 1);
+        } else {
+            i = Arrays.binarySearch(values, 0, card, (char)low);
+            if (i >= 0) {
+                // already set
+                return;
+            }
+        }
+        if (card == MAX_ARRAY_CARDINALITY) {
+            long[] words = toBitmap(values, card);
+            words[low >>> 6] |= 1L << low;
+            m_chunks[pos] = words;
+        } else {
+            i = -(i + 1);
+            if (card == values.length) {
+                values = Arrays.copyOf(values, Math.min(MAX_ARRAY_CARDINALITY, card << 1));
+                m_chunks[pos] = values;
+            }
+            System.arraycopy(values, i, values, i + 1, card - i);
+            values[i] = (char)low;
+        }
+        m_chunkCardinalities[pos]++;
+        m_cardinality++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear(final long bitIdx) {
+        checkIndex(bitIdx);
+        int pos = chunkIndex(bitIdx >>> CHUNK_ADDRBITS);
+        if (pos < 0) {
+            return;
+        }
+        int low = (int)(bitIdx & CHUNK_MASK);
+        int card = m_chunkCardinalities[pos];
+        Object chunk = m_chunks[pos];
+        if (chunk instanceof long[]) {
+            long[] words = (long[])chunk;
+            long mask = 1L << low;
+            if ((words[low >>> 6] & mask) == 0) {
+                return;
+            }
+            words[low >>> 6] &= ~mask;
+            if (card - 1 == MAX_ARRAY_CARDINALITY) {
+                m_chunks[pos] = toArray(words, card - 1);
+            }
+        } else {
+            char[] values = (char[])chunk;
+            int i = Arrays.binarySearch(values, 0, card, (char)low);
+            if (i < 0) {
+                return;
+            }
+            System.arraycopy(values, i + 1, values, i, card - i - 1);
+        }
+        m_cardinality--;
+        if (card == 1) {
+            removeChunk(pos);
+        } else {
+            m_chunkCardinalities[pos]--;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean get(final long bitIdx) {
+        checkIndex(bitIdx);
+        int pos = chunkIndex(bitIdx >>> CHUNK_ADDRBITS);
+        if (pos < 0) {
+            return false;
+        }
+        int low = (int)(bitIdx & CHUNK_MASK);
+        Object chunk = m_chunks[pos];
+        if (chunk instanceof long[]) {
+            return (((long[])chunk)[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[])chunk, 0, m_chunkCardinalities[pos], (char)low) >= 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long nextSetBit(final long startIdx) {
+        if (startIdx < 0) {
+            throw new ArrayIndexOutOfBoundsException("Starting index can't be negative");
+        }
+        if (startIdx >= m_length) {
+            return -1;
+        }
+        long key = startIdx >>> CHUNK_ADDRBITS;
+        int pos = chunkIndex(key);
+        if (pos >= 0) {
+            int low = nextSetBit(m_chunks[pos], m_chunkCardinalities[pos], (int)(startIdx & CHUNK_MASK));
+            if (low >= 0) {
+                return (key << CHUNK_ADDRBITS) | low;
+            }
+            pos++;
+        } else {
+            pos = -(pos + 1);
+        }
+        if (pos >= m_chunkCount) {
+            return -1;
+        }
+        return (m_keys[pos] << CHUNK_ADDRBITS) | nextSetBit(m_chunks[pos], m_chunkCardinalities[pos], 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long nextClearBit(final long startIdx) {
+        if (startIdx < 0) {
+            throw new ArrayIndexOutOfBoundsException("Starting index can't be negative");
+        }
+        long idx = startIdx;
+        while (idx < m_length) {
+            long key = idx >>> CHUNK_ADDRBITS;
+            int pos = chunkIndex(key);
+            if (pos < 0) {
+                return idx;
+            }
+            int low = nextClearBit(m_chunks[pos], m_chunkCardinalities[pos], (int)(idx & CHUNK_MASK));
+            if (low >= 0) {
+                idx = (key << CHUNK_ADDRBITS) | low;
+                return idx < m_length ? idx : -1;
+            }
+            // all remaining bits of the chunk are set
+            idx = (key + 1) << CHUNK_ADDRBITS;
+        }
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long cardinality() {
+        return m_cardinality;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEmpty() {
+        return m_cardinality == 0;
+    }
+
+    /**
+     * Creates and returns a new bit vector whose bits are set at positions where both, this and the argument vector
+     * have their bits set. The length of the new vector is the maximum of the length of this and the argument.
+     *
+     * @param bv the vector to AND this one with
+     * @return a new instance containing the result of the AND operation
+     */
+    public CompressedBitVector and(final CompressedBitVector bv) {
+        CompressedBitVector result =
+            new CompressedBitVector(Math.max(m_length, bv.m_length), Math.min(m_chunkCount, bv.m_chunkCount));
+        int i = 0;
+        int j = 0;
+        while (i < m_chunkCount && j < bv.m_chunkCount) {
+            if (m_keys[i] < bv.m_keys[j]) {
+                i++;
+            } else if (m_keys[i] > bv.m_keys[j]) {
+                j++;
+            } else {
+                result.appendChunk(m_keys[i], and(m_chunks[i], m_chunkCardinalities[i], bv.m_chunks[j],
+                    bv.m_chunkCardinalities[j]));
+                i++;
+                j++;
+            }
+        }
+        assert result.checkConsistency() == null;
+        return result;
+    }
+
+    /**
+     * Creates and returns a new bit vector whose bits are set at positions where at least one of the vectors (this
+     * or the argument vector) have a bit set. The length of the new vector is the maximum of the length of this and
+     * the argument.
+     *
+     * @param bv the vector to OR this one with
+     * @return a new instance containing the result of the OR operation
+     */
+    public CompressedBitVector or(final CompressedBitVector bv) {
+        return combine(bv, false);
+    }
+
+    /**
+     * Creates and returns a new bit vector whose bits are set at positions where (exactly) one of the vectors (this
+     * or the argument vector) have a bit set. The length of the new vector is the maximum of the length of this and
+     * the argument.
+     *
+     * @param bv the vector to XOR this one with
+     * @return a new instance containing the result of the XOR operation
+     */
+    public CompressedBitVector xor(final CompressedBitVector bv) {
+        return combine(bv, true);
+    }
+
+    private CompressedBitVector combine(final CompressedBitVector bv, final boolean xor) {
+        CompressedBitVector result =
+            new CompressedBitVector(Math.max(m_length, bv.m_length), m_chunkCount + bv.m_chunkCount);
+        int i = 0;
+        int j = 0;
+        while (i < m_chunkCount || j < bv.m_chunkCount) {
+            if (j >= bv.m_chunkCount || (i < m_chunkCount && m_keys[i] < bv.m_keys[j])) {
+                result.appendChunk(m_keys[i], copyChunk(m_chunks[i], m_chunkCardinalities[i]));
+                i++;
+            } else if (i >= m_chunkCount || m_keys[i] > bv.m_keys[j]) {
+                result.appendChunk(bv.m_keys[j], copyChunk(bv.m_chunks[j], bv.m_chunkCardinalities[j]));
+                j++;
+            } else {
+                Object chunk = xor
+                    ? xor(m_chunks[i], m_chunkCardinalities[i], bv.m_chunks[j], bv.m_chunkCardinalities[j])
+                    : or(m_chunks[i], m_chunkCardinalities[i], bv.m_chunks[j], bv.m_chunkCardinalities[j]);
+                result.appendChunk(m_keys[i], chunk);
+                i++;
+                j++;
+            }
+        }
+        assert result.checkConsistency() == null;
+        return result;
+    }
+
+    /**
+     * Returns the number of bits set in this and the argument vector, i.e. the cardinality of the result of
+     * {@link #and(CompressedBitVector)}, without creating the intersection.
+     *
+     * @param bv the other vector
+     * @return the cardinality of the intersection of both vectors
+     */
+    public long cardinalityOfIntersection(final CompressedBitVector bv) {
+        long result = 0;
+        int i = 0;
+        int j = 0;
+        while (i < m_chunkCount && j < bv.m_chunkCount) {
+            if (m_keys[i] < bv.m_keys[j]) {
+                i++;
+            } else if (m_keys[i] > bv.m_keys[j]) {
+                j++;
+            } else {
+                result += andCardinality(m_chunks[i], m_chunkCardinalities[i], bv.m_chunks[j],
+                    bv.m_chunkCardinalities[j]);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of bits set in this vector but not in the argument vector.
+     *
+     * @param bv the other vector
+     * @return the cardinality of the relative complement of the argument in this vector
+     */
+    public long cardinalityOfRelativeComplement(final CompressedBitVector bv) {
+        return m_cardinality - cardinalityOfIntersection(bv);
+    }
+
+    /**
+     * Returns an array containing the indices of all bits set in this vector, the lowest index first.
+     *
+     * @return the indices of all ones in this vector
+     * @throws IllegalStateException if more than {@link Integer#MAX_VALUE} bits are set
+     */
+    public long[] getAllOneIndices() {
+        if (m_cardinality > Integer.MAX_VALUE) {
+            throw new IllegalStateException(
+                "Can't return more than " + Integer.MAX_VALUE + " indices (vector has " + m_cardinality + " ones)");
+        }
+        long[] result = new long[(int)m_cardinality];
+        int r = 0;
+        for (int i = 0; i < m_chunkCount; i++) {
+            long base = m_keys[i] << CHUNK_ADDRBITS;
+            Object chunk = m_chunks[i];
+            if (chunk instanceof long[]) {
+                long[] words = (long[])chunk;
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    long word = words[w];
+                    while (word != 0) {
+                        result[r++] = base + (w << 6) + Long.numberOfTrailingZeros(word);
+                        word &= word - 1;
+                    }
+                }
+            } else {
+                char[] values = (char[])chunk;
+                for (int k = 0, card = m_chunkCardinalities[i]; k < card; k++) {
+                    result[r++] = base + values[k];
+                }
+            }
+        }
+        assert r == result.length;
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        // same as in DenseBitVector and SparseBitVector
+        long hash = 0;
+        for (long i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+            hash = hash * 524287 + (i + 1);
+        }
+        return (int)(hash ^ (hash >> 32));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof CompressedBitVector)) {
+            return false;
+        }
+        CompressedBitVector bv = (CompressedBitVector)obj;
+        if (bv.m_length != m_length || bv.m_cardinality != m_cardinality || bv.m_chunkCount != m_chunkCount) {
+            return false;
+        }
+        for (int i = 0; i < m_chunkCount; i++) {
+            int card = m_chunkCardinalities[i];
+            if (bv.m_keys[i] != m_keys[i] || bv.m_chunkCardinalities[i] != card) {
+                return false;
+            }
+            // equal cardinalities imply the same kind of chunk
+            if (m_chunks[i] instanceof long[]) {
+                if (!Arrays.equals((long[])m_chunks[i], (long[])bv.m_chunks[i])) {
+                    return false;
+                }
+            } else {
+                char[] values1 = (char[])m_chunks[i];
+                char[] values2 = (char[])bv.m_chunks[i];
+                for (int k = 0; k < card; k++) {
+                    if (values1[k] != values2[k]) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the string representation of the bits in this vector. A list of indices of bits set is returned, in
+     * the format <code>{length=[length], set bits=[index], [index], ...}</code>, the list truncated after
+     * {@link BitVectorValue#MAX_DISPLAY_BITS} indices.
+     *
+     * @return a string representation of this vector
+     */
+    @Override
+    public String toString() {
+        long use = Math.min(m_cardinality, BitVectorValue.MAX_DISPLAY_BITS);
+        StringBuilder result = new StringBuilder((int)use * 7 + 32);
+        result.append("{length=").append(m_length).append(", set bits=");
+        long count = 0;
+        for (long i = nextSetBit(0); i >= 0 && count < use; i = nextSetBit(i + 1), count++) {
+            result.append(i).append(", ");
+        }
+        if (use < m_cardinality) {
+            result.append("... ");
+        } else if (use > 0) {
+            result.delete(result.length() - 2, result.length());
+        }
+        result.append('}');
+        return result.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toHexString() {
+        // the number of bits we store in the string, same as in DenseBitVector
+        int max = (int)Math.min(m_length, BitVectorValue.MAX_DISPLAY_BITS);
+        char[] nibbles = new char[(max + 3) >> 2];
+        for (long i = nextSetBit(0); i >= 0 && i < max; i = nextSetBit(i + 1)) {
+            nibbles[(int)(i >> 2)] |= 1 << (i & 3);
+        }
+        StringBuilder result = new StringBuilder(nibbles.length + 3);
+        if (max < m_length) {
+            result.append("...");
+        }
+        // start with the highest bits
+        for (int n = nibbles.length - 1; n >= 0; n--) {
+            int value = nibbles[n];
+            result.append((char)(value > 9 ? 'A' + value - 10 : '0' + value));
+        }
+        return result.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toBinaryString() {
+        // the number of bits we store in the string
+        int max = (int)Math.min(m_length, BitVectorValue.MAX_DISPLAY_BITS);
+        char[] bits = new char[max];
+        Arrays.fill(bits, '0');
+        for (long i = nextSetBit(0); i >= 0 && i < max; i = nextSetBit(i + 1)) {
+            // start with the highest bits
+            bits[max - 1 - (int)i] = '1';
+        }
+        StringBuilder result = new StringBuilder(max + 3).append(bits);
+        if (max < m_length) {
+            result.append("...");
+        }
+        return result.toString();
+    }
+
+    /**
+     * Writes the length and all chunks of this vector to the given output.
+     *
+     * @param out the output to write to
+     * @throws IOException if writing fails
+     * @see #read(DataInput)
+     */
+    void write(final DataOutput out) throws IOException {
+        out.writeLong(m_length);
+        out.writeInt(m_chunkCount);
+        for (int i = 0; i < m_chunkCount; i++) {
+            int card = m_chunkCardinalities[i];
+            out.writeLong(m_keys[i]);
+            out.writeInt(card);
+            if (m_chunks[i] instanceof long[]) {
+                for (long word : (long[])m_chunks[i]) {
+                    out.writeLong(word);
+                }
+            } else {
+                char[] values = (char[])m_chunks[i];
+                byte[] bytes = new byte[card << 1];
+                for (int k = 0; k < card; k++) {
+                    bytes[k << 1] = (byte)(values[k] >>> 8);
+                    bytes[(k << 1) + 1] = (byte)values[k];
+                }
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Reads a vector written by {@link #write(DataOutput)}.
+     *
+     * @param in the input to read from
+     * @return the vector read
+     * @throws IOException if reading fails
+     */
+    static CompressedBitVector read(final DataInput in) throws IOException {
+        long length = in.readLong();
+        int chunkCount = in.readInt();
+        CompressedBitVector result = new CompressedBitVector(length, chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            long key = in.readLong();
+            int card = in.readInt();
+            if (card > MAX_ARRAY_CARDINALITY) {
+                long[] words = new long[BITMAP_WORDS];
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    words[w] = in.readLong();
+                }
+                result.appendChunk(key, words, card);
+            } else {
+                byte[] bytes = new byte[card << 1];
+                in.readFully(bytes);
+                char[] values = new char[card];
+                for (int k = 0; k < card; k++) {
+                    values[k] = (char)(((bytes[k << 1] & 0xFF) << 8) | (bytes[(k << 1) + 1] & 0xFF));
+                }
+                result.appendChunk(key, values, card);
+            }
+        }
+        assert result.checkConsistency() == null;
+        return result;
+    }
+
+    private void checkIndex(final long bitIdx) {
+        if (bitIdx >= m_length) {
+            throw new ArrayIndexOutOfBoundsException(
+                "Index ('" + bitIdx + "') too large for vector of length " + m_length);
+        }
+        if (bitIdx < 0) {
+            throw new ArrayIndexOutOfBoundsException("Index of the bit can't be negative");
+        }
+    }
+
+    /** Position of the chunk with the given key, or <code>(-(insertion point) - 1)</code> if there is none. */
+    private int chunkIndex(final long key) {
+        int last = m_chunkCount - 1;
+        if (last < 0 || m_keys[last] < key) {
+            return -(m_chunkCount + 1);
+        }
+        if (m_keys[last] == key) {
+            // bits are usually set in ascending order
+            return last;
+        }
+        return Arrays.binarySearch(m_keys, 0, last, key);
+    }
+
+    private void ensureChunkCapacity(final int capacity) {
+        if (capacity > m_keys.length) {
+            int newCapacity = Math.max(capacity, m_keys.length << 1);
+            m_keys = Arrays.copyOf(m_keys, newCapacity);
+            m_chunks = Arrays.copyOf(m_chunks, newCapacity);
+            m_chunkCardinalities = Arrays.copyOf(m_chunkCardinalities, newCapacity);
+        }
+    }
+
+    private void insertChunk(final int pos, final long key, final Object chunk, final int card) {
+        ensureChunkCapacity(m_chunkCount + 1);
+        int move = m_chunkCount - pos;
+        System.arraycopy(m_keys, pos, m_keys, pos + 1, move);
+        System.arraycopy(m_chunks, pos, m_chunks, pos + 1, move);
+        System.arraycopy(m_chunkCardinalities, pos, m_chunkCardinalities, pos + 1, move);
+        m_keys[pos] = key;
+        m_chunks[pos] = chunk;
+        m_chunkCardinalities[pos] = card;
+        m_chunkCount++;
+        m_cardinality += card;
+    }
+
+    private void removeChunk(final int pos) {
+        int move = m_chunkCount - pos - 1;
+        System.arraycopy(m_keys, pos + 1, m_keys, pos, move);
+        System.arraycopy(m_chunks, pos + 1, m_chunks, pos, move);
+        System.arraycopy(m_chunkCardinalities, pos + 1, m_chunkCardinalities, pos, move);
+        m_chunkCount--;
+        m_chunks[m_chunkCount] = null;
+    }
+
+    /** Appends a chunk created by one of the static chunk operations (exactly sized), ignores <code>null</code>. */
+    private void appendChunk(final long key, final Object chunk) {
+        if (chunk != null) {
+            appendChunk(key, chunk, chunk instanceof long[] ? bitCount((long[])chunk) : ((char[])chunk).length);
+        }
+    }
+
+    private void appendChunk(final long key, final Object chunk, final int card) {
+        insertChunk(m_chunkCount, key, chunk, card);
+    }
+
+    /**
+     * Checks the internal invariants. Normally the method should return null. If it doesn't something is fishy and a
+     * error message is returned. NOTE: This method is not cheap! It should be called in an assert statement only.
+     *
+     * @return the error message, or null if everything is alright
+     */
+    private String checkConsistency() {
+        long cardinality = 0;
+        for (int i = 0; i < m_chunkCount; i++) {
+            if (i > 0 && m_keys[i - 1] >= m_keys[i]) {
+                return "Chunk keys are not sorted at position " + i;
+            }
+            int card = m_chunkCardinalities[i];
+            if (card <= 0) {
+                return "Empty chunk at position " + i;
+            }
+            if (m_chunks[i] instanceof long[]) {
+                if (card <= MAX_ARRAY_CARDINALITY || bitCount((long[])m_chunks[i]) != card) {
+                    return "Invalid bitmap chunk at position " + i;
+                }
+            } else {
+                char[] values = (char[])m_chunks[i];
+                if (card > MAX_ARRAY_CARDINALITY || card > values.length) {
+                    return "Invalid array chunk at position " + i;
+                }
+                for (int k = 1; k < card; k++) {
+                    if (values[k - 1] >= values[k]) {
+                        return "Array chunk at position " + i + " is not sorted";
+                    }
+                }
+            }
+            cardinality += card;
+        }
+        if (cardinality != m_cardinality) {
+            return "Cardinality " + m_cardinality + " doesn't match the chunks (" + cardinality + ")";
+        }
+        if (m_chunkCount > 0) {
+            int last = m_chunkCount - 1;
+            int lastLow;
+            if (m_chunks[last] instanceof long[]) {
+                long[] words = (long[])m_chunks[last];
+                int w = BITMAP_WORDS - 1;
+                while (words[w] == 0) {
+                    w--;
+                }
+                lastLow = (w << 6) + 63 - Long.numberOfLeadingZeros(words[w]);
+            } else {
+                lastLow = ((char[])m_chunks[last])[m_chunkCardinalities[last] - 1];
+            }
+            if (((m_keys[last] << CHUNK_ADDRBITS) | lastLow) >= m_length) {
+                return "Bits set beyond the length of the vector";
+            }
+        }
+        return null;
+    }
+
+    /* ------------------------- chunk operations ------------------------- */
+
+    private static Object createChunk(final long[] sortedIndices, final int from, final int to) {
+        int card = to - from;
+        if (card > MAX_ARRAY_CARDINALITY) {
+            long[] words = new long[BITMAP_WORDS];
+            for (int i = from; i < to; i++) {
+                int low = (int)(sortedIndices[i] & CHUNK_MASK);
+                words[low >>> 6] |= 1L << low;
+            }
+            return words;
+        }
+        char[] values = new char[card];
+        for (int i = from; i < to; i++) {
+            values[i - from] = (char)(sortedIndices[i] & CHUNK_MASK);
+        }
+        return values;
+    }
+
+    private static Object copyChunk(final Object chunk, final int card) {
+        if (chunk instanceof long[]) {
+            return ((long[])chunk).clone();
+        }
+        return Arrays.copyOf((char[])chunk, card);
+    }
+
+    private static int bitCount(final long[] words) {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private static long[] toBitmap(final char[] values, final int card) {
+        long[] words = new long[BITMAP_WORDS];
+        for (int i = 0; i < card; i++) {
+            words[values[i] >>> 6] |= 1L << values[i];
+        }
+        return words;
+    }
+
+    private static char[] toArray(final long[] words, final int card) {
+        char[] values = new char[card];
+        int v = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            long word = words[w];
+            while (word != 0) {
+                values[v++] = (char)((w << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return values;
+    }
+
+    /** Returns the bitmap, or an array chunk if it has few bits set, or <code>null</code> if it is empty. */
+    private static Object normalize(final long[] words) {
+        int card = bitCount(words);
+        if (card == 0) {
+            return null;
+        }
+        return card > MAX_ARRAY_CARDINALITY ? words : toArray(words, card);
+    }
+
+    private static int nextSetBit(final Object chunk, final int card, final int low) {
+        if (chunk instanceof long[]) {
+            long[] words = (long[])chunk;
+            int w = low >>> 6;
+            long word = words[w] & (-1L << low);
+            while (word == 0) {
+                if (++w == BITMAP_WORDS) {
+                    return -1;
+                }
+                word = words[w];
+            }
+            return (w << 6) + Long.numberOfTrailingZeros(word);
+        }
+        char[] values = (char[])chunk;
+        int i = Arrays.binarySearch(values, 0, card, (char)low);
+        if (i < 0) {
+            i = -(i + 1);
+        }
+        return i < card ? values[i] : -1;
+    }
+
+    private static int nextClearBit(final Object chunk, final int card, final int low) {
+        if (chunk instanceof long[]) {
+            long[] words = (long[])chunk;
+            int w = low >>> 6;
+            long word = ~words[w] & (-1L << low);
+            while (word == 0) {
+                if (++w == BITMAP_WORDS) {
+                    return -1;
+                }
+                word = ~words[w];
+            }
+            return (w << 6) + Long.numberOfTrailingZeros(word);
+        }
+        char[] values = (char[])chunk;
+        int i = Arrays.binarySearch(values, 0, card, (char)low);
+        if (i < 0) {
+            return low;
+        }
+        // walk along the run of ones starting at low
+        int v = low;
+        while (++i < card && values[i] == v + 1) {
+            v++;
+        }
+        return v + 1 < CHUNK_SIZE ? v + 1 : -1;
+    }
+
+    private static Object and(final Object chunk1, final int card1, final Object chunk2, final int card2) {
+        if (chunk1 instanceof long[] && chunk2 instanceof long[]) {
+            long[] words1 = (long[])chunk1;
+            long[] words2 = (long[])chunk2;
+            long[] words = new long[BITMAP_WORDS];
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] = words1[w] & words2[w];
+            }
+            return normalize(words);
+        }
+        if (chunk1 instanceof long[]) {
+            return and(chunk2, card2, chunk1, card1);
+        }
+        char[] values1 = (char[])chunk1;
+        char[] values = new char[Math.min(card1, card2)];
+        int v = 0;
+        if (chunk2 instanceof long[]) {
+            long[] words2 = (long[])chunk2;
+            for (int i = 0; i < card1; i++) {
+                char c = values1[i];
+                if ((words2[c >>> 6] & (1L << c)) != 0) {
+                    values[v++] = c;
+                }
+            }
+        } else {
+            char[] values2 = (char[])chunk2;
+            int i = 0;
+            int j = 0;
+            while (i < card1 && j < card2) {
+                if (values1[i] < values2[j]) {
+                    i++;
+                } else if (values1[i] > values2[j]) {
+                    j++;
+                } else {
+                    values[v++] = values1[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return v == 0 ? null : (v == values.length ? values : Arrays.copyOf(values, v));
+    }
+
+    private static int andCardinality(final Object chunk1, final int card1, final Object chunk2, final int card2) {
+        if (chunk1 instanceof long[] && chunk2 instanceof long[]) {
+            long[] words1 = (long[])chunk1;
+            long[] words2 = (long[])chunk2;
+            int count = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                count += Long.bitCount(words1[w] & words2[w]);
+            }
+            return count;
+        }
+        if (chunk1 instanceof long[]) {
+            return andCardinality(chunk2, card2, chunk1, card1);
+        }
+        char[] values1 = (char[])chunk1;
+        int count = 0;
+        if (chunk2 instanceof long[]) {
+            long[] words2 = (long[])chunk2;
+            for (int i = 0; i < card1; i++) {
+                char c = values1[i];
+                if ((words2[c >>> 6] & (1L << c)) != 0) {
+                    count++;
+                }
+            }
+        } else {
+            char[] values2 = (char[])chunk2;
+            int i = 0;
+            int j = 0;
+            while (i < card1 && j < card2) {
+                if (values1[i] < values2[j]) {
+                    i++;
+                } else if (values1[i] > values2[j]) {
+                    j++;
+                } else {
+                    count++;
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static Object or(final Object chunk1, final int card1, final Object chunk2, final int card2) {
+        if (chunk1 instanceof long[] && chunk2 instanceof long[]) {
+            long[] words1 = (long[])chunk1;
+            long[] words2 = (long[])chunk2;
+            long[] words = new long[BITMAP_WORDS];
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] = words1[w] | words2[w];
+            }
+            return words;
+        }
+        if (chunk1 instanceof long[]) {
+            return or(chunk2, card2, chunk1, card1);
+        }
+        char[] values1 = (char[])chunk1;
+        if (chunk2 instanceof long[] || card1 + card2 > MAX_ARRAY_CARDINALITY) {
+            long[] words = chunk2 instanceof long[] ? ((long[])chunk2).clone() : toBitmap((char[])chunk2, card2);
+            for (int i = 0; i < card1; i++) {
+                words[values1[i] >>> 6] |= 1L << values1[i];
+            }
+            return normalize(words);
+        }
+        char[] values2 = (char[])chunk2;
+        char[] values = new char[card1 + card2];
+        int v = 0;
+        int i = 0;
+        int j = 0;
+        while (i < card1 && j < card2) {
+            if (values1[i] < values2[j]) {
+                values[v++] = values1[i++];
+            } else if (values1[i] > values2[j]) {
+                values[v++] = values2[j++];
+            } else {
+                values[v++] = values1[i++];
+                j++;
+            }
+        }
+        while (i < card1) {
+            values[v++] = values1[i++];
+        }
+        while (j < card2) {
+            values[v++] = values2[j++];
+        }
+        return v == values.length ? values : Arrays.copyOf(values, v);
+    }
+
+    private static Object xor(final Object chunk1, final int card1, final Object chunk2, final int card2) {
+        if (chunk1 instanceof long[] && chunk2 instanceof long[]) {
+            long[] words1 = (long[])chunk1;
+            long[] words2 = (long[])chunk2;
+            long[] words = new long[BITMAP_WORDS];
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] = words1[w] ^ words2[w];
+            }
+            return normalize(words);
+        }
+        if (chunk1 instanceof long[]) {
+            return xor(chunk2, card2, chunk1, card1);
+        }
+        char[] values1 = (char[])chunk1;
+        if (chunk2 instanceof long[] || card1 + card2 > MAX_ARRAY_CARDINALITY) {
+            long[] words = chunk2 instanceof long[] ? ((long[])chunk2).clone() : toBitmap((char[])chunk2, card2);
+            for (int i = 0; i < card1; i++) {
+                words[values1[i] >>> 6] ^= 1L << values1[i];
+            }
+            return normalize(words);
+        }
+        char[] values2 = (char[])chunk2;
+        char[] values = new char[card1 + card2];
+        int v = 0;
+        int i = 0;
+        int j = 0;
+        while (i < card1 && j < card2) {
+            if (values1[i] < values2[j]) {
+                values[v++] = values1[i++];
+            } else if (values1[i] > values2[j]) {
+                values[v++] = values2[j++];
+            } else {
+                i++;
+                j++;
+            }
+        }
+        while (i < card1) {
+            values[v++] = values1[i++];
+        }
+        while (j < card2) {
+            values[v++] = values2[j++];
+        }
+        return v == 0 ? null : (v == values.length ? values : Arrays.copyOf(values, v));
+    }
+}
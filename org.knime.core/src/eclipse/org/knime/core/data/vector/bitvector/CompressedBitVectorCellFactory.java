@@ -0,0 +1,324 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.vector.bitvector;
+
+import java.util.Arrays;
+
+import org.knime.core.data.DataCell;
+
+/**
+ * Factory for {@link CompressedBitVectorCell}s.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.8
+ */
+public class CompressedBitVectorCellFactory implements BitVectorCellFactory<CompressedBitVectorCell> {
+
+    private final CompressedBitVector m_vector;
+
+    /**
+     * Initializes the factory to the specified length, all bits cleared.
+     *
+     * @param length of the vector in the cell to create
+     */
+    public CompressedBitVectorCellFactory(final long length) {
+        m_vector = new CompressedBitVector(length);
+    }
+
+    /**
+     * Initializes the factory to the specified length, all bits whose index appear in the passed array are set.
+     *
+     * @param length of the vector in the cell to create
+     * @param oneIdxs the array containing the indices of the ones. Should be sorted (lowest index first).
+     */
+    public CompressedBitVectorCellFactory(final long length, final long[] oneIdxs) {
+        CompressedBitVector vector;
+        try {
+            vector = new CompressedBitVector(length, oneIdxs);
+        } catch (IllegalArgumentException iae) {
+            // sort the index array and try again
+            long[] sorted = Arrays.copyOf(oneIdxs, oneIdxs.length);
+            Arrays.sort(sorted);
+            vector = new CompressedBitVector(length, sorted);
+        }
+        m_vector = vector;
+    }
+
+    /**
+     * A copy of the specified vector is stored in the created bit vector cell.
+     *
+     * @param vector used to initialize the bits.
+     */
+    public CompressedBitVectorCellFactory(final CompressedBitVector vector) {
+        m_vector = new CompressedBitVector(vector);
+    }
+
+    /**
+     * Initializes the vector with the bits of the specified value, e.g. to convert a dense or sparse bit vector.
+     *
+     * @param value the bit vector value to copy
+     */
+    public CompressedBitVectorCellFactory(final BitVectorValue value) {
+        if (value instanceof CompressedBitVectorCell) {
+            m_vector = ((CompressedBitVectorCell)value).getBitVectorCopy();
+        } else {
+            m_vector = new CompressedBitVector(value.length());
+            for (long i = value.nextSetBit(0); i >= 0; i = value.nextSetBit(i + 1)) {
+                m_vector.set(i);
+            }
+        }
+    }
+
+    /**
+     * Initializes the created bit vector from the hex representation in the passed string. Only characters
+     * <code>'0' - '9'</code> and <code>'A' - 'F'</code> are allowed. The character at string position
+     * <code>(length - 1)</code> represents the bits with index 0 to 3 in the vector. The character at position 0
+     * represents the bits with the highest indices. The length of the vector created is the length of the string times
+     * 4 (as each character represents four bits).
+     *
+     * @param hexString containing the hex value to initialize the vector with
+     * @throws IllegalArgumentException if <code>hexString</code> contains characters other then the hex characters
+     *             (i.e. <code>0 - 9, A - F</code>)
+     */
+    public CompressedBitVectorCellFactory(final String hexString) {
+        m_vector = new CompressedBitVector(hexString);
+    }
+
+    /**
+     * Sets the bit with the specified index in the vector.
+     *
+     * @param bitIndex the index of the bit to set to one.
+     */
+    @Override
+    public void set(final long bitIndex) {
+        m_vector.set(bitIndex);
+    }
+
+    /**
+     * Sets the bit at the specified index to the new value.
+     *
+     * @param bitIdx the index of the bit to set or clear
+     * @param value if true, the specified bit will be set, otherwise it will be cleared.
+     * @throws ArrayIndexOutOfBoundsException if the index is negative or larger than the size of the vector
+     */
+    @Override
+    public void set(final long bitIdx, final boolean value) {
+        m_vector.set(bitIdx, value);
+    }
+
+    /**
+     * Clears the bit with the specified index in the vector.
+     *
+     * @param bitIndex the index of the bit to set to zero.
+     */
+    @Override
+    public void clear(final long bitIndex) {
+        m_vector.clear(bitIndex);
+    }
+
+    /**
+     * Creates a {@link DataCell} from the currently stored bit vector.
+     *
+     * @return a {@link DataCell} containing the current value of the vector
+     */
+    @Override
+    public CompressedBitVectorCell createDataCell() {
+        return new CompressedBitVectorCell(m_vector);
+    }
+
+    /**
+     * Creates a compressed bit vector cell containing the result of the AND operation on the passed operands. The
+     * length of the result vector is the maximum of the lengths of the operands.<br>
+     * NOTE: This method performs best if the two arguments are both {@link CompressedBitVectorCell}s, in which case
+     * entire chunks are combined. All other implementations are accessed through nextSetBit/get.
+     *
+     * @param bv1 the first operand to AND with the other
+     * @param bv2 the other operand to AND with the first one
+     * @return the result of the AND operation
+     */
+    public static CompressedBitVectorCell and(final BitVectorValue bv1, final BitVectorValue bv2) {
+        if (bv1 instanceof CompressedBitVectorCell && bv2 instanceof CompressedBitVectorCell) {
+            return ((CompressedBitVectorCell)bv1).and((CompressedBitVectorCell)bv2);
+        }
+        CompressedBitVector result = new CompressedBitVector(Math.max(bv1.length(), bv2.length()));
+        long bv1Idx = bv1.nextSetBit(0);
+        long bv2Idx = bv2.nextSetBit(0);
+        while (bv1Idx >= 0 && bv2Idx >= 0) {
+            if (bv1Idx == bv2Idx) {
+                result.set(bv1Idx);
+                bv1Idx = bv1.nextSetBit(bv1Idx + 1);
+                bv2Idx = bv2.nextSetBit(bv2Idx + 1);
+            } else if (bv1Idx < bv2Idx) {
+                bv1Idx = bv1.nextSetBit(bv2Idx);
+            } else {
+                bv2Idx = bv2.nextSetBit(bv1Idx);
+            }
+        }
+        return CompressedBitVectorCell.wrap(result);
+    }
+
+    /**
+     * Creates a compressed bit vector cell containing the result of the OR operation on the passed operands. The
+     * length of the result vector is the maximum of the lengths of the operands.<br>
+     * NOTE: This method performs best if the two arguments are both {@link CompressedBitVectorCell}s, in which case
+     * entire chunks are combined. All other implementations are accessed through nextSetBit.
+     *
+     * @param bv1 the first operand to OR with the other
+     * @param bv2 the other operand to OR with the first one
+     * @return the result of the OR operation
+     */
+    public static CompressedBitVectorCell or(final BitVectorValue bv1, final BitVectorValue bv2) {
+        if (bv1 instanceof CompressedBitVectorCell && bv2 instanceof CompressedBitVectorCell) {
+            return ((CompressedBitVectorCell)bv1).or((CompressedBitVectorCell)bv2);
+        }
+        return merge(bv1, bv2, false);
+    }
+
+    /**
+     * Creates a compressed bit vector cell containing the result of the XOR operation on the passed operands. The
+     * length of the result vector is the maximum of the lengths of the operands.<br>
+     * NOTE: This method performs best if the two arguments are both {@link CompressedBitVectorCell}s, in which case
+     * entire chunks are combined. All other implementations are accessed through nextSetBit.
+     *
+     * @param bv1 the first operand to XOR with the other
+     * @param bv2 the other operand to XOR with the first one
+     * @return the result of the XOR operation
+     */
+    public static CompressedBitVectorCell xor(final BitVectorValue bv1, final BitVectorValue bv2) {
+        if (bv1 instanceof CompressedBitVectorCell && bv2 instanceof CompressedBitVectorCell) {
+            return ((CompressedBitVectorCell)bv1).xor((CompressedBitVectorCell)bv2);
+        }
+        return merge(bv1, bv2, true);
+    }
+
+    /** Merges the set bits of both operands in ascending order, i.e. the result is filled by appending. */
+    private static CompressedBitVectorCell merge(final BitVectorValue bv1, final BitVectorValue bv2,
+        final boolean xor) {
+        CompressedBitVector result = new CompressedBitVector(Math.max(bv1.length(), bv2.length()));
+        long bv1Idx = bv1.nextSetBit(0);
+        long bv2Idx = bv2.nextSetBit(0);
+        while (bv1Idx >= 0 || bv2Idx >= 0) {
+            if (bv2Idx < 0 || (bv1Idx >= 0 && bv1Idx < bv2Idx)) {
+                result.set(bv1Idx);
+                bv1Idx = bv1.nextSetBit(bv1Idx + 1);
+            } else if (bv1Idx < 0 || bv1Idx > bv2Idx) {
+                result.set(bv2Idx);
+                bv2Idx = bv2.nextSetBit(bv2Idx + 1);
+            } else {
+                if (!xor) {
+                    result.set(bv1Idx);
+                }
+                bv1Idx = bv1.nextSetBit(bv1Idx + 1);
+                bv2Idx = bv2.nextSetBit(bv2Idx + 1);
+            }
+        }
+        return CompressedBitVectorCell.wrap(result);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long length() {
+        return m_vector.length();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean get(final long bitIdx) {
+        return m_vector.get(bitIdx);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long nextSetBit(final long startIdx) {
+        return m_vector.nextSetBit(startIdx);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long nextClearBit(final long startIdx) {
+        return m_vector.nextClearBit(startIdx);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long cardinality() {
+        return m_vector.cardinality();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEmpty() {
+        return m_vector.isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toHexString() {
+        return m_vector.toHexString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toBinaryString() {
+        return m_vector.toBinaryString();
+    }
+}
@@ -802,19 +802,18 @@ public DenseBitVector or(final DenseBitVector bv) {
             }
         }
 
-        /*
-         * TODO: Only the intersection of both used address spaces actually
-         * needs to be ORed. The non-intersecting regions (from the one
-         * firstAddr to the firstAddr of the other operand and from the one
-         * lastAddr to the other lastAddr of the other operand) could be just
-         * copied.
-         */
         int startAddr = Math.min(m_firstAddr, bv.m_firstAddr);
         int endAddr = Math.max(m_lastAddr, bv.m_lastAddr);
 
-        for (int i = startAddr; i <= endAddr; i++) {
-            result.m_storage[i] = (i < m_storage.length ?  m_storage[i] : 0)
-                    | (i < bv.m_storage.length ? bv.m_storage[i] : 0);
+        // copy the longer operand and OR the shorter one into it; a loop without
+        // bounds checks in its body can be vectorized by the JIT
+        final DenseBitVector longer = m_storage.length >= bv.m_storage.length ? this : bv;
+        final long[] shorterStorage = longer == this ? bv.m_storage : m_storage;
+        final long[] resultStorage = result.m_storage;
+        System.arraycopy(longer.m_storage, startAddr, resultStorage, startAddr, endAddr - startAddr + 1);
+        final int commonEnd = Math.min(endAddr + 1, shorterStorage.length);
+        for (int i = startAddr; i < commonEnd; i++) {
+            resultStorage[i] |= shorterStorage[i];
         }
         result.m_firstAddr = startAddr;
         result.m_lastAddr = endAddr;
@@ -863,19 +862,17 @@ public DenseBitVector xor(final DenseBitVector bv) {
             }
         }
 
-        /*
-         * TODO: Only the intersection of both used address spaces actually
-         * needs to be XORed. The non-intersecting regions (from the one
-         * firstAddr to the firstAddr of the other operand and from the one
-         * lastAddr to the other lastAddr of the other operand) could be just
-         * copied.
-         */
         int startAddr = Math.min(m_firstAddr, bv.m_firstAddr);
         int endAddr = Math.max(m_lastAddr, bv.m_lastAddr);
 
-        for (int i = startAddr; i <= endAddr; i++) {
-            result.m_storage[i] = (i < m_storage.length ? m_storage[i] : 0)
-                    ^ (i < bv.m_storage.length ? bv.m_storage[i] : 0);
+        // same as in #or: copy the longer operand and XOR the shorter one into it
+        final DenseBitVector longer = m_storage.length >= bv.m_storage.length ? this : bv;
+        final long[] shorterStorage = longer == this ? bv.m_storage : m_storage;
+        final long[] resultStorage = result.m_storage;
+        System.arraycopy(longer.m_storage, startAddr, resultStorage, startAddr, endAddr - startAddr + 1);
+        final int commonEnd = Math.min(endAddr + 1, shorterStorage.length);
+        for (int i = startAddr; i < commonEnd; i++) {
+            resultStorage[i] ^= shorterStorage[i];
         }
         result.m_firstAddr = result.findFirstBitAddress();
         result.m_lastAddr = result.findLastBitAddress();
@@ -1296,4 +1293,43 @@ long cardinalityOfRelativeComplement(final DenseBitVector bitVector) {
         }
         return result;
     }
+
+    /**
+     * Computes a similarity measure in a single pass over both vectors, counting the ones of both vectors and of
+     * their intersection without creating intermediate vectors.
+     *
+     * @see BitVectorUtil#similarity(BitVectorValue, BitVectorValue, BitVectorSimilarity)
+     * @param bitVector the other operand
+     * @param measure the similarity measure
+     * @return the similarity
+     */
+    double similarity(final DenseBitVector bitVector, final BitVectorSimilarity measure) {
+        if (isEmpty() || bitVector.isEmpty()) {
+            return measure.similarity(cardinality(), bitVector.cardinality(), 0);
+        }
+        final long[] storage1 = m_storage;
+        final long[] storage2 = bitVector.m_storage;
+        // words outside [startAddr, endAddr) are zero in both vectors
+        final int startAddr = Math.min(m_firstAddr, bitVector.m_firstAddr);
+        final int endAddr = Math.max(m_lastAddr, bitVector.m_lastAddr) + 1;
+        final int commonEnd = Math.min(endAddr, Math.min(storage1.length, storage2.length));
+        long intersection = 0;
+        long cardinality1 = 0;
+        long cardinality2 = 0;
+        for (int i = startAddr; i < commonEnd; i++) {
+            final long word1 = storage1[i];
+            final long word2 = storage2[i];
+            intersection += Long.bitCount(word1 & word2);
+            cardinality1 += Long.bitCount(word1);
+            cardinality2 += Long.bitCount(word2);
+        }
+        // at most one of the vectors has words beyond the common range
+        for (int i = Math.max(startAddr, commonEnd), end = Math.min(endAddr, storage1.length); i < end; i++) {
+            cardinality1 += Long.bitCount(storage1[i]);
+        }
+        for (int i = Math.max(startAddr, commonEnd), end = Math.min(endAddr, storage2.length); i < end; i++) {
+            cardinality2 += Long.bitCount(storage2[i]);
+        }
+        return measure.similarity(cardinality1, cardinality2, intersection);
+    }
 }
@@ -224,6 +224,16 @@ long cardinalityOfRelativeComplement(final DenseBitVectorCell bitVectorCell) {
         return m_bitVector.cardinalityOfRelativeComplement(bitVectorCell.m_bitVector);
     }
 
+    /**
+     * @see BitVectorUtil#similarity(BitVectorValue, BitVectorValue, BitVectorSimilarity)
+     * @param bitVectorCell the other cell containing the operand
+     * @param measure the similarity measure
+     * @return the similarity
+     */
+    double similarity(final DenseBitVectorCell bitVectorCell, final BitVectorSimilarity measure) {
+        return m_bitVector.similarity(bitVectorCell.m_bitVector, measure);
+    }
+
     /**
      * Factory for {@link DenseBitVectorCell}s.
      *
@@ -1017,12 +1017,17 @@ long cardinalityOfIntersection(final SparseBitVector bitVector) {
         long result = 0;
         int thisIdx = 0;
         int bvIdx = 0;
+        final long[] thisStorage = m_idxStorage;
+        final long[] bvStorage = bitVector.m_idxStorage;
         while (thisIdx <= m_lastIdx && bvIdx <= bitVector.m_lastIdx) {
-            if (m_idxStorage[thisIdx] == bitVector.m_idxStorage[bvIdx]) {
-                // index is set in both arguments
+            final long thisBit = thisStorage[thisIdx];
+            final long bvBit = bvStorage[bvIdx];
+            if (thisBit == bvBit) {
+                // index is set in both arguments, advance both
                 result++;
-            }
-            if (m_idxStorage[thisIdx] < bitVector.m_idxStorage[bvIdx]) {
+                thisIdx++;
+                bvIdx++;
+            } else if (thisBit < bvBit) {
                 thisIdx++;
             } else {
                 bvIdx++;
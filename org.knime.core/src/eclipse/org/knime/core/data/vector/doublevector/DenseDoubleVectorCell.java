@@ -48,6 +48,8 @@
 package org.knime.core.data.vector.doublevector;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.stream.IntStream;
@@ -100,6 +102,23 @@ public double getValue(final int index) {
         return m_doubleVector[index];
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void copyValues(final int srcIndex, final double[] dest, final int destIndex, final int length) {
+        System.arraycopy(m_doubleVector, srcIndex, dest, destIndex, length);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DoubleBuffer getValues() {
+        return DoubleBuffer.wrap(m_doubleVector).asReadOnlyBuffer();
+    }
+
+    /** @return the underlying array, must not be modified. */
+    double[] getArray() {
+        return m_doubleVector;
+    }
+
     /* ########################
      * CollectionDataValue
      * ######################## */
@@ -168,19 +187,20 @@ public static final class DenseDoubleVectorSerializer implements DataCellSeriali
         public void serialize(final DenseDoubleVectorCell cell, final DataCellDataOutput out) throws IOException {
             double[] cnts = cell.m_doubleVector;
             out.writeInt(cnts.length);
-            for (int i = 0; i < cnts.length; i++) {
-                out.writeDouble(cnts[i]);
-            }
+            // same format as writeDouble for each element, but a single write
+            ByteBuffer bytes = ByteBuffer.allocate(cnts.length * Double.BYTES);
+            bytes.asDoubleBuffer().put(cnts);
+            out.write(bytes.array());
         }
 
         /** {@inheritDoc} */
         @Override
         public DenseDoubleVectorCell deserialize(final DataCellDataInput input) throws IOException {
             int arrayLength = input.readInt();
+            byte[] bytes = new byte[arrayLength * Double.BYTES];
+            input.readFully(bytes);
             double[] vector = new double[arrayLength];
-            for (int i = 0; i < arrayLength; i++) {
-                vector[i] = input.readDouble();
-            }
+            ByteBuffer.wrap(bytes).asDoubleBuffer().get(vector);
             return new DenseDoubleVectorCell(vector);
         }
     }
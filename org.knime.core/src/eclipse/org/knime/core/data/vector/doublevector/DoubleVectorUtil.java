@@ -0,0 +1,319 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.vector.doublevector;
+
+import org.knime.core.node.util.CheckUtils;
+
+/**
+ * Vector arithmetic on {@link DoubleVectorValue}s, e.g. for distance computations in nearest neighbor searches. None
+ * of the methods allocates memory; {@link DenseDoubleVectorCell}s are processed directly on their backing arrays, all
+ * other implementations through {@link DoubleVectorValue#getValue(int)}.
+ *
+ * <p>
+ * The sums are accumulated in several independent partial sums, which lets the CPU work on multiple elements at once.
+ * The results may therefore differ in the last bits from a strictly sequential summation.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.8
+ */
+public final class DoubleVectorUtil {
+
+    private static final String NPE_MESSAGE = "Given DoubleVectorValues may not be null!";
+
+    private DoubleVectorUtil() {
+    }
+
+    /**
+     * Computes the dot product of the given vectors.
+     *
+     * @param v1 the first vector
+     * @param v2 the second vector
+     * @return the dot product
+     * @throws NullPointerException if any argument is <code>null</code>
+     * @throws IllegalArgumentException if the vectors have different lengths
+     */
+    public static double dot(final DoubleVectorValue v1, final DoubleVectorValue v2) {
+        checkLengths(v1, v2);
+        if (v1 instanceof DenseDoubleVectorCell && v2 instanceof DenseDoubleVectorCell) {
+            return dot(((DenseDoubleVectorCell)v1).getArray(), ((DenseDoubleVectorCell)v2).getArray());
+        }
+        double sum = 0;
+        for (int i = 0, length = v1.getLength(); i < length; i++) {
+            sum += v1.getValue(i) * v2.getValue(i);
+        }
+        return sum;
+    }
+
+    /**
+     * Computes the dot product of the given arrays.
+     *
+     * @param a1 the first array
+     * @param a2 the second array, at least as long as the first one
+     * @return the dot product
+     */
+    public static double dot(final double[] a1, final double[] a2) {
+        final int length = a1.length;
+        final int blocked = length & ~3;
+        double s0 = 0;
+        double s1 = 0;
+        double s2 = 0;
+        double s3 = 0;
+        for (int i = 0; i < blocked; i += 4) {
+            s0 += a1[i] * a2[i];
+            s1 += a1[i + 1] * a2[i + 1];
+            s2 += a1[i + 2] * a2[i + 2];
+            s3 += a1[i + 3] * a2[i + 3];
+        }
+        for (int i = blocked; i < length; i++) {
+            s0 += a1[i] * a2[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Computes the (L2) norm of the given vector.
+     *
+     * @param v the vector
+     * @return the euclidean length of the vector
+     * @throws NullPointerException if the argument is <code>null</code>
+     */
+    public static double norm(final DoubleVectorValue v) {
+        CheckUtils.checkNotNull(v, NPE_MESSAGE);
+        if (v instanceof DenseDoubleVectorCell) {
+            double[] a = ((DenseDoubleVectorCell)v).getArray();
+            return Math.sqrt(dot(a, a));
+        }
+        double sum = 0;
+        for (int i = 0, length = v.getLength(); i < length; i++) {
+            double d = v.getValue(i);
+            sum += d * d;
+        }
+        return Math.sqrt(sum);
+    }
+
+    /**
+     * Computes the squared euclidean (L2) distance of the given vectors. Use this instead of
+     * {@link #euclideanDistance(DoubleVectorValue, DoubleVectorValue)} if only distances are compared.
+     *
+     * @param v1 the first vector
+     * @param v2 the second vector
+     * @return the squared euclidean distance
+     * @throws NullPointerException if any argument is <code>null</code>
+     * @throws IllegalArgumentException if the vectors have different lengths
+     */
+    public static double squaredEuclideanDistance(final DoubleVectorValue v1, final DoubleVectorValue v2) {
+        checkLengths(v1, v2);
+        if (v1 instanceof DenseDoubleVectorCell && v2 instanceof DenseDoubleVectorCell) {
+            return squaredEuclideanDistance(((DenseDoubleVectorCell)v1).getArray(),
+                ((DenseDoubleVectorCell)v2).getArray());
+        }
+        double sum = 0;
+        for (int i = 0, length = v1.getLength(); i < length; i++) {
+            double d = v1.getValue(i) - v2.getValue(i);
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    /**
+     * Computes the squared euclidean (L2) distance of the given arrays.
+     *
+     * @param a1 the first array
+     * @param a2 the second array, at least as long as the first one
+     * @return the squared euclidean distance
+     */
+    public static double squaredEuclideanDistance(final double[] a1, final double[] a2) {
+        final int length = a1.length;
+        final int blocked = length & ~3;
+        double s0 = 0;
+        double s1 = 0;
+        double s2 = 0;
+        double s3 = 0;
+        for (int i = 0; i < blocked; i += 4) {
+            double d0 = a1[i] - a2[i];
+            double d1 = a1[i + 1] - a2[i + 1];
+            double d2 = a1[i + 2] - a2[i + 2];
+            double d3 = a1[i + 3] - a2[i + 3];
+            s0 += d0 * d0;
+            s1 += d1 * d1;
+            s2 += d2 * d2;
+            s3 += d3 * d3;
+        }
+        for (int i = blocked; i < length; i++) {
+            double d = a1[i] - a2[i];
+            s0 += d * d;
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Computes the euclidean (L2) distance of the given vectors.
+     *
+     * @param v1 the first vector
+     * @param v2 the second vector
+     * @return the euclidean distance
+     * @throws NullPointerException if any argument is <code>null</code>
+     * @throws IllegalArgumentException if the vectors have different lengths
+     */
+    public static double euclideanDistance(final DoubleVectorValue v1, final DoubleVectorValue v2) {
+        return Math.sqrt(squaredEuclideanDistance(v1, v2));
+    }
+
+    /**
+     * Computes the manhattan (L1) distance of the given vectors.
+     *
+     * @param v1 the first vector
+     * @param v2 the second vector
+     * @return the manhattan distance
+     * @throws NullPointerException if any argument is <code>null</code>
+     * @throws IllegalArgumentException if the vectors have different lengths
+     */
+    public static double manhattanDistance(final DoubleVectorValue v1, final DoubleVectorValue v2) {
+        checkLengths(v1, v2);
+        if (v1 instanceof DenseDoubleVectorCell && v2 instanceof DenseDoubleVectorCell) {
+            return manhattanDistance(((DenseDoubleVectorCell)v1).getArray(), ((DenseDoubleVectorCell)v2).getArray());
+        }
+        double sum = 0;
+        for (int i = 0, length = v1.getLength(); i < length; i++) {
+            sum += Math.abs(v1.getValue(i) - v2.getValue(i));
+        }
+        return sum;
+    }
+
+    /**
+     * Computes the manhattan (L1) distance of the given arrays.
+     *
+     * @param a1 the first array
+     * @param a2 the second array, at least as long as the first one
+     * @return the manhattan distance
+     */
+    public static double manhattanDistance(final double[] a1, final double[] a2) {
+        final int length = a1.length;
+        final int blocked = length & ~3;
+        double s0 = 0;
+        double s1 = 0;
+        double s2 = 0;
+        double s3 = 0;
+        for (int i = 0; i < blocked; i += 4) {
+            s0 += Math.abs(a1[i] - a2[i]);
+            s1 += Math.abs(a1[i + 1] - a2[i + 1]);
+            s2 += Math.abs(a1[i + 2] - a2[i + 2]);
+            s3 += Math.abs(a1[i + 3] - a2[i + 3]);
+        }
+        for (int i = blocked; i < length; i++) {
+            s0 += Math.abs(a1[i] - a2[i]);
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Computes the dot product of a query vector and each of the given vectors.
+     *
+     * @param query the query vector
+     * @param vectors the vectors to multiply the query with
+     * @param result the array the results are written to, at least as long as <code>vectors</code>
+     * @throws NullPointerException if any argument or vector is <code>null</code>
+     * @throws IllegalArgumentException if the result array is too short or a vector has a different length than the
+     *             query
+     */
+    public static void dots(final DoubleVectorValue query, final DoubleVectorValue[] vectors, final double[] result) {
+        checkBatch(query, vectors, result);
+        for (int i = 0; i < vectors.length; i++) {
+            result[i] = dot(query, vectors[i]);
+        }
+    }
+
+    /**
+     * Computes the euclidean (L2) distance of a query vector to each of the given vectors.
+     *
+     * @param query the query vector
+     * @param vectors the vectors to compute the distance to
+     * @param result the array the distances are written to, at least as long as <code>vectors</code>
+     * @throws NullPointerException if any argument or vector is <code>null</code>
+     * @throws IllegalArgumentException if the result array is too short or a vector has a different length than the
+     *             query
+     */
+    public static void euclideanDistances(final DoubleVectorValue query, final DoubleVectorValue[] vectors,
+        final double[] result) {
+        checkBatch(query, vectors, result);
+        for (int i = 0; i < vectors.length; i++) {
+            result[i] = euclideanDistance(query, vectors[i]);
+        }
+    }
+
+    /**
+     * Computes the manhattan (L1) distance of a query vector to each of the given vectors.
+     *
+     * @param query the query vector
+     * @param vectors the vectors to compute the distance to
+     * @param result the array the distances are written to, at least as long as <code>vectors</code>
+     * @throws NullPointerException if any argument or vector is <code>null</code>
+     * @throws IllegalArgumentException if the result array is too short or a vector has a different length than the
+     *             query
+     */
+    public static void manhattanDistances(final DoubleVectorValue query, final DoubleVectorValue[] vectors,
+        final double[] result) {
+        checkBatch(query, vectors, result);
+        for (int i = 0; i < vectors.length; i++) {
+            result[i] = manhattanDistance(query, vectors[i]);
+        }
+    }
+
+    private static void checkLengths(final DoubleVectorValue v1, final DoubleVectorValue v2) {
+        CheckUtils.checkNotNull(v1, NPE_MESSAGE);
+        CheckUtils.checkNotNull(v2, NPE_MESSAGE);
+        CheckUtils.checkArgument(v1.getLength() == v2.getLength(), "Vectors have different lengths: %d vs. %d",
+            v1.getLength(), v2.getLength());
+    }
+
+    private static void checkBatch(final DoubleVectorValue query, final DoubleVectorValue[] vectors,
+        final double[] result) {
+        CheckUtils.checkNotNull(query, NPE_MESSAGE);
+        CheckUtils.checkNotNull(vectors, NPE_MESSAGE);
+        CheckUtils.checkArgument(result.length >= vectors.length, "Result array too short: %d < %d", result.length,
+            vectors.length);
+    }
+}
@@ -48,6 +48,8 @@
  */
 package org.knime.core.data.vector.doublevector;
 
+import java.nio.DoubleBuffer;
+
 import javax.swing.Icon;
 
 import org.knime.core.data.DataValue;
@@ -79,6 +81,37 @@ public interface DoubleVectorValue extends DataValue {
      */
     public double getValue(final int index);
 
+    /** Copies a range of values into the given array. The default implementation calls {@link #getValue(int)} for
+     * each value, implementations backed by an array override it with a bulk copy.
+     * @param srcIndex The index of the first value to copy.
+     * @param dest The array to copy to.
+     * @param destIndex The index of the first value in the destination array.
+     * @param length The number of values to copy.
+     * @throws IndexOutOfBoundsException if a range is invalid
+     * @since 3.8
+     */
+    public default void copyValues(final int srcIndex, final double[] dest, final int destIndex, final int length) {
+        if (srcIndex < 0 || destIndex < 0 || length < 0 || srcIndex + length > getLength()
+            || destIndex + length > dest.length) {
+            throw new IndexOutOfBoundsException("Invalid range: source index " + srcIndex + ", destination index "
+                + destIndex + ", length " + length);
+        }
+        for (int i = 0; i < length; i++) {
+            dest[destIndex + i] = getValue(srcIndex + i);
+        }
+    }
+
+    /** A read-only buffer containing all values of this vector. The default implementation copies the values,
+     * implementations backed by an array return a view of the array without copying.
+     * @return A read-only buffer, positioned at 0 with a limit of {@link #getLength()}.
+     * @since 3.8
+     */
+    public default DoubleBuffer getValues() {
+        double[] values = new double[getLength()];
+        copyValues(0, values, 0, values.length);
+        return DoubleBuffer.wrap(values).asReadOnlyBuffer();
+    }
+
     /** Implementations of the meta information of this value class. */
     class DoubleVectorUtilityFactory extends ExtensibleUtilityFactory {
         /** Singleton icon to be used to display this cell type. */
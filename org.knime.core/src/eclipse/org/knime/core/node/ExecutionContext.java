@@ -524,6 +524,33 @@ public BufferedDataTable createConcatenateTable(final ExecutionMonitor exec,
         return out;
     }
 
+    /**
+     * Creates a new {@link BufferedDataTable}, which is row-wise concatenation of the argument tables, appending the
+     * separator and the index of the input table to all row keys (e.g. "Row0#3" for row "Row0" of the fourth table,
+     * using "#" as separator). Columns are merged as described in
+     * {@link #createConcatenateTable(ExecutionMonitor, BufferedDataTable...)}.
+     *
+     * <p>
+     * As the resulting keys are unique by construction, the input tables are neither scanned nor copied; the new keys
+     * are computed when the table is iterated. The input tables can be iterated in parallel, see
+     * {@link ConcatenateTable#partitionIterator(int)}. This is the preferred way to collect many intermediate tables,
+     * for instance the results of the iterations of a loop.
+     *
+     * @param tableKeySeparator the separator of row key and table index, must not end with a digit
+     * @param tables An array of tables to concatenate, must not be <code>null</code> or empty.
+     * @return The concatenated table.
+     * @throws IllegalArgumentException If the separator is empty or ends with a digit or the array is empty.
+     * @throws NullPointerException If any argument is <code>null</code>.
+     * @since 3.8
+     */
+    public BufferedDataTable createConcatenateTableWithTableKeySuffix(final String tableKeySeparator,
+        final BufferedDataTable... tables) {
+        ConcatenateTable t = ConcatenateTable.createWithTableKeySuffix(tableKeySeparator, tables);
+        BufferedDataTable out = new BufferedDataTable(t, getDataRepository());
+        out.setOwnerRecursively(m_node);
+        return out;
+    }
+
     /**
      * Creates a new {@link BufferedDataTable} that is a column based join of
      * the argument tables. The <code>left</code> table argument contributes
@@ -155,6 +155,49 @@ public final class KNIMEConstants {
      */
     public static final String PROPERTY_MIN_FREE_DISC_SPACE_IN_TEMP_IN_MB = "org.knime.container.minspace.temp";
 
+    /** Java property to write the row keys of newly created tables in a compact encoding (shared prefix and index
+     * delta for keys such as <i>Row0, Row1, ...</i>), which makes tables with many rows smaller and faster to write
+     * and read. Tables written with compact row keys cannot be read by versions prior to 3.8. Default is false.
+     * @since 3.8
+     */
+    public static final String PROPERTY_COMPACT_ROW_KEYS = "knime.container.compactrowkeys";
+
+    /** Java property to enable content-addressed file stores. If enabled, file stores that are copied into a node's
+     * file store handler (for instance when file stores created in a loop body are collected by the loop end) are
+     * hashed and file stores with identical content are stored only once and shared by all cells referencing them.
+     * Default is false.
+     * @since 3.8
+     */
+    public static final String PROPERTY_FILESTORE_CONTENT_ADDRESSED = "knime.filestore.contentaddressed";
+
+    /** Java property to store the blobs of newly created tables in one pack file per column rather than in one file
+     * per blob, which reduces the number of files for tables with many small blobs and speeds up saving, copying and
+     * deleting them. Tables with packed blobs cannot be read by versions prior to 3.8. Default is false.
+     * @since 3.8
+     */
+    public static final String PROPERTY_PACKED_BLOBS = "knime.blobs.packed";
+
+    /** Java property to serialize and compress the blobs of newly created tables on background threads. The blob
+     * writes of a table are batched and written in the background, the table waits for all of them when it is closed.
+     * Default is false.
+     * @since 3.8
+     */
+    public static final String PROPERTY_ASYNC_BLOB_WRITE = "knime.blobs.asyncwrite";
+
+    /** Java property to set the maximum size (in MB) of the cache of blob cells that were read from disk. The cache is
+     * shared by all tables. Default is 1/16 of the maximum heap size, but at most 256MB.
+     * @since 3.8
+     */
+    public static final String PROPERTY_BLOB_CACHE_SIZE = "knime.blobs.cachesize";
+
+    /** Java property to let {@link org.knime.core.data.collection.CollectionCellFactory} create lists whose elements
+     * are all doubles, integers or longs as cells backed by a primitive array, which are much smaller and faster to
+     * serialize. Their type is identical to other lists of the same element type, but tables containing them cannot be
+     * read by versions prior to 3.8. Default is false.
+     * @since 3.8
+     */
+    public static final String PROPERTY_PRIMITIVE_LIST_CELLS = "knime.collection.primitivelists";
+
     /**
      * Java property name to specify the strategy for keeping tables in memory and writing tables to disk. Current
      * options are {@code LRU} and {@code SMALL}. If {@code LRU} is selected, tables of any size will be cached and
@@ -284,6 +327,65 @@ public final class KNIMEConstants {
      * @since 2.8 */
     public static final String PROPERTY_DATABASE_CONCURRENCY = "knime.database.enable.concurrency";
 
+    /** Java property to enable pooling of database connections. If enabled, statements executed via the connection
+     * settings borrow one of several connections per database and user and may run concurrently. Consecutive
+     * statements may run on different physical connections, hence pooling must not be enabled if workflows rely on
+     * session state such as temporary tables, session variables or in-memory databases. Default is false, that is all
+     * statements share a single connection.
+     * @since 3.8 */
+    public static final String PROPERTY_DATABASE_POOL_ENABLED = "knime.database.pool.enabled";
+
+    /** Java property to set the maximum number of pooled connections per database and user if pooling is enabled
+     * (see {@link #PROPERTY_DATABASE_POOL_ENABLED}). Default is 16; 0 disables pooling.
+     * @since 3.8 */
+    public static final String PROPERTY_DATABASE_POOL_MAXSIZE = "knime.database.pool.maxsize";
+
+    /** Java property to set the number of pooled connections per database and user that are kept open even if idle.
+     * Default is 0.
+     * @since 3.8 */
+    public static final String PROPERTY_DATABASE_POOL_MINSIZE = "knime.database.pool.minsize";
+
+    /** Java property to set the time in seconds after which idle pooled database connections are closed.
+     * Default is 300.
+     * @since 3.8 */
+    public static final String PROPERTY_DATABASE_POOL_IDLE_TIMEOUT = "knime.database.pool.idletimeout";
+
+    /** Java property to set the time in seconds after which a borrowed database connection is reported as possible
+     * connection leak. Default is 600; 0 disables leak detection.
+     * @since 3.8 */
+    public static final String PROPERTY_DATABASE_POOL_LEAK_TIMEOUT = "knime.database.pool.leaktimeout";
+
+    /** Java property to set the maximum time in seconds to wait for a pooled database connection if all connections
+     * are in use. Default is 300.
+     * @since 3.8 */
+    public static final String PROPERTY_DATABASE_POOL_BORROW_TIMEOUT = "knime.database.pool.borrowtimeout";
+
+    /** Java property to switch on/off reading database rows on a background thread while the previous rows are
+     * written into the table. Default is true.
+     * @since 3.8 */
+    public static final String PROPERTY_DATABASE_PREFETCH = "knime.database.prefetch";
+
+    /** Java property to enable bulk loading (e.g. COPY or LOAD DATA) when writing into databases that support it.
+     * Default is false.
+     * @since 3.8 */
+    public static final String PROPERTY_DATABASE_BULK_LOAD = "knime.database.bulkload";
+
+    /** Java property to set the time in seconds for which result specs and metadata of database queries are cached
+     * per connection. Default is 60; 0 disables the cache.
+     * @since 3.8 */
+    public static final String PROPERTY_DATABASE_METADATA_CACHE_TTL = "knime.database.metadata.cachettl";
+
+    /** Java property to enable materializing the results of in-database queries in tables that are reused by
+     * downstream nodes of the same workflow. Default is false.
+     * @since 3.8 */
+    public static final String PROPERTY_DATABASE_MATERIALIZE = "knime.database.materialize";
+
+    /** Java property to set the number of pivot value combinations or bins above which in-database pivoting and
+     * binning join the input against a generated table instead of creating one expression per value. Default is 0,
+     * which disables set-based statements.
+     * @since 3.8 */
+    public static final String PROPERTY_DATABASE_SET_BASED_THRESHOLD = "knime.database.setbasedthreshold";
+
     /** @deprecated Use #PROPERTY_DATABASE_FETCHSIZE instead. */
     @Deprecated
     // obsolete as of v2.3
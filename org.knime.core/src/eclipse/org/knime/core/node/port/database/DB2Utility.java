@@ -82,6 +82,14 @@ public String randomRows(final String sql, final long count) {
             return sql + " ORDER BY rand() FETCH FIRST " + count + " ROWS ONLY";
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected String selectLiterals(final String selectList) {
+            return "SELECT " + selectList + " FROM SYSIBM.SYSDUMMY1";
+        }
+
 
         /**
          * {@inheritDoc}
@@ -0,0 +1,264 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.knime.core.node.port.database.connection.DBMetadataCache;
+import org.knime.core.node.workflow.CredentialsProvider;
+import org.knime.core.util.Pair;
+
+/**
+ * Approximate statistics of the columns of a database query, derived from a random sample of the query's result
+ * that is fetched with a single statement (see {@link StatementManipulator#getColumnSampleStatement(String, String[],
+ * long)}). The statistics provide quantiles to derive equal-frequency bin boundaries for in-database binning and the
+ * distinct values to choose pivot values without fetching all distinct values of the columns. Statistics are cached
+ * per connection and query in the {@link DBMetadataCache}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.8
+ */
+public final class DBColumnStatistics {
+
+    /** The default number of rows in the sample. */
+    public static final int DEFAULT_SAMPLE_SIZE = 10000;
+
+    /** The maximum number of distinct values that are kept per column. */
+    static final int MAX_DISTINCT_VALUES = 10000;
+
+    private final int m_sampleSize;
+
+    private final Map<String, double[]> m_numericValues;
+
+    private final Map<String, Set<Object>> m_distinctValues;
+
+    private final Set<String> m_truncated;
+
+    DBColumnStatistics(final int sampleSize, final Map<String, double[]> numericValues,
+        final Map<String, Set<Object>> distinctValues, final Set<String> truncated) {
+        m_sampleSize = sampleSize;
+        m_numericValues = numericValues;
+        m_distinctValues = distinctValues;
+        m_truncated = truncated;
+    }
+
+    /**
+     * Returns the cached statistics of the given columns or samples the query and caches them.
+     *
+     * @param cp {@link CredentialsProvider} providing user/password
+     * @param settings the connection settings
+     * @param query the query whose columns are sampled
+     * @param columns the names of the columns
+     * @param sampleSize the maximum number of rows in the sample
+     * @return the statistics of the columns
+     * @throws SQLException if the columns cannot be sampled
+     */
+    public static DBColumnStatistics get(final CredentialsProvider cp, final DatabaseConnectionSettings settings,
+        final String query, final String[] columns, final int sampleSize) throws SQLException {
+        final StatementManipulator sm = settings.getUtility().getStatementManipulator();
+        return DBMetadataCache.getInstance().getColumnStatistics(cp, settings, query, columns, sampleSize,
+            () -> settings.execute(cp, conn -> load(conn, sm, query, columns, sampleSize)));
+    }
+
+    /**
+     * Samples the given columns of the query.
+     *
+     * @param conn the connection to use
+     * @param sm the statement manipulator of the database
+     * @param query the query whose columns are sampled
+     * @param columns the names of the columns
+     * @param sampleSize the maximum number of rows in the sample
+     * @return the statistics of the columns
+     * @throws SQLException if the columns cannot be sampled
+     */
+    public static DBColumnStatistics load(final Connection conn, final StatementManipulator sm, final String query,
+        final String[] columns, final int sampleSize) throws SQLException {
+        final List<List<Double>> numericValues = new ArrayList<>(columns.length);
+        final List<Set<Object>> distinctValues = new ArrayList<>(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            numericValues.add(new ArrayList<>());
+            distinctValues.add(new LinkedHashSet<>());
+        }
+        final Set<String> truncated = new LinkedHashSet<>();
+        int rows = 0;
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(sm.getColumnSampleStatement(query, columns, sampleSize))) {
+            while (rs.next()) {
+                rows++;
+                for (int i = 0; i < columns.length; i++) {
+                    final Object value = rs.getObject(i + 1);
+                    if (value == null) {
+                        continue;
+                    }
+                    if (value instanceof Number) {
+                        numericValues.get(i).add(((Number)value).doubleValue());
+                    }
+                    final Set<Object> distinct = distinctValues.get(i);
+                    if (distinct.size() < MAX_DISTINCT_VALUES) {
+                        distinct.add(value);
+                    } else if (!distinct.contains(value)) {
+                        truncated.add(columns[i]);
+                    }
+                }
+            }
+        }
+        final Map<String, double[]> numericMap = new HashMap<>();
+        final Map<String, Set<Object>> distinctMap = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            final double[] values = numericValues.get(i).stream().mapToDouble(Double::doubleValue).toArray();
+            Arrays.sort(values);
+            numericMap.put(columns[i], values);
+            distinctMap.put(columns[i], Collections.unmodifiableSet(distinctValues.get(i)));
+        }
+        return new DBColumnStatistics(rows, numericMap, distinctMap, truncated);
+    }
+
+    /**
+     * @return the number of rows in the sample
+     */
+    public int getSampleSize() {
+        return m_sampleSize;
+    }
+
+    /**
+     * @param column the name of the column
+     * @return the distinct non-missing values of the column in the sample, in the order of their first occurrence
+     */
+    public Set<Object> getDistinctValues(final String column) {
+        return getColumn(m_distinctValues, column);
+    }
+
+    /**
+     * @param column the name of the column
+     * @return <code>true</code> if the column has more distinct values in the sample than are kept
+     */
+    public boolean isDistinctValuesTruncated(final String column) {
+        getColumn(m_distinctValues, column);
+        return m_truncated.contains(column);
+    }
+
+    /**
+     * Returns the approximate quantile of a numeric column.
+     *
+     * @param column the name of the column
+     * @param q the quantile between 0 and 1
+     * @return the quantile or {@link Double#NaN} if the sample contains no numeric values of the column
+     */
+    public double getQuantile(final String column, final double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1: " + q);
+        }
+        final double[] values = getColumn(m_numericValues, column);
+        if (values.length == 0) {
+            return Double.NaN;
+        }
+        return values[(int)Math.round(q * (values.length - 1))];
+    }
+
+    /**
+     * Adds approximately equal-frequency bins of a numeric column to the maps that are passed to
+     * {@link StatementManipulator#getBinnerStatement(String, String[], String[], Map, Map, Map, Map)}. The bins
+     * are left-closed and right-open, the first and last bin are unbounded. Bins with identical boundaries are
+     * merged, so fewer bins than requested are created for columns with few distinct values.
+     *
+     * @param column the name of the column
+     * @param numberOfBins the requested number of bins
+     * @param boundariesMap Map containing limits of bins as values
+     * @param boundariesOpenMap Map containing boolean which indicates if edge is open (true) or closed (false)
+     * @param namingMap Map containing names of bins as values
+     * @return the number of created bins
+     */
+    public int addQuantileBins(final String column, final int numberOfBins,
+        final Map<String, List<Pair<Double, Double>>> boundariesMap,
+        final Map<String, List<Pair<Boolean, Boolean>>> boundariesOpenMap, final Map<String, List<String>> namingMap) {
+        if (numberOfBins < 1) {
+            throw new IllegalArgumentException("Number of bins must be positive: " + numberOfBins);
+        }
+        final List<Double> edges = new ArrayList<>();
+        edges.add(Double.NEGATIVE_INFINITY);
+        if (getColumn(m_numericValues, column).length > 0) {
+            for (int i = 1; i < numberOfBins; i++) {
+                final double edge = getQuantile(column, (double)i / numberOfBins);
+                if (edge > edges.get(edges.size() - 1)) {
+                    edges.add(edge);
+                }
+            }
+        }
+        edges.add(Double.POSITIVE_INFINITY);
+
+        final List<Pair<Double, Double>> boundaries = new ArrayList<>(edges.size() - 1);
+        final List<Pair<Boolean, Boolean>> boundariesOpen = new ArrayList<>(edges.size() - 1);
+        final List<String> naming = new ArrayList<>(edges.size() - 1);
+        for (int i = 1; i < edges.size(); i++) {
+            boundaries.add(new Pair<>(edges.get(i - 1), edges.get(i)));
+            boundariesOpen.add(new Pair<>(Boolean.FALSE, Boolean.TRUE));
+            naming.add("Bin " + i);
+        }
+        boundariesMap.put(column, boundaries);
+        boundariesOpenMap.put(column, boundariesOpen);
+        namingMap.put(column, naming);
+        return boundaries.size();
+    }
+
+    private static <T> T getColumn(final Map<String, T> map, final String column) {
+        final T value = map.get(column);
+        if (value == null) {
+            throw new IllegalArgumentException("Column '" + column + "' has not been sampled");
+        }
+        return value;
+    }
+}
@@ -68,6 +68,9 @@
 import org.knime.core.node.config.ConfigWO;
 import org.knime.core.node.port.database.connection.CachedConnectionFactory;
 import org.knime.core.node.port.database.connection.CachedConnectionFactory.ConnectionKey;
+import org.knime.core.node.port.database.connection.DBConnectionFactory;
+import org.knime.core.node.port.database.connection.DBMetadataCache;
+import org.knime.core.node.port.database.connection.PooledDBConnectionFactory;
 import org.knime.core.node.util.CheckUtils;
 import org.knime.core.node.util.StringHistory;
 import org.knime.core.node.workflow.CredentialsProvider;
@@ -654,6 +657,12 @@ private boolean loadConnection(final ConfigRO settings,
      * Executes a block of SQL commands using a valid connection. The method makes sure that the connection
      * passed into the {@link ExecuteStatement} is valid and synchronized if required.
      *
+     * <p>If the connection factory of the utility pools connections (see {@link PooledDBConnectionFactory}, disabled
+     * by default), the statement is executed on a connection exclusively borrowed from the pool, without
+     * synchronization, which allows concurrent statements against the same database. Nested calls of the same thread
+     * use the same connection. The connection is returned to the pool afterwards, open transactions are rolled back,
+     * so the statement must not close the connection nor rely on connection state set by previous statements.
+     *
      * @param cp {@link CredentialsProvider} to use
      * @param stmt the {@link ExecuteStatement} implementation that can use the {@link Connection}
      * @return the return value of the {@link ExecuteStatement}
@@ -662,6 +671,11 @@ private boolean loadConnection(final ConfigRO settings,
      */
     @SuppressWarnings("resource")
     public <T> T execute(final CredentialsProvider cp, final ExecuteStatement<T> stmt) throws SQLException {
+        final DBConnectionFactory connectionFactory = getUtility().getConnectionFactory();
+        if (connectionFactory instanceof PooledDBConnectionFactory
+            && ((PooledDBConnectionFactory)connectionFactory).isPoolingEnabled()) {
+            return executePooled((PooledDBConnectionFactory)connectionFactory, cp, stmt);
+        }
         try {
             for (int i = 1; i <= MAX_CONNECTION_TRIES; i++) {
                 final Connection conn = createConnection(cp);
@@ -693,8 +707,39 @@ public <T> T execute(final CredentialsProvider cp, final ExecuteStatement<T> stm
         throw new SQLException("Maximum number of retries to get a valid connection reached. JDBC URL: " + getJDBCUrl());
     }
 
+    private <T> T executePooled(final PooledDBConnectionFactory connectionFactory, final CredentialsProvider cp,
+        final ExecuteStatement<T> stmt) throws SQLException {
+        try {
+            CheckUtils.checkSettingNotNull(m_driver, "No settings available to create database connection.");
+            CheckUtils.checkSettingNotNull(m_jdbcUrl, "No JDBC URL set.");
+            for (int i = 1; i <= MAX_CONNECTION_TRIES; i++) {
+                try (final Connection conn = connectionFactory.borrowConnection(cp, this)) {
+                    try {
+                        if (conn.isClosed() || !getUtility().isValid(conn)) {
+                            LOGGER.debug("Invalid or closed pooled connection found. Retry counter: " + i
+                                + ". Retry to get valid connection for: " + getJDBCUrl());
+                            continue;
+                        }
+                    } catch (Exception ex) {
+                        LOGGER.debug("Exception: " + ex.getMessage() + " during validation of pooled connection for: "
+                            + getJDBCUrl(), ex);
+                        //continue if an exception is thrown during connection validation
+                        continue;
+                    }
+                    return stmt.apply(conn);
+                }
+            }
+        } catch (Exception ex) {
+            if (ex instanceof SQLException) {
+                throw (SQLException)ex;
+            }
+            throw new SQLException(ex);
+        }
+        throw new SQLException("Maximum number of retries to get a valid connection reached. JDBC URL: " + getJDBCUrl());
+    }
+
     /**
-     * Execute statement on current database connection.
+     * Execute statement on current database connection. Cached metadata of the database is invalidated afterwards.
      * @param statement to be executed
      * @param cp {@link CredentialsProvider} providing user/password
      * @throws SQLException {@link SQLException}
@@ -721,6 +766,8 @@ public void execute(final String statement, final CredentialsProvider cp)
                 throw ex;
             }
         });
+        // the statement may have created, dropped or altered tables
+        DBMetadataCache.getInstance().invalidate(cp, this);
     }
 
     private static final Set<Class<? extends Connection>> AUTOCOMMIT_EXCEPTIONS =
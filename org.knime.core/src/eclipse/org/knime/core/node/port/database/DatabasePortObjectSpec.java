@@ -45,6 +45,7 @@
 package org.knime.core.node.port.database;
 
 import java.io.IOException;
+import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.zip.ZipEntry;
 
@@ -58,6 +59,8 @@
 import org.knime.core.node.ModelContentRO;
 import org.knime.core.node.port.PortObjectSpecZipInputStream;
 import org.knime.core.node.port.PortObjectSpecZipOutputStream;
+import org.knime.core.node.port.database.connection.DBMaterializationCache;
+import org.knime.core.node.port.database.connection.DBMetadataCache;
 import org.knime.core.node.workflow.CredentialsProvider;
 import org.knime.core.node.workflow.DataTableSpecView;
 
@@ -141,6 +144,34 @@ public DatabasePortObjectSpec(final DataTableSpec spec,
         m_spec = spec;
     }
 
+    /**
+     * Creates a new database port object spec with the result spec of the query. The result spec is taken from the
+     * {@link DBMetadataCache} if the same query has been analyzed recently, otherwise it is read from the database.
+     *
+     * @param querySettings database query settings
+     * @param cp {@link CredentialsProvider} providing user/password
+     * @return a new database port object spec
+     * @throws SQLException if the result spec could not be read from the database
+     * @since 3.8
+     */
+    public static DatabasePortObjectSpec create(final DatabaseQueryConnectionSettings querySettings,
+        final CredentialsProvider cp) throws SQLException {
+        final DataTableSpec spec = querySettings.getUtility().getReader(querySettings).getDataTableSpec(cp);
+        return new DatabasePortObjectSpec(spec, querySettings);
+    }
+
+    /**
+     * Removes the cached result spec of the query from the {@link DBMetadataCache}, e.g. if the underlying tables
+     * have been changed outside of KNIME.
+     *
+     * @param cp {@link CredentialsProvider} providing user/password
+     * @throws InvalidSettingsException if the connection settings could not be restored
+     * @since 3.8
+     */
+    public void invalidateCachedSpec(final CredentialsProvider cp) throws InvalidSettingsException {
+        final DatabaseQueryConnectionSettings querySettings = getConnectionSettings(cp);
+        DBMetadataCache.getInstance().invalidate(cp, querySettings, querySettings.getQuery());
+    }
 
     /**
      * @return underlying table spec
@@ -169,6 +200,28 @@ public DatabaseQueryConnectionSettings getConnectionSettings(final CredentialsPr
         return new DatabaseQueryConnectionSettings(super.getConnectionModel(), credProvider);
     }
 
+    /**
+     * Returns the connection settings with a query that reads the materialized result of this spec's query, see
+     * {@link DBMaterializationCache}. Nodes that build their query on top of this one use these settings so that
+     * the nested query is not executed again by every downstream node. If materialization is disabled or this is
+     * not called from a node's execution, the settings with the original query are returned.
+     *
+     * <p>The materialized table belongs to the calling node and is not shared with other nodes materializing the same
+     * query: it is dropped once the calling node has been reset, which is always the case before this spec's node
+     * re-executes, or when the workflow is closed. The returned settings must therefore only be used by the calling
+     * node and the nodes downstream of it, and never be cached beyond its execution.</p>
+     *
+     * @param credProvider {@link CredentialsProvider} providing user/password
+     * @return the connection settings reading the materialized query
+     * @throws InvalidSettingsException if the connection settings could not be restored
+     * @throws SQLException if the query could not be materialized
+     * @since 3.8
+     */
+    public DatabaseQueryConnectionSettings getMaterializedConnectionSettings(final CredentialsProvider credProvider)
+        throws InvalidSettingsException, SQLException {
+        return DBMaterializationCache.getInstance().materialize(getConnectionSettings(credProvider), credProvider);
+    }
+
     private static final String KEY_SPEC = "spec_xml.zip";
 
     /**
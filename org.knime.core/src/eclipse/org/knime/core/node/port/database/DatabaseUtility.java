@@ -70,14 +70,15 @@
 import org.knime.core.node.port.database.aggregation.function.MinDBAggregationFunction;
 import org.knime.core.node.port.database.aggregation.function.SumDBAggregationFunction;
 import org.knime.core.node.port.database.aggregation.function.custom.CustomDBAggregationFunction;
-import org.knime.core.node.port.database.connection.CachedConnectionFactory;
 import org.knime.core.node.port.database.connection.DBConnectionFactory;
 import org.knime.core.node.port.database.connection.DBDriverFactory;
+import org.knime.core.node.port.database.connection.PooledConnectionFactory;
 import org.knime.core.node.port.database.connection.PriorityDriverFactory;
 import org.knime.core.node.port.database.reader.DBReader;
 import org.knime.core.node.port.database.reader.DBReaderImpl;
 import org.knime.core.node.port.database.tablecreator.DBTableCreator;
 import org.knime.core.node.port.database.tablecreator.DBTableCreatorImpl;
+import org.knime.core.node.port.database.writer.DBBulkLoader;
 import org.knime.core.node.port.database.writer.DBWriter;
 import org.knime.core.node.port.database.writer.DBWriterImpl;
 
@@ -210,8 +211,7 @@ public DatabaseUtility(final String dbIdentifier, final StatementManipulator stm
      * @since 3.2 the
      */
     protected DBConnectionFactory createConnectionFactory(final DBDriverFactory df) {
-        //currently we only support the old single connection factory
-         return new CachedConnectionFactory(df);
+        return new PooledConnectionFactory(df);
     }
 
     /**
@@ -386,6 +386,18 @@ public DBWriter getWriter(final DatabaseConnectionSettings connSettings) {
         return new DBWriterImpl(connSettings);
     }
 
+    /**
+     * Returns the loader used by the {@link DBWriter} to load rows with a database specific bulk load mechanism
+     * instead of <code>INSERT</code> statements. The default is <code>null</code>, i.e. the database does not
+     * support bulk loading.
+     *
+     * @return the {@link DBBulkLoader} or <code>null</code>
+     * @since 3.8
+     */
+    public DBBulkLoader getBulkLoader() {
+        return null;
+    }
+
     /**
      * {@link DBConnectionFactory} to use
      * @return {@link DBConnectionFactory}
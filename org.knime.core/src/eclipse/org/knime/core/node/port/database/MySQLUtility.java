@@ -47,6 +47,8 @@
  */
 package org.knime.core.node.port.database;
 
+import java.io.InputStream;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.regex.Matcher;
@@ -66,6 +68,9 @@
 import org.knime.core.node.port.database.aggregation.function.SumDistinctDBAggregationFunction;
 import org.knime.core.node.port.database.aggregation.function.VarPopDBAggregationFunction;
 import org.knime.core.node.port.database.aggregation.function.VarSampDBAggregationFunction;
+import org.knime.core.node.port.database.writer.AbstractCSVBulkLoader;
+import org.knime.core.node.port.database.writer.DBBulkLoadRows;
+import org.knime.core.node.port.database.writer.DBBulkLoader;
 
 /**
  * Database utility for MySQL.
@@ -177,6 +182,27 @@ public String getSamplingStatement(final String sql, final long valueToLimit, fi
         }
     }
 
+    /** Loads rows with <code>LOAD DATA LOCAL INFILE</code> reading from a stream set on the statement. */
+    private static final class MySQLBulkLoader extends AbstractCSVBulkLoader {
+        @Override
+        public long load(final Connection conn, final String table, final String columnNames,
+            final DBBulkLoadRows rows) throws Exception {
+            // without escape character an unquoted NULL is read as missing value
+            final String sql = "LOAD DATA LOCAL INFILE 'stream' INTO TABLE " + table + " CHARACTER SET utf8"
+                + " FIELDS TERMINATED BY ',' OPTIONALLY ENCLOSED BY '\"' ESCAPED BY ''"
+                + " LINES TERMINATED BY '\\n' " + columnNames;
+            try (Statement stmt = conn.createStatement(); InputStream csv = rows.toCSV("NULL")) {
+                // Connector/J 8 and 5.1
+                final Object mysqlStmt =
+                    unwrap(conn, stmt, "com.mysql.cj.jdbc.JdbcStatement", "com.mysql.jdbc.Statement");
+                invoke(mysqlStmt, "setLocalInfileInputStream", new Class<?>[]{InputStream.class}, csv);
+                return stmt.executeUpdate(sql);
+            }
+        }
+    }
+
+    private static final DBBulkLoader BULK_LOADER = new MySQLBulkLoader();
+
     private static final StatementManipulator MANIPULATOR = new MySQLStatementManipulator();
 
     /**The unique database identifier.
@@ -208,4 +234,13 @@ public boolean supportsRandomSampling() {
     public boolean supportsCase() {
         return true;
     }
+
+    /**
+     * {@inheritDoc}
+     * @since 3.8
+     */
+    @Override
+    public DBBulkLoader getBulkLoader() {
+        return BULK_LOADER;
+    }
 }
@@ -52,13 +52,14 @@
 
 import org.knime.core.node.port.database.connection.CachedConnectionFactory;
 import org.knime.core.node.port.database.connection.DBDriverFactory;
+import org.knime.core.node.port.database.connection.PooledConnectionFactory;
 
 /**
  * Oracle specific {@link CachedConnectionFactory} that only sets user name and password if they are none empty strings.
  * @author Tobias Koetter, KNIME.com
  * @since 3.2
  */
-public class OracleCachedConnectionFactory extends CachedConnectionFactory {
+public class OracleCachedConnectionFactory extends PooledConnectionFactory {
 
     /**
      * @param driverFactory
@@ -132,6 +132,14 @@ public String forMetadataOnly(final String sql) {
             return limitRows(sql, 0);
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected String selectLiterals(final String selectList) {
+            return "SELECT " + selectList + " FROM DUAL";
+        }
+
         /**
          * {@inheritDoc}
          * @deprecated
@@ -47,6 +47,8 @@
  */
 package org.knime.core.node.port.database;
 
+import java.io.InputStream;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
 
@@ -76,6 +78,9 @@
 import org.knime.core.node.port.database.aggregation.function.VarPopDBAggregationFunction;
 import org.knime.core.node.port.database.aggregation.function.VarSampDBAggregationFunction;
 import org.knime.core.node.port.database.aggregation.function.postgresql.ArrayAggDBAggregationFunction;
+import org.knime.core.node.port.database.writer.AbstractCSVBulkLoader;
+import org.knime.core.node.port.database.writer.DBBulkLoadRows;
+import org.knime.core.node.port.database.writer.DBBulkLoader;
 
 /**
  * Database utility for PostgreSQL.
@@ -126,6 +131,23 @@ public String randomRows(final String sql, final long count) {
 
 
 
+    /** Loads rows with <code>COPY ... FROM STDIN</code> via the driver's <code>CopyManager</code>. */
+    private static final class PostgreSQLBulkLoader extends AbstractCSVBulkLoader {
+        @Override
+        public long load(final Connection conn, final String table, final String columnNames,
+            final DBBulkLoadRows rows) throws Exception {
+            final Object pgConn = unwrap(conn, conn, "org.postgresql.PGConnection");
+            final Object copyManager = invoke(pgConn, "getCopyAPI", new Class<?>[0]);
+            // missing values are unquoted empty fields, empty strings are quoted
+            final String sql = "COPY " + table + " " + columnNames + " FROM STDIN WITH (FORMAT csv, ENCODING 'UTF8')";
+            try (InputStream csv = rows.toCSV("")) {
+                return (Long)invoke(copyManager, "copyIn", new Class<?>[]{String.class, InputStream.class}, sql, csv);
+            }
+        }
+    }
+
+    private static final DBBulkLoader BULK_LOADER = new PostgreSQLBulkLoader();
+
     private static final StatementManipulator MANIPULATOR = new PostgreSQLStatementManipulator();
 
     /**The unique database identifier.
@@ -164,4 +186,13 @@ public boolean supportsRandomSampling() {
     public boolean supportsCase() {
         return true;
     }
+
+    /**
+     * {@inheritDoc}
+     * @since 3.8
+     */
+    @Override
+    public DBBulkLoader getBulkLoader() {
+        return BULK_LOADER;
+    }
 }
@@ -47,6 +47,14 @@
  */
 package org.knime.core.node.port.database;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
 import org.knime.core.node.port.database.aggregation.function.AvgDistinctDBAggregationFunction;
 import org.knime.core.node.port.database.aggregation.function.CountDistinctDBAggregationFunction;
 import org.knime.core.node.port.database.aggregation.function.GroupConcatDBAggregationFunction;
@@ -54,6 +62,8 @@
 import org.knime.core.node.port.database.aggregation.function.MinDBAggregationFunction;
 import org.knime.core.node.port.database.aggregation.function.SumDistinctDBAggregationFunction;
 import org.knime.core.node.port.database.aggregation.function.sqlite.TotalDBAggregationFunction;
+import org.knime.core.node.port.database.writer.DBBulkLoadRows;
+import org.knime.core.node.port.database.writer.DBBulkLoader;
 
 /**
  * Database utility for SQLite.
@@ -121,6 +131,78 @@ public String[] createTableAsSelect(final String tableName, final String query)
         }
     }
 
+    /**
+     * SQLite has no bulk load statement, rows are inserted with multi-row <code>INSERT</code> statements which saves
+     * most of the per statement overhead of single row batches.
+     */
+    private static final class SQLiteBulkLoader implements DBBulkLoader {
+        /** The default maximum number of parameters of a statement (SQLITE_MAX_VARIABLE_NUMBER). */
+        private static final int MAX_PARAMETERS = 999;
+
+        private static final int MAX_ROWS = 500;
+
+        @Override
+        public boolean supports(final DataTableSpec spec) {
+            return true;
+        }
+
+        @Override
+        public long load(final Connection conn, final String table, final String columnNames,
+            final DBBulkLoadRows rows) throws Exception {
+            final int numColumns = Math.max(1, rows.getNumColumns());
+            final int rowsPerStatement = Math.max(1, Math.min(MAX_ROWS, MAX_PARAMETERS / numColumns));
+            final List<DataRow> chunk = new ArrayList<>(rowsPerStatement);
+            long count = 0;
+            try (PreparedStatement stmt =
+                conn.prepareStatement(createInsert(table, columnNames, numColumns, rowsPerStatement))) {
+                DataRow row;
+                while ((row = rows.next()) != null) {
+                    chunk.add(row);
+                    if (chunk.size() == rowsPerStatement) {
+                        count += insert(stmt, rows, chunk);
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                try (PreparedStatement stmt =
+                    conn.prepareStatement(createInsert(table, columnNames, numColumns, chunk.size()))) {
+                    count += insert(stmt, rows, chunk);
+                }
+            }
+            return count;
+        }
+
+        private static int insert(final PreparedStatement stmt, final DBBulkLoadRows rows,
+            final List<DataRow> chunk) throws SQLException {
+            int dbIdx = 1;
+            for (DataRow row : chunk) {
+                dbIdx = rows.bind(stmt, dbIdx, row);
+            }
+            chunk.clear();
+            return stmt.executeUpdate();
+        }
+
+        private static String createInsert(final String table, final String columnNames, final int numColumns,
+            final int numRows) {
+            final StringBuilder values = new StringBuilder("(");
+            for (int i = 0; i < numColumns; i++) {
+                values.append(i == 0 ? "?" : ",?");
+            }
+            values.append(')');
+            final StringBuilder buf = new StringBuilder("INSERT INTO ").append(table).append(' ')
+                .append(columnNames).append(" VALUES ");
+            for (int i = 0; i < numRows; i++) {
+                if (i > 0) {
+                    buf.append(',');
+                }
+                buf.append(values);
+            }
+            return buf.toString();
+        }
+    }
+
+    private static final DBBulkLoader BULK_LOADER = new SQLiteBulkLoader();
+
     private static final StatementManipulator MANIPULATOR = new SQLiteStatementManipulator();
 
     /**The unique database identifier.
@@ -141,4 +223,13 @@ public SQLiteUtility() {
     public boolean supportsRandomSampling() {
         return true;
     }
+
+    /**
+     * {@inheritDoc}
+     * @since 3.8
+     */
+    @Override
+    public DBBulkLoader getBulkLoader() {
+        return BULK_LOADER;
+    }
 }
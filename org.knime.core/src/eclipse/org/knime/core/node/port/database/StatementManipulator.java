@@ -57,12 +57,15 @@
 import java.util.regex.Pattern;
 
 import org.knime.core.data.DataColumnSpec;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.port.database.aggregation.DBAggregationFunction;
 import org.knime.core.node.port.database.binning.BinningStatementGenerator;
 import org.knime.core.node.port.database.binning.CaseBinningStatementGenerator;
 import org.knime.core.node.port.database.binning.DefaultBinningStatementGenerator;
+import org.knime.core.node.port.database.binning.JoinBinningStatementGenerator;
 import org.knime.core.node.port.database.pivoting.CasePivotStatementGenerator;
 import org.knime.core.node.port.database.pivoting.DefaultPivotStatementGenerator;
+import org.knime.core.node.port.database.pivoting.JoinPivotStatementGenerator;
 import org.knime.core.node.port.database.pivoting.PivotColumnNameGenerator;
 import org.knime.core.node.port.database.pivoting.PivotStatementGenerator;
 import org.knime.core.util.Pair;
@@ -75,6 +78,13 @@
  * @since 2.10
  */
 public class StatementManipulator {
+    /**
+     * The number of pivot value combinations or bins above which the CASE based generators are replaced by the
+     * set-based ones, 0 disables set-based statements.
+     */
+    private static final int SET_BASED_THRESHOLD =
+        Integer.getInteger(KNIMEConstants.PROPERTY_DATABASE_SET_BASED_THRESHOLD, 0);
+
 
     private final PivotStatementGenerator m_pivot;
 
@@ -162,6 +172,143 @@ public String forMetadataOnly(final String sql) {
         return "SELECT * FROM (" + sql + ") " + getTempTableName() + " WHERE (1 = 0)";
     }
 
+    /**
+     * Returns a statement that returns the given rows of literals, e.g. to join a query against a generated lookup
+     * table. The default implementation combines one {@link #selectLiterals(String)} per row with UNION ALL.
+     *
+     * @param columnNames the names of the columns
+     * @param rows the rows, each containing one SQL literal per column
+     * @return an SQL query
+     * @since 3.8
+     */
+    public String getInlineTableStatement(final String[] columnNames, final List<String[]> rows) {
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("At least one row is required");
+        }
+        final StringBuilder buf = new StringBuilder();
+        for (int r = 0; r < rows.size(); r++) {
+            final String[] row = rows.get(r);
+            final StringBuilder selectList = new StringBuilder();
+            for (int c = 0; c < columnNames.length; c++) {
+                if (c > 0) {
+                    selectList.append(", ");
+                }
+                selectList.append(row[c]);
+                if (r == 0) {
+                    selectList.append(" ").append(quoteIdentifier(columnNames[c]));
+                }
+            }
+            if (r > 0) {
+                buf.append(" UNION ALL ");
+            }
+            buf.append(selectLiterals(selectList.toString()));
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Returns a SELECT statement without a table for the given select list. The default implementation omits the
+     * FROM clause, databases that require one should add their dummy table.
+     *
+     * @param selectList the comma separated literals and their aliases
+     * @return an SQL query returning a single row
+     * @since 3.8
+     */
+    protected String selectLiterals(final String selectList) {
+        return "SELECT " + selectList;
+    }
+
+    /**
+     * Returns a string literal for the given value, single quotes in the value are escaped.
+     *
+     * @param value any value
+     * @return the quoted value
+     * @since 3.8
+     */
+    public String quoteLiteral(final String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    /**
+     * Returns a normalized form of the query that is used as cache key for the query's metadata. Leading and
+     * trailing whitespace and a trailing semicolon are removed and all whitespace outside of quoted literals and
+     * identifiers is collapsed into a single blank, so that queries differing only in formatting share an entry.
+     *
+     * @param sql any valid SQL query
+     * @return the normalized query
+     * @since 3.8
+     */
+    public String normalizeQuery(final String sql) {
+        String trimmed = sql.trim();
+        while (trimmed.endsWith(";")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+        }
+        final StringBuilder buf = new StringBuilder(trimmed.length());
+        char quote = 0;
+        for (int i = 0; i < trimmed.length(); i++) {
+            final char c = trimmed.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+                buf.append(c);
+            } else if (Character.isWhitespace(c)) {
+                if (buf.charAt(buf.length() - 1) != ' ') {
+                    buf.append(' ');
+                }
+            } else {
+                if (c == '\'' || c == '"' || c == '`') {
+                    quote = c;
+                }
+                buf.append(c);
+            }
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Returns a query that computes the minimum and maximum of a column of the given query, used to split the query
+     * into range partitions, see {@link #forPartition(String, String, boolean, boolean)}.
+     *
+     * @param sql any valid SQL query
+     * @param column the name of the numeric or date column (unquoted)
+     * @return an SQL query returning one row with the minimum in the first and the maximum in the second column
+     * @since 3.8
+     */
+    public String forPartitionBounds(final String sql, final String column) {
+        final String col = quoteIdentifier(column);
+        return "SELECT MIN(" + col + "), MAX(" + col + ") FROM (" + sql + ") " + getTempTableName();
+    }
+
+    /**
+     * Modifies the query so that it only returns the rows whose value in the given column is within a range. The
+     * returned query has one parameter per bound of the range: the inclusive lower bound unless it is the first
+     * partition, followed by the exclusive upper bound unless it is the last partition. The first partition also
+     * returns the rows with a missing value in the column. The partitions therefore cover all rows of the query, even
+     * if the bounds are not exactly representable in the type of the column.
+     *
+     * @param sql any valid SQL query
+     * @param column the name of the numeric or date column (unquoted)
+     * @param isFirst <code>true</code> if the range has no lower bound and includes missing values
+     * @param isLast <code>true</code> if the range has no upper bound
+     * @return an SQL query with up to two parameters
+     * @since 3.8
+     */
+    public String forPartition(final String sql, final String column, final boolean isFirst,
+        final boolean isLast) {
+        final String col = quoteIdentifier(column);
+        final StringBuilder buf = new StringBuilder("SELECT * FROM (");
+        buf.append(sql).append(") ").append(getTempTableName());
+        if (isFirst && !isLast) {
+            buf.append(" WHERE ").append(col).append(" < ? OR ").append(col).append(" IS NULL");
+        } else if (!isFirst && isLast) {
+            buf.append(" WHERE ").append(col).append(" >= ?");
+        } else if (!isFirst) {
+            buf.append(" WHERE ").append(col).append(" >= ? AND ").append(col).append(" < ?");
+        }
+        return buf.toString();
+    }
+
     /**
      * @param tableName the name of the table to create
      * @param query the select statement
@@ -283,9 +430,19 @@ protected final String getTempTableName() {
     public String getPivotStatement(final String tableName, final List<String> groupByColumnsList,
         final Map<DataColumnSpec, Set<Object>> pivotElements,
         final List<Pair<String, DBAggregationFunction>> aggValues, final PivotColumnNameGenerator pivotColGenerator) {
-        return m_pivot.getPivotStatement(this, tableName, groupByColumnsList, pivotElements, aggValues, pivotColGenerator);
+        long combinations = 1;
+        for (Set<Object> values : pivotElements.values()) {
+            combinations *= values.size();
+        }
+        final PivotStatementGenerator pivot = m_pivot == CasePivotStatementGenerator.getINSTANCE()
+            && useSetBasedStatement(combinations) ? JoinPivotStatementGenerator.getINSTANCE() : m_pivot;
+        return pivot.getPivotStatement(this, tableName, groupByColumnsList, pivotElements, aggValues, pivotColGenerator);
    }
 
+    private static boolean useSetBasedStatement(final long numberOfValues) {
+        return SET_BASED_THRESHOLD > 0 && numberOfValues > SET_BASED_THRESHOLD;
+    }
+
 
 
     /**
@@ -323,7 +480,36 @@ public String getBinnerStatement(final String query, final String[] includeCols,
         final Map<String, List<Pair<Double, Double>>> boundariesMap,
         final Map<String, List<Pair<Boolean, Boolean>>> boundariesOpenMap, final Map<String, List<String>> namingMap,
         final Map<String, String> appendMap) {
-        return m_binning.getBinnerStatement(this, query, includeCols, excludeCols, boundariesMap, boundariesOpenMap,
+        long bins = 0;
+        for (List<Pair<Double, Double>> boundaries : boundariesMap.values()) {
+            bins += boundaries.size();
+        }
+        final BinningStatementGenerator binning = m_binning == CaseBinningStatementGenerator.getINSTANCE()
+            && useSetBasedStatement(bins) ? JoinBinningStatementGenerator.getINSTANCE() : m_binning;
+        return binning.getBinnerStatement(this, query, includeCols, excludeCols, boundariesMap, boundariesOpenMap,
             namingMap, appendMap);
     }
+
+    /**
+     * Returns a SQL statement that selects a sample of the given columns, which is used to derive approximate column
+     * statistics such as quantiles and distinct values.
+     *
+     * @param query The input query
+     * @param columns the names of the columns to sample
+     * @param sampleSize the maximum number of rows in the sample
+     * @return a SQL statement for sampling the columns
+     * @see DBColumnStatistics
+     * @since 3.8
+     */
+    public String getColumnSampleStatement(final String query, final String[] columns, final long sampleSize) {
+        final StringBuilder buf = new StringBuilder("SELECT ");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                buf.append(", ");
+            }
+            buf.append(quoteIdentifier(columns[i]));
+        }
+        buf.append(" FROM (").append(query).append(") ").append(getTempTableName());
+        return getSamplingStatement(buf.toString(), sampleSize, true);
+    }
 }
@@ -0,0 +1,216 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.binning;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.knime.core.node.port.database.StatementManipulator;
+import org.knime.core.util.Pair;
+
+/**
+ * Class to create a set-based SQL binning statement. Instead of one CASE expression with a branch per bin the input
+ * query is joined against a generated table that contains one row per bin, which keeps the statement small for
+ * columns with many bins.
+ *
+ * <p>Like the CASE expression of the {@link CaseBinningStatementGenerator}, which picks the first matching bin, a
+ * value on an edge that is closed in two bins is assigned to the first of these bins; the edge is opened in the
+ * other bin so that the join doesn't duplicate the row. If the bins of a column overlap in more than an edge the
+ * statement is created by the {@link CaseBinningStatementGenerator} instead.</p>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.8
+ */
+public class JoinBinningStatementGenerator implements BinningStatementGenerator {
+
+    private static final JoinBinningStatementGenerator INSTANCE = new JoinBinningStatementGenerator();
+
+    private static final String[] BIN_TABLE_COLUMNS =
+        new String[]{"knime_lo", "knime_lo_mode", "knime_hi", "knime_hi_mode", "knime_bin"};
+
+    /** The edge is infinite. */
+    private static final String UNBOUNDED = "0";
+
+    /** The edge is open. */
+    private static final String OPEN = "1";
+
+    /** The edge is closed. */
+    private static final String CLOSED = "2";
+
+    /**
+     * @return the iNSTANCE
+     */
+    public static JoinBinningStatementGenerator getINSTANCE() {
+        return INSTANCE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getBinnerStatement(final StatementManipulator sm, final String query, final String[] binnedCols,
+        final String[] additionalCols, final Map<String, List<Pair<Double, Double>>> boundariesMap,
+        final Map<String, List<Pair<Boolean, Boolean>>> boundariesOpenMap, final Map<String, List<String>> namingMap,
+        final Map<String, String> appendMap) {
+
+        if (binnedCols.length == 0) {
+            return query;
+        }
+        for (List<Pair<Double, Double>> boundaries : boundariesMap.values()) {
+            if (overlaps(boundaries)) {
+                // the join would assign a value to several bins
+                return CaseBinningStatementGenerator.getINSTANCE().getBinnerStatement(sm, query, binnedCols,
+                    additionalCols, boundariesMap, boundariesOpenMap, namingMap, appendMap);
+            }
+        }
+
+        final StringBuilder selectQuery = new StringBuilder();
+        selectQuery.append("SELECT ");
+        for (int i = 0; i < additionalCols.length; i++) {
+            selectQuery.append("T." + sm.quoteIdentifier(additionalCols[i]) + ", ");
+        }
+
+        final StringBuilder binQuery = new StringBuilder();
+        final StringBuilder joinQuery = new StringBuilder();
+        int counter = 0;
+        for (String selColumn : boundariesMap.keySet()) {
+            final String appendColumn = appendMap.get(selColumn);
+            if (appendColumn != null) {
+                selectQuery.append("T." + sm.quoteIdentifier(selColumn) + ", ");
+            }
+
+            counter++;
+            final String alias = "B" + counter;
+            binQuery.append(alias).append('.').append(sm.quoteIdentifier(BIN_TABLE_COLUMNS[4])).append(' ')
+                .append(sm.quoteIdentifier(appendColumn != null ? appendColumn : selColumn));
+            if (counter < boundariesMap.size()) {
+                binQuery.append(", ");
+            }
+
+            final String binTable = sm.getInlineTableStatement(BIN_TABLE_COLUMNS, createBinRows(sm,
+                boundariesMap.get(selColumn), boundariesOpenMap.get(selColumn), namingMap.get(selColumn)));
+            joinQuery.append(" LEFT JOIN (").append(binTable).append(") ").append(alias).append(" ON ")
+                .append(createJoinCondition(sm, "T." + sm.quoteIdentifier(selColumn), alias));
+        }
+
+        selectQuery.append(binQuery);
+        selectQuery.append(" FROM (" + query + ") T");
+        selectQuery.append(joinQuery);
+        return selectQuery.toString();
+    }
+
+    /** Returns true if two of the bins overlap in more than an edge. */
+    private static boolean overlaps(final List<Pair<Double, Double>> boundaries) {
+        final List<Pair<Double, Double>> sorted = new ArrayList<>(boundaries);
+        sorted.sort((a, b) -> Double.compare(a.getFirst(), b.getFirst()));
+        double maxUpper = Double.NEGATIVE_INFINITY;
+        for (Pair<Double, Double> bin : sorted) {
+            if (bin.getFirst() < maxUpper) {
+                return true;
+            }
+            maxUpper = Math.max(maxUpper, bin.getSecond());
+        }
+        return false;
+    }
+
+    private static List<String[]> createBinRows(final StatementManipulator sm,
+        final List<Pair<Double, Double>> boundaries, final List<Pair<Boolean, Boolean>> boundariesOpen,
+        final List<String> naming) {
+        // index of the first bin closed at an edge, a later bin closed at the same edge opens it
+        final Map<Double, Integer> firstClosedLower = new HashMap<>();
+        final Map<Double, Integer> firstClosedUpper = new HashMap<>();
+        for (int i = boundaries.size() - 1; i >= 0; i--) {
+            if (!boundariesOpen.get(i).getFirst()) {
+                firstClosedLower.put(boundaries.get(i).getFirst(), i);
+            }
+            if (!boundariesOpen.get(i).getSecond()) {
+                firstClosedUpper.put(boundaries.get(i).getSecond(), i);
+            }
+        }
+        final List<String[]> rows = new ArrayList<>(boundaries.size());
+        for (int i = 0; i < boundaries.size(); i++) {
+            final double lower = boundaries.get(i).getFirst();
+            final double upper = boundaries.get(i).getSecond();
+            final boolean lowerOpen =
+                boundariesOpen.get(i).getFirst() || firstClosedUpper.getOrDefault(lower, i) < i;
+            final boolean upperOpen =
+                boundariesOpen.get(i).getSecond() || firstClosedLower.getOrDefault(upper, i) < i;
+            final String[] row = new String[BIN_TABLE_COLUMNS.length];
+            if (lower == Double.NEGATIVE_INFINITY) {
+                row[0] = "0.0";
+                row[1] = UNBOUNDED;
+            } else {
+                row[0] = Double.toString(lower);
+                row[1] = lowerOpen ? OPEN : CLOSED;
+            }
+            if (upper == Double.POSITIVE_INFINITY) {
+                row[2] = "0.0";
+                row[3] = UNBOUNDED;
+            } else {
+                row[2] = Double.toString(upper);
+                row[3] = upperOpen ? OPEN : CLOSED;
+            }
+            row[4] = sm.quoteLiteral(naming.get(i));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static String createJoinCondition(final StatementManipulator sm, final String column,
+        final String alias) {
+        final String lower = alias + "." + sm.quoteIdentifier(BIN_TABLE_COLUMNS[0]);
+        final String lowerMode = alias + "." + sm.quoteIdentifier(BIN_TABLE_COLUMNS[1]);
+        final String upper = alias + "." + sm.quoteIdentifier(BIN_TABLE_COLUMNS[2]);
+        final String upperMode = alias + "." + sm.quoteIdentifier(BIN_TABLE_COLUMNS[3]);
+        return column + " IS NOT NULL"
+            + " AND (" + lowerMode + " = " + UNBOUNDED + " OR " + column + " > " + lower
+            + " OR (" + lowerMode + " = " + CLOSED + " AND " + column + " = " + lower + "))"
+            + " AND (" + upperMode + " = " + UNBOUNDED + " OR " + column + " < " + upper
+            + " OR (" + upperMode + " = " + CLOSED + " AND " + column + " = " + upper + "))";
+    }
+}
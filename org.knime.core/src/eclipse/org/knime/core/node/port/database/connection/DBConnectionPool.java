@@ -0,0 +1,656 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.connection;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Pool of connections to one database (as identified by URL and user).
+ *
+ * <ul>
+ * <li>At most <code>maxSize</code> connections are open at the same time. If all of them are in use, borrowers wait
+ * for a connection to be returned, at most for the borrow timeout.</li>
+ * <li>Idle connections are validated before being handed out; invalid connections are closed and replaced.</li>
+ * <li>Connections idle for longer than the idle timeout are closed, unless the pool would shrink below
+ * <code>minSize</code> connections. Connections are opened lazily, as opening requires the credentials of the
+ * borrower.</li>
+ * <li>Connections borrowed for longer than the leak timeout are reported (once) along with the stack trace of the
+ * borrower.</li>
+ * <li>Nested borrows of the same thread share the connection already borrowed by the thread, which avoids
+ * self-deadlocks and retains the semantics of the formerly single shared connection.</li>
+ * </ul>
+ *
+ * Borrowed connections are returned to the pool by closing them; any open transaction is rolled back and the auto
+ * commit flag is restored. Connections that failed with a connection error are discarded instead.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.8
+ */
+public final class DBConnectionPool {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(DBConnectionPool.class);
+
+    /** Opens a new physical connection. */
+    @FunctionalInterface
+    public interface ConnectionOpener {
+        /**
+         * @return a new connection
+         * @throws InvalidSettingsException if the settings are invalid
+         * @throws SQLException if the connection could not be opened
+         * @throws IOException if opening the connection timed out
+         */
+        Connection open() throws InvalidSettingsException, SQLException, IOException;
+    }
+
+    /** Validates an idle connection before it is handed out. */
+    @FunctionalInterface
+    public interface ConnectionValidator {
+        /**
+         * @param conn the open connection
+         * @return <code>true</code> if the connection can be used
+         * @throws SQLException if validation fails
+         */
+        boolean isValid(Connection conn) throws SQLException;
+    }
+
+    private final String m_name;
+
+    private final int m_minSize;
+
+    private final int m_maxSize;
+
+    private final long m_idleTimeoutMillis;
+
+    private final long m_leakTimeoutMillis;
+
+    private final long m_borrowTimeoutMillis;
+
+    private final Object m_lock = new Object();
+
+    /** Idle connections, most recently returned last. */
+    private final Deque<PooledConnection> m_idle = new ArrayDeque<>();
+
+    /** Borrowed connections by the borrowing thread. */
+    private final Map<Thread, PooledConnection> m_borrowed = new HashMap<>();
+
+    /** Number of open connections (idle, borrowed or being opened/returned). */
+    private int m_size;
+
+    private boolean m_isClosed;
+
+    private long m_borrowCount;
+
+    private long m_createdCount;
+
+    private long m_destroyedCount;
+
+    private long m_validationFailureCount;
+
+    private long m_leakCount;
+
+    private long m_timeoutCount;
+
+    private long m_waitNanos;
+
+    /**
+     * @param name the name of the pool, used in log messages
+     * @param minSize the number of connections not closed due to idleness
+     * @param maxSize the maximum number of open connections
+     * @param idleTimeoutMillis the time after which idle connections are closed
+     * @param leakTimeoutMillis the time after which borrowed connections are reported as potential leak, 0 to disable
+     * @param borrowTimeoutMillis the maximum time to wait for a connection if all are in use
+     * @throws IllegalArgumentException if the sizes are inconsistent
+     */
+    public DBConnectionPool(final String name, final int minSize, final int maxSize, final long idleTimeoutMillis,
+        final long leakTimeoutMillis, final long borrowTimeoutMillis) {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size, min: " + minSize + ", max: " + maxSize);
+        }
+        m_name = name;
+        m_minSize = minSize;
+        m_maxSize = maxSize;
+        m_idleTimeoutMillis = idleTimeoutMillis;
+        m_leakTimeoutMillis = leakTimeoutMillis;
+        m_borrowTimeoutMillis = borrowTimeoutMillis;
+    }
+
+    /**
+     * Borrows a connection, see class description.
+     *
+     * @param opener opens a new connection if none is idle and the pool is not exhausted
+     * @param validator validates idle connections
+     * @return the connection, to be closed after usage
+     * @throws InvalidSettingsException if thrown by the opener
+     * @throws SQLException if thrown by the opener, on timeout or if the pool has been closed
+     * @throws IOException if thrown by the opener
+     */
+    public Connection borrow(final ConnectionOpener opener, final ConnectionValidator validator)
+        throws InvalidSettingsException, SQLException, IOException {
+        final Thread thread = Thread.currentThread();
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(m_borrowTimeoutMillis);
+        while (true) {
+            PooledConnection candidate = null;
+            List<PooledConnection> evicted;
+            synchronized (m_lock) {
+                if (m_isClosed) {
+                    throw new SQLException("Connection pool " + m_name + " has been closed");
+                }
+                final PooledConnection own = m_borrowed.get(thread);
+                if (own != null) {
+                    own.m_holdCount++;
+                    m_borrowCount++;
+                    return own.createHandle();
+                }
+                evicted = evictAndDetectLeaks(System.currentTimeMillis());
+                if (!m_idle.isEmpty()) {
+                    candidate = m_idle.pollLast();
+                } else if (m_size < m_maxSize) {
+                    m_size++;
+                } else if (evicted.isEmpty()) {
+                    waitForConnection(deadline);
+                    continue;
+                }
+            }
+            evicted.forEach(PooledConnection::closePhysical);
+            if (candidate == null) {
+                if (!evicted.isEmpty() && m_size >= m_maxSize) {
+                    continue;
+                }
+                candidate = open(opener);
+            } else if (!isValid(candidate, validator)) {
+                discard(candidate);
+                synchronized (m_lock) {
+                    m_validationFailureCount++;
+                }
+                continue;
+            }
+            synchronized (m_lock) {
+                candidate.m_owner = thread;
+                candidate.m_holdCount = 1;
+                candidate.m_borrowedAt = System.currentTimeMillis();
+                candidate.m_borrowTrace = m_leakTimeoutMillis > 0
+                    ? new Exception("Connection borrowed by thread \"" + thread.getName() + "\"") : null;
+                candidate.m_isLeakReported = false;
+                m_borrowed.put(thread, candidate);
+                m_borrowCount++;
+            }
+            return candidate.createHandle();
+        }
+    }
+
+    /** Waits (holding the lock) for a connection to be returned. */
+    private void waitForConnection(final long deadline) throws SQLException {
+        final long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            m_timeoutCount++;
+            throw new SQLException("Timeout waiting for a database connection, all " + m_maxSize
+                + " connections of pool " + m_name + " are in use");
+        }
+        final long start = System.nanoTime();
+        try {
+            TimeUnit.NANOSECONDS.timedWait(m_lock, remaining);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection");
+        } finally {
+            m_waitNanos += System.nanoTime() - start;
+        }
+    }
+
+    private PooledConnection open(final ConnectionOpener opener)
+        throws InvalidSettingsException, SQLException, IOException {
+        boolean success = false;
+        try {
+            final Connection conn = opener.open();
+            if (conn == null) {
+                throw new SQLException("Driver returned no connection for pool " + m_name);
+            }
+            final PooledConnection pooled = new PooledConnection(conn);
+            success = true;
+            synchronized (m_lock) {
+                m_createdCount++;
+            }
+            LOGGER.debug("Opened new connection for pool " + m_name);
+            return pooled;
+        } finally {
+            if (!success) {
+                synchronized (m_lock) {
+                    m_size--;
+                    m_lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    private static boolean isValid(final PooledConnection candidate, final ConnectionValidator validator) {
+        try {
+            return !candidate.m_connection.isClosed() && validator.isValid(candidate.m_connection);
+        } catch (Exception e) {
+            LOGGER.debug("Invalid connection: " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /** Removes connections idle for too long (returned for closing outside the lock) and reports leaks. */
+    private List<PooledConnection> evictAndDetectLeaks(final long now) {
+        List<PooledConnection> evicted = new ArrayList<>();
+        for (Iterator<PooledConnection> it = m_idle.iterator(); it.hasNext() && m_size > m_minSize;) {
+            final PooledConnection c = it.next();
+            if (now - c.m_lastUsed > m_idleTimeoutMillis) {
+                it.remove();
+                m_size--;
+                m_destroyedCount++;
+                evicted.add(c);
+            }
+        }
+        if (m_leakTimeoutMillis > 0) {
+            for (PooledConnection c : m_borrowed.values()) {
+                if (!c.m_isLeakReported && now - c.m_borrowedAt > m_leakTimeoutMillis) {
+                    c.m_isLeakReported = true;
+                    m_leakCount++;
+                    LOGGER.warn("Database connection of pool " + m_name + " borrowed for more than "
+                        + (m_leakTimeoutMillis / 1000) + "s, possible connection leak", c.m_borrowTrace);
+                }
+            }
+        }
+        return evicted;
+    }
+
+    /** Called when the last handle of a borrowed connection is closed. */
+    private void release(final PooledConnection c) {
+        synchronized (m_lock) {
+            if (--c.m_holdCount > 0) {
+                return;
+            }
+            m_borrowed.remove(c.m_owner);
+            c.m_owner = null;
+            c.m_borrowTrace = null;
+        }
+        final boolean isReusable = !c.m_isBroken && c.reset();
+        synchronized (m_lock) {
+            if (isReusable && !m_isClosed) {
+                c.m_lastUsed = System.currentTimeMillis();
+                m_idle.addLast(c);
+                m_lock.notifyAll();
+                return;
+            }
+        }
+        discard(c);
+    }
+
+    /** Closes a connection that is neither idle nor borrowed anymore. */
+    private void discard(final PooledConnection c) {
+        c.closePhysical();
+        synchronized (m_lock) {
+            m_size--;
+            m_destroyedCount++;
+            m_lock.notifyAll();
+        }
+    }
+
+    /**
+     * Closes connections that have been idle for longer than the idle timeout and reports possible leaks. This is
+     * done on every borrow and should be called periodically so that idle connections are also closed if the pool
+     * is not used anymore.
+     */
+    public void evictIdle() {
+        final List<PooledConnection> evicted;
+        synchronized (m_lock) {
+            if (m_isClosed) {
+                return;
+            }
+            evicted = evictAndDetectLeaks(System.currentTimeMillis());
+            if (!evicted.isEmpty()) {
+                m_lock.notifyAll();
+            }
+        }
+        evicted.forEach(PooledConnection::closePhysical);
+    }
+
+    /**
+     * Closes the pool if it has no open connection (neither idle nor borrowed).
+     *
+     * @return <code>true</code> if the pool is closed
+     */
+    boolean closeIfUnused() {
+        synchronized (m_lock) {
+            if (m_size == 0) {
+                m_isClosed = true;
+            }
+            return m_isClosed;
+        }
+    }
+
+    /** @return <code>true</code> if the pool has been closed, subsequent borrows fail */
+    public boolean isClosed() {
+        synchronized (m_lock) {
+            return m_isClosed;
+        }
+    }
+
+    /**
+     * Closes all idle connections. Borrowed connections are closed when being returned. Subsequent borrows fail.
+     */
+    public void close() {
+        final List<PooledConnection> idle;
+        synchronized (m_lock) {
+            m_isClosed = true;
+            idle = new ArrayList<>(m_idle);
+            m_idle.clear();
+            m_size -= idle.size();
+            m_destroyedCount += idle.size();
+            m_lock.notifyAll();
+        }
+        idle.forEach(PooledConnection::closePhysical);
+    }
+
+    /** @return a snapshot of the current state and statistics of the pool */
+    public Metrics getMetrics() {
+        synchronized (m_lock) {
+            return new Metrics(m_name, m_size, m_idle.size(), m_borrowed.size(), m_maxSize, m_borrowCount,
+                m_createdCount, m_destroyedCount, m_validationFailureCount, m_leakCount, m_timeoutCount,
+                TimeUnit.NANOSECONDS.toMillis(m_waitNanos));
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return getMetrics().toString();
+    }
+
+    /** A physical connection along with its pool state, guarded by the lock of the pool. */
+    private final class PooledConnection {
+
+        private final Connection m_connection;
+
+        private final boolean m_initialAutoCommit;
+
+        private Thread m_owner;
+
+        private int m_holdCount;
+
+        private long m_borrowedAt;
+
+        private Exception m_borrowTrace;
+
+        private boolean m_isLeakReported;
+
+        private long m_lastUsed;
+
+        /** Set if a connection error occurred, the connection is closed instead of being returned. */
+        private volatile boolean m_isBroken;
+
+        private PooledConnection(final Connection connection) {
+            m_connection = connection;
+            boolean autoCommit = true;
+            try {
+                autoCommit = connection.getAutoCommit();
+            } catch (SQLException e) {
+                LOGGER.debug("Unable to determine auto commit state: " + e.getMessage(), e);
+            }
+            m_initialAutoCommit = autoCommit;
+        }
+
+        private Connection createHandle() {
+            return (Connection)Proxy.newProxyInstance(DBConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new Handle(this));
+        }
+
+        /** Rolls back open transactions and restores the initial state, returns false if that fails. */
+        private boolean reset() {
+            try {
+                if (m_connection.isClosed()) {
+                    return false;
+                }
+                // roll back whenever a transaction may be open, also if auto commit was off from the beginning
+                if (!m_connection.getAutoCommit()) {
+                    m_connection.rollback();
+                }
+                if (m_connection.getAutoCommit() != m_initialAutoCommit) {
+                    m_connection.setAutoCommit(m_initialAutoCommit);
+                }
+                m_connection.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                LOGGER.debug("Discarding connection that could not be reset: " + e.getMessage(), e);
+                return false;
+            }
+        }
+
+        private void closePhysical() {
+            try {
+                if (!m_connection.isClosed()) {
+                    m_connection.close();
+                }
+            } catch (Exception ex) {
+                LOGGER.debug("Error closing connection:" + ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /** The connection handed out to a borrower, closing it returns the physical connection to the pool. */
+    private final class Handle implements InvocationHandler {
+
+        private final PooledConnection m_pooled;
+
+        private boolean m_isClosed;
+
+        private Handle(final PooledConnection pooled) {
+            m_pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!m_isClosed) {
+                        m_isClosed = true;
+                        release(m_pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    if (m_isClosed) {
+                        return true;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled connection of " + m_name + " (" + m_pooled.m_connection + ")";
+                default:
+            }
+            if (m_isClosed) {
+                throw new SQLException("Connection has already been returned to pool " + m_name);
+            }
+            try {
+                return method.invoke(m_pooled.m_connection, args);
+            } catch (InvocationTargetException e) {
+                final Throwable cause = e.getCause();
+                // SQL state class 08: connection exception
+                if (cause instanceof SQLException && ((SQLException)cause).getSQLState() != null
+                    && ((SQLException)cause).getSQLState().startsWith("08")) {
+                    m_pooled.m_isBroken = true;
+                }
+                throw cause;
+            }
+        }
+    }
+
+    /** Snapshot of the state and statistics of a pool. */
+    public static final class Metrics {
+
+        private final String m_name;
+
+        private final int m_size;
+
+        private final int m_idleCount;
+
+        private final int m_borrowedCount;
+
+        private final int m_maxSize;
+
+        private final long m_borrowCount;
+
+        private final long m_createdCount;
+
+        private final long m_destroyedCount;
+
+        private final long m_validationFailureCount;
+
+        private final long m_leakCount;
+
+        private final long m_timeoutCount;
+
+        private final long m_totalWaitMillis;
+
+        private Metrics(final String name, final int size, final int idleCount, final int borrowedCount,
+            final int maxSize, final long borrowCount, final long createdCount, final long destroyedCount,
+            final long validationFailureCount, final long leakCount, final long timeoutCount,
+            final long totalWaitMillis) {
+            m_name = name;
+            m_size = size;
+            m_idleCount = idleCount;
+            m_borrowedCount = borrowedCount;
+            m_maxSize = maxSize;
+            m_borrowCount = borrowCount;
+            m_createdCount = createdCount;
+            m_destroyedCount = destroyedCount;
+            m_validationFailureCount = validationFailureCount;
+            m_leakCount = leakCount;
+            m_timeoutCount = timeoutCount;
+            m_totalWaitMillis = totalWaitMillis;
+        }
+
+        /** @return the name of the pool */
+        public String getName() {
+            return m_name;
+        }
+
+        /** @return the number of open connections */
+        public int getSize() {
+            return m_size;
+        }
+
+        /** @return the number of idle connections */
+        public int getIdleCount() {
+            return m_idleCount;
+        }
+
+        /** @return the number of currently borrowed connections */
+        public int getBorrowedCount() {
+            return m_borrowedCount;
+        }
+
+        /** @return the maximum number of open connections */
+        public int getMaxSize() {
+            return m_maxSize;
+        }
+
+        /** @return the total number of borrows (including nested ones) */
+        public long getBorrowCount() {
+            return m_borrowCount;
+        }
+
+        /** @return the total number of opened connections */
+        public long getCreatedCount() {
+            return m_createdCount;
+        }
+
+        /** @return the total number of closed connections */
+        public long getDestroyedCount() {
+            return m_destroyedCount;
+        }
+
+        /** @return the number of idle connections found invalid when being borrowed */
+        public long getValidationFailureCount() {
+            return m_validationFailureCount;
+        }
+
+        /** @return the number of connections reported as potential leak */
+        public long getLeakCount() {
+            return m_leakCount;
+        }
+
+        /** @return the number of borrows that timed out */
+        public long getTimeoutCount() {
+            return m_timeoutCount;
+        }
+
+        /** @return the total time borrowers waited for a connection */
+        public long getTotalWaitMillis() {
+            return m_totalWaitMillis;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String toString() {
+            return String.format("Pool %s [size=%d/%d, idle=%d, borrowed=%d, borrows=%d, created=%d, destroyed=%d, "
+                + "invalid=%d, leaks=%d, timeouts=%d, wait=%dms]", m_name, m_size, m_maxSize, m_idleCount,
+                m_borrowedCount, m_borrowCount, m_createdCount, m_destroyedCount, m_validationFailureCount,
+                m_leakCount, m_timeoutCount, m_totalWaitMillis);
+        }
+    }
+}
@@ -0,0 +1,396 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.connection;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.port.database.DatabaseConnectionSettings;
+import org.knime.core.node.port.database.DatabaseQueryConnectionSettings;
+import org.knime.core.node.port.database.StatementManipulator;
+import org.knime.core.node.port.database.reader.DBReader;
+import org.knime.core.node.workflow.CredentialsProvider;
+import org.knime.core.node.workflow.NodeContainer;
+import org.knime.core.node.workflow.NodeContainerState;
+import org.knime.core.node.workflow.NodeContext;
+import org.knime.core.node.workflow.NodeID;
+import org.knime.core.node.workflow.NodeStateChangeListener;
+import org.knime.core.node.workflow.NodeStateEvent;
+import org.knime.core.node.workflow.WorkflowEvent;
+import org.knime.core.node.workflow.WorkflowManager;
+
+/**
+ * Materializes the result of database queries in tables, so that nodes downstream of a long chain of in-database
+ * operations read the precomputed result instead of executing the nested query again. The table of a query is
+ * created once per workflow and materializing node (using
+ * {@link StatementManipulator#createTableAsSelect(String, String)}) and shared by the nodes downstream of it, which
+ * read the materialized query. Tables are not shared between different materializing nodes: these may be siblings
+ * in different branches of the workflow, and one of them re-executing after an upstream change must not read the
+ * table created for the other. The table is dropped once its node has been reset (which is also the case if any
+ * upstream node is reset or re-executed, so the table never serves stale data), when the query is
+ * {@link #release(DatabaseQueryConnectionSettings, CredentialsProvider) released} explicitly, or when the workflow
+ * is closed.
+ *
+ * <p>Materialization is opt-in via {@link KNIMEConstants#PROPERTY_DATABASE_MATERIALIZE}. Queries consisting of
+ * multiple statements and queries used outside of a node's context, which would have no workflow to bind the
+ * table's lifetime to, are never materialized.</p>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.8
+ */
+public final class DBMaterializationCache {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(DBMaterializationCache.class);
+
+    private static final boolean ENABLED =
+        Boolean.parseBoolean(System.getProperty(KNIMEConstants.PROPERTY_DATABASE_MATERIALIZE, "false"));
+
+    private static final String TABLE_PREFIX = "knime_mat_";
+
+    private static final DBMaterializationCache INSTANCE =
+        new DBMaterializationCache(ENABLED, (settings, statement, cp) -> settings.execute(statement, cp));
+
+    /** Executes the statements creating and dropping tables, replaced in tests. */
+    @FunctionalInterface
+    interface StatementExecutor {
+        void execute(DatabaseConnectionSettings settings, String statement, CredentialsProvider cp)
+            throws SQLException;
+    }
+
+    private final boolean m_isEnabled;
+
+    private final StatementExecutor m_executor;
+
+    private final Map<MaterializationKey, Materialization> m_tables = new ConcurrentHashMap<>();
+
+    /** The nodes a reset listener is registered at. */
+    private final Set<NodeID> m_listenedNodes = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean m_isListening;
+
+    DBMaterializationCache(final boolean isEnabled, final StatementExecutor executor) {
+        m_isEnabled = isEnabled;
+        m_executor = executor;
+    }
+
+    /**
+     * @return the cache shared by all workflows
+     */
+    public static DBMaterializationCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return <code>true</code> if queries are materialized
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Returns settings whose query reads the materialized result of the given query, creating the table if the query
+     * has not been materialized by the calling node yet. Returns the given settings if materialization is disabled
+     * or not possible for the query.
+     *
+     * <p>Must be called by a node model during execution. The table stays valid while the calling node is executed
+     * and is dropped once it has been reset, so the returned query must only be used by the calling node and by
+     * nodes downstream of it.</p>
+     *
+     * @param settings the settings of the query to materialize
+     * @param cp {@link CredentialsProvider} providing user/password
+     * @return settings with a query reading the materialized result
+     * @throws SQLException if the table could not be created
+     */
+    public DatabaseQueryConnectionSettings materialize(final DatabaseQueryConnectionSettings settings,
+        final CredentialsProvider cp) throws SQLException {
+        final NodeContext context = NodeContext.getContext();
+        final WorkflowManager wfm = context == null ? null : context.getWorkflowManager();
+        final NodeContainer nc = context == null ? null : context.getNodeContainer();
+        if (wfm == null || nc == null) {
+            // no workflow to bind the table's lifetime to
+            return settings;
+        }
+        final DatabaseQueryConnectionSettings materialized =
+            materialize(settings, cp, wfm.getProjectWFM().getID(), nc.getID());
+        if (materialized != settings) {
+            listenForClosedWorkflows();
+            if (m_listenedNodes.add(nc.getID())) {
+                nc.addNodeStateChangeListener(new ResetListener(nc));
+            }
+        }
+        return materialized;
+    }
+
+    /**
+     * Materializes the query for the given workflow and user node.
+     *
+     * @param projectID the id of the workflow project the table belongs to
+     * @param userID the id of the node using the table, which releases it when reset
+     */
+    DatabaseQueryConnectionSettings materialize(final DatabaseQueryConnectionSettings settings,
+        final CredentialsProvider cp, final NodeID projectID, final NodeID userID) throws SQLException {
+        final MaterializationKey key = createKey(settings, cp, projectID, userID);
+        if (key == null) {
+            return settings;
+        }
+        final Materialization materialization =
+            m_tables.computeIfAbsent(key, k -> new Materialization(settings, cp, createTableName()));
+        materialization.create(settings.getQuery());
+        return new DatabaseQueryConnectionSettings(settings, "SELECT * FROM " + materialization.m_table);
+    }
+
+    /**
+     * Drops the table materializing the given query for the current node, if any. Tables are dropped automatically
+     * once the node using them is reset, so node models only need to call this if the table must be dropped
+     * earlier.
+     *
+     * @param settings the settings of the materialized query
+     * @param cp {@link CredentialsProvider} providing user/password
+     */
+    public void release(final DatabaseQueryConnectionSettings settings, final CredentialsProvider cp) {
+        final NodeContext context = NodeContext.getContext();
+        final WorkflowManager wfm = context == null ? null : context.getWorkflowManager();
+        final NodeContainer nc = context == null ? null : context.getNodeContainer();
+        if (wfm != null && nc != null) {
+            release(settings, cp, wfm.getProjectWFM().getID(), nc.getID());
+        }
+    }
+
+    /** Drops the table materializing the given query for the given workflow and user node, if any. */
+    void release(final DatabaseQueryConnectionSettings settings, final CredentialsProvider cp,
+        final NodeID projectID, final NodeID userID) {
+        final MaterializationKey key = createKey(settings, cp, projectID, userID);
+        if (key != null) {
+            final Materialization materialization = m_tables.remove(key);
+            if (materialization != null) {
+                materialization.drop();
+            }
+        }
+    }
+
+    /**
+     * Drops the tables materialized by the given node. Called when the node is reset.
+     *
+     * @param userID the id of the reset node
+     */
+    void releaseUser(final NodeID userID) {
+        releaseIf(key -> Objects.equals(key.m_userID, userID));
+    }
+
+    /** @return the number of materialized queries */
+    int size() {
+        return m_tables.size();
+    }
+
+    /**
+     * Drops all tables materialized by the given workflow.
+     *
+     * @param projectID the id of the workflow project
+     */
+    public void releaseAll(final NodeID projectID) {
+        releaseIf(key -> Objects.equals(key.m_projectID, projectID));
+    }
+
+    private void releaseIf(final Predicate<MaterializationKey> predicate) {
+        final List<Materialization> released = new ArrayList<>();
+        m_tables.entrySet().removeIf(e -> {
+            if (predicate.test(e.getKey())) {
+                released.add(e.getValue());
+                return true;
+            }
+            return false;
+        });
+        released.forEach(Materialization::drop);
+    }
+
+    /** Returns null if the query cannot be materialized. */
+    private MaterializationKey createKey(final DatabaseQueryConnectionSettings settings,
+        final CredentialsProvider cp, final NodeID projectID, final NodeID userID) {
+        if (!m_isEnabled || settings.getQuery().contains(DBReader.SQL_QUERY_SEPARATOR)) {
+            return null;
+        }
+        return new MaterializationKey(CachedConnectionFactory.createConnectionKey(cp, settings),
+            settings.getUtility().getStatementManipulator().normalizeQuery(settings.getQuery()), projectID,
+            userID);
+    }
+
+    private void listenForClosedWorkflows() {
+        if (m_isListening) {
+            return;
+        }
+        synchronized (this) {
+            if (!m_isListening) {
+                WorkflowManager.ROOT.addListener(e -> {
+                    if (e.getType() == WorkflowEvent.Type.NODE_REMOVED && e.getOldValue() instanceof NodeContainer) {
+                        releaseAll(((NodeContainer)e.getOldValue()).getID());
+                    }
+                });
+                m_isListening = true;
+            }
+        }
+    }
+
+    private static String createTableName() {
+        // short enough for databases with 30 character identifiers
+        return TABLE_PREFIX + UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+    }
+
+    /** Releases the tables used by a node when the node is reset. */
+    private final class ResetListener implements NodeStateChangeListener {
+
+        private final NodeContainer m_nc;
+
+        private ResetListener(final NodeContainer nc) {
+            m_nc = nc;
+        }
+
+        @Override
+        public void stateChanged(final NodeStateEvent state) {
+            final NodeContainerState ncState = m_nc.getNodeContainerState();
+            if (ncState.isIdle() || ncState.isConfigured()) {
+                m_nc.removeNodeStateChangeListener(this);
+                m_listenedNodes.remove(m_nc.getID());
+                releaseUser(m_nc.getID());
+            }
+        }
+    }
+
+    /** A materialized query, the table is created by the first call materializing it. */
+    private final class Materialization {
+
+        private final DatabaseConnectionSettings m_settings;
+
+        private final CredentialsProvider m_cp;
+
+        private final String m_table;
+
+        private boolean m_isCreated;
+
+        private boolean m_isDropped;
+
+        private Materialization(final DatabaseConnectionSettings settings, final CredentialsProvider cp,
+            final String table) {
+            m_settings = new DatabaseConnectionSettings(settings);
+            m_cp = cp;
+            m_table = table;
+        }
+
+        private synchronized void create(final String query) throws SQLException {
+            if (m_isCreated) {
+                return;
+            }
+            if (m_isDropped) {
+                throw new SQLException("Materialized query has been released concurrently: " + query);
+            }
+            LOGGER.debug("Materializing query into table " + m_table + ": " + query);
+            for (String statement : m_settings.getUtility().getStatementManipulator().createTableAsSelect(m_table,
+                query)) {
+                m_executor.execute(m_settings, statement, m_cp);
+            }
+            m_isCreated = true;
+        }
+
+        private synchronized void drop() {
+            m_isDropped = true;
+            if (!m_isCreated) {
+                return;
+            }
+            try {
+                m_executor.execute(m_settings,
+                    m_settings.getUtility().getStatementManipulator().dropTable(m_table, false), m_cp);
+            } catch (SQLException e) {
+                LOGGER.warn("Could not drop materialized query table " + m_table + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /** Identifies a materialized query by database and user, normalized query, workflow and materializing node. */
+    private static final class MaterializationKey {
+
+        private final Object m_connKey;
+
+        private final String m_query;
+
+        private final NodeID m_projectID;
+
+        private final NodeID m_userID;
+
+        private MaterializationKey(final Object connKey, final String query, final NodeID projectID,
+            final NodeID userID) {
+            m_connKey = connKey;
+            m_query = query;
+            m_projectID = projectID;
+            m_userID = userID;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(m_connKey, m_query, m_projectID, m_userID);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof MaterializationKey)) {
+                return false;
+            }
+            final MaterializationKey other = (MaterializationKey)obj;
+            return Objects.equals(m_connKey, other.m_connKey) && Objects.equals(m_query, other.m_query)
+                && Objects.equals(m_projectID, other.m_projectID) && Objects.equals(m_userID, other.m_userID);
+        }
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.connection;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.port.database.DBColumnStatistics;
+import org.knime.core.node.port.database.DatabaseConnectionSettings;
+import org.knime.core.node.workflow.CredentialsProvider;
+
+/**
+ * Caches the result specs and column statistics of queries and the database metadata per database and user (as
+ * identified by the {@link CachedConnectionFactory.ConnectionKey}), so that configuring nodes does not query the
+ * database again for the same query. Queries are keyed by their normalized form, see
+ * {@link org.knime.core.node.port.database.StatementManipulator#normalizeQuery(String)}. Entries expire after the
+ * time set by {@link KNIMEConstants#PROPERTY_DATABASE_METADATA_CACHE_TTL} and are invalidated explicitly whenever tables are created, dropped or altered through KNIME.
+ *
+ * <p>Concurrent requests for the same entry wait for a single load; failed loads are not cached.</p>
+ *
+ * <p>The database metadata is a live object of the connection it was obtained from. It is therefore not cached if
+ * connections are pooled (see {@link PooledDBConnectionFactory}), as the connection is returned to the pool after the
+ * metadata has been loaded and must not be used by others than its current borrower.</p>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.8
+ */
+public final class DBMetadataCache {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(DBMetadataCache.class);
+
+    /** The maximum number of entries before expired entries are purged. */
+    private static final int PURGE_SIZE = 1000;
+
+    private static final DBMetadataCache INSTANCE = new DBMetadataCache(TimeUnit.SECONDS.toMillis(
+        PooledConnectionFactory.getIntProperty(KNIMEConstants.PROPERTY_DATABASE_METADATA_CACHE_TTL, 60)));
+
+    private static final String KIND_SPEC = "spec";
+
+    private static final String KIND_METADATA = "metadata";
+
+    private static final String KIND_STATISTICS = "statistics";
+
+    private final long m_ttlNanos;
+
+    private final Map<CacheKey, Entry> m_entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param ttlMillis the time in milliseconds after which entries expire, 0 disables caching
+     */
+    DBMetadataCache(final long ttlMillis) {
+        m_ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    /**
+     * @return the cache shared by all database connections
+     */
+    public static DBMetadataCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return <code>true</code> if entries are cached, <code>false</code> if caching is disabled
+     */
+    public boolean isEnabled() {
+        return m_ttlNanos > 0;
+    }
+
+    /**
+     * Returns the cached result spec of the given query or loads and caches it.
+     *
+     * @param cp {@link CredentialsProvider} providing user/password
+     * @param settings the connection settings
+     * @param query the query whose result spec is requested
+     * @param loader loads the spec from the database if it is not cached
+     * @return the result spec
+     * @throws SQLException if the loader fails
+     */
+    public DataTableSpec getDataTableSpec(final CredentialsProvider cp, final DatabaseConnectionSettings settings,
+        final String query, final Callable<DataTableSpec> loader) throws SQLException {
+        return get(createKey(cp, settings, KIND_SPEC, query), loader);
+    }
+
+    /**
+     * Returns the cached metadata of the database or loads and caches it. Metadata whose connection has been closed
+     * in the meantime is loaded again. The metadata is always loaded if connections are pooled, see class
+     * description.
+     *
+     * @param cp {@link CredentialsProvider} providing user/password
+     * @param settings the connection settings
+     * @param loader loads the metadata from the database if it is not cached
+     * @return the database metadata
+     * @throws SQLException if the loader fails
+     */
+    public DatabaseMetaData getDatabaseMetaData(final CredentialsProvider cp,
+        final DatabaseConnectionSettings settings, final Callable<DatabaseMetaData> loader) throws SQLException {
+        if (isPooled(settings)) {
+            return call(loader);
+        }
+        final CacheKey key = createKey(cp, settings, KIND_METADATA, "");
+        final DatabaseMetaData metaData = get(key, loader);
+        if (metaData.getConnection().isClosed()) {
+            invalidate(key);
+            return get(key, loader);
+        }
+        return metaData;
+    }
+
+    /**
+     * Returns the cached statistics of the given columns of a query or loads and caches them.
+     *
+     * @param cp {@link CredentialsProvider} providing user/password
+     * @param settings the connection settings
+     * @param query the query whose columns are sampled
+     * @param columns the names of the sampled columns
+     * @param sampleSize the maximum number of rows in the sample
+     * @param loader loads the statistics from the database if they are not cached
+     * @return the column statistics
+     * @throws SQLException if the loader fails
+     */
+    public DBColumnStatistics getColumnStatistics(final CredentialsProvider cp,
+        final DatabaseConnectionSettings settings, final String query, final String[] columns, final int sampleSize,
+        final Callable<DBColumnStatistics> loader) throws SQLException {
+        return get(createKey(cp, settings, KIND_STATISTICS + " " + sampleSize + " " + Arrays.toString(columns), query),
+            loader);
+    }
+
+    /**
+     * Removes all entries of the database and user of the given settings, e.g. after tables have been changed.
+     *
+     * @param cp {@link CredentialsProvider} providing user/password
+     * @param settings the connection settings
+     */
+    public void invalidate(final CredentialsProvider cp, final DatabaseConnectionSettings settings) {
+        if (!isEnabled()) {
+            return;
+        }
+        final Object connKey = CachedConnectionFactory.createConnectionKey(cp, settings);
+        m_entries.keySet().removeIf(k -> k.m_connKey.equals(connKey));
+    }
+
+    /**
+     * Removes the cached result spec and column statistics of the given query.
+     *
+     * @param cp {@link CredentialsProvider} providing user/password
+     * @param settings the connection settings
+     * @param query the query
+     */
+    public void invalidate(final CredentialsProvider cp, final DatabaseConnectionSettings settings,
+        final String query) {
+        if (isEnabled()) {
+            final CacheKey specKey = createKey(cp, settings, KIND_SPEC, query);
+            m_entries.keySet().removeIf(k -> k.m_connKey.equals(specKey.m_connKey)
+                && Objects.equals(k.m_query, specKey.m_query) && !KIND_METADATA.equals(k.m_kind));
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void invalidateAll() {
+        m_entries.clear();
+    }
+
+    private static CacheKey createKey(final CredentialsProvider cp, final DatabaseConnectionSettings settings,
+        final String kind, final String query) {
+        return new CacheKey(CachedConnectionFactory.createConnectionKey(cp, settings),
+            settings.getDatabaseIdentifier(), kind,
+            settings.getUtility().getStatementManipulator().normalizeQuery(query));
+    }
+
+    private static boolean isPooled(final DatabaseConnectionSettings settings) {
+        final DBConnectionFactory connectionFactory = settings.getUtility().getConnectionFactory();
+        return connectionFactory instanceof PooledDBConnectionFactory
+            && ((PooledDBConnectionFactory)connectionFactory).isPoolingEnabled();
+    }
+
+    void invalidate(final CacheKey key) {
+        m_entries.remove(key);
+    }
+
+    int size() {
+        return m_entries.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T get(final CacheKey key, final Callable<T> loader) throws SQLException {
+        if (!isEnabled()) {
+            return call(loader);
+        }
+        Entry entry = m_entries.get(key);
+        if (entry != null && entry.isExpired()) {
+            m_entries.remove(key, entry);
+            entry = null;
+        }
+        if (entry == null) {
+            final Entry newEntry = new Entry(new FutureTask<Object>(() -> call(loader)));
+            entry = m_entries.putIfAbsent(key, newEntry);
+            if (entry == null) {
+                entry = newEntry;
+                purgeExpired();
+                LOGGER.debug("Loading database metadata for " + key);
+                newEntry.m_task.run();
+                newEntry.m_expires = System.nanoTime() + m_ttlNanos;
+            }
+        }
+        try {
+            return (T)entry.m_task.get();
+        } catch (ExecutionException e) {
+            m_entries.remove(key, entry);
+            final Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException)cause;
+            }
+            throw new SQLException(cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for database metadata", e);
+        }
+    }
+
+    private static <T> T call(final Callable<T> loader) throws SQLException {
+        try {
+            return loader.call();
+        } catch (SQLException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    private void purgeExpired() {
+        if (m_entries.size() > PURGE_SIZE) {
+            m_entries.values().removeIf(Entry::isExpired);
+        }
+    }
+
+    /** A cached value, the expiry is set once the value has been loaded. */
+    private static final class Entry {
+
+        private final FutureTask<Object> m_task;
+
+        private volatile long m_expires = Long.MAX_VALUE;
+
+        private Entry(final FutureTask<Object> task) {
+            m_task = task;
+        }
+
+        private boolean isExpired() {
+            return m_expires != Long.MAX_VALUE && System.nanoTime() - m_expires > 0;
+        }
+    }
+
+    /** Identifies a cached value by database and user, database type, kind of value and normalized query. */
+    static final class CacheKey {
+
+        private final Object m_connKey;
+
+        private final String m_dbIdentifier;
+
+        private final String m_kind;
+
+        private final String m_query;
+
+        CacheKey(final Object connKey, final String dbIdentifier, final String kind, final String query) {
+            m_connKey = connKey;
+            m_dbIdentifier = dbIdentifier;
+            m_kind = kind;
+            m_query = query;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(m_connKey, m_dbIdentifier, m_kind, m_query);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+            final CacheKey other = (CacheKey)obj;
+            return Objects.equals(m_connKey, other.m_connKey) && Objects.equals(m_dbIdentifier, other.m_dbIdentifier)
+                && m_kind.equals(other.m_kind) && Objects.equals(m_query, other.m_query);
+        }
+
+        @Override
+        public String toString() {
+            return m_kind + " of \"" + m_query + "\" (" + m_connKey + ")";
+        }
+    }
+}
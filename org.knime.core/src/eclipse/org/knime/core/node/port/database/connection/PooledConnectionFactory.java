@@ -0,0 +1,224 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.connection;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.port.database.DatabaseConnectionSettings;
+import org.knime.core.node.workflow.CredentialsProvider;
+import org.knime.core.util.KNIMETimer;
+
+/**
+ * {@link CachedConnectionFactory} that additionally maintains a {@link DBConnectionPool} per database and user (as
+ * identified by the {@link CachedConnectionFactory.ConnectionKey}). Pooling is disabled unless the system property
+ * {@link KNIMEConstants#PROPERTY_DATABASE_POOL_ENABLED} is set; the pools are configured via the
+ * <code>knime.database.pool.*</code> system properties in {@link KNIMEConstants}. Idle connections are closed
+ * periodically and pools without open connections are removed.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.8
+ */
+public class PooledConnectionFactory extends CachedConnectionFactory implements PooledDBConnectionFactory {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(PooledConnectionFactory.class);
+
+    private static final boolean ENABLED = Boolean.getBoolean(KNIMEConstants.PROPERTY_DATABASE_POOL_ENABLED);
+
+    private static final int MAX_SIZE = getIntProperty(KNIMEConstants.PROPERTY_DATABASE_POOL_MAXSIZE, 16);
+
+    private static final int MIN_SIZE =
+        Math.min(MAX_SIZE, getIntProperty(KNIMEConstants.PROPERTY_DATABASE_POOL_MINSIZE, 0));
+
+    private static final long IDLE_TIMEOUT =
+        TimeUnit.SECONDS.toMillis(getIntProperty(KNIMEConstants.PROPERTY_DATABASE_POOL_IDLE_TIMEOUT, 300));
+
+    private static final long LEAK_TIMEOUT =
+        TimeUnit.SECONDS.toMillis(getIntProperty(KNIMEConstants.PROPERTY_DATABASE_POOL_LEAK_TIMEOUT, 600));
+
+    private static final long BORROW_TIMEOUT =
+        TimeUnit.SECONDS.toMillis(getIntProperty(KNIMEConstants.PROPERTY_DATABASE_POOL_BORROW_TIMEOUT, 300));
+
+    /** Interval in which idle connections are evicted and unused pools removed. */
+    private static final long EVICTION_INTERVAL = Math.max(1000L, Math.min(IDLE_TIMEOUT / 2, 60000L));
+
+    /** The pools by database and user, shared by all factories like the cached connections. */
+    private static final Map<ConnectionKey, DBConnectionPool> POOL_MAP = new ConcurrentHashMap<>();
+
+    /** The task evicting idle connections, scheduled when the first pool is created, guarded by POOL_MAP. */
+    private static TimerTask evictionTask;
+
+    static int getIntProperty(final String property, final int defaultValue) {
+        final String value = System.getProperty(property);
+        if (value != null) {
+            try {
+                final int i = Integer.parseInt(value.trim());
+                if (i >= 0) {
+                    return i;
+                }
+                LOGGER.warn("Value of system property " + property + " not valid (< 0) '" + value
+                    + "', using default " + defaultValue + ".");
+            } catch (NumberFormatException nfe) {
+                LOGGER.warn("Value of system property " + property + " not valid '" + value + "', using default "
+                    + defaultValue + ".");
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * @param driverFactory the {@link DBDriverFactory} to get the {@link java.sql.Driver}
+     */
+    public PooledConnectionFactory(final DBDriverFactory driverFactory) {
+        super(driverFactory);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isPoolingEnabled() {
+        return ENABLED && MAX_SIZE > 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getMaxPoolSize() {
+        return MAX_SIZE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Connection borrowConnection(final CredentialsProvider cp, final DatabaseConnectionSettings settings)
+        throws InvalidSettingsException, SQLException, IOException {
+        if (!isPoolingEnabled()) {
+            throw new IllegalStateException("Connection pooling is disabled");
+        }
+        final String jdbcUrl = settings.getJDBCUrl();
+        final String user = settings.getUserName(cp);
+        final String pass = settings.getPassword(cp);
+        final boolean kerberos = settings.useKerberos();
+        final ConnectionKey key = createConnectionKey(cp, settings);
+        while (true) {
+            final DBConnectionPool pool = POOL_MAP.computeIfAbsent(key, k -> new DBConnectionPool(k.toString(),
+                MIN_SIZE, MAX_SIZE, IDLE_TIMEOUT, LEAK_TIMEOUT, BORROW_TIMEOUT));
+            scheduleEviction();
+            try {
+                return pool.borrow(() -> openConnection(settings, jdbcUrl, user, pass, kerberos),
+                    c -> settings.getUtility().isValid(c));
+            } catch (SQLException e) {
+                if (!pool.isClosed()) {
+                    throw e;
+                }
+                // removed as unused in the meantime, retry with a new pool
+                POOL_MAP.remove(key, pool);
+            }
+        }
+    }
+
+    private static void scheduleEviction() {
+        synchronized (POOL_MAP) {
+            if (evictionTask == null) {
+                evictionTask = new TimerTask() {
+                    @Override
+                    public void run() {
+                        evictIdleConnections();
+                    }
+                };
+                KNIMETimer.getInstance().schedule(evictionTask, EVICTION_INTERVAL, EVICTION_INTERVAL);
+            }
+        }
+    }
+
+    /** Closes idle connections of all pools and removes pools without open connections. */
+    static void evictIdleConnections() {
+        for (Map.Entry<ConnectionKey, DBConnectionPool> e : POOL_MAP.entrySet()) {
+            final DBConnectionPool pool = e.getValue();
+            try {
+                pool.evictIdle();
+                if (pool.closeIfUnused()) {
+                    POOL_MAP.remove(e.getKey(), pool);
+                }
+            } catch (RuntimeException ex) {
+                LOGGER.debug("Error evicting idle connections of pool " + pool + ": " + ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * Closes and removes all connection pools. Idle connections are closed immediately, borrowed connections when
+     * they are returned. Subsequent borrows create new pools.
+     */
+    public static void closeAllPools() {
+        for (Map.Entry<ConnectionKey, DBConnectionPool> e : POOL_MAP.entrySet()) {
+            if (POOL_MAP.remove(e.getKey(), e.getValue())) {
+                e.getValue().close();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DBConnectionPool.Metrics getPoolMetrics(final CredentialsProvider cp,
+        final DatabaseConnectionSettings settings) {
+        final DBConnectionPool pool = POOL_MAP.get(createConnectionKey(cp, settings));
+        return pool == null ? null : pool.getMetrics();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.connection;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.port.database.DatabaseConnectionSettings;
+import org.knime.core.node.workflow.CredentialsProvider;
+
+/**
+ * A {@link DBConnectionFactory} that additionally hands out connections from a pool for the exclusive use by the
+ * caller, allowing concurrent statements against the same database.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.8
+ */
+public interface PooledDBConnectionFactory extends DBConnectionFactory {
+
+    /**
+     * @return <code>true</code> if connections are pooled, <code>false</code> if pooling is disabled and
+     *         {@link #borrowConnection(CredentialsProvider, DatabaseConnectionSettings)} must not be used
+     */
+    boolean isPoolingEnabled();
+
+    /**
+     * @return the maximum number of connections per pool, that is the number of statements that can be executed
+     *         concurrently against the same database
+     */
+    int getMaxPoolSize();
+
+    /**
+     * Borrows a validated connection from the pool of the database (as identified by URL and user). The connection
+     * must be closed after usage, which returns it to the pool. Nested calls of the same thread return the connection
+     * already borrowed by the thread.
+     *
+     * @param cp {@link CredentialsProvider}
+     * @param settings {@link DatabaseConnectionSettings}
+     * @return the connection, to be closed after usage
+     * @throws InvalidSettingsException if the settings are invalid
+     * @throws SQLException if no connection could be obtained, e.g. because all connections are in use for longer
+     *             than the borrow timeout
+     * @throws IOException if opening a new connection timed out
+     */
+    Connection borrowConnection(final CredentialsProvider cp, final DatabaseConnectionSettings settings)
+        throws InvalidSettingsException, SQLException, IOException;
+
+    /**
+     * @param cp {@link CredentialsProvider}
+     * @param settings {@link DatabaseConnectionSettings}
+     * @return the current metrics of the pool of the database or <code>null</code> if no connection has been borrowed
+     *         yet
+     */
+    DBConnectionPool.Metrics getPoolMetrics(final CredentialsProvider cp, final DatabaseConnectionSettings settings);
+}
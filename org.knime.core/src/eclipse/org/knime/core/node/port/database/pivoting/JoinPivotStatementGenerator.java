@@ -0,0 +1,175 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.pivoting;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.node.port.database.StatementManipulator;
+import org.knime.core.node.port.database.aggregation.DBAggregationFunction;
+import org.knime.core.util.Pair;
+
+/**
+ * This class creates a set-based SQL statement for pivoting. The input query is joined against a generated table that
+ * contains one row per combination of pivot values together with its index, so that each aggregation only needs to
+ * compare the index instead of all pivot columns:
+ *
+ * SELECT T.groupColumns, AGG(CASE WHEN P.index = i THEN T.aggColumn END), ...
+ * FROM (query) T LEFT JOIN (pivot value table) P ON T.pivotColumns = P.pivotValues
+ * GROUP BY T.groupColumns
+ *
+ * This keeps the statement considerably smaller than the one of the {@link CasePivotStatementGenerator} for
+ * thousands of pivot values and lets the database evaluate the pivot predicates with a single join.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.8
+ */
+public class JoinPivotStatementGenerator extends DefaultPivotStatementGenerator {
+
+    private static final JoinPivotStatementGenerator INSTANCE = new JoinPivotStatementGenerator();
+
+    private static final String INDEX_COLUMN = "knime_pk";
+
+    private static final String VALUE_COLUMN_PREFIX = "knime_p";
+
+    private JoinPivotStatementGenerator() {
+        super();
+    }
+
+    /**
+     * @return the iNSTANCE
+     */
+    public static JoinPivotStatementGenerator getINSTANCE() {
+        return INSTANCE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected StringBuilder createOuterSelectStatement(final StatementManipulator sm, final String tableName,
+        final List<String> groupByColumnsList, final List<PivotData> pivotDataQueries,
+        final List<Pair<String, DBAggregationFunction>> aggValues, final PivotColumnNameGenerator pivotColGenerator) {
+
+        StringBuilder outerSelectStatement = new StringBuilder();
+        for (int i = 0; i < groupByColumnsList.size(); i++) {
+            final String groupColName = sm.quoteIdentifier(groupByColumnsList.get(i));
+            outerSelectStatement.append("T." + groupColName + ", ");
+        }
+        return outerSelectStatement;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected StringBuilder createInnerStatement(final StatementManipulator sm, final String tableName,
+        final List<String> groupByColumnsList, final List<PivotData> pivotDataQueries,
+        final List<Pair<String, DBAggregationFunction>> aggValues, final PivotColumnNameGenerator pivotColGenerator) {
+
+        final String index = "P." + sm.quoteIdentifier(INDEX_COLUMN);
+        final StringBuilder innerStatement = new StringBuilder();
+        int id_counter = 1;
+        for (PivotData pivotData : pivotDataQueries) {
+            for (Pair<String, DBAggregationFunction> entry : aggValues) {
+                String columnName = entry.getFirst();
+                DBAggregationFunction aggMethod = entry.getSecond();
+                innerStatement.append(aggMethod.getSQLFragment4SubQuery(sm, "T", "CASE WHEN " + index + " = "
+                    + id_counter + " THEN T." + sm.quoteIdentifier(columnName) + " END"));
+                innerStatement.append(" ");
+                innerStatement.append(sm
+                    .quoteIdentifier(pivotColGenerator.createColumnName(columnName, aggMethod, pivotData.getValues())));
+                innerStatement.append(", ");
+            }
+            id_counter++;
+        }
+        innerStatement.delete(innerStatement.length() - 2, innerStatement.length());
+        innerStatement.append(" FROM (" + tableName + ") T");
+
+        final List<DataColumnSpec> pivotColumns = pivotDataQueries.get(0).getColumns();
+        final String[] columnNames = new String[pivotColumns.size() + 1];
+        for (int i = 0; i < pivotColumns.size(); i++) {
+            columnNames[i] = VALUE_COLUMN_PREFIX + (i + 1);
+        }
+        columnNames[pivotColumns.size()] = INDEX_COLUMN;
+        final List<String[]> rows = new ArrayList<>(pivotDataQueries.size());
+        for (PivotData pivotData : pivotDataQueries) {
+            final String[] row = new String[columnNames.length];
+            for (int i = 0; i < pivotColumns.size(); i++) {
+                row[i] = pivotData.getLiteral(i);
+            }
+            row[pivotColumns.size()] = Integer.toString(rows.size() + 1);
+            rows.add(row);
+        }
+        innerStatement.append(" LEFT JOIN (").append(sm.getInlineTableStatement(columnNames, rows)).append(") P ON ");
+        for (int i = 0; i < pivotColumns.size(); i++) {
+            if (i != 0) {
+                innerStatement.append(" AND ");
+            }
+            innerStatement.append("T.").append(sm.quoteIdentifier(pivotColumns.get(i).getName())).append(" = P.")
+                .append(sm.quoteIdentifier(columnNames[i]));
+        }
+        return innerStatement;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected StringBuilder createOuterGroupByStatement(final StatementManipulator sm, final String tableName,
+        final List<String> groupByColumnsList, final List<PivotData> pivotDataQueries,
+        final List<Pair<String, DBAggregationFunction>> aggValues, final PivotColumnNameGenerator pivotColGenerator) {
+
+        StringBuilder outerGroupByStatement = new StringBuilder();
+        StringBuilder outerSelectStatement = createOuterSelectStatement(sm, tableName, groupByColumnsList,
+            pivotDataQueries, aggValues, pivotColGenerator);
+        if (outerSelectStatement.length() > 2) {
+            outerGroupByStatement.append(outerSelectStatement.substring(0, outerSelectStatement.length() - 2));
+        }
+        return outerGroupByStatement;
+    }
+}
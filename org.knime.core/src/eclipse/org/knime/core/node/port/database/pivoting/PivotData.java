@@ -113,4 +113,25 @@ public List<Object> getValues() {
         return m_myVals;
     }
 
+    /**
+     * @return List of {@link DataColumnSpec} holding pivot values
+     * @since 3.8
+     */
+    public List<DataColumnSpec> getColumns() {
+        return m_myCols;
+    }
+
+    /**
+     * @param index the index of the pivot column
+     * @return the pivot value of the column as SQL literal
+     * @since 3.8
+     */
+    public String getLiteral(final int index) {
+        final String val = String.valueOf(m_myVals.get(index));
+        if (m_myCols.get(index).getType().isCompatible(DoubleValue.class)) {
+            return val;
+        }
+        return m_statementManipulator.quoteLiteral(val);
+    }
+
 }
\ No newline at end of file
@@ -155,6 +155,29 @@ default BufferedDataTable createTable(final ExecutionContext exec, final Credent
         return exec.createBufferedDataTable(table, exec);
     }
 
+    /**
+     * Read data from database in parallel. The query is split into range partitions of the given numeric or date
+     * column, which are read concurrently using separate (pooled) connections and concatenated afterwards. The row ids
+     * get the partition index appended, e.g. "Row0_p3", and the row order is not retained across partitions. The
+     * default implementation reads the data sequentially.
+     *
+     * @param exec used for progress info
+     * @param cp {@link CredentialsProvider} providing user/password
+     * @param useDbRowId <code>true</code> if the row id returned by the database should be used to generate the
+     * KNIME row id
+     * @param partitionColumn the name of the numeric or date column used to split the query
+     * @param numPartitions the number of range partitions
+     * @return buffered data table read from database
+     * @throws CanceledExecutionException if canceled in between
+     * @throws SQLException if the connection could not be opened
+     * @since 3.8
+     */
+    default BufferedDataTable createTable(final ExecutionContext exec, final CredentialsProvider cp,
+        final boolean useDbRowId, final String partitionColumn, final int numPartitions)
+        throws CanceledExecutionException, SQLException {
+        return createTable(exec, cp, useDbRowId);
+    }
+
     /**
      * Read data from database.
      * @param exec used for progress info
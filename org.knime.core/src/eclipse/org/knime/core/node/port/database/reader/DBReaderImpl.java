@@ -50,8 +50,17 @@
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.knime.core.data.DataCell;
@@ -64,6 +73,7 @@
 import org.knime.core.data.RowKey;
 import org.knime.core.data.append.AppendedColumnRow;
 import org.knime.core.data.blob.BinaryObjectCellFactory;
+import org.knime.core.data.container.CloseableRowIterator;
 import org.knime.core.data.container.DataContainer;
 import org.knime.core.data.def.DefaultRow;
 import org.knime.core.data.def.JoinedRow;
@@ -73,13 +83,19 @@
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.port.database.DatabaseConnectionSettings;
 import org.knime.core.node.port.database.DatabaseHelper;
 import org.knime.core.node.port.database.DatabaseQueryConnectionSettings;
+import org.knime.core.node.port.database.StatementManipulator;
+import org.knime.core.node.port.database.connection.DBConnectionFactory;
+import org.knime.core.node.port.database.connection.DBMetadataCache;
+import org.knime.core.node.port.database.connection.PooledDBConnectionFactory;
 import org.knime.core.node.streamable.BufferedDataTableRowOutput;
 import org.knime.core.node.streamable.RowInput;
 import org.knime.core.node.workflow.CredentialsProvider;
+import org.knime.core.util.ThreadPool;
 import org.knime.core.util.UniqueNameGenerator;
 
 /**
@@ -93,6 +109,13 @@ public class DBReaderImpl extends DatabaseHelper implements DBReader {
     static final NodeLogger LOGGER =
             NodeLogger.getLogger(DBReaderImpl.class);
 
+    /** Separator of row id and partition index of partitioned reads. */
+    private static final String PARTITION_KEY_SEPARATOR = "_p";
+
+    /** Whether rows are read on a background thread, see {@link KNIMEConstants#PROPERTY_DATABASE_PREFETCH}. */
+    private static final boolean PREFETCH =
+        Boolean.parseBoolean(System.getProperty(KNIMEConstants.PROPERTY_DATABASE_PREFETCH, "true"));
+
     DataTableSpec m_spec;
 
     private BufferedDataContainer m_errorContainer;
@@ -134,7 +157,8 @@ public final DatabaseMetaData getDatabaseMetaData(
             final CredentialsProvider cp) throws SQLException {
         try {
             final DatabaseQueryConnectionSettings dbConn = getQueryConnection();
-            return dbConn.execute(cp, (conn) -> conn.getMetaData());
+            return DBMetadataCache.getInstance().getDatabaseMetaData(cp, dbConn,
+                () -> dbConn.execute(cp, (conn) -> conn.getMetaData()));
         } catch (SQLException sql) {
             throw sql;
         } catch (Exception ex) {
@@ -162,7 +186,7 @@ private Statement initStatement(final CredentialsProvider cp, final Connection c
 
     /**
      * Returns a data table spec that reflects the meta data form the database
-     * result set.
+     * result set. Specs are cached per database and user, see {@link DBMetadataCache}.
      * @param cp {@link CredentialsProvider} providing user/password
      * @return data table spec
      * @throws SQLException if the connection to the database could not be
@@ -177,7 +201,8 @@ public DataTableSpec getDataTableSpec(final CredentialsProvider cp)
         // retrieve connection
 //        final Connection conn = initConnection(cp);
 
-        m_spec = getQueryConnection().execute(cp, conn -> {
+        m_spec = DBMetadataCache.getInstance().getDataTableSpec(cp, getQueryConnection(),
+            getQueryConnection().getQuery(), () -> getQueryConnection().execute(cp, conn -> {
 
             final DatabaseQueryConnectionSettings dbConn = getQueryConnection();
             final String[] oQueries =  dbConn.getQuery().split(SQL_QUERY_SEPARATOR);
@@ -213,7 +238,7 @@ public DataTableSpec getDataTableSpec(final CredentialsProvider cp)
                     conn.commit();
                 }
             }
-        });
+        }));
         return m_spec;
     }
 
@@ -256,7 +281,296 @@ public RowIterator iterator() {
         });
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Falls back to a sequential read if the connection factory does not pool connections, if the query consists of
+     * several statements (as these would be executed once per partition) or if the partition column has no values.
+     * @since 3.8
+     */
+    @Override
+    public BufferedDataTable createTable(final ExecutionContext exec, final CredentialsProvider cp,
+        final boolean useDbRowId, final String partitionColumn, final int numPartitions)
+        throws CanceledExecutionException, SQLException {
+        final DatabaseQueryConnectionSettings dbConn = getQueryConnection();
+        final DBConnectionFactory connFactory = dbConn.getUtility().getConnectionFactory();
+        final String[] oQueries = dbConn.getQuery().split(SQL_QUERY_SEPARATOR);
+        if (numPartitions <= 1 || partitionColumn == null || oQueries.length > 1
+            || !(connFactory instanceof PooledDBConnectionFactory)
+            || !((PooledDBConnectionFactory)connFactory).isPoolingEnabled()) {
+            LOGGER.debug("Partitioned read not applicable, reading data sequentially");
+            return createTable(exec, cp, useDbRowId);
+        }
+        final String query = oQueries[0];
+        final StatementManipulator manipulator = dbConn.getUtility().getStatementManipulator();
+        exec.setMessage("Computing partitions of column \"" + partitionColumn + "\"");
+        final List<Partition> partitions = dbConn.execute(cp, conn -> {
+            try (Statement stmt = initStatement(cp, conn);
+                    ResultSet bounds = stmt.executeQuery(manipulator.forPartitionBounds(query, partitionColumn))) {
+                if (!bounds.next()) {
+                    return Collections.<Partition> emptyList();
+                }
+                return Partition.create(bounds, numPartitions);
+            } finally {
+                if (!conn.getAutoCommit()) {
+                    conn.commit();
+                }
+            }
+        });
+        if (partitions.isEmpty()) {
+            LOGGER.debug("No values in partition column \"" + partitionColumn + "\", reading data sequentially");
+            return createTable(exec, cp, useDbRowId);
+        }
+        if (m_blobFactory == null) {
+            m_blobFactory = new BinaryObjectCellFactory(exec);
+        }
+        final int numThreads =
+            Math.min(partitions.size(), ((PooledDBConnectionFactory)connFactory).getMaxPoolSize());
+        LOGGER.debug("Reading " + partitions.size() + " partitions of column \"" + partitionColumn + "\" using "
+            + numThreads + " connections");
+        final ThreadPool pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(numThreads);
+        final int fetchsize =
+            (DatabaseConnectionSettings.FETCH_SIZE != null) ? DatabaseConnectionSettings.FETCH_SIZE : -1;
+        final BufferedDataTable[] tables = new BufferedDataTable[partitions.size()];
+        final List<Future<Void>> futures = new ArrayList<>(partitions.size());
+        final AtomicLong rowCount = new AtomicLong();
+        exec.setMessage("Start reading rows from database...");
+        for (int i = 0; i < tables.length; i++) {
+            final int index = i;
+            final Partition partition = partitions.get(i);
+            final boolean isLast = i == tables.length - 1;
+            final String partitionQuery = manipulator.forPartition(query, partitionColumn, i == 0, isLast);
+            futures.add(pool.enqueue(() -> {
+                tables[index] = dbConn.execute(cp, conn -> {
+                    try (PreparedStatement stmt = conn.prepareStatement(partitionQuery)) {
+                        manipulator.setFetchSize(stmt, fetchsize);
+                        partition.bind(stmt);
+                        LOGGER.debug("Executing SQL statement as executeQuery: " + partitionQuery + " " + partition);
+                        try (ResultSet result = stmt.executeQuery()) {
+                            final DataTableSpec spec = createTableSpec(result.getMetaData());
+                            final BufferedDataContainer cont = exec.createDataContainer(spec);
+                            try (CloseableRowIterator it = prefetch(
+                                createDBRowIterator(spec, dbConn, m_blobFactory, useDbRowId, result, 0), fetchsize)) {
+                                while (it.hasNext()) {
+                                    exec.checkCanceled();
+                                    cont.addRowToTable(it.next());
+                                    final long count = rowCount.incrementAndGet();
+                                    exec.setMessage(() -> "Reading row " + count);
+                                }
+                            } finally {
+                                cont.close();
+                            }
+                            return cont.getTable();
+                        }
+                    } finally {
+                        if (!conn.getAutoCommit()) {
+                            conn.commit();
+                        }
+                    }
+                });
+                return null;
+            }));
+        }
+        waitFor(futures);
+        m_spec = tables[0].getDataTableSpec();
+        return exec.createConcatenateTableWithTableKeySuffix(PARTITION_KEY_SEPARATOR, tables);
+    }
+
+    /**
+     * Wraps the iterator into a {@link PrefetchingRowIterator} reading batches of the fetch size, unless prefetching
+     * is switched off.
+     */
+    private static CloseableRowIterator prefetch(final RowIterator it, final int fetchSize) {
+        if (PREFETCH) {
+            return new PrefetchingRowIterator(it, fetchSize, PrefetchingRowIterator.DEF_QUEUE_CAPACITY);
+        }
+        return new CloseableRowIterator() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public DataRow next() {
+                return it.next();
+            }
 
+            @Override
+            public void close() {
+                // nothing to close, the result set is closed by the caller
+            }
+        };
+    }
+
+    /** Waits for the completion of all partition reads, rethrowing the exception of the first failed one. */
+    private static void waitFor(final List<Future<Void>> futures) throws CanceledExecutionException, SQLException {
+        final Callable<Void> waitForFutures = () -> {
+            for (Future<Void> f : futures) {
+                f.get();
+            }
+            return null;
+        };
+        try {
+            final ThreadPool currentPool = ThreadPool.currentPool();
+            if (currentPool != null) {
+                // don't block a thread of the global pool while waiting for the sub tasks
+                currentPool.runInvisible(waitForFutures);
+            } else {
+                waitForFutures.call();
+            }
+        } catch (ExecutionException e) {
+            futures.stream().forEach(f -> f.cancel(true));
+            Throwable cause = e.getCause();
+            // runInvisible wraps the exception of the callable, which in turn wraps the exception of the task
+            while (cause instanceof ExecutionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            // the statement execution wraps all non SQL exceptions
+            if (cause instanceof SQLException && cause.getCause() instanceof CanceledExecutionException) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof CanceledExecutionException) {
+                throw (CanceledExecutionException)cause;
+            } else if (cause instanceof SQLException) {
+                throw (SQLException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new SQLException(cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            futures.stream().forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new CanceledExecutionException("Interrupted while waiting for partition reads");
+        } catch (Exception e) {
+            futures.stream().forEach(f -> f.cancel(true));
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * A value range of the partition column, bound to the parameters of the partition query. The first partition has
+     * no lower and the last no upper bound, so no row is lost if MIN or MAX can't be represented exactly by the bound.
+     */
+    static final class Partition {
+
+        private final int m_sqlType;
+
+        /** Inclusive lower bound or <code>null</code> for the first partition. */
+        private final Object m_lower;
+
+        /** Exclusive upper bound or <code>null</code> for the last partition. */
+        private final Object m_upper;
+
+        private Partition(final int sqlType, final Object lower, final Object upper) {
+            m_sqlType = sqlType;
+            m_lower = lower;
+            m_upper = upper;
+        }
+
+        /** @return the inclusive lower bound or <code>null</code> if there is none */
+        Object getLower() {
+            return m_lower;
+        }
+
+        /** @return the exclusive upper bound or <code>null</code> if there is none */
+        Object getUpper() {
+            return m_upper;
+        }
+
+        private void bind(final PreparedStatement stmt) throws SQLException {
+            int index = 1;
+            if (m_lower != null) {
+                stmt.setObject(index++, m_lower, m_sqlType);
+            }
+            if (m_upper != null) {
+                stmt.setObject(index, m_upper, m_sqlType);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "[" + (m_lower == null ? "-inf" : m_lower) + ", " + (m_upper == null ? "+inf" : m_upper) + ")";
+        }
+
+        /**
+         * Splits the range of the minimum and maximum of the current row into at most the given number of partitions,
+         * returns an empty list if there are no values.
+         */
+        static List<Partition> create(final ResultSet bounds, final int numPartitions) throws SQLException {
+            final int sqlType = bounds.getMetaData().getColumnType(1);
+            final int boundType;
+            // the bounds between two partitions, in ascending order
+            final Object[] splits;
+            switch (sqlType) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                case Types.BIGINT:
+                    final long minLong = bounds.getLong(1);
+                    if (bounds.wasNull()) {
+                        return Collections.emptyList();
+                    }
+                    final long[] longBounds = split(minLong, bounds.getLong(2), numPartitions);
+                    boundType = Types.BIGINT;
+                    splits = new Object[longBounds.length - 2];
+                    for (int i = 0; i < splits.length; i++) {
+                        splits[i] = longBounds[i + 1];
+                    }
+                    break;
+                case Types.DATE:
+                case Types.TIMESTAMP:
+                case Types.TIMESTAMP_WITH_TIMEZONE:
+                    final Timestamp minTime = bounds.getTimestamp(1);
+                    if (minTime == null) {
+                        return Collections.emptyList();
+                    }
+                    final long[] timeBounds =
+                        split(minTime.getTime(), bounds.getTimestamp(2).getTime(), numPartitions);
+                    boundType = Types.TIMESTAMP;
+                    splits = new Object[timeBounds.length - 2];
+                    for (int i = 0; i < splits.length; i++) {
+                        splits[i] = new Timestamp(timeBounds[i + 1]);
+                    }
+                    break;
+                default:
+                    // any other numeric type
+                    final double minDouble = bounds.getDouble(1);
+                    if (bounds.wasNull()) {
+                        return Collections.emptyList();
+                    }
+                    final double maxDouble = bounds.getDouble(2);
+                    final int n = maxDouble > minDouble ? numPartitions : 1;
+                    boundType = Types.DOUBLE;
+                    splits = new Object[n - 1];
+                    for (int i = 0; i < splits.length; i++) {
+                        splits[i] = minDouble + (maxDouble - minDouble) * (i + 1) / n;
+                    }
+                    break;
+            }
+            final List<Partition> partitions = new ArrayList<>(splits.length + 1);
+            for (int i = 0; i <= splits.length; i++) {
+                partitions.add(new Partition(boundType, i == 0 ? null : splits[i - 1],
+                    i == splits.length ? null : splits[i]));
+            }
+            return partitions;
+        }
+
+        /** Returns the distinct bounds of at most n equally sized ranges from min to max. */
+        private static long[] split(final long min, final long max, final int n) {
+            // computed in double precision to avoid overflows of the range
+            final double range = (double)max - min;
+            final int numRanges = (int)Math.max(1, Math.min(n, range));
+            final long[] result = new long[numRanges + 1];
+            result[0] = min;
+            for (int i = 1; i < numRanges; i++) {
+                result[i] = Math.max(result[i - 1] + 1, min + (long)(range * i / numRanges));
+            }
+            result[numRanges] = max;
+            return result;
+        }
+    }
 
     /**
      * {@inheritDoc}
@@ -302,7 +616,8 @@ private DBRowIterator createRowIteratorConnection(final Connection conn, final E
         LOGGER.debug("Reading meta data from database ResultSet...");
         m_spec = createTableSpec(result.getMetaData());
         LOGGER.debug("Parsing database ResultSet...");
-        final RowIterator iterator = createDBRowIterator(m_spec, dbConn, m_blobFactory, useDbRowId, result);
+        final RowIterator iterator =
+            prefetch(createDBRowIterator(m_spec, dbConn, m_blobFactory, useDbRowId, result), fetchsize);
         return new RowIteratorConnection(conn, stmt, m_spec, iterator);
     }
 
@@ -364,8 +679,10 @@ DataTable createTable(final boolean useDbRowId, final int cachedNoRows, final Cr
 //                final DBRowIterator dbIt = createRowIterator(useDbRowId, result);
                 final RowIterator it = createDBRowIterator(m_spec, dbConn, m_blobFactory, useDbRowId, result);
                 DataContainer buf = new DataContainer(m_spec);
-                while (it.hasNext()) {
-                    buf.addRowToTable(it.next());
+                try (CloseableRowIterator prefetchIt = prefetch(it, stmt.getFetchSize())) {
+                    while (prefetchIt.hasNext()) {
+                        buf.addRowToTable(prefetchIt.next());
+                    }
                 }
                 buf.close();
                 return buf.getTable();
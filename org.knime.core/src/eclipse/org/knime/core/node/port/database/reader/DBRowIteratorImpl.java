@@ -61,6 +61,7 @@
 import java.sql.NClob;
 import java.sql.Ref;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
@@ -126,6 +127,42 @@ public class DBRowIteratorImpl extends RowIterator {
 
     protected final BinaryObjectCellFactory m_blobFactory;
 
+    /** The value class of each column that determines the read method, resolved once from the spec. */
+    private enum ColumnKind {
+        BOOLEAN, INT, LONG, DOUBLE, DATE, BINARY, OTHER;
+
+        private static ColumnKind of(final DataType type) {
+            if (type.isCompatible(BooleanValue.class)) {
+                return BOOLEAN;
+            } else if (type.isCompatible(IntValue.class)) {
+                return INT;
+            } else if (type.isCompatible(LongValue.class)) {
+                return LONG;
+            } else if (type.isCompatible(DoubleValue.class)) {
+                return DOUBLE;
+            } else if (type.isCompatible(DateAndTimeValue.class)) {
+                return DATE;
+            } else if (type.isCompatible(BinaryObjectDataValue.class)) {
+                return BINARY;
+            }
+            return OTHER;
+        }
+    }
+
+    private final ColumnKind[] m_kinds;
+
+    /** The JDBC types of the columns, resolved once from the result set meta data (lazily). */
+    private int[] m_dbTypes;
+
+    /** Reads the value of a column of the current row. */
+    @FunctionalInterface
+    private interface ColumnReader {
+        DataCell read(int i) throws SQLException, IOException;
+    }
+
+    /** The reader of each column, chosen on first access from the column's value class and JDBC type. */
+    private final ColumnReader[] m_readers;
+
     /**
      * @param spec {@link DataTableSpec}
      * @param conn {@link DatabaseConnectionSettings}
@@ -153,6 +190,11 @@ protected DBRowIteratorImpl(final DataTableSpec spec, final DatabaseConnectionSe
         m_blobFactory = blobFactory;
         m_result = result;
         m_streamException = new boolean[m_spec.getNumColumns()];
+        m_kinds = new ColumnKind[m_spec.getNumColumns()];
+        m_readers = new ColumnReader[m_spec.getNumColumns()];
+        for (int i = 0; i < m_kinds.length; i++) {
+            m_kinds[i] = ColumnKind.of(m_spec.getColumnSpec(i).getType());
+        }
         m_rowIdsStartWithZero = m_conn.getRowIdsStartWithZero();
         m_useDbRowId = useDbRowId;
         m_rowCounter = startRowId;
@@ -191,113 +233,16 @@ public boolean hasNext() {
     public DataRow next() {
         DataCell[] cells = new DataCell[m_spec.getNumColumns()];
         for (int i = 0; i < cells.length; i++) {
-            DataType type = m_spec.getColumnSpec(i).getType();
             int dbType = Types.NULL;
-            final DataCell cell;
             try {
-                dbType = m_result.getMetaData().getColumnType(i + 1);
-                if (type.isCompatible(BooleanValue.class)) {
-                    switch (dbType) {
-                        // all types that can be interpreted as boolean
-                        case Types.BIT:
-                        case Types.BOOLEAN:
-                            cell = readBoolean(i);
-                            break;
-                        default: cell = readBoolean(i);
-                    }
-                } else if (type.isCompatible(IntValue.class)) {
-                    switch (dbType) {
-                        // all types that can be interpreted as integer
-                        case Types.TINYINT:
-                            cell = readByte(i);
-                            break;
-                        case Types.SMALLINT:
-                            cell = readShort(i);
-                            break;
-                        case Types.INTEGER:
-                            cell = readInt(i);
-                            break;
-                        default: cell = readInt(i);
-                    }
-                } else if (type.isCompatible(LongValue.class)) {
-                    switch (dbType) {
-                        // all types that can be interpreted as long
-                        case Types.BIGINT:
-                            cell = readLong(i);
-                            break;
-                        default: cell = readLong(i);
-                    }
-                } else if (type.isCompatible(DoubleValue.class)) {
-                    switch (dbType) {
-                        // all types that can be interpreted as double
-                        case Types.REAL:
-                            cell = readFloat(i);
-                            break;
-                        default: cell = readDouble(i);
-                    }
-                } else if (type.isCompatible(DateAndTimeValue.class)) {
-                    switch (dbType) {
-                        case Types.DATE:
-                            cell = readDate(i); break;
-                        case Types.TIME:
-                            cell = readTime(i); break;
-                        case Types.TIMESTAMP:
-                            cell = readTimestamp(i); break;
-                        default: cell = readString(i);
-                    }
-                } else if (type.isCompatible(BinaryObjectDataValue.class)) {
-                    switch (dbType) {
-                        case Types.BLOB:
-                            DataCell c = null;
-                            try {
-                                c = readBlob(i);
-                            } catch (SQLException ex) {
-                                // probably not supported (e.g. SQLite), therefore try another method
-                                c = readBytesAsBLOB(i);
-                            }
-                            cell = c;
-                            break;
-                        case Types.LONGVARCHAR:
-                        case Types.LONGNVARCHAR:
-                            cell = readAsciiStream(i); break;
-                        case Types.BINARY:
-                        case Types.LONGVARBINARY:
-                        case Types.VARBINARY:
-                            cell = readBinaryStream(i); break;
-                        default: cell = readString(i);
-                    }
-                } else {
-                    switch (dbType) {
-                        case Types.CLOB:
-                            cell = readClob(i); break;
-                        case Types.ARRAY:
-                            cell = readArray(i); break;
-                        case Types.CHAR:
-                        case Types.VARCHAR:
-                        case Types.LONGVARCHAR:
-                            cell = readString(i); break;
-                        case Types.VARBINARY:
-                            cell = readBytesAsString(i); break;
-                        case Types.REF:
-                            cell = readRef(i); break;
-                        case Types.NCHAR:
-                        case Types.NVARCHAR:
-                        case Types.LONGNVARCHAR:
-                            cell = readNString(i); break;
-                        case Types.NCLOB:
-                            cell = readNClob(i); break;
-                        case Types.DATALINK:
-                            cell = readURL(i); break;
-                        case Types.STRUCT:
-                        case Types.JAVA_OBJECT:
-                            cell = readObject(i); break;
-                        default:
-                            cell = readObject(i); break;
-
-                    }
+                dbType = getDbType(i);
+                ColumnReader reader = m_readers[i];
+                if (reader == null) {
+                    reader = createReader(m_kinds[i], dbType);
+                    m_readers[i] = reader;
                 }
                 // finally set the new cell into the array of cells
-                cells[i] = cell;
+                cells[i] = reader.read(i);
             } catch (SQLException sqle) {
                 handlerException("SQL Exception reading Object of type \"" + dbType + "\": ", sqle);
                 cells[i] = new MissingCell(sqle.getMessage());
@@ -308,7 +253,8 @@ public DataRow next() {
         }
         long rowId;
         try {
-            rowId = m_result.getRow();
+            // ResultSet#getRow is only called if needed, it's not for free with all drivers
+            rowId = m_useDbRowId ? m_result.getRow() : 0;
             // Bug 2729: ResultSet#getRow return 0 if there is no row id
             if (rowId <= 0 || !m_useDbRowId ) {
                 // use row counter
@@ -324,6 +270,109 @@ public DataRow next() {
         return new DefaultRow(RowKey.createRowKey(rowId), cells);
     }
 
+    /**
+     * Chooses the read method of a column once, so that reading a row does not need to dispatch on the value class
+     * and JDBC type of each cell.
+     */
+    private ColumnReader createReader(final ColumnKind kind, final int dbType) {
+        switch (kind) {
+            case BOOLEAN:
+                // all types that can be interpreted as boolean
+                return this::readBoolean;
+            case INT:
+                // all types that can be interpreted as integer
+                switch (dbType) {
+                    case Types.TINYINT:
+                        return this::readByte;
+                    case Types.SMALLINT:
+                        return this::readShort;
+                    default:
+                        return this::readInt;
+                }
+            case LONG:
+                // all types that can be interpreted as long
+                return this::readLong;
+            case DOUBLE:
+                // all types that can be interpreted as double
+                return dbType == Types.REAL ? this::readFloat : this::readDouble;
+            case DATE:
+                switch (dbType) {
+                    case Types.DATE:
+                        return this::readDate;
+                    case Types.TIME:
+                        return this::readTime;
+                    case Types.TIMESTAMP:
+                        return this::readTimestamp;
+                    default:
+                        return this::readString;
+                }
+            case BINARY:
+                switch (dbType) {
+                    case Types.BLOB:
+                        return i -> {
+                            try {
+                                return readBlob(i);
+                            } catch (SQLException ex) {
+                                // probably not supported (e.g. SQLite), therefore try another method
+                                return readBytesAsBLOB(i);
+                            }
+                        };
+                    case Types.LONGVARCHAR:
+                    case Types.LONGNVARCHAR:
+                        return this::readAsciiStream;
+                    case Types.BINARY:
+                    case Types.LONGVARBINARY:
+                    case Types.VARBINARY:
+                        return this::readBinaryStream;
+                    default:
+                        return this::readString;
+                }
+            default:
+                switch (dbType) {
+                    case Types.CLOB:
+                        return this::readClob;
+                    case Types.ARRAY:
+                        return this::readArray;
+                    case Types.CHAR:
+                    case Types.VARCHAR:
+                    case Types.LONGVARCHAR:
+                        return this::readString;
+                    case Types.VARBINARY:
+                        return this::readBytesAsString;
+                    case Types.REF:
+                        return this::readRef;
+                    case Types.NCHAR:
+                    case Types.NVARCHAR:
+                    case Types.LONGNVARCHAR:
+                        return this::readNString;
+                    case Types.NCLOB:
+                        return this::readNClob;
+                    case Types.DATALINK:
+                        return this::readURL;
+                    default:
+                        return this::readObject;
+                }
+        }
+    }
+
+    /**
+     * @param i the column index
+     * @return the JDBC type of the column as given by the result set meta data
+     * @throws SQLException if the meta data could not be read
+     * @since 3.8
+     */
+    protected final int getDbType(final int i) throws SQLException {
+        if (m_dbTypes == null) {
+            final ResultSetMetaData meta = m_result.getMetaData();
+            final int[] dbTypes = new int[m_spec.getNumColumns()];
+            for (int c = 0; c < dbTypes.length; c++) {
+                dbTypes[c] = meta.getColumnType(c + 1);
+            }
+            m_dbTypes = dbTypes;
+        }
+        return m_dbTypes[i];
+    }
+
     protected DataCell readClob(final int i)
             throws IOException, SQLException {
         Clob clob = m_result.getClob(i + 1);
@@ -0,0 +1,228 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.reader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.util.ThreadUtils;
+
+/**
+ * Row iterator that reads the rows of another iterator in batches on a background thread, so that fetching rows from
+ * the database (and converting them into cells) overlaps with the processing of the previous batch by the consumer,
+ * e.g. writing the rows into a table. At most <code>queueCapacity</code> batches are buffered.
+ *
+ * <p>
+ * The underlying iterator is only accessed by the background thread. The iterator must be closed (or read to the end)
+ * before the result set of the underlying iterator is closed; closing waits for the background thread to finish its
+ * current row.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.8
+ */
+public final class PrefetchingRowIterator extends CloseableRowIterator {
+
+    /** Default number of rows per batch if no fetch size is set. */
+    public static final int DEF_BATCH_SIZE = 1000;
+
+    /** Default number of batches buffered by the background thread. */
+    public static final int DEF_QUEUE_CAPACITY = 2;
+
+    /** Marks the end of the rows, the identity is checked. */
+    private static final List<DataRow> END_OF_ROWS = Collections.unmodifiableList(new ArrayList<DataRow>(0));
+
+    private final RowIterator m_source;
+
+    private final int m_batchSize;
+
+    private final BlockingQueue<List<DataRow>> m_queue;
+
+    private Thread m_fetcher;
+
+    private volatile boolean m_isClosed;
+
+    /** The exception of the background thread, read after {@link #END_OF_ROWS} has been taken. */
+    private volatile Throwable m_failure;
+
+    private Iterator<DataRow> m_batch = Collections.emptyIterator();
+
+    private boolean m_isAtEnd;
+
+    /**
+     * @param source the iterator to read from, only accessed by the background thread afterwards
+     * @param batchSize the number of rows per batch, {@link #DEF_BATCH_SIZE} if not positive
+     * @param queueCapacity the number of buffered batches, {@link #DEF_QUEUE_CAPACITY} if not positive
+     */
+    public PrefetchingRowIterator(final RowIterator source, final int batchSize, final int queueCapacity) {
+        if (source == null) {
+            throw new NullPointerException("Argument must not be null.");
+        }
+        m_source = source;
+        m_batchSize = batchSize > 0 ? batchSize : DEF_BATCH_SIZE;
+        m_queue = new ArrayBlockingQueue<>(queueCapacity > 0 ? queueCapacity : DEF_QUEUE_CAPACITY);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+        while (!m_batch.hasNext()) {
+            if (m_isAtEnd || m_isClosed) {
+                return false;
+            }
+            if (m_fetcher == null) {
+                m_fetcher = ThreadUtils.threadWithContext(this::fetch, "KNIME DB row prefetcher");
+                m_fetcher.setDaemon(true);
+                m_fetcher.start();
+            }
+            final List<DataRow> batch;
+            try {
+                batch = m_queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new IllegalStateException("Interrupted while waiting for database rows", e);
+            }
+            if (batch == END_OF_ROWS) {
+                m_isAtEnd = true;
+                final Throwable failure = m_failure;
+                if (failure instanceof RuntimeException) {
+                    throw (RuntimeException)failure;
+                } else if (failure instanceof Error) {
+                    throw (Error)failure;
+                } else if (failure != null) {
+                    throw new IllegalStateException(failure.getMessage(), failure);
+                }
+                return false;
+            }
+            m_batch = batch.iterator();
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DataRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more rows");
+        }
+        return m_batch.next();
+    }
+
+    /** Runs on the background thread. */
+    private void fetch() {
+        List<DataRow> batch = new ArrayList<>(m_batchSize);
+        try {
+            while (!m_isClosed && m_source.hasNext()) {
+                batch.add(m_source.next());
+                if (batch.size() == m_batchSize) {
+                    offer(batch);
+                    batch = new ArrayList<>(m_batchSize);
+                }
+            }
+        } catch (Throwable t) {
+            m_failure = t;
+        }
+        try {
+            // the rows read before a failure are returned before the failure is rethrown
+            if (!batch.isEmpty()) {
+                offer(batch);
+            }
+            offer(END_OF_ROWS);
+        } catch (InterruptedException e) {
+            // only interrupted if closed, nobody is waiting
+        }
+    }
+
+    /** Puts the batch into the queue, gives up if the iterator is closed while waiting. */
+    private void offer(final List<DataRow> batch) throws InterruptedException {
+        while (!m_queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+            if (m_isClosed) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops the background thread and waits until it has finished reading its current row.
+     */
+    @Override
+    public void close() {
+        if (m_isClosed) {
+            return;
+        }
+        m_isClosed = true;
+        m_batch = Collections.emptyIterator();
+        final Thread fetcher = m_fetcher;
+        if (fetcher != null && fetcher != Thread.currentThread()) {
+            boolean isInterrupted = false;
+            while (fetcher.isAlive()) {
+                m_queue.clear();
+                try {
+                    fetcher.join(100);
+                } catch (InterruptedException e) {
+                    isInterrupted = true;
+                }
+            }
+            if (isInterrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        m_queue.clear();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.writer;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Wrapper;
+
+import org.knime.core.data.DataTableSpec;
+
+/**
+ * Base class for bulk loaders that stream the rows as CSV into a vendor specific API of the JDBC driver. Since
+ * the drivers are loaded dynamically by the driver registry, their classes are not visible to this bundle and the
+ * vendor API is accessed via reflection through the class loader of the physical connection.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.8
+ */
+public abstract class AbstractCSVBulkLoader implements DBBulkLoader {
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Binary and collection columns cannot be written as CSV.
+     */
+    @Override
+    public boolean supports(final DataTableSpec spec) {
+        return DBBulkLoadRows.isCSVCompatible(spec);
+    }
+
+    /**
+     * Unwraps the driver specific interface with the first of the given class names that is available.
+     *
+     * @param conn the (possibly pooled) connection whose driver provides the interface
+     * @param wrapper the connection or a statement created from it
+     * @param classNames the fully qualified names of the driver interfaces to try, in order of preference
+     * @return the unwrapped object, the class of which implements the found interface
+     * @throws SQLException if none of the interfaces is provided by the driver
+     */
+    protected static Object unwrap(final Connection conn, final Wrapper wrapper, final String... classNames)
+        throws SQLException {
+        // the physical connection is returned by unwrap, pooled connections are only proxies
+        final ClassLoader loader = conn.unwrap(Connection.class).getClass().getClassLoader();
+        for (String className : classNames) {
+            try {
+                final Class<?> iface = Class.forName(className, true, loader);
+                if (wrapper.isWrapperFor(iface)) {
+                    return wrapper.unwrap(iface);
+                }
+            } catch (ClassNotFoundException e) {
+                // try next
+            }
+        }
+        throw new SQLException("Driver does not provide any of " + String.join(", ", classNames));
+    }
+
+    /**
+     * Invokes a public method of a driver object.
+     *
+     * @param target the object to invoke the method on
+     * @param methodName the name of the method
+     * @param parameterTypes the parameter types of the method
+     * @param args the arguments
+     * @return the result of the invocation
+     * @throws Exception the exception thrown by the invoked method or if the method does not exist
+     */
+    protected static Object invoke(final Object target, final String methodName, final Class<?>[] parameterTypes,
+        final Object... args) throws Exception {
+        try {
+            final Method method = target.getClass().getMethod(methodName, parameterTypes);
+            if (!Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+                // public interface method implemented by a non-public driver class
+                method.setAccessible(true);
+            }
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception)cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.writer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.TimeZone;
+
+import org.knime.core.data.BooleanValue;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.blob.BinaryObjectDataValue;
+import org.knime.core.data.collection.CollectionDataValue;
+import org.knime.core.data.date.DateAndTimeValue;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.streamable.RowInput;
+
+/**
+ * The rows handed to a {@link DBBulkLoader}. Rows are pulled from the input one at a time, either directly via
+ * {@link #next()} or as CSV formatted stream via {@link #toCSV(String)}, so that the whole table is never held in
+ * memory. The values of a row are in the order of the database columns passed to
+ * {@link DBBulkLoader#load(java.sql.Connection, String, String, DBBulkLoadRows)}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.8
+ */
+public final class DBBulkLoadRows {
+
+    /** Binds a single cell to a statement parameter the same way the <code>INSERT</code> statements do. */
+    @FunctionalInterface
+    interface CellBinder {
+        void bind(PreparedStatement stmt, int dbIdx, DataColumnSpec cspec, DataCell cell) throws SQLException;
+    }
+
+    private final RowInput m_input;
+
+    private final DataTableSpec m_spec;
+
+    private final int[] m_mapping;
+
+    private final boolean m_insertNullForMissingCols;
+
+    private final TimeZone m_timeZone;
+
+    private final long m_rowCount;
+
+    private final ExecutionMonitor m_exec;
+
+    private final CellBinder m_binder;
+
+    private long m_readCount;
+
+    private Exception m_readFailure;
+
+    DBBulkLoadRows(final RowInput input, final int[] mapping, final boolean insertNullForMissingCols,
+        final TimeZone timeZone, final long rowCount, final ExecutionMonitor exec, final CellBinder binder) {
+        m_input = input;
+        m_spec = input.getDataTableSpec();
+        m_mapping = mapping;
+        m_insertNullForMissingCols = insertNullForMissingCols;
+        m_timeZone = timeZone;
+        m_rowCount = rowCount;
+        m_exec = exec;
+        m_binder = binder;
+    }
+
+    /**
+     * @param spec a table spec
+     * @return <code>true</code> if all columns of the spec can be written as CSV values, i.e. the spec does not
+     *         contain binary or collection columns
+     */
+    public static boolean isCSVCompatible(final DataTableSpec spec) {
+        for (DataColumnSpec cspec : spec) {
+            final DataType type = cspec.getType();
+            if (type.isCompatible(BinaryObjectDataValue.class) || type.isCompatible(CollectionDataValue.class)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of database columns each row has values for
+     */
+    public int getNumColumns() {
+        int numColumns = 0;
+        for (int i = 0; i < m_mapping.length; i++) {
+            if (m_mapping[i] >= 0 || m_insertNullForMissingCols) {
+                numColumns++;
+            }
+        }
+        return numColumns;
+    }
+
+    /**
+     * @return the number of rows read from the input so far
+     */
+    public long getReadCount() {
+        return m_readCount;
+    }
+
+    /**
+     * @return the exception reading the input failed with, e.g. because the execution was canceled, or
+     *         <code>null</code>
+     */
+    Exception getReadFailure() {
+        return m_readFailure;
+    }
+
+    /**
+     * Returns the next input row.
+     *
+     * @return the next row or <code>null</code> if all rows have been read
+     * @throws InterruptedException if interrupted while waiting for the next row
+     * @throws CanceledExecutionException if the execution was canceled
+     */
+    public DataRow next() throws InterruptedException, CanceledExecutionException {
+        final DataRow row;
+        try {
+            m_exec.checkCanceled();
+            row = m_input.poll();
+        } catch (InterruptedException | CanceledExecutionException e) {
+            m_readFailure = e;
+            throw e;
+        }
+        if (row != null) {
+            m_readCount++;
+            if (m_rowCount > 0) {
+                m_exec.setProgress(1.0 * m_readCount / m_rowCount, "Row " + "#" + m_readCount);
+            } else {
+                m_exec.setProgress("Writing Row#" + m_readCount);
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Binds the values of the given row to consecutive statement parameters.
+     *
+     * @param stmt the statement
+     * @param dbIdx the index of the first parameter
+     * @param row a row returned by {@link #next()}
+     * @return the index of the parameter following the last bound value
+     * @throws SQLException if a value could not be bound
+     */
+    public int bind(final PreparedStatement stmt, final int dbIdx, final DataRow row) throws SQLException {
+        int idx = dbIdx;
+        for (int i = 0; i < m_mapping.length; i++) {
+            if (m_mapping[i] >= 0) {
+                m_binder.bind(stmt, idx++, m_spec.getColumnSpec(m_mapping[i]), row.getCell(m_mapping[i]));
+            } else if (m_insertNullForMissingCols) {
+                stmt.setNull(idx++, Types.NULL);
+            }
+        }
+        return idx;
+    }
+
+    /**
+     * Returns the remaining rows as UTF-8 encoded CSV stream with one line per row. Values are separated by comma,
+     * strings are enclosed in double quotes with embedded quotes doubled, booleans are written as <code>1</code>
+     * and <code>0</code> and dates as JDBC escape format. Rows are read from the input only when the stream is read.
+     *
+     * @param nullToken the unquoted token to write for missing values, e.g. the empty string
+     * @return the CSV stream
+     */
+    public InputStream toCSV(final String nullToken) {
+        return new CSVInputStream(nullToken);
+    }
+
+    /**
+     * Formats a single row, package-private for testing.
+     */
+    String toCSVLine(final DataRow row, final String nullToken) {
+        final StringBuilder buf = new StringBuilder();
+        boolean isFirst = true;
+        for (int i = 0; i < m_mapping.length; i++) {
+            if (m_mapping[i] < 0 && !m_insertNullForMissingCols) {
+                continue;
+            }
+            if (!isFirst) {
+                buf.append(',');
+            }
+            isFirst = false;
+            if (m_mapping[i] >= 0) {
+                appendValue(buf, m_spec.getColumnSpec(m_mapping[i]), row.getCell(m_mapping[i]), nullToken);
+            } else {
+                buf.append(nullToken);
+            }
+        }
+        return buf.append('\n').toString();
+    }
+
+    private void appendValue(final StringBuilder buf, final DataColumnSpec cspec, final DataCell cell,
+        final String nullToken) {
+        if (cell.isMissing()) {
+            buf.append(nullToken);
+            return;
+        }
+        // same type precedence as DatabaseHelper#fillStatement
+        final DataType type = cspec.getType();
+        if (type.isCompatible(BooleanValue.class)) {
+            buf.append(((BooleanValue)cell).getBooleanValue() ? '1' : '0');
+        } else if (type.isCompatible(IntValue.class)) {
+            buf.append(((IntValue)cell).getIntValue());
+        } else if (type.isCompatible(LongValue.class)) {
+            buf.append(((LongValue)cell).getLongValue());
+        } else if (type.isCompatible(DoubleValue.class)) {
+            final double dbl = ((DoubleValue)cell).getDoubleValue();
+            if (Double.isNaN(dbl)) {
+                buf.append(nullToken);
+            } else {
+                buf.append(dbl);
+            }
+        } else if (type.isCompatible(DateAndTimeValue.class)) {
+            final DateAndTimeValue dateCell = (DateAndTimeValue)cell;
+            final long corrDate =
+                dateCell.getUTCTimeInMillis() - m_timeZone.getOffset(dateCell.getUTCTimeInMillis());
+            if (!dateCell.hasTime() && !dateCell.hasMillis()) {
+                buf.append(new java.sql.Date(corrDate));
+            } else if (!dateCell.hasDate()) {
+                buf.append(new java.sql.Time(corrDate));
+            } else {
+                buf.append(new java.sql.Timestamp(corrDate));
+            }
+        } else {
+            final String value = cell.toString();
+            buf.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c == '"') {
+                    buf.append('"');
+                }
+                buf.append(c);
+            }
+            buf.append('"');
+        }
+    }
+
+    /** Formats the next row only once all bytes of the previous row have been consumed. */
+    private final class CSVInputStream extends InputStream {
+
+        private final String m_nullToken;
+
+        private byte[] m_line = new byte[0];
+
+        private int m_pos;
+
+        private boolean m_isEnd;
+
+        private CSVInputStream(final String nullToken) {
+            m_nullToken = nullToken;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return m_line[m_pos++] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int read = 0;
+            while (read < len && fill()) {
+                final int n = Math.min(len - read, m_line.length - m_pos);
+                System.arraycopy(m_line, m_pos, b, off + read, n);
+                m_pos += n;
+                read += n;
+            }
+            return read == 0 ? -1 : read;
+        }
+
+        private boolean fill() throws IOException {
+            if (m_pos < m_line.length) {
+                return true;
+            }
+            if (m_isEnd) {
+                return false;
+            }
+            final DataRow row;
+            try {
+                row = next();
+            } catch (InterruptedException | CanceledExecutionException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            if (row == null) {
+                m_isEnd = true;
+                return false;
+            }
+            m_line = toCSVLine(row, m_nullToken).getBytes(StandardCharsets.UTF_8);
+            m_pos = 0;
+            return true;
+        }
+    }
+}
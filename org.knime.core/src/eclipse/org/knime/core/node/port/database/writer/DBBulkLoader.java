@@ -0,0 +1,82 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.writer;
+
+import java.sql.Connection;
+
+import org.knime.core.data.DataTableSpec;
+
+/**
+ * Loads rows into a database table using a database specific bulk load mechanism such as PostgreSQL's
+ * <code>COPY</code> or MySQL's <code>LOAD DATA</code> instead of single <code>INSERT</code> statements.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.8
+ * @see org.knime.core.node.port.database.DatabaseUtility#getBulkLoader()
+ */
+public interface DBBulkLoader {
+
+    /**
+     * @param spec the spec of the rows to load
+     * @return <code>true</code> if all columns of the given spec can be loaded, otherwise the rows are written
+     *         with <code>INSERT</code> statements
+     */
+    boolean supports(DataTableSpec spec);
+
+    /**
+     * Loads all rows into the given table. Auto commit is switched off by the caller, which also commits or rolls
+     * back the transaction. If the loader fails before the first row was read from <code>rows</code>, the caller
+     * falls back to <code>INSERT</code> statements.
+     *
+     * @param conn the connection to use
+     * @param table the name of the existing table to load the rows into
+     * @param columnNames the list of database columns in parentheses as used in the insert statement
+     * @param rows the rows to load
+     * @return the number of loaded rows
+     * @throws Exception if the rows could not be loaded
+     */
+    long load(Connection conn, String table, String columnNames, DBBulkLoadRows rows) throws Exception;
+}
@@ -44,6 +44,7 @@
  */
 package org.knime.core.node.port.database.writer;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
@@ -51,9 +52,19 @@
 import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.knime.core.data.BooleanValue;
 import org.knime.core.data.DataCell;
@@ -68,12 +79,18 @@
 import org.knime.core.data.blob.BinaryObjectDataValue;
 import org.knime.core.data.date.DateAndTimeValue;
 import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.port.database.DatabaseConnectionSettings;
 import org.knime.core.node.port.database.DatabaseHelper;
+import org.knime.core.node.port.database.connection.DBConnectionFactory;
+import org.knime.core.node.port.database.connection.DBMetadataCache;
+import org.knime.core.node.port.database.connection.PooledDBConnectionFactory;
 import org.knime.core.node.streamable.RowInput;
 import org.knime.core.node.workflow.CredentialsProvider;
+import org.knime.core.util.ThreadPool;
 
 /**
  * Creates a connection to write to database.
@@ -87,6 +104,10 @@ public class DBWriterImpl extends DatabaseHelper implements DBWriter {
 
     private static final NodeLogger LOGGER = NodeLogger.getLogger(DBWriterImpl.class);
 
+    /** Whether rows are bulk loaded if supported, see {@link KNIMEConstants#PROPERTY_DATABASE_BULK_LOAD}. */
+    private static final boolean BULK_LOAD =
+        Boolean.parseBoolean(System.getProperty(KNIMEConstants.PROPERTY_DATABASE_BULK_LOAD, "false"));
+
     /**
      * @param conn {@link DatabaseConnectionSettings}
      */
@@ -111,192 +132,9 @@ public String writeData(final String table, final RowInput input, final long row
 //        synchronized (conSettings.syncConnection(conn)) {
             exec.setMessage("Start writing rows in database...");
             DataTableSpec spec = input.getDataTableSpec();
-            // mapping from spec columns to database columns
-            final int[] mapping;
-            // append data to existing table
-            if (appendData) {
-                if (conSettings.getUtility().tableExists(conn, table)) {
-                    String query =
-                        conSettings.getUtility().getStatementManipulator().forMetadataOnly("SELECT * FROM " + table);
-                    try (ResultSet rs = conn.createStatement().executeQuery(query)) {
-                        ResultSetMetaData rsmd = rs.getMetaData();
-                        final Map<String, Integer> columnNames =
-                                new LinkedHashMap<String, Integer>();
-                        for (int i = 0; i < spec.getNumColumns(); i++) {
-                            String colName = replaceColumnName(spec.getColumnSpec(i).getName());
-                            columnNames.put(colName.toLowerCase(), i);
-                        }
-
-                        // sanity check to lock if all input columns are in db
-                        ArrayList<String> columnNotInSpec = new ArrayList<String>(
-                                columnNames.keySet());
-                        for (int i = 0; i < rsmd.getColumnCount(); i++) {
-                            String dbColName = replaceColumnName(rsmd.getColumnName(i + 1));
-                            if (columnNames.containsKey(dbColName.toLowerCase())) {
-                                columnNotInSpec.remove(dbColName.toLowerCase());
-                                columnNamesForInsertStatement.append(dbColName).append(',');
-                            } else if (insertNullForMissingCols) {
-                                //append the column name of a missing column only if the insert null for missing
-                                //column option is enabled
-                                columnNamesForInsertStatement.append(dbColName).append(',');
-                            }
-                        }
-                        if (rsmd.getColumnCount() > 0) {
-                            columnNamesForInsertStatement.deleteCharAt(columnNamesForInsertStatement.length() - 1);
-                        }
-                        columnNamesForInsertStatement.append(')');
-
-                        if (columnNotInSpec.size() > 0) {
-                            throw new RuntimeException("No. of columns in input"
-                                    + " table > in database; not existing columns: "
-                                    + columnNotInSpec.toString());
-                        }
-                        mapping = new int[rsmd.getColumnCount()];
-                        for (int i = 0; i < mapping.length; i++) {
-                            String name = replaceColumnName(rsmd.getColumnName(i + 1)).toLowerCase();
-                            if (!columnNames.containsKey(name)) {
-                                mapping[i] = -1;
-                                continue;
-                            }
-                            mapping[i] = columnNames.get(name);
-                            DataColumnSpec cspec = spec.getColumnSpec(mapping[i]);
-                            int type = rsmd.getColumnType(i + 1);
-                            switch (type) {
-                                // check all boolean compatible types
-                                case Types.BIT:
-                                case Types.BOOLEAN:
-                                    // types must be compatible to BooleanValue
-                                    if (!cspec.getType().isCompatible(BooleanValue.class)) {
-                                        throw new RuntimeException("Column \"" + name
-                                            + "\" of type \"" + cspec.getType()
-                                            + "\" from input does not match type "
-                                            + "\"" + rsmd.getColumnTypeName(i + 1)
-                                            + "\" in database at position " + i);
-                                    }
-                                    break;
-                                    // check all int compatible types
-                                case Types.TINYINT:
-                                case Types.SMALLINT:
-                                case Types.INTEGER:
-                                    // types must be compatible to IntValue
-                                    if (!cspec.getType().isCompatible(IntValue.class)) {
-                                        throw new RuntimeException("Column \"" + name
-                                            + "\" of type \"" + cspec.getType()
-                                            + "\" from input does not match type "
-                                            + "\"" + rsmd.getColumnTypeName(i + 1)
-                                            + "\" in database at position " + i);
-                                    }
-                                    break;
-                                case Types.BIGINT:
-                                    // types must also be compatible to LongValue
-                                    if (!cspec.getType().isCompatible(LongValue.class)) {
-                                        throw new RuntimeException("Column \"" + name
-                                            + "\" of type \"" + cspec.getType()
-                                            + "\" from input does not match type "
-                                            + "\"" + rsmd.getColumnTypeName(i + 1)
-                                            + "\" in database at position " + i);
-                                    }
-                                    break;
-                                    // check all double compatible types
-                                case Types.FLOAT:
-                                case Types.DOUBLE:
-                                case Types.NUMERIC:
-                                case Types.DECIMAL:
-                                case Types.REAL:
-                                    // types must also be compatible to DoubleValue
-                                    if (!cspec.getType().isCompatible(DoubleValue.class)) {
-                                        throw new RuntimeException("Column \"" + name
-                                            + "\" of type \"" + cspec.getType()
-                                            + "\" from input does not match type "
-                                            + "\"" + rsmd.getColumnTypeName(i + 1)
-                                            + "\" in database at position " + i);
-                                    }
-                                    break;
-                                    // check for date-and-time compatible types
-                                case Types.DATE:
-                                case Types.TIME:
-                                case Types.TIMESTAMP:
-                                    // types must also be compatible to DataValue
-                                    if (!cspec.getType().isCompatible(DateAndTimeValue.class)) {
-                                        throw new RuntimeException("Column \"" + name
-                                            + "\" of type \"" + cspec.getType()
-                                            + "\" from input does not match type "
-                                            + "\"" + rsmd.getColumnTypeName(i + 1)
-                                            + "\" in database at position " + i);
-                                    }
-                                    break;
-                                    // check for blob compatible types
-                                case Types.BLOB:
-                                case Types.BINARY:
-                                case Types.LONGVARBINARY:
-                                    // types must also be compatible to DataValue
-                                    if (!cspec.getType().isCompatible(BinaryObjectDataValue.class)) {
-                                        throw new RuntimeException("Column \"" + name
-                                            + "\" of type \"" + cspec.getType()
-                                            + "\" from input does not match type "
-                                            + "\"" + rsmd.getColumnTypeName(i + 1)
-                                            + "\" in database at position " + i);
-                                    }
-                                    break;
-                                    // all other cases are defined as StringValue types
-                            }
-                        }
-                    }
-                } else {
-                    LOGGER.info("Table \"" + table
-                        + "\" does not exist in database, "
-                        + "will create new table.");
-                    // and create new table
-                    final String query =
-                            "CREATE TABLE " + table + " "
-                                    + createTableStmt(spec, sqlTypes, columnNamesForInsertStatement);
-                    LOGGER.debug("Executing SQL statement as execute: " + query);
-                    try (Statement statement = conn.createStatement()) {
-                        statement.execute(query);
-                    }
-                    if (!conn.getAutoCommit()) {
-                        conn.commit();
-                    }
-                    mapping = new int[spec.getNumColumns()];
-                    for (int k = 0; k < mapping.length; k++) {
-                        mapping[k] = k;
-                    }
-                }
-            } else {
-                LOGGER.debug("Append not enabled. Table " + table + " will be dropped if exists.");
-                mapping = new int[spec.getNumColumns()];
-                for (int k = 0; k < mapping.length; k++) {
-                    mapping[k] = k;
-                }
-                Statement statement = null;
-                try {
-                    statement = conn.createStatement();
-                    // remove existing table (if any)
-                    final String query = "DROP TABLE " + table;
-                    LOGGER.debug("Executing SQL statement as execute: " + query);
-                    statement.execute(query);
-                } catch (Throwable t) {
-                    if (statement == null) {
-                        throw new SQLException("Could not create SQL statement,"
-                            + " reason: " + t.getMessage(), t);
-                    }
-                    LOGGER.info("Exception droping table \"" + table + "\": " + t.getMessage()
-                        + ". Will create new table.");
-                } finally {
-                    if (!conn.getAutoCommit()) {
-                        conn.commit();
-                    }
-                }
-                // and create new table
-                final String query =
-                    "CREATE TABLE " + table + " " + createTableStmt(spec, sqlTypes, columnNamesForInsertStatement);
-                LOGGER.debug("Executing SQL statement as execute: " + query);
-                statement.execute(query);
-                statement.close();
-                if (!conn.getAutoCommit()) {
-                    conn.commit();
-                }
-            }
+            final int[] mapping = prepareTable(conn, table, spec, appendData, sqlTypes, insertNullForMissingCols,
+                columnNamesForInsertStatement);
+            DBMetadataCache.getInstance().invalidate(cp, conSettings);
 
             // this is a (temporary) workaround for bug #5802: if there is a DataValue column in the input table
             // we need to use the SQL type for creating the insert statements.
@@ -308,6 +146,18 @@ public String writeData(final String table, final RowInput input, final long row
                 }
             }
 
+            final DBBulkLoader bulkLoader = getBulkLoader(spec, failOnError);
+            if (bulkLoader != null) {
+                final Map<Integer, Integer> bulkColumnTypes = columnTypes;
+                final TimeZone timezone = conSettings.getTimeZone();
+                final DBBulkLoadRows rows = new DBBulkLoadRows(input, mapping, insertNullForMissingCols, timezone,
+                    rowCount, exec,
+                    (stmt, dbIdx, cspec, cell) -> fillStatement(stmt, dbIdx, cspec, cell, timezone, bulkColumnTypes));
+                if (bulkLoad(conn, table, columnNamesForInsertStatement.toString(), bulkLoader, rows, exec)) {
+                    return null;
+                }
+            }
+
             final String insertStamtement =
                     createInsertStatment(table, columnNamesForInsertStatement.toString(), mapping, insertNullForMissingCols);
 
@@ -439,6 +289,666 @@ public String writeData(final String table, final RowInput input, final long row
         });
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The calling thread reads the rows and collects them in batches, which are bound and executed by writer threads,
+     * each using its own pooled connection with auto commit switched off. Once all batches have been executed, the
+     * calling thread tells the writers to commit or, if a writer failed, to roll back. Writers don't wait for each
+     * other, so writers that are not scheduled (or don't get a connection) before all rows are written are simply
+     * not used. Falls back to the single connection write if batching is disabled or the connection factory does not
+     * pool connections.
+     * @since 3.8
+     */
+    @Override
+    public String writeData(final String table, final RowInput input, final long rowCount, final boolean appendData,
+        final ExecutionMonitor exec, final Map<String, String> sqlTypes, final CredentialsProvider cp,
+        final int batchSize, final boolean insertNullForMissingCols, final boolean failOnError,
+        final int numConnections) throws Exception {
+        final DatabaseConnectionSettings conSettings = getDatabaseConnectionSettings();
+        final DBConnectionFactory connFactory = conSettings.getUtility().getConnectionFactory();
+        if (numConnections <= 1 || batchSize <= 1 || !(connFactory instanceof PooledDBConnectionFactory)
+            || !((PooledDBConnectionFactory)connFactory).isPoolingEnabled()
+            || getBulkLoader(input.getDataTableSpec(), failOnError) != null) {
+            return writeData(table, input, rowCount, appendData, exec, sqlTypes, cp, batchSize,
+                insertNullForMissingCols, failOnError);
+        }
+        final int numWriters = Math.min(numConnections, ((PooledDBConnectionFactory)connFactory).getMaxPoolSize());
+        final DataTableSpec spec = input.getDataTableSpec();
+        final StringBuilder columnNamesForInsertStatement = new StringBuilder("(");
+        exec.setMessage("Start writing rows in database...");
+        final ConcurrentInsert insert = conSettings.execute(cp, conn -> {
+            final int[] mapping = prepareTable(conn, table, spec, appendData, sqlTypes, insertNullForMissingCols,
+                columnNamesForInsertStatement);
+            DBMetadataCache.getInstance().invalidate(cp, conSettings);
+            // workaround for bug #5802, see single connection write
+            Map<Integer, Integer> columnTypes = null;
+            for (DataColumnSpec cs : spec) {
+                if (cs.getType().getPreferredValueClass() == DataValue.class) {
+                    columnTypes = getColumnTypes(conn, table);
+                    break;
+                }
+            }
+            return new ConcurrentInsert(createInsertStatment(table, columnNamesForInsertStatement.toString(),
+                mapping, insertNullForMissingCols), mapping, columnTypes, spec, insertNullForMissingCols,
+                failOnError, numWriters, batchSize, exec);
+        });
+        LOGGER.debug("Writing rows concurrently using " + numWriters + " connections: " + insert.m_sql);
+
+        final ThreadPool pool = KNIMEConstants.GLOBAL_THREAD_POOL.createSubPool(numWriters);
+        final List<Future<Void>> writers = new ArrayList<>(numWriters);
+        for (int i = 0; i < numWriters; i++) {
+            writers.add(pool.enqueue(() -> insert.isDecided() ? null : conSettings.execute(cp, insert::write)));
+        }
+        final long cnt = insert.writeRows(input, rowCount, writers);
+        final long allErrors = insert.m_errorCount.get();
+        if (allErrors == 0) {
+            return null;
+        } else {
+            return "Errors \"" + allErrors + "\" writing " + cnt + " rows.";
+        }
+    }
+
+    /**
+     * Returns the bulk loader of the database if bulk loading is enabled and the loader supports the spec. Bulk loads
+     * are only used if writing fails on errors, since they cannot skip single rows that cannot be written.
+     */
+    private DBBulkLoader getBulkLoader(final DataTableSpec spec, final boolean failOnError) {
+        if (!BULK_LOAD || !failOnError) {
+            return null;
+        }
+        final DBBulkLoader loader = getDatabaseConnectionSettings().getUtility().getBulkLoader();
+        return loader != null && loader.supports(spec) ? loader : null;
+    }
+
+    /**
+     * Loads all rows with the bulk loader in a single transaction.
+     *
+     * @return <code>true</code> if the rows have been loaded, <code>false</code> if the loader failed before reading
+     *         the first row, in which case the rows are written with insert statements
+     */
+    private static boolean bulkLoad(final Connection conn, final String table, final String columnNames,
+        final DBBulkLoader loader, final DBBulkLoadRows rows, final ExecutionMonitor exec) throws Exception {
+        final boolean autoCommit = conn.getAutoCommit();
+        DatabaseConnectionSettings.setAutoCommit(conn, false);
+        try {
+            exec.setMessage("Bulk loading rows into database...");
+            final long count = loader.load(conn, table, columnNames, rows);
+            conn.commit();
+            LOGGER.debug("Bulk loaded " + count + " rows into " + table);
+            return true;
+        } catch (Exception e) {
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                LOGGER.info("Failed rollback after bulk load error. Rollback error: " + ex.getMessage(), ex);
+            }
+            if (rows.getReadFailure() != null) {
+                throw rows.getReadFailure();
+            }
+            if (rows.getReadCount() == 0) {
+                LOGGER.info("Bulk load not possible, using insert statements instead: " + e.getMessage(), e);
+                return false;
+            }
+            throw new Exception("Error while bulk loading rows #1 - #" + rows.getReadCount() + ", reason: "
+                + e.getMessage(), e);
+        } finally {
+            DatabaseConnectionSettings.setAutoCommit(conn, autoCommit);
+        }
+    }
+
+    /** Waits for the completion of all writers, rethrowing the exception of the first failed one. */
+    private static void waitFor(final List<Future<Void>> futures) throws Exception {
+        try {
+            runInvisible(() -> {
+                for (Future<Void> f : futures) {
+                    f.get();
+                }
+                return null;
+            });
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            // runInvisible wraps the exception of the callable, which in turn wraps the exception of the writer
+            while (cause instanceof ExecutionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            // the statement execution wraps all non SQL exceptions
+            if (cause instanceof SQLException && cause.getCause() != null
+                && !(cause.getCause() instanceof SQLException)) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof Exception) {
+                throw (Exception)cause;
+            }
+            throw new SQLException(cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            futures.stream().forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new CanceledExecutionException("Interrupted while waiting for database writers");
+        }
+    }
+
+    /**
+     * Runs a blocking call such that the calling thread, if it is a thread of the global pool, doesn't count as busy,
+     * which allows the writers to be scheduled meanwhile.
+     */
+    private static void runInvisible(final Callable<Void> call) throws Exception {
+        final ThreadPool currentPool = ThreadPool.currentPool();
+        if (currentPool != null) {
+            currentPool.runInvisible(call);
+        } else {
+            call.call();
+        }
+    }
+
+    /** Like {@link #runInvisible(Callable)} but rethrows the exception of the call unwrapped. */
+    private static void runInvisibleUnwrapped(final Callable<Void> call) throws Exception {
+        try {
+            runInvisible(call);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception)e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /** A batch of consecutive input rows. */
+    private static final class Batch {
+
+        /** Tells a writer that there are no more rows, the identity is checked. */
+        private static final Batch END = new Batch(0, Collections.<DataRow> emptyList());
+
+        /** The 1-based index of the first row, used in error messages. */
+        private final long m_firstRow;
+
+        private final List<DataRow> m_rows;
+
+        private Batch(final long firstRow, final List<DataRow> rows) {
+            m_firstRow = firstRow;
+            m_rows = rows;
+        }
+    }
+
+    /**
+     * The state shared by the reading thread and the writers of a concurrent insert. Every writer binds and executes
+     * the batches on its own connection with auto commit switched off. Once all started writers have executed their
+     * batches and no batch is left, the reading thread decides that they either all commit or, if a writer failed
+     * with <code>failOnError</code> set, all roll back. Writers only wait for that decision, never for each other;
+     * writers starting after the decision don't write anything.
+     */
+    final class ConcurrentInsert {
+
+        /** Target time of a batch round trip, the batch size is doubled or halved if far off. */
+        private final long m_targetNanos = TimeUnit.MILLISECONDS.toNanos(500);
+
+        private final String m_sql;
+
+        private final int[] m_mapping;
+
+        private final Map<Integer, Integer> m_columnTypes;
+
+        private final DataTableSpec m_spec;
+
+        private final boolean m_insertNullForMissingCols;
+
+        private final boolean m_failOnError;
+
+        private final int m_minBatchSize;
+
+        private final int m_maxBatchSize;
+
+        private final ExecutionMonitor m_exec;
+
+        /** Current batch size, adapted by the writers. */
+        private final AtomicInteger m_batchSize;
+
+        private final BlockingQueue<Batch> m_queue;
+
+        /** Guards the writer counts and the decision. */
+        private final Object m_lock = new Object();
+
+        /** Number of writers that started writing, guarded by the lock. */
+        private int m_startedCount;
+
+        /** Number of started writers that executed their last batch or failed, guarded by the lock. */
+        private int m_executedCount;
+
+        /** Whether the writers commit (true) or roll back (false), <code>null</code> until decided. */
+        private Boolean m_commit;
+
+        private final AtomicLong m_errorCount = new AtomicLong();
+
+        private final AtomicInteger m_loggedErrorCount = new AtomicInteger();
+
+        /** Set if a writer failed, all writers roll back and the reading thread stops. */
+        private volatile boolean m_isFailed;
+
+        ConcurrentInsert(final String sql, final int[] mapping, final Map<Integer, Integer> columnTypes,
+            final DataTableSpec spec, final boolean insertNullForMissingCols, final boolean failOnError,
+            final int numWriters, final int batchSize, final ExecutionMonitor exec) {
+            m_sql = sql;
+            m_mapping = mapping;
+            m_columnTypes = columnTypes;
+            m_spec = spec;
+            m_insertNullForMissingCols = insertNullForMissingCols;
+            m_failOnError = failOnError;
+            m_minBatchSize = Math.max(2, batchSize / 16);
+            m_maxBatchSize = Math.max(batchSize, Math.min(batchSize * 16, 100000));
+            m_exec = exec;
+            m_batchSize = new AtomicInteger(batchSize);
+            m_queue = new ArrayBlockingQueue<>(2 * numWriters);
+        }
+
+        /**
+         * Reads all rows, passes them in batches to the writers and lets the writers commit or roll back once they
+         * executed all batches. Waits for all writers to finish.
+         *
+         * @return the number of rows read
+         */
+        long writeRows(final RowInput input, final long rowCount, final List<Future<Void>> writers)
+            throws Exception {
+            long cnt = 0;
+            try {
+                List<DataRow> batch = new ArrayList<>(m_batchSize.get());
+                long firstRow = 1;
+                DataRow row;
+                while (!m_isFailed && (row = input.poll()) != null) {
+                    cnt++;
+                    m_exec.checkCanceled();
+                    if (rowCount > 0) {
+                        m_exec.setProgress(1.0 * cnt / rowCount, "Row " + "#" + cnt);
+                    } else {
+                        m_exec.setProgress("Writing Row#" + cnt);
+                    }
+                    batch.add(row);
+                    if (batch.size() >= m_batchSize.get()) {
+                        put(new Batch(firstRow, batch), writers);
+                        firstRow = cnt + 1;
+                        batch = new ArrayList<>(m_batchSize.get());
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    put(new Batch(firstRow, batch), writers);
+                }
+            } catch (Exception e) {
+                m_isFailed = true;
+                throw e;
+            } finally {
+                for (int i = 0; i < writers.size(); i++) {
+                    put(Batch.END, writers);
+                }
+                decide(writers);
+                waitFor(writers);
+            }
+            return cnt;
+        }
+
+        /** Passes a batch to the writers, fails if all writers died. */
+        private void put(final Batch batch, final List<Future<Void>> writers) throws Exception {
+            if (m_queue.offer(batch)) {
+                return;
+            }
+            // the writers may need a thread of the pool to make progress
+            runInvisibleUnwrapped(() -> {
+                while (!m_queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                    if (writers.stream().allMatch(Future::isDone)) {
+                        // the exception of the writers is thrown when waiting for them
+                        return null;
+                    }
+                    if (batch != Batch.END) {
+                        m_exec.checkCanceled();
+                    }
+                }
+                return null;
+            });
+        }
+
+        /**
+         * Waits until all started writers have executed their batches and only {@link Batch#END} is left in the
+         * queue (or all writers finished), then tells the writers to commit or roll back. No writer starts writing
+         * afterwards.
+         */
+        private void decide(final List<Future<Void>> writers) throws Exception {
+            runInvisibleUnwrapped(() -> {
+                synchronized (m_lock) {
+                    while ((m_executedCount < m_startedCount || !m_queue.stream().allMatch(b -> b == Batch.END))
+                        && !writers.stream().allMatch(Future::isDone)) {
+                        m_lock.wait(100);
+                    }
+                    m_commit = !m_isFailed;
+                    m_lock.notifyAll();
+                }
+                return null;
+            });
+        }
+
+        /** @return whether the commit or rollback has been decided, i.e. additional writers are not needed */
+        boolean isDecided() {
+            synchronized (m_lock) {
+                return m_commit != null;
+            }
+        }
+
+        /** Called by a started writer after its last batch (or failure), waits for the decision if requested. */
+        private boolean reportExecuted(final boolean awaitDecision) throws InterruptedException {
+            synchronized (m_lock) {
+                m_executedCount++;
+                m_lock.notifyAll();
+                while (awaitDecision && m_commit == null) {
+                    m_lock.wait();
+                }
+                return Boolean.TRUE.equals(m_commit);
+            }
+        }
+
+        /**
+         * Runs in a writer thread, executes batches until {@link Batch#END}, then commits or rolls back as decided by
+         * the reading thread.
+         */
+        Void write(final Connection conn) throws Exception {
+            synchronized (m_lock) {
+                if (m_commit != null) {
+                    // all rows have been written by the other writers
+                    return null;
+                }
+                m_startedCount++;
+            }
+            final boolean autoCommit = conn.getAutoCommit();
+            DatabaseConnectionSettings.setAutoCommit(conn, false);
+            boolean hasExecuted = false;
+            try (PreparedStatement stmt = conn.prepareStatement(m_sql)) {
+                final TimeZone timezone = getDatabaseConnectionSettings().getTimeZone();
+                Batch batch;
+                while ((batch = m_queue.take()) != Batch.END) {
+                    if (m_isFailed) {
+                        // drain the queue to not block the reading thread
+                        continue;
+                    }
+                    for (DataRow row : batch.m_rows) {
+                        int dbIdx = 1;
+                        for (int i = 0; i < m_mapping.length; i++) {
+                            if (m_mapping[i] < 0) {
+                                if (m_insertNullForMissingCols) {
+                                    stmt.setNull(dbIdx++, Types.NULL);
+                                }
+                            } else {
+                                fillStatement(stmt, dbIdx++, m_spec.getColumnSpec(m_mapping[i]),
+                                    row.getCell(m_mapping[i]), timezone, m_columnTypes);
+                            }
+                        }
+                        stmt.addBatch();
+                    }
+                    execute(conn, stmt, batch);
+                }
+                hasExecuted = true;
+                if (reportExecuted(true)) {
+                    conn.commit();
+                } else {
+                    conn.rollback();
+                    LOGGER.debug("Rolled back concurrent insert after the failure of another connection");
+                }
+                return null;
+            } catch (Exception e) {
+                m_isFailed = m_isFailed || m_failOnError || !hasExecuted;
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    LOGGER.info("Failed rollback after db exception. Rollback error: " + ex.getMessage(), ex);
+                }
+                throw e;
+            } finally {
+                if (!hasExecuted) {
+                    reportExecuted(false);
+                }
+                DatabaseConnectionSettings.setAutoCommit(conn, autoCommit);
+            }
+        }
+
+        private void execute(final Connection conn, final PreparedStatement stmt, final Batch batch)
+            throws Exception {
+            final long lastRow = batch.m_firstRow + batch.m_rows.size() - 1;
+            final long start = System.nanoTime();
+            try {
+                stmt.executeBatch();
+                adaptBatchSize(batch.m_rows.size(), System.nanoTime() - start);
+            } catch (Throwable t) {
+                final String errorMsg = "Error while adding rows #" + batch.m_firstRow + " - #" + lastRow
+                    + ", reason: " + t.getMessage();
+                if (m_failOnError) {
+                    m_isFailed = true;
+                    throw new Exception(errorMsg, t);
+                }
+                // Postgres will refuse any more commands in this transaction after errors
+                // Therefore we commit the changes that were possible, see single connection write.
+                conn.commit();
+                m_errorCount.incrementAndGet();
+                final int logged = m_loggedErrorCount.getAndIncrement();
+                if (logged < 10) {
+                    m_exec.setMessage(errorMsg);
+                    LOGGER.warn(errorMsg);
+                } else if (logged == 10) {
+                    LOGGER.warn(errorMsg + " - more errors...", t);
+                }
+            } finally {
+                stmt.clearBatch();
+            }
+        }
+
+        /** Doubles or halves the batch size if the round trip of a full batch is far off the target time. */
+        private void adaptBatchSize(final int rows, final long nanos) {
+            final int size = m_batchSize.get();
+            if (rows < size) {
+                // last batch or batch size changed in between
+                return;
+            }
+            if (nanos < m_targetNanos / 2 && size < m_maxBatchSize) {
+                m_batchSize.compareAndSet(size, Math.min(m_maxBatchSize, size * 2));
+            } else if (nanos > m_targetNanos * 2 && size > m_minBatchSize) {
+                m_batchSize.compareAndSet(size, Math.max(m_minBatchSize, size / 2));
+            }
+        }
+    }
+
+    /**
+     * Prepares the table for the insert statements, creates or replaces it if necessary and checks the column types
+     * if data is appended to an existing table.
+     *
+     * @return the mapping of database columns to input columns, -1 for database columns not in the input
+     */
+    private int[] prepareTable(final Connection conn, final String table, final DataTableSpec spec,
+        final boolean appendData, final Map<String, String> sqlTypes, final boolean insertNullForMissingCols,
+        final StringBuilder columnNamesForInsertStatement) throws Exception {
+        final DatabaseConnectionSettings conSettings = getDatabaseConnectionSettings();
+        // mapping from spec columns to database columns
+        final int[] mapping;
+        // append data to existing table
+        if (appendData) {
+            if (conSettings.getUtility().tableExists(conn, table)) {
+                String query =
+                    conSettings.getUtility().getStatementManipulator().forMetadataOnly("SELECT * FROM " + table);
+                try (ResultSet rs = conn.createStatement().executeQuery(query)) {
+                    ResultSetMetaData rsmd = rs.getMetaData();
+                    final Map<String, Integer> columnNames =
+                            new LinkedHashMap<String, Integer>();
+                    for (int i = 0; i < spec.getNumColumns(); i++) {
+                        String colName = replaceColumnName(spec.getColumnSpec(i).getName());
+                        columnNames.put(colName.toLowerCase(), i);
+                    }
+
+                    // sanity check to lock if all input columns are in db
+                    ArrayList<String> columnNotInSpec = new ArrayList<String>(
+                            columnNames.keySet());
+                    for (int i = 0; i < rsmd.getColumnCount(); i++) {
+                        String dbColName = replaceColumnName(rsmd.getColumnName(i + 1));
+                        if (columnNames.containsKey(dbColName.toLowerCase())) {
+                            columnNotInSpec.remove(dbColName.toLowerCase());
+                            columnNamesForInsertStatement.append(dbColName).append(',');
+                        } else if (insertNullForMissingCols) {
+                            //append the column name of a missing column only if the insert null for missing
+                            //column option is enabled
+                            columnNamesForInsertStatement.append(dbColName).append(',');
+                        }
+                    }
+                    if (rsmd.getColumnCount() > 0) {
+                        columnNamesForInsertStatement.deleteCharAt(columnNamesForInsertStatement.length() - 1);
+                    }
+                    columnNamesForInsertStatement.append(')');
+
+                    if (columnNotInSpec.size() > 0) {
+                        throw new RuntimeException("No. of columns in input"
+                                + " table > in database; not existing columns: "
+                                + columnNotInSpec.toString());
+                    }
+                    mapping = new int[rsmd.getColumnCount()];
+                    for (int i = 0; i < mapping.length; i++) {
+                        String name = replaceColumnName(rsmd.getColumnName(i + 1)).toLowerCase();
+                        if (!columnNames.containsKey(name)) {
+                            mapping[i] = -1;
+                            continue;
+                        }
+                        mapping[i] = columnNames.get(name);
+                        DataColumnSpec cspec = spec.getColumnSpec(mapping[i]);
+                        int type = rsmd.getColumnType(i + 1);
+                        switch (type) {
+                            // check all boolean compatible types
+                            case Types.BIT:
+                            case Types.BOOLEAN:
+                                // types must be compatible to BooleanValue
+                                if (!cspec.getType().isCompatible(BooleanValue.class)) {
+                                    throw new RuntimeException("Column \"" + name
+                                        + "\" of type \"" + cspec.getType()
+                                        + "\" from input does not match type "
+                                        + "\"" + rsmd.getColumnTypeName(i + 1)
+                                        + "\" in database at position " + i);
+                                }
+                                break;
+                                // check all int compatible types
+                            case Types.TINYINT:
+                            case Types.SMALLINT:
+                            case Types.INTEGER:
+                                // types must be compatible to IntValue
+                                if (!cspec.getType().isCompatible(IntValue.class)) {
+                                    throw new RuntimeException("Column \"" + name
+                                        + "\" of type \"" + cspec.getType()
+                                        + "\" from input does not match type "
+                                        + "\"" + rsmd.getColumnTypeName(i + 1)
+                                        + "\" in database at position " + i);
+                                }
+                                break;
+                            case Types.BIGINT:
+                                // types must also be compatible to LongValue
+                                if (!cspec.getType().isCompatible(LongValue.class)) {
+                                    throw new RuntimeException("Column \"" + name
+                                        + "\" of type \"" + cspec.getType()
+                                        + "\" from input does not match type "
+                                        + "\"" + rsmd.getColumnTypeName(i + 1)
+                                        + "\" in database at position " + i);
+                                }
+                                break;
+                                // check all double compatible types
+                            case Types.FLOAT:
+                            case Types.DOUBLE:
+                            case Types.NUMERIC:
+                            case Types.DECIMAL:
+                            case Types.REAL:
+                                // types must also be compatible to DoubleValue
+                                if (!cspec.getType().isCompatible(DoubleValue.class)) {
+                                    throw new RuntimeException("Column \"" + name
+                                        + "\" of type \"" + cspec.getType()
+                                        + "\" from input does not match type "
+                                        + "\"" + rsmd.getColumnTypeName(i + 1)
+                                        + "\" in database at position " + i);
+                                }
+                                break;
+                                // check for date-and-time compatible types
+                            case Types.DATE:
+                            case Types.TIME:
+                            case Types.TIMESTAMP:
+                                // types must also be compatible to DataValue
+                                if (!cspec.getType().isCompatible(DateAndTimeValue.class)) {
+                                    throw new RuntimeException("Column \"" + name
+                                        + "\" of type \"" + cspec.getType()
+                                        + "\" from input does not match type "
+                                        + "\"" + rsmd.getColumnTypeName(i + 1)
+                                        + "\" in database at position " + i);
+                                }
+                                break;
+                                // check for blob compatible types
+                            case Types.BLOB:
+                            case Types.BINARY:
+                            case Types.LONGVARBINARY:
+                                // types must also be compatible to DataValue
+                                if (!cspec.getType().isCompatible(BinaryObjectDataValue.class)) {
+                                    throw new RuntimeException("Column \"" + name
+                                        + "\" of type \"" + cspec.getType()
+                                        + "\" from input does not match type "
+                                        + "\"" + rsmd.getColumnTypeName(i + 1)
+                                        + "\" in database at position " + i);
+                                }
+                                break;
+                                // all other cases are defined as StringValue types
+                        }
+                    }
+                }
+            } else {
+                LOGGER.info("Table \"" + table
+                    + "\" does not exist in database, "
+                    + "will create new table.");
+                // and create new table
+                final String query =
+                        "CREATE TABLE " + table + " "
+                                + createTableStmt(spec, sqlTypes, columnNamesForInsertStatement);
+                LOGGER.debug("Executing SQL statement as execute: " + query);
+                try (Statement statement = conn.createStatement()) {
+                    statement.execute(query);
+                }
+                if (!conn.getAutoCommit()) {
+                    conn.commit();
+                }
+                mapping = new int[spec.getNumColumns()];
+                for (int k = 0; k < mapping.length; k++) {
+                    mapping[k] = k;
+                }
+            }
+        } else {
+            LOGGER.debug("Append not enabled. Table " + table + " will be dropped if exists.");
+            mapping = new int[spec.getNumColumns()];
+            for (int k = 0; k < mapping.length; k++) {
+                mapping[k] = k;
+            }
+            Statement statement = null;
+            try {
+                statement = conn.createStatement();
+                // remove existing table (if any)
+                final String query = "DROP TABLE " + table;
+                LOGGER.debug("Executing SQL statement as execute: " + query);
+                statement.execute(query);
+            } catch (Throwable t) {
+                if (statement == null) {
+                    throw new SQLException("Could not create SQL statement,"
+                        + " reason: " + t.getMessage(), t);
+                }
+                LOGGER.info("Exception droping table \"" + table + "\": " + t.getMessage()
+                    + ". Will create new table.");
+            } finally {
+                if (!conn.getAutoCommit()) {
+                    conn.commit();
+                }
+            }
+            // and create new table
+            final String query =
+                "CREATE TABLE " + table + " " + createTableStmt(spec, sqlTypes, columnNamesForInsertStatement);
+            LOGGER.debug("Executing SQL statement as execute: " + query);
+            statement.execute(query);
+            statement.close();
+            if (!conn.getAutoCommit()) {
+                conn.commit();
+            }
+        }
+        return mapping;
+    }
+
     /** Create connection to update table in database.
      * @param data The data to write.
      * @param setColumns columns part of the SET clause
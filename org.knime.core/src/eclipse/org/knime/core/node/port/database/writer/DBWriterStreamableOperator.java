@@ -0,0 +1,344 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.writer;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowIterator;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.port.database.DatabaseConnectionSettings;
+import org.knime.core.node.port.database.reader.PrefetchingRowIterator;
+import org.knime.core.node.streamable.DataTableRowInput;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.StreamableOperator;
+import org.knime.core.node.workflow.CredentialsProvider;
+
+/**
+ * Streamable operator that writes the rows of a streamed input port into a database table using the {@link DBWriter}
+ * of the database, without materializing the input first. Upstream rows are collected into batches by a background
+ * thread while the previous batches are written, the number of buffered batches is bounded so that a fast upstream
+ * node blocks instead of filling the memory. Optionally the rows are committed every <i>n</i> rows, otherwise all
+ * rows are written in one transaction. The number of written rows and the throughput are reported as progress.
+ *
+ * <p>Node models return it from
+ * {@link org.knime.core.node.NodeModel#createStreamableOperator(org.knime.core.node.streamable.PartitionInfo,
+ * org.knime.core.node.port.PortObjectSpec[])} for a non-distributed streamable input port.</p>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 3.8
+ */
+public class DBWriterStreamableOperator extends StreamableOperator {
+
+    /** Default number of batches buffered between upstream node and database. */
+    public static final int DEF_QUEUE_CAPACITY = 4;
+
+    /** Minimum time between two progress updates. */
+    private static final long PROGRESS_INTERVAL = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final DatabaseConnectionSettings m_settings;
+
+    private final int m_inputIndex;
+
+    private final String m_table;
+
+    private final boolean m_appendData;
+
+    private final Map<String, String> m_sqlTypes;
+
+    private final CredentialsProvider m_cp;
+
+    private final int m_batchSize;
+
+    private final boolean m_insertNullForMissingCols;
+
+    private final boolean m_failOnError;
+
+    private long m_commitInterval;
+
+    private int m_queueCapacity = DEF_QUEUE_CAPACITY;
+
+    private int m_numConnections = 1;
+
+    private long m_rowCount = -1;
+
+    private String m_warningMessage;
+
+    /**
+     * @param settings the settings of the database connection
+     * @param inputIndex the index of the streamed input port
+     * @param table name of the table to write
+     * @param appendData if checked the data is appended to an existing table
+     * @param sqlTypes A mapping from column name to SQL-type.
+     * @param cp {@link CredentialsProvider} providing user/password
+     * @param batchSize number of rows written in one batch
+     * @param insertNullForMissingCols <code>true</code> if <code>null</code> should be inserted for missing columns
+     * @param failOnError <code>true</code> if the writing should fail on the first error
+     */
+    public DBWriterStreamableOperator(final DatabaseConnectionSettings settings, final int inputIndex,
+        final String table, final boolean appendData, final Map<String, String> sqlTypes,
+        final CredentialsProvider cp, final int batchSize, final boolean insertNullForMissingCols,
+        final boolean failOnError) {
+        if (settings == null || table == null) {
+            throw new NullPointerException("Argument must not be null.");
+        }
+        m_settings = settings;
+        m_inputIndex = inputIndex;
+        m_table = table;
+        m_appendData = appendData;
+        m_sqlTypes = sqlTypes;
+        m_cp = cp;
+        m_batchSize = Math.max(1, batchSize);
+        m_insertNullForMissingCols = insertNullForMissingCols;
+        m_failOnError = failOnError;
+    }
+
+    /**
+     * Sets the number of rows after which the written rows are committed. With <code>failOnError</code> set only the
+     * rows since the last commit are rolled back on error.
+     *
+     * @param commitInterval the number of rows per transaction, 0 (the default) writes all rows in one transaction
+     */
+    public void setCommitInterval(final long commitInterval) {
+        m_commitInterval = Math.max(0, commitInterval);
+    }
+
+    /**
+     * @param queueCapacity the number of batches buffered between upstream node and database, default is
+     *            {@link #DEF_QUEUE_CAPACITY}
+     */
+    public void setQueueCapacity(final int queueCapacity) {
+        m_queueCapacity = queueCapacity > 0 ? queueCapacity : DEF_QUEUE_CAPACITY;
+    }
+
+    /**
+     * @param numConnections the number of connections to write with concurrently, see
+     *            {@link DBWriter#writeData(String, RowInput, long, boolean, ExecutionMonitor, Map, CredentialsProvider,
+     *            int, boolean, boolean, int)}; default is 1
+     */
+    public void setNumConnections(final int numConnections) {
+        m_numConnections = Math.max(1, numConnections);
+    }
+
+    /**
+     * @param rowCount the expected number of rows used for the progress, -1 (the default) if unknown; the row count
+     *            of non-streamed inputs is determined automatically
+     */
+    public void setRowCount(final long rowCount) {
+        m_rowCount = rowCount;
+    }
+
+    /**
+     * @return the error messages of rows that could not be written in the last run if <code>failOnError</code> is
+     *         not set, or <code>null</code> if all rows were written
+     */
+    public String getWarningMessage() {
+        return m_warningMessage;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void runFinal(final PortInput[] inputs, final PortOutput[] outputs, final ExecutionContext exec)
+        throws Exception {
+        write((RowInput)inputs[m_inputIndex], m_settings.getUtility().getWriter(m_settings), exec);
+    }
+
+    /**
+     * Writes the rows of the input in one transaction per commit interval using the given writer, the first
+     * transaction creates the table unless data is appended.
+     */
+    void write(final RowInput input, final DBWriter writer, final ExecutionMonitor exec) throws Exception {
+        final DataTableSpec spec = input.getDataTableSpec();
+        final long rowCount =
+            input instanceof DataTableRowInput ? ((DataTableRowInput)input).getRowCount() : m_rowCount;
+        // the writer reports the progress of the current transaction only
+        final ExecutionMonitor writerExec = exec.createSilentSubProgress(0);
+        final Progress progress = new Progress(exec, rowCount);
+        final StringBuilder warnings = new StringBuilder();
+        m_warningMessage = null;
+        final PrefetchingRowIterator rows =
+            new PrefetchingRowIterator(new RowInputIterator(input), m_batchSize, m_queueCapacity);
+        try {
+            boolean appendData = m_appendData;
+            do {
+                final String warning = writer.writeData(m_table, new TransactionRowInput(spec, rows, progress),
+                    -1, appendData, writerExec, m_sqlTypes, m_cp, m_batchSize, m_insertNullForMissingCols,
+                    m_failOnError, m_numConnections);
+                if (warning != null) {
+                    warnings.append(warnings.length() > 0 ? "\n" : "").append(warning);
+                }
+                // subsequent transactions append to the table created by the first one
+                appendData = true;
+            } while (rows.hasNext());
+        } finally {
+            rows.close();
+            input.close();
+        }
+        progress.update(true);
+        m_warningMessage = warnings.length() > 0 ? warnings.toString() : null;
+    }
+
+    /** The rows of one transaction, ends after the commit interval or with the input. */
+    private final class TransactionRowInput extends RowInput {
+
+        private final DataTableSpec m_spec;
+
+        private final RowIterator m_rows;
+
+        private final Progress m_progress;
+
+        private long m_count;
+
+        private TransactionRowInput(final DataTableSpec spec, final RowIterator rows, final Progress progress) {
+            m_spec = spec;
+            m_rows = rows;
+            m_progress = progress;
+        }
+
+        @Override
+        public DataTableSpec getDataTableSpec() {
+            return m_spec;
+        }
+
+        @Override
+        public DataRow poll() throws InterruptedException {
+            if ((m_commitInterval > 0 && m_count >= m_commitInterval) || !m_rows.hasNext()) {
+                return null;
+            }
+            m_count++;
+            m_progress.increment();
+            return m_rows.next();
+        }
+
+        @Override
+        public void close() {
+            // the underlying input is closed once all transactions are written
+        }
+    }
+
+    /** Adapts the input for the background thread, which fails the iteration if polling fails. */
+    private static final class RowInputIterator extends RowIterator {
+
+        private final RowInput m_input;
+
+        private DataRow m_next;
+
+        private boolean m_isPolled;
+
+        private RowInputIterator(final RowInput input) {
+            m_input = input;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!m_isPolled) {
+                try {
+                    m_next = m_input.poll();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for input rows", e);
+                }
+                m_isPolled = true;
+            }
+            return m_next != null;
+        }
+
+        @Override
+        public DataRow next() {
+            hasNext();
+            m_isPolled = false;
+            return m_next;
+        }
+    }
+
+    /** Reports the number of written rows and the throughput. */
+    private static final class Progress {
+
+        private final ExecutionMonitor m_exec;
+
+        private final long m_rowCount;
+
+        private final long m_start = System.nanoTime();
+
+        private long m_lastUpdate = m_start;
+
+        private long m_count;
+
+        private Progress(final ExecutionMonitor exec, final long rowCount) {
+            m_exec = exec;
+            m_rowCount = rowCount;
+        }
+
+        private void increment() {
+            m_count++;
+            if ((m_count & 0xFF) == 0) {
+                update(false);
+            }
+        }
+
+        private void update(final boolean force) {
+            final long now = System.nanoTime();
+            if (!force && now - m_lastUpdate < PROGRESS_INTERVAL) {
+                return;
+            }
+            m_lastUpdate = now;
+            final long rowsPerSecond = m_count * TimeUnit.SECONDS.toNanos(1) / Math.max(1, now - m_start);
+            final String message = "Written " + m_count + " rows (" + rowsPerSecond + " rows/s)";
+            if (m_rowCount > 0) {
+                m_exec.setProgress(Math.min(1.0, (double)m_count / m_rowCount), message);
+            } else {
+                m_exec.setMessage(message);
+            }
+        }
+    }
+}
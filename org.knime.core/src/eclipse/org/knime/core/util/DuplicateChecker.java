@@ -56,13 +56,16 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.PriorityQueue;
 import java.util.Set;
 
+import org.knime.core.data.RowKey;
 import org.knime.core.node.KNIMEConstants;
 
 /**
@@ -75,6 +78,11 @@
  * and sorted by a merge sort like algorithm. If any duplicate keys are detected
  * during this process an exception is thrown.
  *
+ * <p>Keys of the form <i>prefix + index</i> (see {@link RowKey#toCompactKey()}) are not stored at all as long as
+ * they arrive in a contiguous ascending sequence per prefix (as the default keys <code>Row0, Row1, ...</code> do);
+ * only the range of indices is kept. Once the sequence breaks, subsequent keys of that prefix are checked against the
+ * range and then handled like any other key.
+ *
  * <p>Note: This implementation is not thread-safe, it's supposed to be used
  * by a single thread only.
  *
@@ -183,6 +191,9 @@ public boolean dispose() {
     /** The default number of streams open during merging. */
     public static final int MAX_STREAMS = 50;
 
+    /** Maximum number of prefixes for which a range of compact key indices is tracked. */
+    private static final int MAX_COMPACT_KEY_RANGES = 100;
+
     private final int m_maxChunkSize;
 
     private final int m_maxStreams;
@@ -191,6 +202,9 @@ public boolean dispose() {
 
     private List<Chunk> m_storedChunks = new ArrayList<Chunk>();
 
+    /** Ranges of indices of compact keys, one per prefix. */
+    private final Map<String, IndexRange> m_compactKeyRanges = new HashMap<String, IndexRange>();
+
     private static final boolean DISABLE_DUPLICATE_CHECK =
         Boolean.getBoolean(
                 KNIMEConstants.PROPERTY_DISABLE_ROWID_DUPLICATE_CHECK);
@@ -241,9 +255,42 @@ public DuplicateChecker(final int maxChunkSize, final int maxStreams) {
     @Override
     public void addKey(final String s) throws DuplicateKeyException,
             IOException {
+        // keys need to go through the same path as compact row keys as they may be equal to one of them
+        addKey(new RowKey(s));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void addKey(final RowKey key) throws DuplicateKeyException, IOException {
         if (DISABLE_DUPLICATE_CHECK) {
             return;
         }
+        final RowKey compactKey = key.toCompactKey();
+        if (compactKey.isCompact()) {
+            final long index = compactKey.getIndex();
+            final IndexRange range = m_compactKeyRanges.get(compactKey.getPrefix());
+            if (range == null) {
+                // a prefix without range has never been seen unless the maximum number of ranges is reached
+                if (m_compactKeyRanges.size() < MAX_COMPACT_KEY_RANGES) {
+                    m_compactKeyRanges.put(compactKey.getPrefix(), new IndexRange(index));
+                    return;
+                }
+            } else {
+                if (index >= range.m_first && index <= range.m_last) {
+                    throw new DuplicateKeyException(key.getString());
+                }
+                if (!range.m_isClosed && index == range.m_last + 1) {
+                    range.m_last = index;
+                    return;
+                }
+                // keys outside the range end up in the chunks, the range must not grow from now on
+                range.m_isClosed = true;
+            }
+        }
+        addStringKey(key.getString());
+    }
+
+    private void addStringKey(final String s) throws DuplicateKeyException, IOException {
         // bug fix #1737: keys may be just wrappers of very large strings ...
         // we make a copy, which consist of the important characters only
         if (!m_currentChunk.add(new String(s))) {
@@ -279,6 +326,7 @@ public void clear() {
         synchronized (ALL_CHUNKS) { ALL_CHUNKS.removeAll(m_storedChunks); }
         m_storedChunks.clear();
         m_currentChunk.clear();
+        m_compactKeyRanges.clear();
     }
 
     /**
@@ -370,6 +418,21 @@ private void writeChunk() throws IOException {
         m_currentChunk.clear();
     }
 
+    /** Contiguous range of indices of compact keys sharing the same prefix. */
+    private static final class IndexRange {
+        private final long m_first;
+
+        private long m_last;
+
+        /** Set when a key of the prefix was added to the chunks, the range must not be extended afterwards. */
+        private boolean m_isClosed;
+
+        private IndexRange(final long index) {
+            m_first = index;
+            m_last = index;
+        }
+    }
+
     /**
      * Container to hold a string and the stream index where the string
      * was read from.
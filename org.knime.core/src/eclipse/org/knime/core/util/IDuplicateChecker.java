@@ -50,6 +50,8 @@
 
 import java.io.IOException;
 
+import org.knime.core.data.RowKey;
+
 /**
  * Interface for classes used to check that the columns of a data table don't contain any duplicates.
  *
@@ -67,6 +69,18 @@ public interface IDuplicateChecker {
      */
     public void addKey(final String s) throws DuplicateKeyException, IOException;
 
+    /**
+     * Adds a new row key to the duplicate checker. The default implementation adds the string representation of the
+     * key, implementations may use a more efficient check for compact keys (see {@link RowKey#isCompact()}).
+     *
+     * @param key the row key
+     * @throws DuplicateKeyException if a duplicate within the current chunk has been detected
+     * @throws IOException if an I/O error occurs while writing the chunk to disk
+     */
+    public default void addKey(final RowKey key) throws DuplicateKeyException, IOException {
+        addKey(key.getString());
+    }
+
     /**
      * Checks for duplicates in all added keys. This method must only be called once after all keys have been added!
      * Multiple calls may lead to exceptions and excessive resource usage.
@@ -622,6 +622,73 @@ public <T> T runInvisible(final Callable<T> r) throws ExecutionException {
 
     }
 
+    /**
+     * Executes the callable in the current thread, see {@link #runInvisible(Callable)}, if the current thread is taken
+     * out of a thread pool, otherwise the callable is simply called. This is meant for threads that mostly wait for
+     * tasks submitted to (a sub pool of) the pool and therefore should not block a thread of the pool. Exceptions of
+     * the callable are rethrown unwrapped (also if they are nested in {@link ExecutionException}s, as thrown by
+     * {@link Future#get()}), interrupts are reported as {@link CanceledExecutionException}.
+     *
+     * @param <T> Type of the argument (result type)
+     * @param r A callable, which will be executed by the thread invoking this method.
+     * @return T The result of the callable.
+     * @throws CanceledExecutionException If the callable (or a task it waited for) was canceled or interrupted.
+     * @since 3.8
+     */
+    public static <T> T runInvisibleIfPooled(final Callable<T> r) throws CanceledExecutionException {
+        try {
+            final ThreadPool currentPool = currentPool();
+            return currentPool != null ? currentPool.runInvisible(r) : r.call();
+        } catch (Exception e) {
+            Throwable cause = e;
+            // runInvisible wraps the exception of the callable, which in turn may wrap the exception of a task
+            while (cause instanceof ExecutionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof CanceledExecutionException) {
+                throw (CanceledExecutionException)cause;
+            } else if (cause instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+                CanceledExecutionException cee = new CanceledExecutionException(cause.getMessage());
+                cee.initCause(cause);
+                throw cee;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new RuntimeException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Waits for the completion of all argument futures without blocking a thread of the pool, see
+     * {@link #runInvisibleIfPooled(Callable)}. The exception of the first failed future is rethrown unwrapped, all
+     * futures are canceled in this case.
+     *
+     * @param futures the futures to wait for
+     * @throws CanceledExecutionException If any of the futures was canceled or the waiting thread was interrupted.
+     * @since 3.8
+     */
+    public static void waitForAll(final Iterable<? extends Future<?>> futures) throws CanceledExecutionException {
+        boolean success = false;
+        try {
+            runInvisibleIfPooled(() -> {
+                for (Future<?> f : futures) {
+                    f.get();
+                }
+                return null;
+            });
+            success = true;
+        } finally {
+            if (!success) {
+                for (Future<?> f : futures) {
+                    f.cancel(true);
+                }
+            }
+        }
+    }
+
     /**
      * Sets the maximum number of threads in the pool. If the new value is
      * smaller than the old value running surplus threads will not be